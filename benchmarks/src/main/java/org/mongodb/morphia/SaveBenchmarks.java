@@ -0,0 +1,80 @@
+package org.mongodb.morphia;
+
+import com.mongodb.DBObject;
+import org.mongodb.morphia.annotations.PostPersist;
+import org.mongodb.morphia.benchmarks.EntityShape;
+import org.mongodb.morphia.mapping.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the client side of {@link Datastore#save(Object)}: encoding the entity while tracking the objects involved, then updating the
+ * entity from its document and calling the post persist methods.  {@code identity} is the save path as it is; {@code equality} tracks the
+ * involved objects in a map keyed on {@code equals} and creates an entity cache per saved entity as the save path used to.  Comparing the
+ * allocation rate of the two shows what the save path saves per entity.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveBenchmarks {
+    @Param({"FLAT", "EMBEDDED", "POLYMORPHIC"})
+    private EntityShape shape;
+
+    private Mapper mapper;
+    private Object entity;
+
+    /**
+     * Maps the entity classes and creates the entity to save.
+     */
+    @Setup
+    public void setUp() {
+        mapper = new Morphia().map(EntityShape.classes()).getMapper();
+        entity = shape.create();
+    }
+
+    /**
+     * @return the key of the saved entity
+     */
+    @Benchmark
+    public Key<Object> identity() {
+        return save(new InvolvedObjects(), false);
+    }
+
+    /**
+     * @return the key of the saved entity
+     */
+    @Benchmark
+    public Key<Object> equality() {
+        return save(new LinkedHashMap<Object, DBObject>(), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Key<Object> save(final Map<Object, DBObject> involvedObjects, final boolean cachePerEntity) {
+        mapper.toDBObject(entity, involvedObjects);
+        final DBObject document = involvedObjects.remove(entity);
+        mapper.updateKeyAndVersionInfo(null, document, cachePerEntity ? mapper.createEntityCache() : null, entity);
+        final Key<Object> key = new Key<Object>((Class<Object>) entity.getClass(), "benchmarks", mapper.getId(entity));
+        mapper.getMappedClass(entity).callLifecycleMethods(PostPersist.class, entity, document, mapper);
+        for (final Entry<Object, DBObject> entry : involvedObjects.entrySet()) {
+            mapper.getMappedClass(entry.getKey()).callLifecycleMethods(PostPersist.class, entry.getKey(), entry.getValue(), mapper);
+        }
+        return key;
+    }
+}
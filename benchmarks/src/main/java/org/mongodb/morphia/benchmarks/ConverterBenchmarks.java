@@ -0,0 +1,70 @@
+package org.mongodb.morphia.benchmarks;
+
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.benchmarks.model.Values;
+import org.mongodb.morphia.converters.Converters;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.mapping.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Converters#encode(Class, Object)} and {@link Converters#decode(Class, Object, MappedField)} for each built-in converter.
+ * The {@code type} parameter names a field of {@link Values}, which holds one value per converter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConverterBenchmarks {
+    @Param({"booleanValue", "byteValue", "charValue", "shortValue", "intValue", "longValue", "floatValue", "doubleValue", "stringValue",
+            "dateValue", "localeValue", "uriValue", "classValue", "charArrayValue", "enumValue", "enumSetValue", "keyValue",
+            "objectIdValue", "bigDecimalValue", "timestampValue", "listValue", "mapValue"})
+    private String type;
+
+    private Converters converters;
+    private MappedField field;
+    private Object value;
+    private Object encoded;
+
+    /**
+     * Looks up the field and encodes its value once so decoding reads what the converter writes.
+     */
+    @Setup
+    public void setUp() {
+        final Mapper mapper = new Morphia().map(Values.class).getMapper();
+        converters = mapper.getConverters();
+        field = mapper.getMappedClass(Values.class).getMappedFieldByJavaField(type);
+        value = field.getFieldValue(new Values());
+        encoded = converters.encode(field.getType(), value);
+    }
+
+    /**
+     * @return the encoded value
+     */
+    @Benchmark
+    public Object encode() {
+        return converters.encode(field.getType(), value);
+    }
+
+    /**
+     * @return the decoded value
+     */
+    @Benchmark
+    public Object decode() {
+        return converters.decode(field.getType(), encoded, field);
+    }
+}
@@ -0,0 +1,62 @@
+package org.mongodb.morphia.benchmarks;
+
+import org.mongodb.morphia.benchmarks.model.Author;
+import org.mongodb.morphia.benchmarks.model.Bibliography;
+import org.mongodb.morphia.benchmarks.model.Drawing;
+import org.mongodb.morphia.benchmarks.model.Library;
+import org.mongodb.morphia.benchmarks.model.Nested;
+import org.mongodb.morphia.benchmarks.model.Wide;
+
+/**
+ * The kinds of entity the mapping benchmarks run against.
+ */
+public enum EntityShape {
+    FLAT {
+        @Override
+        public Object create() {
+            return Author.create(42);
+        }
+    },
+    WIDE {
+        @Override
+        public Object create() {
+            return Wide.create();
+        }
+    },
+    EMBEDDED {
+        @Override
+        public Object create() {
+            return Nested.create(6);
+        }
+    },
+    COLLECTIONS {
+        @Override
+        public Object create() {
+            return Library.create(20);
+        }
+    },
+    POLYMORPHIC {
+        @Override
+        public Object create() {
+            return Drawing.create(20);
+        }
+    },
+    REFERENCES {
+        @Override
+        public Object create() {
+            return Bibliography.create(10);
+        }
+    };
+
+    /**
+     * @return the classes to map before running a benchmark
+     */
+    public static Class[] classes() {
+        return new Class[]{Author.class, Wide.class, Nested.class, Library.class, Drawing.class, Bibliography.class};
+    }
+
+    /**
+     * @return a new entity of this shape with every field set
+     */
+    public abstract Object create();
+}
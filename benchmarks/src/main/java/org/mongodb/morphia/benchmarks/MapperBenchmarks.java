@@ -0,0 +1,70 @@
+package org.mongodb.morphia.benchmarks;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBDecoder;
+import com.mongodb.DefaultDBEncoder;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.mapping.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Mapper#toDBObject(Object)} and {@link Mapper#fromDBObject(org.mongodb.morphia.Datastore, Class, DBObject,
+ * org.mongodb.morphia.mapping.cache.EntityCache)} for each {@link EntityShape}.  Decoding creates a new entity cache per document as a
+ * query does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmarks {
+    @Param({"FLAT", "WIDE", "EMBEDDED", "COLLECTIONS", "POLYMORPHIC", "REFERENCES"})
+    private EntityShape shape;
+
+    private Mapper mapper;
+    private Object entity;
+    private Class<?> type;
+    private DBObject document;
+
+    /**
+     * Maps the entity classes and encodes the entity once.  The document is passed through BSON so decoding reads the lists and
+     * documents the driver would return from a query.
+     */
+    @Setup
+    public void setUp() {
+        mapper = new Morphia().map(EntityShape.classes()).getMapper();
+        entity = shape.create();
+        type = entity.getClass();
+        document = new DefaultDBDecoder().decode(new DefaultDBEncoder().encode(mapper.toDBObject(entity)), (DBCollection) null);
+    }
+
+    /**
+     * @return the encoded entity
+     */
+    @Benchmark
+    public DBObject toDBObject() {
+        return mapper.toDBObject(entity);
+    }
+
+    /**
+     * @return the decoded entity
+     */
+    @Benchmark
+    public Object fromDBObject() {
+        return mapper.fromDBObject(null, type, document, mapper.createEntityCache());
+    }
+}
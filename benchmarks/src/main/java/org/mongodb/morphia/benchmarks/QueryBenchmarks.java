@@ -0,0 +1,100 @@
+package org.mongodb.morphia.benchmarks;
+
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.benchmarks.model.Library;
+import org.mongodb.morphia.benchmarks.model.Wide;
+import org.mongodb.morphia.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating queries, adding criteria and rendering them with {@link Query#getQueryObject()}.  The datastore is never connected;
+ * queries are only built.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings("deprecation")
+public class QueryBenchmarks {
+    private final List<String> tags = Arrays.asList("tag1", "tag2", "tag3");
+    private MongoClient client;
+    private Datastore datastore;
+
+    /**
+     * Creates a datastore with the benchmark entities mapped.
+     */
+    @Setup
+    public void setUp() {
+        client = new MongoClient();
+        datastore = new Morphia().map(EntityShape.classes()).createDatastore(client, "morphia_benchmarks");
+    }
+
+    /**
+     * Closes the client.
+     */
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    /**
+     * @return an empty query
+     */
+    @Benchmark
+    public Query<Wide> create() {
+        return datastore.createQuery(Wide.class);
+    }
+
+    /**
+     * @return the document of a query with a single equality
+     */
+    @Benchmark
+    public DBObject equality() {
+        return datastore.createQuery(Wide.class).field("s1").equal("alpha").getQueryObject();
+    }
+
+    /**
+     * @return the document of a query with several operators and a sort
+     */
+    @Benchmark
+    public DBObject criteria() {
+        return datastore.createQuery(Wide.class)
+                        .field("s1").equal("alpha")
+                        .field("i1").greaterThan(3)
+                        .field("l1").lessThanOrEq(40L)
+                        .field("b1").notEqual(false)
+                        .order("-date1, s2")
+                        .getQueryObject();
+    }
+
+    /**
+     * @return the document of a query with alternatives and criteria on collections
+     */
+    @Benchmark
+    public DBObject alternatives() {
+        final Query<Library> query = datastore.createQuery(Library.class);
+        query.or(query.criteria("tags").in(tags),
+                 query.criteria("shelves").hasThisOne(3),
+                 query.criteria("branches.city").startsWith("New"));
+        return query.getQueryObject();
+    }
+}
@@ -0,0 +1,82 @@
+package org.mongodb.morphia.benchmarks;
+
+import com.mongodb.DBObject;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.benchmarks.model.Library;
+import org.mongodb.morphia.benchmarks.model.Wide;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.query.UpdateOpsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building update operations with {@link UpdateOpsImpl} and rendering them with {@link UpdateOpsImpl#getOps()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateBenchmarks {
+    private final List<String> tags = Arrays.asList("tag1", "tag2", "tag3");
+    private final Date now = new Date();
+    private Mapper mapper;
+
+    /**
+     * Maps the benchmark entities.
+     */
+    @Setup
+    public void setUp() {
+        mapper = new Morphia().map(EntityShape.classes()).getMapper();
+    }
+
+    /**
+     * @return the operations setting a single field
+     */
+    @Benchmark
+    public DBObject set() {
+        final UpdateOpsImpl<Wide> ops = new UpdateOpsImpl<Wide>(Wide.class, mapper);
+        ops.set("s1", "omega");
+        return ops.getOps();
+    }
+
+    /**
+     * @return the operations combining several operators
+     */
+    @Benchmark
+    public DBObject operators() {
+        final UpdateOpsImpl<Wide> ops = new UpdateOpsImpl<Wide>(Wide.class, mapper);
+        ops.set("s1", "omega")
+            .set("date1", now)
+            .inc("i1")
+            .inc("l1", 5L)
+            .unset("s8");
+        return ops.getOps();
+    }
+
+    /**
+     * @return the operations changing collections
+     */
+    @Benchmark
+    public DBObject arrays() {
+        final UpdateOpsImpl<Library> ops = new UpdateOpsImpl<Library>(Library.class, mapper);
+        ops.push("tags", tags)
+            .addToSet("shelves", 12)
+            .removeAll("visitors", 0);
+        return ops.getOps();
+    }
+}
@@ -0,0 +1,45 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.Date;
+
+/**
+ * A flat entity holding a handful of simple values.
+ */
+@Entity("authors")
+public class Author {
+    @Id
+    private ObjectId id;
+    private String name;
+    private int age;
+    private long followers;
+    private double rating;
+    private boolean active;
+    private Date joined;
+
+    /**
+     * @param seed varies the values
+     * @return an author with every field set
+     */
+    public static Author create(final int seed) {
+        final Author author = new Author();
+        author.id = new ObjectId();
+        author.name = "Author " + seed;
+        author.age = 30 + seed % 50;
+        author.followers = 1000L * seed;
+        author.rating = seed / 7.0;
+        author.active = seed % 2 == 0;
+        author.joined = new Date(1500000000000L + seed);
+        return author;
+    }
+
+    /**
+     * @return the id
+     */
+    public ObjectId getId() {
+        return id;
+    }
+}
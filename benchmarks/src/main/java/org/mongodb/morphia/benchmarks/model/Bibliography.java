@@ -0,0 +1,34 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entity referencing other entities by their keys, which can be read without a server.
+ */
+@Entity("bibliographies")
+public class Bibliography {
+    @Id
+    private ObjectId id;
+    private Key<Author> editor;
+    private List<Key<Author>> authors = new ArrayList<Key<Author>>();
+
+    /**
+     * @param size the number of referenced authors
+     * @return a bibliography with every reference set
+     */
+    public static Bibliography create(final int size) {
+        final Bibliography bibliography = new Bibliography();
+        bibliography.id = new ObjectId();
+        bibliography.editor = new Key<Author>(Author.class, "authors", new ObjectId());
+        for (int i = 0; i < size; i++) {
+            bibliography.authors.add(new Key<Author>(Author.class, "authors", new ObjectId()));
+        }
+        return bibliography;
+    }
+}
@@ -0,0 +1,84 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entity holding a list of polymorphic embedded documents which are stored with their class names.
+ */
+@Entity("drawings")
+public class Drawing {
+    @Id
+    private ObjectId id;
+    private String title;
+    @Embedded
+    private List<Shape> shapes = new ArrayList<Shape>();
+
+    /**
+     * @param size the number of shapes
+     * @return a drawing of alternating circles and squares
+     */
+    public static Drawing create(final int size) {
+        final Drawing drawing = new Drawing();
+        drawing.id = new ObjectId();
+        drawing.title = "Drawing";
+        for (int i = 0; i < size; i++) {
+            drawing.shapes.add(i % 2 == 0 ? new Circle(i) : new Square(i));
+        }
+        return drawing;
+    }
+
+    /**
+     * The base of the shapes
+     */
+    @Embedded
+    public abstract static class Shape {
+        private double x;
+        private double y;
+
+        Shape() {
+        }
+
+        Shape(final double position) {
+            x = position;
+            y = -position;
+        }
+    }
+
+    /**
+     * A circle
+     */
+    @Embedded
+    public static class Circle extends Shape {
+        private double radius;
+
+        Circle() {
+        }
+
+        Circle(final double radius) {
+            super(radius);
+            this.radius = radius;
+        }
+    }
+
+    /**
+     * A square
+     */
+    @Embedded
+    public static class Square extends Shape {
+        private double side;
+
+        Square() {
+        }
+
+        Square(final double side) {
+            super(side);
+            this.side = side;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An entity made mostly of collections: lists and sets of values, a map and a list of embedded documents.
+ */
+@Entity("libraries")
+public class Library {
+    @Id
+    private ObjectId id;
+    private List<String> tags = new ArrayList<String>();
+    private Set<Integer> shelves = new HashSet<Integer>();
+    private Map<String, Long> loans = new LinkedHashMap<String, Long>();
+    private int[] visitors;
+    @Embedded
+    private List<Branch> branches = new ArrayList<Branch>();
+
+    /**
+     * @param size the number of elements in each collection
+     * @return a library with every collection filled
+     */
+    public static Library create(final int size) {
+        final Library library = new Library();
+        library.id = new ObjectId();
+        library.visitors = new int[size];
+        for (int i = 0; i < size; i++) {
+            library.tags.add("tag" + i);
+            library.shelves.add(i);
+            library.loans.put("book" + i, (long) i * 3);
+            library.visitors[i] = i * 11;
+            final Branch branch = new Branch();
+            branch.city = "City " + i;
+            branch.street = i + " Main Street";
+            branch.zip = 10000 + i;
+            library.branches.add(branch);
+        }
+        return library;
+    }
+
+    /**
+     * A branch of the library
+     */
+    @Embedded
+    public static class Branch {
+        private String city;
+        private String street;
+        private int zip;
+    }
+}
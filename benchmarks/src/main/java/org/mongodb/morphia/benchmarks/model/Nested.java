@@ -0,0 +1,47 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+/**
+ * An entity whose value is a chain of embedded documents.
+ */
+@Entity("nested")
+public class Nested {
+    @Id
+    private ObjectId id;
+    @Embedded
+    private Level root;
+
+    /**
+     * @param depth the number of embedded levels
+     * @return an entity nested to the given depth
+     */
+    public static Nested create(final int depth) {
+        final Nested nested = new Nested();
+        nested.id = new ObjectId();
+        for (int i = depth; i > 0; i--) {
+            final Level level = new Level();
+            level.name = "level " + i;
+            level.depth = i;
+            level.weight = i * 0.5;
+            level.child = nested.root;
+            nested.root = level;
+        }
+        return nested;
+    }
+
+    /**
+     * One level of the chain
+     */
+    @Embedded
+    public static class Level {
+        private String name;
+        private int depth;
+        private double weight;
+        @Embedded
+        private Level child;
+    }
+}
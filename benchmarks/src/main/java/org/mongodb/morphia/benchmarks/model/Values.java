@@ -0,0 +1,60 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One field for each of the built-in converters.  The converter benchmarks look fields up by name so the names are the values of their
+ * {@code type} parameter.
+ */
+@Entity("values")
+public class Values {
+    @Id
+    private ObjectId id = new ObjectId();
+    private boolean booleanValue = true;
+    private byte byteValue = 7;
+    private char charValue = 'x';
+    private short shortValue = 300;
+    private int intValue = 70000;
+    private long longValue = 1L << 40;
+    private float floatValue = 1.5f;
+    private double doubleValue = 2.5;
+    private String stringValue = "a string value";
+    private Date dateValue = new Date(1500000000000L);
+    private Locale localeValue = Locale.CANADA_FRENCH;
+    private URI uriValue = URI.create("http://morphia.example/path?query=1");
+    private Class classValue = Values.class;
+    private char[] charArrayValue = "chars".toCharArray();
+    private TimeUnit enumValue = TimeUnit.SECONDS;
+    private EnumSet<TimeUnit> enumSetValue = EnumSet.of(TimeUnit.SECONDS, TimeUnit.MINUTES);
+    private Key<Author> keyValue = new Key<Author>(Author.class, "authors", new ObjectId());
+    private ObjectId objectIdValue = new ObjectId();
+    private BigDecimal bigDecimalValue = new BigDecimal("12345.6789");
+    private Timestamp timestampValue = new Timestamp(1500000000000L);
+    private List<String> listValue = new ArrayList<String>();
+    private Map<String, Integer> mapValue = new LinkedHashMap<String, Integer>();
+
+    /**
+     * Creates the values
+     */
+    public Values() {
+        for (int i = 0; i < 10; i++) {
+            listValue.add("element" + i);
+            mapValue.put("key" + i, i);
+        }
+    }
+}
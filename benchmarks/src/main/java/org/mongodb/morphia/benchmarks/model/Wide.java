@@ -0,0 +1,86 @@
+package org.mongodb.morphia.benchmarks.model;
+
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.Date;
+
+/**
+ * A flat entity with many fields, the shape of a denormalized reporting document.
+ */
+@Entity("wide")
+public class Wide {
+    @Id
+    private ObjectId id;
+    private String s1;
+    private String s2;
+    private String s3;
+    private String s4;
+    private String s5;
+    private String s6;
+    private String s7;
+    private String s8;
+    private int i1;
+    private int i2;
+    private int i3;
+    private int i4;
+    private int i5;
+    private int i6;
+    private long l1;
+    private long l2;
+    private long l3;
+    private long l4;
+    private double d1;
+    private double d2;
+    private double d3;
+    private double d4;
+    private boolean b1;
+    private boolean b2;
+    private boolean b3;
+    private Date date1;
+    private Date date2;
+    private Date date3;
+    private Integer boxed1;
+    private Long boxed2;
+    private Double boxed3;
+
+    /**
+     * @return a document with every field set
+     */
+    public static Wide create() {
+        final Wide wide = new Wide();
+        wide.id = new ObjectId();
+        wide.s1 = "alpha";
+        wide.s2 = "beta";
+        wide.s3 = "gamma";
+        wide.s4 = "delta";
+        wide.s5 = "epsilon";
+        wide.s6 = "zeta";
+        wide.s7 = "eta";
+        wide.s8 = "theta";
+        wide.i1 = 1;
+        wide.i2 = 2;
+        wide.i3 = 3;
+        wide.i4 = 4;
+        wide.i5 = 5;
+        wide.i6 = 6;
+        wide.l1 = 10L;
+        wide.l2 = 20L;
+        wide.l3 = 30L;
+        wide.l4 = 40L;
+        wide.d1 = 1.5;
+        wide.d2 = 2.5;
+        wide.d3 = 3.5;
+        wide.d4 = 4.5;
+        wide.b1 = true;
+        wide.b3 = true;
+        wide.date1 = new Date(1500000000000L);
+        wide.date2 = new Date(1500000001000L);
+        wide.date3 = new Date(1500000002000L);
+        wide.boxed1 = 7;
+        wide.boxed2 = 8L;
+        wide.boxed3 = 9.0;
+        return wide;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The entities the benchmarks map, one for each shape of document.
+ */
+package org.mongodb.morphia.benchmarks.model;
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for mapping, conversion and query and update building.  None of them need a server.
+ */
+package org.mongodb.morphia.benchmarks;
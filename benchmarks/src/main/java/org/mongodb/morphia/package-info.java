@@ -0,0 +1,4 @@
+/**
+ * Benchmarks which need package access to the internals of the Datastore.
+ */
+package org.mongodb.morphia;
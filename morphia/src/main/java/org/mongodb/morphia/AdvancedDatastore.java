@@ -34,6 +34,81 @@ public interface AdvancedDatastore extends Datastore {
      */
     void setDecoderFact(DBDecoderFactory fact);
 
+    /**
+     * Returns the generator filling {@link org.mongodb.morphia.annotations.Sequence} annotated ids, creating one storing its sequences in
+     * {@value IdGenerator#DEFAULT_COLLECTION} if none has been set.
+     *
+     * @return the id generator
+     * @since 1.4
+     */
+    IdGenerator getIdGenerator();
+
+    /**
+     * Sets the generator filling {@link org.mongodb.morphia.annotations.Sequence} annotated ids.
+     *
+     * @param idGenerator the id generator
+     * @since 1.4
+     */
+    void setIdGenerator(IdGenerator idGenerator);
+
+    /**
+     * @return the recorder of query shapes or null if they aren't being recorded
+     * @since 1.4
+     */
+    QueryShapeRecorder getQueryShapeRecorder();
+
+    /**
+     * Sets the recorder of the shapes of the finds, counts, updates and deletes run through this Datastore.
+     *
+     * @param recorder the recorder or null to stop recording
+     * @since 1.4
+     */
+    void setQueryShapeRecorder(QueryShapeRecorder recorder);
+
+    /**
+     * @return the profiler explaining sampled and slow operations or null if they aren't being explained
+     * @since 1.4
+     */
+    PlanProfiler getPlanProfiler();
+
+    /**
+     * Sets the profiler explaining a sample of the queries and aggregations run through this Datastore and those which are slow.
+     *
+     * @param profiler the profiler or null to stop profiling
+     * @since 1.4
+     */
+    void setPlanProfiler(PlanProfiler profiler);
+
+    /**
+     * @return the log of slow operations or null if they aren't being logged
+     * @since 1.4
+     */
+    SlowOperationLog getSlowOperationLog();
+
+    /**
+     * Sets the log of the finds, counts, updates, deletes, aggregations, map reduce jobs and findAndModify calls run through this
+     * Datastore which are slower than its threshold.
+     *
+     * @param log the log or null to stop logging
+     * @since 1.4
+     */
+    void setSlowOperationLog(SlowOperationLog log);
+
+    /**
+     * @return the listener notified of the operations of this Datastore or null if there is none
+     * @since 1.4
+     */
+    DatastoreListener getDatastoreListener();
+
+    /**
+     * Sets the listener notified at the start and end of every operation this Datastore, its queries and its aggregation pipelines send
+     * to the server.
+     *
+     * @param listener the listener or null to stop notifying
+     * @since 1.4
+     */
+    void setDatastoreListener(DatastoreListener listener);
+
     /**
      * Returns an {@link AggregationPipeline} bound to the given collection and class.
      *
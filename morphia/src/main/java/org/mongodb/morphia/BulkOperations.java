@@ -0,0 +1,281 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkUpdateRequestBuilder;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteRequestBuilder;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.BulkWriteUpsert;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.Collation;
+import org.mongodb.morphia.annotations.Version;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.query.Query;
+import org.mongodb.morphia.query.QueryException;
+import org.mongodb.morphia.query.UpdateOperations;
+import org.mongodb.morphia.query.UpdateOpsImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects many updates and deletes and sends them as one bulk write per collection rather than one round trip per operation.  Queries
+ * and update operations are validated and translated as they are added, exactly as {@link Datastore#update(Query, UpdateOperations,
+ * UpdateOptions)} and {@link Datastore#delete(Query, DeleteOptions)} would, including the version increment for versioned entities.
+ * The setter methods return {@code this} so that a chaining style can be used.
+ *
+ * @see Datastore#bulk()
+ * @since 1.4
+ */
+@SuppressWarnings("deprecation")
+public class BulkOperations {
+    private final DatastoreImpl datastore;
+    private final Map<DBCollection, List<Operation>> operations = new LinkedHashMap<DBCollection, List<Operation>>();
+    private final Map<DBCollection, WriteConcern> writeConcerns = new HashMap<DBCollection, WriteConcern>();
+    private final Map<DBCollection, Class<?>> types = new HashMap<DBCollection, Class<?>>();
+    private boolean ordered = true;
+    private Boolean bypassDocumentValidation;
+    private WriteConcern writeConcern;
+    private int size;
+
+    BulkOperations(final DatastoreImpl datastore) {
+        this.datastore = datastore;
+    }
+
+    /**
+     * Adds an update of all the entities matching the query.
+     *
+     * @param query      the query to select the entities
+     * @param operations the update to apply
+     * @param <T>        the type of the entities
+     * @return this
+     */
+    public <T> BulkOperations update(final Query<T> query, final UpdateOperations<T> operations) {
+        return update(query, operations, new UpdateOptions()
+            .multi(true));
+    }
+
+    /**
+     * Adds an update of the entities matching the query.
+     *
+     * @param query      the query to select the entities
+     * @param operations the update to apply
+     * @param options    the options to apply.  The write concern is ignored in favor of the bulk write's.
+     * @param <T>        the type of the entities
+     * @return this
+     */
+    public <T> BulkOperations update(final Query<T> query, final UpdateOperations<T> operations, final UpdateOptions options) {
+        if (query.getSortObject() != null && !query.getSortObject().keySet().isEmpty()) {
+            throw new QueryException("sorting is not allowed for updates.");
+        }
+        if (query.getOffset() > 0) {
+            throw new QueryException("a query offset is not allowed for updates.");
+        }
+        if (query.getLimit() > 0) {
+            throw new QueryException("a query limit is not allowed for updates.");
+        }
+
+        final List<MappedField> fields = datastore.getMapper().getMappedClass(query.getEntityClass())
+                                                  .getFieldsAnnotatedWith(Version.class);
+        if (!fields.isEmpty()) {
+            operations.inc(fields.get(0).getNameToStore(), 1);
+        }
+
+        final DBObject filter = query.getQueryObject();
+        if (operations.isIsolated()) {
+            filter.put("$isolated", true);
+        }
+        final DBObject update = ((UpdateOpsImpl<T>) operations).getOps();
+        if (update.keySet().isEmpty()) {
+            throw new QueryException("No update operations were given.");
+        }
+        add(query, new Operation(size, filter, update, options.isUpsert(), options.isMulti(), options.getCollation()));
+        return this;
+    }
+
+    /**
+     * Adds a delete of every entity matching the query.
+     *
+     * @param query the query to select the entities
+     * @param <T>   the type of the entities
+     * @return this
+     */
+    public <T> BulkOperations delete(final Query<T> query) {
+        return delete(query, new DeleteOptions());
+    }
+
+    /**
+     * Adds a delete of every entity matching the query.
+     *
+     * @param query   the query to select the entities
+     * @param options the options to apply.  The write concern is ignored in favor of the bulk write's.
+     * @param <T>     the type of the entities
+     * @return this
+     */
+    public <T> BulkOperations delete(final Query<T> query, final DeleteOptions options) {
+        if (query.getSortObject() != null || query.getOffset() != 0 || query.getLimit() > 0) {
+            throw new QueryException("Delete does not allow sort/offset/limit query options.");
+        }
+        add(query, new Operation(size, query.getQueryObject(), null, false, true, options.getCollation()));
+        return this;
+    }
+
+    /**
+     * Sets whether the operations on a collection are applied in the order they were added, stopping at the first error.  The default is
+     * true.  Unordered writes may be applied in parallel by the server and continue past errors.
+     *
+     * @param ordered true if the operations should be applied in order
+     * @return this
+     */
+    public BulkOperations ordered(final boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Sets the write concern of the bulk writes.  By default the write concern of each collection's entity type is used.
+     *
+     * @param writeConcern the write concern
+     * @return this
+     */
+    public BulkOperations writeConcern(final WriteConcern writeConcern) {
+        this.writeConcern = writeConcern;
+        return this;
+    }
+
+    /**
+     * Sets whether to bypass document validation.
+     *
+     * @param bypassDocumentValidation whether to bypass document validation, or null if unspecified
+     * @return this
+     * @mongodb.server.release 3.2
+     */
+    public BulkOperations bypassDocumentValidation(final Boolean bypassDocumentValidation) {
+        this.bypassDocumentValidation = bypassDocumentValidation;
+        return this;
+    }
+
+    /**
+     * @return the number of operations added so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Executes the operations with one bulk write per collection, in the order the collections were first used.  The operations are
+     * cleared afterwards so this instance can be reused.
+     * <p>
+     * The bulk writes are not atomic as a whole.  If the write to one collection fails the driver's {@link BulkWriteException} is
+     * thrown as is: it only describes the write to that collection and the indexes of its {@link BulkWriteError errors} count the
+     * operations on that collection alone.  The writes to the collections before it have been applied but their results are not
+     * reported, and the collections after it are not written at all.  Callers which need to know what was applied should keep the
+     * operations on different collections in separate instances.
+     *
+     * @return the results of the bulk writes
+     */
+    public BulkResults execute() {
+        final BulkResults results = new BulkResults();
+        try {
+            for (final Map.Entry<DBCollection, List<Operation>> entry : operations.entrySet()) {
+                execute(entry.getKey(), entry.getValue(), results);
+            }
+        } finally {
+            operations.clear();
+            writeConcerns.clear();
+            types.clear();
+            size = 0;
+        }
+        return results;
+    }
+
+    private void execute(final DBCollection collection, final List<Operation> list, final BulkResults results) {
+        final BulkWriteOperation bulk = ordered
+                                        ? collection.initializeOrderedBulkOperation()
+                                        : collection.initializeUnorderedBulkOperation();
+        bulk.setBypassDocumentValidation(bypassDocumentValidation);
+        for (final Operation operation : list) {
+            final BulkWriteRequestBuilder request = bulk.find(operation.filter);
+            if (operation.collation != null) {
+                request.collation(operation.collation);
+            }
+            if (operation.update == null) {
+                request.remove();
+            } else if (operation.upsert) {
+                final BulkUpdateRequestBuilder upsert = request.upsert();
+                if (operation.multi) {
+                    upsert.update(operation.update);
+                } else {
+                    upsert.updateOne(operation.update);
+                }
+            } else if (operation.multi) {
+                request.update(operation.update);
+            } else {
+                request.updateOne(operation.update);
+            }
+        }
+
+        final DatastoreOperation traced = datastore.started("bulkWrite", types.get(collection), collection);
+        final BulkWriteResult result;
+        try {
+            result = bulk.execute(writeConcern != null ? writeConcern : writeConcerns.get(collection));
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        if (result.isAcknowledged()) {
+            traced.completed(result.getMatchedCount() + result.getRemovedCount() + result.getUpserts().size(), 0);
+            final Map<Integer, Object> upserted = new HashMap<Integer, Object>();
+            for (final BulkWriteUpsert upsert : result.getUpserts()) {
+                upserted.put(list.get(upsert.getIndex()).index, upsert.getId());
+            }
+            results.add(result.getMatchedCount(), result.isModifiedCountAvailable() ? result.getModifiedCount() : -1,
+                        result.getRemovedCount(), upserted);
+        } else {
+            traced.completed(SlowOperation.UNKNOWN, 0);
+            results.unacknowledged();
+        }
+    }
+
+    private void add(final Query<?> query, final Operation operation) {
+        DBCollection collection = query.getCollection();
+        if (collection == null) {
+            collection = datastore.getCollection(query.getEntityClass());
+        }
+        List<Operation> list = operations.get(collection);
+        if (list == null) {
+            list = new ArrayList<Operation>();
+            operations.put(collection, list);
+            writeConcerns.put(collection, datastore.enforceWriteConcern(new UpdateOptions(), query.getEntityClass()).getWriteConcern());
+            types.put(collection, query.getEntityClass());
+        }
+        list.add(operation);
+        size++;
+    }
+
+    private static final class Operation {
+        private final int index;
+        private final DBObject filter;
+        private final DBObject update;
+        private final boolean upsert;
+        private final boolean multi;
+        private final Collation collation;
+
+        Operation(final int index, final DBObject filter, final DBObject update, final boolean upsert, final boolean multi,
+                  final Collation collation) {
+            this.index = index;
+            this.filter = filter != null ? filter : new BasicDBObject();
+            this.update = update;
+            this.upsert = upsert;
+            this.multi = multi;
+            this.collation = collation;
+        }
+    }
+}
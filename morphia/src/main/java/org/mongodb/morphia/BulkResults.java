@@ -0,0 +1,84 @@
+package org.mongodb.morphia;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The outcome of {@link BulkOperations#execute()}.  The server only reports the number of matched, modified and deleted documents for
+ * a bulk write as a whole so those counts are totals across all the operations.  Upserted ids are reported per operation.
+ *
+ * @since 1.4
+ */
+public class BulkResults {
+    private final Map<Integer, Object> upsertedIds = new HashMap<Integer, Object>();
+    private boolean acknowledged = true;
+    private int matchedCount;
+    private int modifiedCount;
+    private int deletedCount;
+
+    BulkResults() {
+    }
+
+    void add(final int matched, final int modified, final int deleted, final Map<Integer, Object> upserted) {
+        matchedCount += matched;
+        modifiedCount = modified < 0 || modifiedCount < 0 ? -1 : modifiedCount + modified;
+        deletedCount += deleted;
+        upsertedIds.putAll(upserted);
+    }
+
+    void unacknowledged() {
+        acknowledged = false;
+    }
+
+    /**
+     * @return false if any of the bulk writes were sent with an unacknowledged write concern in which case the counts are incomplete
+     */
+    public boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * @return the number of documents deleted
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return the number of documents matched by the updates
+     */
+    public int getMatchedCount() {
+        return matchedCount;
+    }
+
+    /**
+     * @return the number of documents modified by the updates, or -1 if the server could not report it
+     */
+    public int getModifiedCount() {
+        return modifiedCount;
+    }
+
+    /**
+     * @return the number of documents inserted by upserts
+     */
+    public int getUpsertedCount() {
+        return upsertedIds.size();
+    }
+
+    /**
+     * @param index the position of the operation in the order it was added to the {@link BulkOperations}
+     * @return the id of the document upserted by that operation or null if it did not insert a document
+     */
+    public Object getUpsertedId(final int index) {
+        return upsertedIds.get(index);
+    }
+
+    /**
+     * @return the ids of the upserted documents keyed by the position of the operation that inserted them
+     */
+    public Map<Integer, Object> getUpsertedIds() {
+        return Collections.unmodifiableMap(upsertedIds);
+    }
+}
@@ -0,0 +1,262 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.mongodb.morphia.annotations.Version;
+import org.mongodb.morphia.mapping.InvolvedObjects;
+import org.mongodb.morphia.mapping.MappedClass;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxyHelper;
+import org.mongodb.morphia.query.UpdateException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.mongodb.DBCollection.ID_FIELD_NAME;
+import static java.lang.String.format;
+
+/**
+ * Saves entities with one bulk write per collection for {@link Datastore#save(Iterable, InsertOptions)} when bulk writes are enabled and
+ * for {@link AdvancedDatastore#saveVersioned(Iterable, InsertOptions)}.
+ */
+@SuppressWarnings("deprecation")
+final class BulkSave {
+    private static final int DUPLICATE_KEY = 11000;
+    // the _id index is named "_id_" and the servers name the index which was violated in the message
+    private static final Pattern ID_INDEX = Pattern.compile("\\b_id_\\b");
+
+    private final DatastoreImpl datastore;
+    private final Mapper mapper;
+
+    BulkSave(final DatastoreImpl datastore) {
+        this.datastore = datastore;
+        this.mapper = datastore.getMapper();
+    }
+
+    /**
+     * Saves the entities by collection and returns their keys in the order given.  If {@code conflicts} is null a version mismatch fails
+     * the save, otherwise the conflicting entities are collected there and have no key in the result.  An entity given more than once is
+     * saved once and has its key returned for each time it was given.
+     */
+    <T> List<Key<T>> save(final Iterable<T> entities, final InsertOptions options, final List<T> conflicts) {
+        final List<T> ordered = new ArrayList<T>();
+        final Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Map<String, List<T>> byCollection = new LinkedHashMap<String, List<T>>();
+        for (final T entity : entities) {
+            if (entity == null) {
+                throw new UpdateException("Can not persist a null entity");
+            }
+            final T unwrapped = ProxyHelper.unwrap(entity);
+            ordered.add(unwrapped);
+            // the same instance would be encoded twice into involvedObjects but can only be post-processed once
+            if (!distinct.add(unwrapped)) {
+                continue;
+            }
+            final String collection = mapper.getCollectionName(unwrapped.getClass());
+            List<T> list = byCollection.get(collection);
+            if (list == null) {
+                list = new ArrayList<T>();
+                byCollection.put(collection, list);
+            }
+            list.add(unwrapped);
+        }
+
+        final Map<Object, Key<T>> keys = new IdentityHashMap<Object, Key<T>>();
+        for (final Entry<String, List<T>> entry : byCollection.entrySet()) {
+            final List<T> saved = new ArrayList<T>(entry.getValue().size());
+            final List<Key<T>> savedKeys = save(datastore.getDB().getCollection(entry.getKey()), entry.getValue(), options, saved,
+                                                conflicts);
+            for (int i = 0; i < saved.size(); i++) {
+                keys.put(saved.get(i), savedKeys.get(i));
+            }
+        }
+
+        final List<Key<T>> savedKeys = new ArrayList<Key<T>>(ordered.size());
+        for (final T entity : ordered) {
+            final Key<T> key = keys.get(entity);
+            if (key != null) {
+                savedKeys.add(key);
+            }
+        }
+        return savedKeys;
+    }
+
+    /**
+     * Saves the entities of one collection.  Entities without an _id are inserted and entities with one are upserted by _id, all in a
+     * single bulk write.  Inserts are queued ahead of the upserts so that an ordered bulk write needs no more round trips than an
+     * unordered one.  Versioned entities are upserted by _id and their stored version, and queued last.  If the stored version no longer
+     * matches, the upsert tries to insert an _id which is already taken and fails with a duplicate key error, which is how a conflict is
+     * told apart from a replacement which was applied.  A conflict doesn't stop the others from being written: an ordered bulk write is
+     * resumed after it.  If {@code conflicts} is null a version mismatch fails the save, otherwise the conflicting entities are collected
+     * there and left untouched while the others are added to {@code saved}.
+     * <p>
+     * When the save fails, the entities known to have been written still get their ids and versions updated and their @PostPersist
+     * methods called before the failure is rethrown.
+     */
+    private <T> List<Key<T>> save(final DBCollection dbColl, final List<T> entities, final InsertOptions options, final List<T> saved,
+                                  final List<T> conflicts) {
+        final InsertOptions bulkOptions = datastore.enforceWriteConcern(options, entities.get(0).getClass());
+
+        // involvedObjects is used not only as a cache but also as a list of what needs to be called for life-cycle methods at the end.
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
+        final List<T> guarded = new ArrayList<T>();
+        final List<DBObject> guards = new ArrayList<DBObject>();
+        final List<T> inserted = new ArrayList<T>();
+        final List<T> upserted = new ArrayList<T>();
+        final List<DBObject> filters = new ArrayList<DBObject>();
+        for (final T entity : entities) {
+            final MappedClass mc = mapper.getMappedClass(entity);
+            datastore.checkNotSaved(mc);
+            IdGenerator.assignId(datastore, mc, entity, dbColl.getName());
+            final DBObject document = datastore.entityToDBObj(entity, involvedObjects);
+            final Object idValue = document.get(ID_FIELD_NAME);
+            final BasicDBObject filter = new BasicDBObject(ID_FIELD_NAME, idValue);
+            if (!mc.getFieldsAnnotatedWith(Version.class).isEmpty()) {
+                final MappedField mfVersion = mc.getMappedVersionField();
+                final Long oldVersion = (Long) mfVersion.getFieldValue(entity);
+                final long newVersion = datastore.nextValue(oldVersion);
+                document.put(mfVersion.getNameToStore(), newVersion);
+                if (idValue != null && newVersion != 1) {
+                    filter.put(mfVersion.getNameToStore(), oldVersion);
+                    guarded.add(entity);
+                    guards.add(filter);
+                    continue;
+                }
+            }
+
+            if (idValue == null) {
+                inserted.add(entity);
+            } else {
+                upserted.add(entity);
+                filters.add(filter);
+            }
+        }
+
+        // the bulk write's operations are numbered in the order they were queued: the inserts, the upserts, then the guarded upserts
+        final List<T> bulkEntities = new ArrayList<T>(inserted);
+        bulkEntities.addAll(upserted);
+        bulkEntities.addAll(guarded);
+        filters.addAll(guards);
+
+        final DatastoreOperation traced = datastore.started("save", entities.get(0).getClass(), dbColl);
+        final Set<Object> written = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Set<Object> conflicting = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        boolean acknowledged = true;
+        RuntimeException failure = null;
+        try {
+            int from = 0;
+            while (from < bulkEntities.size()) {
+                final BulkWriteOperation bulk = bulkOptions.isContinueOnError()
+                                                ? dbColl.initializeUnorderedBulkOperation()
+                                                : dbColl.initializeOrderedBulkOperation();
+                bulk.setBypassDocumentValidation(bulkOptions.getBypassDocumentValidation());
+                for (int i = from; i < bulkEntities.size(); i++) {
+                    final DBObject document = involvedObjects.get(bulkEntities.get(i));
+                    if (i < inserted.size()) {
+                        bulk.insert(document);
+                    } else {
+                        bulk.find(filters.get(i - inserted.size())).upsert().replaceOne(document);
+                    }
+                }
+                try {
+                    acknowledged &= bulk.execute(bulkOptions.getWriteConcern()).isAcknowledged();
+                    written.addAll(bulkEntities.subList(from, bulkEntities.size()));
+                    from = bulkEntities.size();
+                } catch (BulkWriteException e) {
+                    from = addWritten(e, bulkEntities, from, inserted.size() + upserted.size(), bulkOptions.isContinueOnError(), written,
+                                      conflicting);
+                }
+            }
+            if (!conflicting.isEmpty() && conflicts == null) {
+                final List<Object> conflictingIds = new ArrayList<Object>();
+                for (final T entity : guarded) {
+                    if (conflicting.contains(entity)) {
+                        conflictingIds.add(involvedObjects.get(entity).get(ID_FIELD_NAME));
+                    }
+                }
+                failure = new ConcurrentModificationException(format("%d entities of collection %s were concurrently updated: %s",
+                                                                     conflicting.size(), dbColl.getName(), conflictingIds));
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            traced.failed(failure);
+        } else {
+            traced.completed(acknowledged ? written.size() : SlowOperation.UNKNOWN, 0);
+        }
+
+        for (final T entity : entities) {
+            if (written.contains(entity)) {
+                saved.add(entity);
+            } else {
+                involvedObjects.remove(entity);
+                if (conflicting.contains(entity) && conflicts != null) {
+                    conflicts.add(entity);
+                }
+            }
+        }
+        if (failure != null) {
+            if (!saved.isEmpty()) {
+                datastore.postSaveOperations(saved, involvedObjects, dbColl);
+            }
+            throw failure;
+        }
+        return datastore.postSaveOperations(saved, involvedObjects, dbColl);
+    }
+
+    /**
+     * Records which of the operations from {@code from} on were written.  An ordered bulk write stops at its first error while an
+     * unordered one carries on, so either every operation before the first error or every operation without an error was written.  A
+     * duplicate _id from a guarded upsert is a version conflict and is collected in {@code conflicting}, any other error is rethrown.
+     *
+     * @return where to resume the bulk write, which is past its last operation unless an ordered bulk write stopped at a conflict
+     */
+    private static <T> int addWritten(final BulkWriteException e, final List<T> bulkEntities, final int from, final int firstGuarded,
+                                      final boolean unordered, final Set<Object> written, final Set<Object> conflicting) {
+        final Set<Integer> failed = new HashSet<Integer>();
+        int first = bulkEntities.size();
+        boolean conflictsOnly = e.getWriteConcernError() == null;
+        for (final BulkWriteError error : e.getWriteErrors()) {
+            final int index = from + error.getIndex();
+            failed.add(index);
+            first = Math.min(first, index);
+            if (index >= firstGuarded && isDuplicateId(error)) {
+                conflicting.add(bulkEntities.get(index));
+            } else {
+                conflictsOnly = false;
+            }
+        }
+        for (int i = from; i < (unordered ? bulkEntities.size() : first); i++) {
+            if (!failed.contains(i)) {
+                written.add(bulkEntities.get(i));
+            }
+        }
+        if (!conflictsOnly) {
+            throw e;
+        }
+        return unordered ? bulkEntities.size() : first + 1;
+    }
+
+    /**
+     * A replacement can also break a unique index on another field, which is an error rather than a conflict, so the index is checked.
+     */
+    private static boolean isDuplicateId(final BulkWriteError error) {
+        return error.getCode() == DUPLICATE_KEY && ID_INDEX.matcher(error.getMessage()).find();
+    }
+}
@@ -0,0 +1,379 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.DBCollection;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.query.UpdateOperations;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Coalesces increments of counter fields in memory and writes them as {@code $inc} updates in the background so that a counter bumped
+ * thousands of times a second costs a handful of writes rather than one per event.  Pending increments are summed per entity and field
+ * and written with one {@link Datastore#bulk() bulk write} once the {@link CounterOptions#getFlushInterval(java.util.concurrent.TimeUnit)
+ * flush interval} has passed or {@link CounterOptions#getMaxPendingCounters()} counters are held, whichever comes first.  Increments of
+ * the same entity are combined into one update.
+ * <p>
+ * Increments are only durable once they have been flushed, so if the process dies without {@link #close() closing} the aggregator at most
+ * one flush interval's worth of increments is lost.  If a flush fails, the increments the server refused with a transient error are
+ * retried with the next one.  Increments refused for any other reason, or whose outcome is unknown because the flush failed without
+ * saying which updates were applied, are logged and dropped rather than risk counting them twice.
+ *
+ * @since 1.4
+ */
+public class CounterAggregator implements Closeable {
+    private static final Logger LOG = MorphiaLoggerFactory.get(CounterAggregator.class);
+
+    // marks a counter which has been removed by a flush so that incrementing threads holding on to it retry with a new one
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    // duplicate key on a racing upsert, write conflict, interrupted, stepped down or shutting down
+    private static final Set<Integer> RETRYABLE_ERRORS = new HashSet<Integer>(Arrays.asList(11000, 112, 11600, 11602, 10107, 189, 91));
+
+    private final Datastore datastore;
+    private final CounterOptions options;
+    private final List<ConcurrentMap<Counter, AtomicLong>> stripes;
+    private final int stripeMask;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    /**
+     * Creates an aggregator in front of a Datastore and starts its background flushes.
+     *
+     * @param datastore the Datastore to write to
+     * @param options   the options controlling the flushes
+     */
+    public CounterAggregator(final Datastore datastore, final CounterOptions options) {
+        this.datastore = datastore;
+        this.options = options.copy();
+
+        int count = 1;
+        while (count < this.options.getStripes()) {
+            count <<= 1;
+        }
+        stripes = new ArrayList<ConcurrentMap<Counter, AtomicLong>>(count);
+        for (int i = 0; i < count; i++) {
+            stripes.add(new ConcurrentHashMap<Counter, AtomicLong>());
+        }
+        stripeMask = count - 1;
+
+        final long interval = this.options.getFlushInterval(NANOSECONDS);
+        flusher = Executors.newSingleThreadScheduledExecutor(new FlusherThreadFactory());
+        flusher.scheduleWithFixedDelay(new BackgroundFlush(), interval, interval, NANOSECONDS);
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param type  the entity type
+     * @param id    the id of the entity
+     * @param field the counter field
+     * @see UpdateOperations#inc(String)
+     */
+    public void inc(final Class<?> type, final Object id, final String field) {
+        inc(type, id, field, 1);
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param type  the entity type
+     * @param id    the id of the entity
+     * @param field the counter field
+     * @param delta the amount to add, which may be negative
+     * @see UpdateOperations#inc(String, Number)
+     */
+    public void inc(final Class<?> type, final Object id, final String field, final long delta) {
+        if (closed) {
+            throw new IllegalStateException("The counter aggregator has been closed");
+        }
+        if (type == null || id == null || field == null) {
+            throw new IllegalArgumentException("The type, id and field of a counter must not be null");
+        }
+        if (delta != 0) {
+            add(new Counter(type, id, field), delta);
+        }
+    }
+
+    /**
+     * Writes every increment made before this call and waits until they have been written.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            write(drain());
+        }
+    }
+
+    /**
+     * Stops the background flushes and writes every pending increment.  Increments made after closing fail with an
+     * IllegalStateException.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * @return the number of counters held, including those with nothing left to write which the next flush will release
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void add(final Counter counter, final long delta) {
+        final ConcurrentMap<Counter, AtomicLong> stripe = stripes.get(spread(counter.hashCode()) & stripeMask);
+        while (true) {
+            AtomicLong value = stripe.get(counter);
+            if (value == null) {
+                value = stripe.putIfAbsent(counter, new AtomicLong(delta));
+                if (value == null) {
+                    if (pendingCount.incrementAndGet() >= options.getMaxPendingCounters()) {
+                        requestFlush();
+                    }
+                    return;
+                }
+            }
+            final long current = value.get();
+            if (current == RETIRED) {
+                stripe.remove(counter, value);
+            } else if (value.compareAndSet(current, current + delta)) {
+                return;
+            }
+        }
+    }
+
+    private Map<Counter, Long> drain() {
+        final Map<Counter, Long> drained = new LinkedHashMap<Counter, Long>();
+        for (final ConcurrentMap<Counter, AtomicLong> stripe : stripes) {
+            for (final Map.Entry<Counter, AtomicLong> entry : stripe.entrySet()) {
+                final AtomicLong value = entry.getValue();
+                final long delta = value.getAndSet(0);
+                if (delta != 0) {
+                    drained.put(entry.getKey(), delta);
+                } else if (value.compareAndSet(0, RETIRED)) {
+                    // idle since the last flush so release it rather than holding on to every counter ever incremented
+                    stripe.remove(entry.getKey(), value);
+                    pendingCount.decrementAndGet();
+                }
+            }
+        }
+        return drained;
+    }
+
+    private void write(final Map<Counter, Long> drained) {
+        if (drained.isEmpty()) {
+            return;
+        }
+        // one bulk write per collection so that the index of a write error identifies the update it belongs to
+        final Map<DBCollection, Map<Target, Map<String, Long>>> byCollection
+            = new LinkedHashMap<DBCollection, Map<Target, Map<String, Long>>>();
+        for (final Map.Entry<Counter, Long> entry : drained.entrySet()) {
+            final Target target = new Target(entry.getKey().type, entry.getKey().id);
+            final DBCollection collection = datastore.getCollection(target.type);
+            Map<Target, Map<String, Long>> byEntity = byCollection.get(collection);
+            if (byEntity == null) {
+                byEntity = new LinkedHashMap<Target, Map<String, Long>>();
+                byCollection.put(collection, byEntity);
+            }
+            Map<String, Long> fields = byEntity.get(target);
+            if (fields == null) {
+                fields = new LinkedHashMap<String, Long>();
+                byEntity.put(target, fields);
+            }
+            fields.put(entry.getKey().field, entry.getValue());
+        }
+
+        RuntimeException failure = null;
+        for (final Map<Target, Map<String, Long>> byEntity : byCollection.values()) {
+            try {
+                writeCollection(byEntity);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeCollection(final Map<Target, Map<String, Long>> byEntity) {
+        final BulkOperations bulk = datastore.bulk()
+                                             .ordered(false)
+                                             .writeConcern(options.getWriteConcern());
+        final List<Target> updates = new ArrayList<Target>(byEntity.size());
+        for (final Map.Entry<Target, Map<String, Long>> entry : byEntity.entrySet()) {
+            try {
+                addUpdate(bulk, entry.getKey(), entry.getValue());
+                updates.add(entry.getKey());
+            } catch (RuntimeException e) {
+                // a field which doesn't validate will never be written so retrying it would only fail every flush
+                LOG.error(format("Dropping increments of %s which can not be written to %s with id %s", entry.getValue().keySet(),
+                                 entry.getKey().type.getName(), entry.getKey().id), e);
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        try {
+            bulk.execute();
+        } catch (BulkWriteException e) {
+            // the bulk write is unordered so every update without a write error has been applied and must not be written again
+            for (final BulkWriteError error : e.getWriteErrors()) {
+                final Target target = updates.get(error.getIndex());
+                if (RETRYABLE_ERRORS.contains(error.getCode())) {
+                    for (final Map.Entry<String, Long> field : byEntity.get(target).entrySet()) {
+                        add(new Counter(target.type, target.id, field.getKey()), field.getValue());
+                    }
+                } else {
+                    LOG.error(format("Dropping increments %s of %s with id %s which were rejected: %s", byEntity.get(target),
+                                     target.type.getName(), target.id, error.getMessage()));
+                }
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // nothing tells which of the updates were applied, so retrying them could count increments twice
+            LOG.error(format("Dropping the increments of %d entities of %s since it is unknown whether they were written",
+                             updates.size(), updates.get(0).type.getName()));
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void addUpdate(final BulkOperations bulk, final Target target, final Map<String, Long> fields) {
+        final Class<T> type = (Class<T>) target.type;
+        final UpdateOperations<T> operations = datastore.createUpdateOperations(type);
+        for (final Map.Entry<String, Long> field : fields.entrySet()) {
+            final long delta = field.getValue();
+            // keep 32 bit counters 32 bit since $inc with a long would widen the stored value
+            operations.inc(field.getKey(), delta >= Integer.MIN_VALUE && delta <= Integer.MAX_VALUE ? (Number) (int) delta : delta);
+        }
+        bulk.update(datastore.find(type).filter(Mapper.ID_KEY, target.id), operations, new UpdateOptions()
+            .upsert(options.isUpsert()));
+    }
+
+    private void requestFlush() {
+        if (!closed && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(new BackgroundFlush());
+            } catch (RejectedExecutionException e) {
+                // closing, which flushes anyway
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private class BackgroundFlush implements Runnable {
+        @Override
+        public void run() {
+            flushRequested.set(false);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                LOG.error("Could not flush counters", e);
+            }
+        }
+    }
+
+    private static class FlusherThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "morphia-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class Target {
+        private final Class<?> type;
+        private final Object id;
+
+        Target(final Class<?> type, final Object id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            final Target that = (Target) o;
+            return type.equals(that.type) && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class Counter {
+        private final Class<?> type;
+        private final Object id;
+        private final String field;
+
+        Counter(final Class<?> type, final Object id, final String field) {
+            this.type = type;
+            this.id = id;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Counter)) {
+                return false;
+            }
+            final Counter that = (Counter) o;
+            return type.equals(that.type) && id.equals(that.id) && field.equals(that.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * type.hashCode() + id.hashCode()) + field.hashCode();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.WriteConcern;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options controlling how a {@link CounterAggregator} coalesces increments.  The setter methods return {@code this} so that a chaining
+ * style can be used.
+ *
+ * @since 1.4
+ */
+public class CounterOptions {
+    private int stripes = 16;
+    private int maxPendingCounters = 10000;
+    private long flushInterval = TimeUnit.SECONDS.toNanos(1);
+    private boolean upsert;
+    private WriteConcern writeConcern;
+
+    /**
+     * Create a copy of the options instance.
+     *
+     * @return the copy
+     */
+    public CounterOptions copy() {
+        return new CounterOptions()
+            .stripes(getStripes())
+            .maxPendingCounters(getMaxPendingCounters())
+            .flushInterval(getFlushInterval(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+            .upsert(isUpsert())
+            .writeConcern(getWriteConcern());
+    }
+
+    /**
+     * @param unit the time unit of the result
+     * @return the longest time an increment is held before it is written
+     */
+    public long getFlushInterval(final TimeUnit unit) {
+        return unit.convert(flushInterval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the longest time an increment is held before it is written.  This bounds how many increments are lost if the process dies
+     * without closing the aggregator.  The default is one second.
+     *
+     * @param flushInterval the interval
+     * @param unit          the time unit of the interval
+     * @return this
+     */
+    public CounterOptions flushInterval(final long flushInterval, final TimeUnit unit) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("flushInterval must be greater than 0");
+        }
+        this.flushInterval = unit.toNanos(flushInterval);
+        return this;
+    }
+
+    /**
+     * @return the number of distinct counters waiting to be written which triggers an early flush
+     */
+    public int getMaxPendingCounters() {
+        return maxPendingCounters;
+    }
+
+    /**
+     * Sets the number of distinct counters waiting to be written which triggers a flush before the flush interval has passed.  The
+     * default is 10000.
+     *
+     * @param maxPendingCounters the number of counters
+     * @return this
+     */
+    public CounterOptions maxPendingCounters(final int maxPendingCounters) {
+        if (maxPendingCounters <= 0) {
+            throw new IllegalArgumentException("maxPendingCounters must be greater than 0");
+        }
+        this.maxPendingCounters = maxPendingCounters;
+        return this;
+    }
+
+    /**
+     * @return the number of maps the pending counters are spread over
+     */
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Sets the number of maps the pending counters are spread over to reduce contention between threads.  The value is rounded up to a
+     * power of two.  The default is 16.
+     *
+     * @param stripes the number of stripes
+     * @return this
+     */
+    public CounterOptions stripes(final int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be greater than 0");
+        }
+        this.stripes = stripes;
+        return this;
+    }
+
+    /**
+     * @return true if missing documents are created by the increments
+     */
+    public boolean isUpsert() {
+        return upsert;
+    }
+
+    /**
+     * Sets whether missing documents are created by the increments.  The default is false in which case increments of missing documents
+     * are dropped.
+     *
+     * @param upsert true if missing documents should be created
+     * @return this
+     */
+    public CounterOptions upsert(final boolean upsert) {
+        this.upsert = upsert;
+        return this;
+    }
+
+    /**
+     * @return the write concern of the flushes or null to use the entity's default
+     */
+    public WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    /**
+     * Sets the write concern of the flushes.  By default the write concern of each entity type is used.
+     *
+     * @param writeConcern the write concern
+     * @return this
+     */
+    public CounterOptions writeConcern(final WriteConcern writeConcern) {
+        this.writeConcern = writeConcern;
+        return this;
+    }
+}
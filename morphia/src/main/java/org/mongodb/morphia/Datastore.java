@@ -30,6 +30,14 @@ import java.util.Map;
  * @author Scott Hernandez
  */
 public interface Datastore {
+    /**
+     * Starts a batch of updates and deletes which will be sent as one bulk write per collection.
+     *
+     * @return the new batch
+     * @since 1.4
+     */
+    BulkOperations bulk();
+
     /**
      * Returns a new query bound to the kind (a specific {@link DBCollection})
      *
@@ -234,6 +242,20 @@ public interface Datastore {
      */
     void ensureIndexes(boolean background);
 
+    /**
+     * Creates the indexes found during class mapping which don't exist yet.  The existing indexes of each collection are listed once and
+     * compared with the mapped ones, collections are processed concurrently, and indexes which clash with an existing index of the same
+     * name or keys are reported rather than created.
+     *
+     * @param options the options to apply
+     * @return what was created, skipped or conflicts with an existing index
+     * @see Indexes
+     * @see Indexed
+     * @see Text
+     * @since 1.4
+     */
+    IndexReport syncIndexes(IndexSyncOptions options);
+
     /**
      * Ensures (creating if necessary) the indexes found during class mapping
      *
@@ -538,6 +560,16 @@ public interface Datastore {
      */
     <T> MapreduceResults<T> mapReduce(MapReduceOptions<T> options);
 
+    /**
+     * Runs a group-by job on the aggregation framework and returns its output as the results of a map/reduce job would be
+     *
+     * @param <T>     The type of resulting data
+     * @param options the options to apply to the job
+     * @return the results
+     * @since 1.4
+     */
+    <T> MapreduceResults<T> mapReduce(GroupReduceOptions<T> options);
+
     /**
      * Runs a map/reduce job at the server; this should be used with a server version 1.7.4 or higher
      *
@@ -629,6 +661,20 @@ public interface Datastore {
      */
     <T> Iterable<Key<T>> save(Iterable<T> entities, InsertOptions options);
 
+    /**
+     * Saves the entities using bulk writes, one per collection unless an ordered write has to be resumed after a conflict.  Versioned
+     * entities which were already saved are only replaced if their stored version still matches.  Rather than failing the whole save,
+     * entities which were concurrently updated are reported in the results and keep their current version while the others are saved
+     * and have their @Id and @Version fields updated.  A versioned entity whose document was deleted is stored again.
+     *
+     * @param entities the entities to save
+     * @param options  the options to apply to the save operation
+     * @param <T>      the type of the entity
+     * @return the keys of the saved entities and the entities which conflicted
+     * @since 1.4
+     */
+    <T> VersionedSaveResults<T> saveVersioned(Iterable<T> entities, InsertOptions options);
+
     /**
      * Saves the entities (Objects) and updates the @Id field
      *
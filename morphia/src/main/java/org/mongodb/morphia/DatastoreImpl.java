@@ -30,11 +30,14 @@ import org.mongodb.morphia.annotations.Validation;
 import org.mongodb.morphia.annotations.Version;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.mapping.InvolvedObjects;
 import org.mongodb.morphia.mapping.MappedClass;
 import org.mongodb.morphia.mapping.MappedField;
 import org.mongodb.morphia.mapping.Mapper;
 import org.mongodb.morphia.mapping.MappingException;
+import org.mongodb.morphia.mapping.ParallelEncoder;
 import org.mongodb.morphia.mapping.cache.EntityCache;
+import org.mongodb.morphia.mapping.cache.MissingReferenceCache;
 import org.mongodb.morphia.mapping.lazy.proxy.ProxyHelper;
 import org.mongodb.morphia.query.CountOptions;
 import org.mongodb.morphia.query.DefaultQueryFactory;
@@ -52,10 +55,11 @@ import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.mongodb.BasicDBObject.parse;
 import static com.mongodb.BasicDBObjectBuilder.start;
@@ -73,17 +77,25 @@ import static java.util.Collections.singletonList;
 @SuppressWarnings("deprecation")
 public class DatastoreImpl implements AdvancedDatastore {
     private static final Logger LOG = MorphiaLoggerFactory.get(DatastoreImpl.class);
+    // marks classes without their own write concern in writeConcerns since the map can't hold nulls
+    private static final WriteConcern NO_ENTITY_CONCERN = new WriteConcern(0);
 
     private final Morphia morphia;
     private final MongoClient mongoClient;
     private final MongoDatabase database;
     private final IndexHelper indexHelper;
+    private final ConcurrentMap<Class<?>, WriteConcern> writeConcerns = new ConcurrentHashMap<Class<?>, WriteConcern>();
     private DB db;
     private Mapper mapper;
     private WriteConcern defConcern;
     private DBDecoderFactory decoderFactory;
 
     private volatile QueryFactory queryFactory = new DefaultQueryFactory();
+    private volatile IdGenerator idGenerator;
+    private volatile QueryShapeRecorder queryShapeRecorder;
+    private volatile PlanProfiler planProfiler;
+    private volatile SlowOperationLog slowOperationLog;
+    private volatile DatastoreListener datastoreListener;
 
     /**
      * Create a new DatastoreImpl
@@ -136,6 +148,11 @@ public class DatastoreImpl implements AdvancedDatastore {
         return new DatastoreImpl(morphia, mapper, mongoClient, database);
     }
 
+    @Override
+    public BulkOperations bulk() {
+        return new BulkOperations(this);
+    }
+
     /**
      * @param source the initial type/collection to aggregate against
      * @return a new query bound to the kind (a specific {@link DBCollection})
@@ -163,17 +180,22 @@ public class DatastoreImpl implements AdvancedDatastore {
     @Override
     public <T> WriteResult delete(final Query<T> query, final DeleteOptions options) {
 
-        DBCollection dbColl = query.getCollection();
-        // TODO remove this after testing.
-        if (dbColl == null) {
-            dbColl = getCollection(query.getEntityClass());
-        }
+        final DBCollection dbColl = getCollection(query);
 
         if (query.getSortObject() != null || query.getOffset() != 0 || query.getLimit() > 0) {
             throw new QueryException("Delete does not allow sort/offset/limit query options.");
         }
 
-        return dbColl.remove(query.getQueryObject(), enforceWriteConcern(options, query.getEntityClass()).getOptions());
+        final long start = System.nanoTime();
+        final DBObject queryObject = query.getQueryObject();
+        final DatastoreOperation traced = started("delete", query, dbColl);
+        try {
+            final WriteResult result = dbColl.remove(queryObject, enforceWriteConcern(options, query.getEntityClass()).getOptions());
+            completed(query, dbColl, "delete", queryObject, null, result, start, traced);
+            return result;
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
     }
 
     @Override
@@ -350,32 +372,56 @@ public class DatastoreImpl implements AdvancedDatastore {
             .upsert(false)
             .remove(true);
 
-        final DBObject result = dbColl.findAndModify(query.getQueryObject(), copy.getOptions());
-
-        return result == null ? null : mapper.fromDBObject(this, query.getEntityClass(), result, createCache());
+        final DBObject queryObject = query.getQueryObject();
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("findAndModify", query, dbColl);
+        try {
+            final DBObject result = dbColl.findAndModify(queryObject, copy.getOptions());
+            return modified(query, dbColl, queryObject, copy, result, start, traced);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
     }
 
     @Override
     public <T> T findAndModify(final Query<T> query, final UpdateOperations<T> operations, final FindAndModifyOptions options) {
-        DBCollection dbColl = query.getCollection();
-        // TODO remove this after testing.
-        if (dbColl == null) {
-            dbColl = getCollection(query.getEntityClass());
-        }
+        final DBCollection dbColl = getCollection(query);
 
         if (LOG.isTraceEnabled()) {
             LOG.info("Executing findAndModify(" + dbColl.getName() + ") with update ");
         }
 
         updateForVersioning(query, operations);
-        DBObject res = dbColl.findAndModify(query.getQueryObject(), options.copy()
-                                                                           .sort(query.getSortObject())
-                                                                           .projection(query.getFieldsObject())
-                                                                           .update(((UpdateOpsImpl<T>) operations).getOps())
-                                           .getOptions());
-
-        return res == null ? null : mapper.fromDBObject(this, query.getEntityClass(), res, createCache());
+        final DBObject queryObject = query.getQueryObject();
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("findAndModify", query, dbColl);
+        try {
+            DBObject res = dbColl.findAndModify(queryObject, options.copy()
+                                                                    .sort(query.getSortObject())
+                                                                    .projection(query.getFieldsObject())
+                                                                    .update(((UpdateOpsImpl<T>) operations).getOps())
+                                               .getOptions());
+            return modified(query, dbColl, queryObject, options, res, start, traced);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+    }
 
+    /**
+     * Maps the document returned by findAndModify and hands the call to the slow operation log and the listener.
+     */
+    private <T> T modified(final Query<T> query, final DBCollection dbColl, final DBObject queryObject, final FindAndModifyOptions options,
+                           final DBObject result, final long start, final DatastoreOperation traced) {
+        final long mapping = System.nanoTime();
+        final T entity = result == null ? null : mapper.fromDBObject(this, query.getEntityClass(), result, createCache());
+        final long end = System.nanoTime();
+        final SlowOperationLog log = slowOperationLog;
+        if (log != null) {
+            log.completed(query.getEntityClass(), dbColl.getName(), "findAndModify", queryObject, query.getSortObject(), options,
+                          result == null ? 0 : 1, end - start, end - mapping);
+        }
+        traced.completed(result == null ? 0 : 1, end - mapping);
+        return entity;
     }
 
     @Override
@@ -518,12 +564,25 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     @Override
     public <T> long getCount(final T entity) {
-        return getCollection(ProxyHelper.unwrap(entity)).count();
+        final T unwrapped = ProxyHelper.unwrap(entity);
+        return count(unwrapped.getClass(), getCollection(unwrapped));
     }
 
     @Override
     public <T> long getCount(final Class<T> clazz) {
-        return getCollection(clazz).count();
+        return count(clazz, getCollection(clazz));
+    }
+
+    private long count(final Class<?> type, final DBCollection dbColl) {
+        final DatastoreOperation traced = started("count", type, dbColl);
+        final long count;
+        try {
+            count = dbColl.count();
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        traced.completed(count, 0);
+        return count;
     }
 
     @Override
@@ -582,7 +641,16 @@ public class DatastoreImpl implements AdvancedDatastore {
         DBCollection collection = options.getQuery().getCollection();
 
         final EntityCache cache = createCache();
-        MapreduceResults<T> results = new MapreduceResults<T>(collection.mapReduce(options.toCommand(getMapper())));
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("mapReduce", options.getQuery(), collection);
+        final MapReduceCommand command = options.toCommand(getMapper());
+        final MapreduceResults<T> results;
+        try {
+            results = new MapreduceResults<T>(collection.mapReduce(command));
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        mapReduced(options.getQuery(), collection, command, options.getOutputType(), results, start, traced);
 
         results.setOutputType(options.getOutputType());
 
@@ -596,6 +664,11 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     }
 
+    @Override
+    public <T> MapreduceResults<T> mapReduce(final GroupReduceOptions<T> options) {
+        return options.execute(this);
+    }
+
     @Override
     @Deprecated
     public <T> MapreduceResults<T> mapReduce(final MapreduceType type, final Query query, final String map, final String reduce,
@@ -660,7 +733,15 @@ public class DatastoreImpl implements AdvancedDatastore {
         }
 
         final EntityCache cache = createCache();
-        MapreduceResults<T> results = new MapreduceResults<T>(dbColl.mapReduce(baseCommand));
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("mapReduce", query, dbColl);
+        final MapreduceResults<T> results;
+        try {
+            results = new MapreduceResults<T>(dbColl.mapReduce(baseCommand));
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        mapReduced(query, dbColl, baseCommand, outType, results, start, traced);
 
         results.setType(type);
         if (MapreduceType.INLINE.equals(type)) {
@@ -673,6 +754,16 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     }
 
+    private void mapReduced(final Query<?> query, final DBCollection dbColl, final MapReduceCommand command, final OutputType outputType,
+                            final MapreduceResults<?> results, final long start, final DatastoreOperation traced) {
+        final SlowOperationLog log = slowOperationLog;
+        if (log != null) {
+            log.completed(query.getEntityClass(), dbColl.getName(), "mapReduce", command.getQuery(), command.getSort(), outputType,
+                          results.getCounts().getOutputCount(), System.nanoTime() - start, 0);
+        }
+        traced.completed(results.getCounts().getOutputCount(), 0);
+    }
+
     @Override
     public <T> Key<T> merge(final T entity) {
         return merge(entity, getWriteConcern(entity));
@@ -682,7 +773,7 @@ public class DatastoreImpl implements AdvancedDatastore {
     @SuppressWarnings("unchecked")
     public <T> Key<T> merge(final T entity, final WriteConcern wc) {
         T unwrapped = entity;
-        final LinkedHashMap<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
         final DBObject dbObj = mapper.toDBObject(unwrapped, involvedObjects);
         final Key<T> key = mapper.getKey(unwrapped);
         unwrapped = ProxyHelper.unwrap(unwrapped);
@@ -691,31 +782,49 @@ public class DatastoreImpl implements AdvancedDatastore {
             throw new MappingException("Could not get id for " + unwrapped.getClass().getName());
         }
 
-        // remove (immutable) _id field for update.
-        final Object idValue = dbObj.get(Mapper.ID_KEY);
-        dbObj.removeField(Mapper.ID_KEY);
-
-        WriteResult wr;
-
         final MappedClass mc = mapper.getMappedClass(unwrapped);
         final DBCollection dbColl = getCollection(unwrapped);
 
-        // try to do an update if there is a @Version field
-        wr = tryVersionedUpdate(dbColl, unwrapped, dbObj, idValue, new InsertOptions().writeConcern(wc), mc);
+        // only send the changed fields if the entity is tracked
+        final DBObject snapshot = mapper.getSnapshot(unwrapped);
+        final boolean tracked;
+        final DatastoreOperation traced = started("update", unwrapped.getClass(), dbColl);
+        try {
+            tracked = trySnapshotUpdate(dbColl, unwrapped, dbObj, mc, new InsertOptions().writeConcern(wc), false);
+            if (!tracked) {
+                // remove (immutable) _id field for update.
+                final Object idValue = dbObj.get(Mapper.ID_KEY);
+                dbObj.removeField(Mapper.ID_KEY);
+
+                // try to do an update if there is a @Version field
+                WriteResult wr = tryVersionedUpdate(dbColl, unwrapped, dbObj, idValue, new InsertOptions().writeConcern(wc), mc);
+
+                if (wr == null) {
+                    final Query<T> query = (Query<T>) createQuery(unwrapped.getClass()).filter(Mapper.ID_KEY, id);
+                    wr = update(query, new BasicDBObject("$set", dbObj), new UpdateOptions().writeConcern(wc), null).getWriteResult();
+                }
 
-        if (wr == null) {
-            final Query<T> query = (Query<T>) createQuery(unwrapped.getClass()).filter(Mapper.ID_KEY, id);
-            wr = update(query, new BasicDBObject("$set", dbObj), false, false, wc).getWriteResult();
-        }
+                final UpdateResults res = new UpdateResults(wr);
 
-        final UpdateResults res = new UpdateResults(wr);
+                if (res.getUpdatedCount() == 0) {
+                    throw new UpdateException("Nothing updated");
+                }
 
-        if (res.getUpdatedCount() == 0) {
-            throw new UpdateException("Nothing updated");
+                dbObj.put(Mapper.ID_KEY, idValue);
+            }
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
-
-        dbObj.put(Mapper.ID_KEY, idValue);
+        traced.completed(1, 0);
         postSaveOperations(Collections.<Object>singletonList(entity), involvedObjects, dbColl, false);
+        // fields missing from the entity are left as they were stored, so the merged document alone isn't what the database holds
+        if (tracked) {
+            final BasicDBObject stored = new BasicDBObject(snapshot.toMap());
+            stored.putAll(dbObj);
+            mapper.updateSnapshot(unwrapped, stored);
+        } else {
+            mapper.removeSnapshot(unwrapped);
+        }
         return key;
     }
 
@@ -739,6 +848,9 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     @Override
     public <T> Iterable<Key<T>> save(final Iterable<T> entities, final InsertOptions options) {
+        if (morphia != null && morphia.isUseBulkWriteOperations()) {
+            return new BulkSave(this).save(entities, options, null);
+        }
         final List<Key<T>> savedKeys = new ArrayList<Key<T>>();
         for (final T ent : entities) {
             savedKeys.add(save(ent, options));
@@ -747,6 +859,13 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     }
 
+    @Override
+    public <T> VersionedSaveResults<T> saveVersioned(final Iterable<T> entities, final InsertOptions options) {
+        final List<T> conflicts = new ArrayList<T>();
+        final List<Key<T>> savedKeys = new BulkSave(this).save(entities, options, conflicts);
+        return new VersionedSaveResults<T>(savedKeys, conflicts);
+    }
+
     @Override
     @Deprecated
     public <T> Iterable<Key<T>> save(final T... entities) {
@@ -755,7 +874,9 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     @Override
     public <T> Key<T> save(final T entity) {
-        return save(entity, new InsertOptions());
+        // resolve the write concern up front so enforceWriteConcern doesn't have to copy the options
+        return save(entity, new InsertOptions()
+            .writeConcern(getWriteConcern(entity)));
     }
 
     @Override
@@ -860,7 +981,7 @@ public class DatastoreImpl implements AdvancedDatastore {
             throw new UnsupportedOperationException("updateFirst() is not supported with versioned entities");
         }
 
-        final LinkedHashMap<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
         final DBObject dbObj = mapper.toDBObject(entity, involvedObjects);
 
         final UpdateResults res = update(query, dbObj, createIfMissing, false, getWriteConcern(entity));
@@ -956,6 +1077,11 @@ public class DatastoreImpl implements AdvancedDatastore {
         }
     }
 
+    @Override
+    public IndexReport syncIndexes(final IndexSyncOptions options) {
+        return indexHelper.syncIndexes(mapper.getMappedClasses(), options);
+    }
+
     @Override
     public <T> void ensureIndexes(final Class<T> clazz) {
         ensureIndexes(clazz, false);
@@ -1034,7 +1160,7 @@ public class DatastoreImpl implements AdvancedDatastore {
 
     @Override
     public long getCount(final String collection) {
-        return getCollection(collection).count();
+        return count(null, getCollection(collection));
     }
 
     @Override
@@ -1047,6 +1173,69 @@ public class DatastoreImpl implements AdvancedDatastore {
         decoderFactory = fact;
     }
 
+    @Override
+    public IdGenerator getIdGenerator() {
+        IdGenerator generator = idGenerator;
+        if (generator == null) {
+            synchronized (this) {
+                generator = idGenerator;
+                if (generator == null) {
+                    generator = new IdGenerator(this);
+                    idGenerator = generator;
+                }
+            }
+        }
+        return generator;
+    }
+
+    @Override
+    public void setIdGenerator(final IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public QueryShapeRecorder getQueryShapeRecorder() {
+        return queryShapeRecorder;
+    }
+
+    @Override
+    public void setQueryShapeRecorder(final QueryShapeRecorder recorder) {
+        if (recorder != null) {
+            recorder.attach(indexHelper);
+        }
+        queryShapeRecorder = recorder;
+    }
+
+    @Override
+    public PlanProfiler getPlanProfiler() {
+        return planProfiler;
+    }
+
+    @Override
+    public void setPlanProfiler(final PlanProfiler profiler) {
+        planProfiler = profiler;
+    }
+
+    @Override
+    public SlowOperationLog getSlowOperationLog() {
+        return slowOperationLog;
+    }
+
+    @Override
+    public void setSlowOperationLog(final SlowOperationLog log) {
+        slowOperationLog = log;
+    }
+
+    @Override
+    public DatastoreListener getDatastoreListener() {
+        return datastoreListener;
+    }
+
+    @Override
+    public void setDatastoreListener(final DatastoreListener listener) {
+        datastoreListener = listener;
+    }
+
     @Override
     public <T> Key<T> insert(final String collection, final T entity) {
         final T unwrapped = ProxyHelper.unwrap(entity);
@@ -1224,15 +1413,28 @@ public class DatastoreImpl implements AdvancedDatastore {
         return getDB().getCollection(kind);
     }
 
+    private DBCollection getCollection(final Query<?> query) {
+        final DBCollection dbColl = query.getCollection();
+        return dbColl != null ? dbColl : getCollection(query.getEntityClass());
+    }
+
     @Deprecated
     protected Object getId(final Object entity) {
         return mapper.getId(entity);
     }
 
     protected <T> Key<T> insert(final DBCollection dbColl, final T entity, final InsertOptions options) {
-        final LinkedHashMap<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
-        dbColl.insert(singletonList(entityToDBObj(entity, involvedObjects)), enforceWriteConcern(options, entity.getClass())
-            .getOptions());
+        IdGenerator.assignId(this, mapper.getMappedClass(entity), entity, dbColl.getName());
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
+        final DBObject document = entityToDBObj(entity, involvedObjects);
+        final DatastoreOperation traced = started("insert", entity.getClass(), dbColl);
+        try {
+            dbColl.insert(singletonList(document), enforceWriteConcern(options, entity.getClass())
+                .getOptions());
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        traced.completed(1, 0);
 
         return postSaveOperations(singletonList(entity), involvedObjects, dbColl).get(0);
     }
@@ -1279,22 +1481,30 @@ public class DatastoreImpl implements AdvancedDatastore {
         }
 
         final MappedClass mc = mapper.getMappedClass(entity);
-        if (mc.getAnnotation(NotSaved.class) != null) {
-            throw new MappingException(format("Entity type: %s is marked as NotSaved which means you should not try to save it!",
-                                              mc.getClazz().getName()));
-        }
+        checkNotSaved(mc);
+
+        IdGenerator.assignId(this, mc, entity, dbColl.getName());
 
         // involvedObjects is used not only as a cache but also as a list of what needs to be called for life-cycle methods at the end.
-        final LinkedHashMap<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
         final DBObject document = entityToDBObj(entity, involvedObjects);
 
-        // try to do an update if there is a @Version field
-        final Object idValue = document.get(Mapper.ID_KEY);
-        WriteResult wr = tryVersionedUpdate(dbColl, entity, document, idValue, enforceWriteConcern(options, entity.getClass()), mc);
+        // only send the changed fields if the entity is tracked, otherwise try to do an update if there is a @Version field
+        final InsertOptions saveOptions = enforceWriteConcern(options, entity.getClass());
+        final DatastoreOperation traced = started("save", entity.getClass(), dbColl);
+        try {
+            if (!trySnapshotUpdate(dbColl, entity, document, mc, saveOptions, true)) {
+                final Object idValue = document.get(Mapper.ID_KEY);
+                WriteResult wr = tryVersionedUpdate(dbColl, entity, document, idValue, saveOptions, mc);
 
-        if (wr == null) {
-            saveDocument(dbColl, document, options);
+                if (wr == null) {
+                    saveDocument(dbColl, document, options);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
+        traced.completed(1, 0);
 
         return postSaveOperations(singletonList(entity), involvedObjects, dbColl).get(0);
     }
@@ -1328,14 +1538,14 @@ public class DatastoreImpl implements AdvancedDatastore {
         //        mfVersion.setFieldValue(entity, newVersion);
 
         if (idValue != null && newVersion != 1) {
-            final Query<?> query = find(dbColl.getName(), entity.getClass())
-                .disableValidation()
-                .filter(Mapper.ID_KEY, idValue)
-                .enableValidation()
-                .filter(versionKeyName, oldVersion);
-            final UpdateResults res = update(query, dbObj, new UpdateOptions()
+            // the id and version are already mapped so filter on them directly rather than building and validating a Query
+            final DBObject filter = new BasicDBObject(Mapper.ID_KEY, idValue).append(versionKeyName, oldVersion);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace(format("Executing versioned update(%s) for query: %s", dbColl.getName(), filter));
+            }
+            final UpdateResults res = new UpdateResults(dbColl.update(filter, dbObj, new DBCollectionUpdateOptions()
                 .bypassDocumentValidation(options.getBypassDocumentValidation())
-                .writeConcern(options.getWriteConcern()));
+                .writeConcern(options.getWriteConcern() != null ? options.getWriteConcern() : getWriteConcern(entity))));
 
             wr = res.getWriteResult();
 
@@ -1350,6 +1560,63 @@ public class DatastoreImpl implements AdvancedDatastore {
         return wr;
     }
 
+    /**
+     * Sends only the fields which changed since the entity was loaded or last saved.  Fields missing from the new document are unset if
+     * {@code unsetRemoved} is true and lists which only grew at the end are pushed to rather than rewritten.
+     *
+     * @return false if the entity isn't tracked or its document no longer exists and a regular write is needed
+     */
+    @SuppressWarnings("unchecked")
+    private <T> boolean trySnapshotUpdate(final DBCollection dbColl, final T entity, final DBObject document, final MappedClass mc,
+                                          final InsertOptions options, final boolean unsetRemoved) {
+        final DBObject snapshot = mapper.getSnapshot(entity);
+        final Object idValue = document.get(Mapper.ID_KEY);
+        if (snapshot == null || idValue == null || !idValue.equals(snapshot.get(Mapper.ID_KEY))) {
+            return false;
+        }
+
+        String versionKeyName = null;
+        Long oldVersion = null;
+        if (!mc.getFieldsAnnotatedWith(Version.class).isEmpty()) {
+            final MappedField mfVersion = mc.getMappedVersionField();
+            versionKeyName = mfVersion.getNameToStore();
+            oldVersion = (Long) mfVersion.getFieldValue(entity);
+            if (oldVersion == null) {
+                return false;
+            }
+        }
+
+        final DBObject changes = SnapshotDiff.changes(snapshot, document, versionKeyName, unsetRemoved);
+        if (changes.keySet().isEmpty() && versionKeyName == null) {
+            return true;
+        }
+
+        final UpdateOpsImpl<T> operations = new UpdateOpsImpl<T>((Class<T>) entity.getClass(), mapper);
+        operations.setOps(changes);
+        final Query<T> query = (Query<T>) find(dbColl.getName(), entity.getClass())
+            .disableValidation()
+            .filter(Mapper.ID_KEY, idValue)
+            .enableValidation();
+        if (versionKeyName != null) {
+            // update() increments the version
+            query.filter(versionKeyName, oldVersion);
+            document.put(versionKeyName, oldVersion + 1);
+        }
+
+        // the caller reports the save or merge, so the update it is made of isn't reported on its own
+        final UpdateResults res = update(query, operations, new UpdateOptions()
+            .bypassDocumentValidation(options.getBypassDocumentValidation())
+            .writeConcern(options.getWriteConcern()), null);
+        if (res.getUpdatedCount() == 1) {
+            return true;
+        }
+        if (versionKeyName != null) {
+            throw new ConcurrentModificationException(format("Entity of class %s (id='%s',version='%d') was concurrently updated.",
+                                                             entity.getClass().getName(), idValue, oldVersion));
+        }
+        return false;
+    }
+
     private Query<?> buildExistsQuery(final Object entityOrKey) {
         final Object unwrapped = ProxyHelper.unwrap(entityOrKey);
         final Key<?> key = mapper.getKey(unwrapped);
@@ -1365,7 +1632,7 @@ public class DatastoreImpl implements AdvancedDatastore {
         return mapper.createEntityCache();
     }
 
-    private DBObject entityToDBObj(final Object entity, final Map<Object, DBObject> involvedObjects) {
+    DBObject entityToDBObj(final Object entity, final Map<Object, DBObject> involvedObjects) {
         return mapper.toDBObject(ProxyHelper.unwrap(entity), involvedObjects);
     }
 
@@ -1373,17 +1640,85 @@ public class DatastoreImpl implements AdvancedDatastore {
         if (!entities.iterator().hasNext()) {
             return Collections.emptyList();
         }
+        if (options.getEncodingExecutor() != null) {
+            final List<T> list = new ArrayList<T>();
+            for (final T entity : entities) {
+                list.add(ProxyHelper.unwrap(entity));
+            }
+            if (list.size() > options.getEncodingChunkSize()) {
+                return insertInChunks(dbColl, list, options);
+            }
+        }
 
-        final Map<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
         final List<DBObject> list = new ArrayList<DBObject>();
         com.mongodb.InsertOptions insertOptions = options.getOptions();
         for (final T entity : entities) {
             if (options.getWriteConcern() == null) {
                 insertOptions = enforceWriteConcern(options, entity.getClass()).getOptions();
             }
-            list.add(toDbObject(entity, involvedObjects));
+            list.add(toDbObject(dbColl, entity, involvedObjects));
+        }
+        final DatastoreOperation traced = started("insert", entities.iterator().next().getClass(), dbColl);
+        try {
+            dbColl.insert(list, insertOptions);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
-        dbColl.insert(list, insertOptions);
+        traced.completed(list.size(), 0);
+
+        return postSaveOperations(entities, involvedObjects, dbColl);
+    }
+
+    /**
+     * Maps the entities on the options' encoding executor and inserts each chunk of documents as soon as it is ready.  If a chunk fails,
+     * the entities of the chunks inserted before it still get their ids and versions updated and their @PostPersist methods called before
+     * the failure is rethrown.  Whether any of the failed chunk was written isn't known, so it is left alone.
+     */
+    private <T> List<Key<T>> insertInChunks(final DBCollection dbColl, final List<T> entities, final InsertOptions options) {
+        for (final T entity : entities) {
+            final MappedClass mc = mapper.getMappedClass(entity);
+            checkNotSaved(mc);
+            IdGenerator.assignId(this, mc, entity, dbColl.getName());
+        }
+        final com.mongodb.InsertOptions insertOptions = options.getWriteConcern() == null
+                                                        ? enforceWriteConcern(options, entities.get(0).getClass()).getOptions()
+                                                        : options.getOptions();
+
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
+        final Iterator<List<DBObject>> chunks = new ParallelEncoder(mapper, options.getEncodingExecutor(), options.getEncodingChunkSize())
+            .encode(entities, involvedObjects);
+        int index = 0;
+        int inserted = 0;
+        int insertedObjects = 0;
+        final DatastoreOperation traced = started("insert", entities.get(0).getClass(), dbColl);
+        try {
+            while (chunks.hasNext()) {
+                final List<DBObject> chunk = chunks.next();
+                for (final DBObject document : chunk) {
+                    final T entity = entities.get(index++);
+                    initVersion(mapper.getMappedClass(entity), entity, document);
+                }
+                dbColl.insert(chunk, insertOptions);
+                inserted = index;
+                insertedObjects = involvedObjects.size();
+            }
+        } catch (RuntimeException e) {
+            traced.failed(e);
+            if (inserted > 0) {
+                // the objects are in the order they were converted so the inserted chunks' objects come first
+                final Map<Object, DBObject> insertedInvolved = new InvolvedObjects();
+                for (final Entry<Object, DBObject> entry : involvedObjects.entrySet()) {
+                    if (insertedInvolved.size() == insertedObjects) {
+                        break;
+                    }
+                    insertedInvolved.put(entry.getKey(), entry.getValue());
+                }
+                postSaveOperations(entities.subList(0, inserted), insertedInvolved, dbColl);
+            }
+            throw e;
+        }
+        traced.completed(entities.size(), 0);
 
         return postSaveOperations(entities, involvedObjects, dbColl);
     }
@@ -1406,12 +1741,12 @@ public class DatastoreImpl implements AdvancedDatastore {
         return getQueryFactory().createQuery(this, collection, type);
     }
 
-    private long nextValue(final Long oldVersion) {
+    long nextValue(final Long oldVersion) {
         return oldVersion == null ? 1 : oldVersion + 1;
     }
 
-    private <T> List<Key<T>> postSaveOperations(final Iterable<T> entities, final Map<Object, DBObject> involvedObjects,
-                                                final DBCollection collection) {
+    <T> List<Key<T>> postSaveOperations(final Iterable<T> entities, final Map<Object, DBObject> involvedObjects,
+                                        final DBCollection collection) {
         return postSaveOperations(entities, involvedObjects, collection, true);
     }
 
@@ -1426,9 +1761,12 @@ public class DatastoreImpl implements AdvancedDatastore {
                 if (dbObj.get(Mapper.ID_KEY) == null) {
                     throw new MappingException(format("Missing _id after save on %s", entity.getClass().getName()));
                 }
-                mapper.updateKeyAndVersionInfo(this, dbObj, createCache(), entity);
+                // the id and version are almost always simple values so let the mapper decide if a cache is needed at all
+                mapper.updateKeyAndVersionInfo(this, dbObj, null, entity);
                 keys.add(new Key<T>((Class<? extends T>) entity.getClass(), collection.getName(), mapper.getId(entity)));
             }
+            invalidateMissingReference(entity, collection.getName());
+            mapper.updateSnapshot(entity, dbObj);
             mapper.getMappedClass(entity).callLifecycleMethods(PostPersist.class, entity, dbObj, mapper);
         }
 
@@ -1440,6 +1778,18 @@ public class DatastoreImpl implements AdvancedDatastore {
         return keys;
     }
 
+    private void invalidateMissingReference(final Object entity, final String collection) {
+        final MissingReferenceCache missingReferences = mapper.getOptions().getMissingReferenceCache();
+        if (missingReferences != null) {
+            final Object id = mapper.getId(entity);
+            if (id != null) {
+                // references hold the id as the mapper encodes it, which differs from the Java id for complex ids
+                final Object encoded = mapper.keyToDBRef(new Key<Object>(entity.getClass(), collection, id)).getId();
+                missingReferences.invalidate(new Key<Object>(entity.getClass(), collection, encoded));
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Query<T> queryByExample(final DBCollection coll, final T example) {
         // TODO: think about remove className from baseQuery param below.
@@ -1448,13 +1798,53 @@ public class DatastoreImpl implements AdvancedDatastore {
         return newQuery(type, coll, query);
     }
 
-    private <T> DBObject toDbObject(final T ent, final Map<Object, DBObject> involvedObjects) {
+    private <T> DBObject toDbObject(final DBCollection dbColl, final T ent, final Map<Object, DBObject> involvedObjects) {
         final MappedClass mc = mapper.getMappedClass(ent);
+        checkNotSaved(mc);
+        IdGenerator.assignId(this, mc, ent, dbColl.getName());
+        DBObject dbObject = entityToDBObj(ent, involvedObjects);
+        initVersion(mc, ent, dbObject);
+        return dbObject;
+    }
+
+    void checkNotSaved(final MappedClass mc) {
         if (mc.getAnnotation(NotSaved.class) != null) {
             throw new MappingException(format("Entity type: %s is marked as NotSaved which means you should not try to save it!",
                                               mc.getClazz().getName()));
         }
-        DBObject dbObject = entityToDBObj(ent, involvedObjects);
+    }
+
+    /**
+     * Starts an operation for the listener, which costs nothing when there is none.
+     */
+    DatastoreOperation started(final String operation, final Class<?> type, final DBCollection dbColl) {
+        return DatastoreOperation.start(datastoreListener, operation, type, dbColl.getName());
+    }
+
+    private DatastoreOperation started(final String operation, final Query<?> query, final DBCollection dbColl) {
+        return started(operation, query.getEntityClass(), dbColl);
+    }
+
+    /**
+     * Hands an update or delete to the query shape recorder, the slow operation log and the listener once the server has answered.
+     * Unacknowledged writes don't know how many documents they changed.
+     */
+    private void completed(final Query<?> query, final DBCollection dbColl, final String operation, final DBObject queryObject,
+                           final Object options, final WriteResult result, final long start, final DatastoreOperation traced) {
+        final long nanos = System.nanoTime() - start;
+        final long documents = result.wasAcknowledged() ? result.getN() : SlowOperation.UNKNOWN;
+        final QueryShapeRecorder recorder = queryShapeRecorder;
+        if (recorder != null) {
+            recorder.record(query.getEntityClass(), dbColl.getName(), operation, queryObject, null, nanos);
+        }
+        final SlowOperationLog log = slowOperationLog;
+        if (log != null) {
+            log.completed(query.getEntityClass(), dbColl.getName(), operation, queryObject, null, options, documents, nanos, 0);
+        }
+        traced.completed(documents, 0);
+    }
+
+    private void initVersion(final MappedClass mc, final Object ent, final DBObject dbObject) {
         List<MappedField> versionFields = mc.getFieldsAnnotatedWith(Version.class);
         for (MappedField mappedField : versionFields) {
             String name = mappedField.getNameToStore();
@@ -1463,16 +1853,19 @@ public class DatastoreImpl implements AdvancedDatastore {
                 mappedField.setFieldValue(ent, 1L);
             }
         }
-        return dbObject;
     }
 
     @Override
     public <T> UpdateResults update(final Query<T> query, final UpdateOperations<T> operations, final UpdateOptions options) {
-        DBCollection dbColl = query.getCollection();
-        // TODO remove this after testing.
-        if (dbColl == null) {
-            dbColl = getCollection(query.getEntityClass());
-        }
+        return update(query, operations, options, datastoreListener);
+    }
+
+    /**
+     * @param listener the listener to report the update to or null if the update is part of an operation reported by the caller
+     */
+    private <T> UpdateResults update(final Query<T> query, final UpdateOperations<T> operations, final UpdateOptions options,
+                                     final DatastoreListener listener) {
+        final DBCollection dbColl = getCollection(query);
 
         final MappedClass mc = getMapper().getMappedClass(query.getEntityClass());
         final List<MappedField> fields = mc.getFieldsAnnotatedWith(Version.class);
@@ -1492,9 +1885,17 @@ public class DatastoreImpl implements AdvancedDatastore {
                              dbColl.getName(), queryObject, update, options.isMulti(), options.isUpsert()));
         }
 
-        return new UpdateResults(dbColl.update(queryObject, update,
-                                               enforceWriteConcern(options, query.getEntityClass())
-                                                   .getOptions()));
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = DatastoreOperation.start(listener, "update", query.getEntityClass(), dbColl.getName());
+        try {
+            final UpdateResults results = new UpdateResults(dbColl.update(queryObject, update,
+                                                                          enforceWriteConcern(options, query.getEntityClass())
+                                                                              .getOptions()));
+            completed(query, dbColl, "update", queryObject, options, results.getWriteResult(), start, traced);
+            return results;
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -1503,17 +1904,17 @@ public class DatastoreImpl implements AdvancedDatastore {
         return  update(query, update, new UpdateOptions()
                       .upsert(createIfMissing)
                       .multi(multi)
-                      .writeConcern(wc));
+                      .writeConcern(wc), datastoreListener);
     }
 
+    /**
+     * @param listener the listener to report the update to or null if the update is part of an operation reported by the caller
+     */
     @SuppressWarnings("unchecked")
-    private <T> UpdateResults update(final Query<T> query, final DBObject update, final UpdateOptions options) {
+    private <T> UpdateResults update(final Query<T> query, final DBObject update, final UpdateOptions options,
+                                     final DatastoreListener listener) {
 
-        DBCollection dbColl = query.getCollection();
-        // TODO remove this after testing.
-        if (dbColl == null) {
-            dbColl = getCollection(query.getEntityClass());
-        }
+        final DBCollection dbColl = getCollection(query);
 
         if (query.getSortObject() != null && query.getSortObject().keySet() != null && !query.getSortObject().keySet().isEmpty()) {
             throw new QueryException("sorting is not allowed for updates.");
@@ -1545,9 +1946,17 @@ public class DatastoreImpl implements AdvancedDatastore {
                              dbColl.getName(), queryObject, update, options.isMulti(), options.isUpsert()));
         }
 
-        return new UpdateResults(dbColl.update(queryObject, update,
-                                               enforceWriteConcern(options, query.getEntityClass())
-                                                   .getOptions()));
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = DatastoreOperation.start(listener, "update", query.getEntityClass(), dbColl.getName());
+        try {
+            final UpdateResults results = new UpdateResults(dbColl.update(queryObject, update,
+                                                                          enforceWriteConcern(options, query.getEntityClass())
+                                                                              .getOptions()));
+            completed(query, dbColl, "update", queryObject, options, results.getWriteResult(), start, traced);
+            return results;
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
     }
 
     /**
@@ -1556,14 +1965,21 @@ public class DatastoreImpl implements AdvancedDatastore {
      * @param clazzOrEntity the class or entity to use when looking up the WriteConcern
      */
     private WriteConcern getWriteConcern(final Object clazzOrEntity) {
-        WriteConcern wc = defConcern;
-        if (clazzOrEntity != null) {
+        if (clazzOrEntity == null) {
+            return defConcern;
+        }
+
+        final Class<?> type = clazzOrEntity instanceof Class ? (Class<?>) clazzOrEntity : clazzOrEntity.getClass();
+        WriteConcern wc = writeConcerns.get(type);
+        if (wc == null) {
+            wc = NO_ENTITY_CONCERN;
             final Entity entityAnn = getMapper().getMappedClass(clazzOrEntity).getEntityAnnotation();
             if (entityAnn != null && entityAnn.concern().length() != 0) {
                 wc = WriteConcern.valueOf(entityAnn.concern());
             }
+            writeConcerns.put(type, wc);
         }
 
-        return wc;
+        return wc == NO_ENTITY_CONCERN ? defConcern : wc;
     }
 }
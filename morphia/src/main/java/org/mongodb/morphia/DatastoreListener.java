@@ -0,0 +1,40 @@
+package org.mongodb.morphia;
+
+
+/**
+ * Notified at the start and end of every operation a Datastore, its queries and its aggregation pipelines send to the server, so that
+ * tracing spans or metrics can be attached without wrapping every call.  Unlike an {@link EntityInterceptor}, which sees each entity,
+ * a listener sees each operation: a find, count, save, insert, update, delete, findAndModify, aggregate or mapReduce.  Calls made through
+ * a {@link org.mongodb.morphia.dao.DAO} are seen as the operations of its Datastore.
+ * <p>
+ * A listener is called on the thread running the operation, so {@link #started(DatastoreOperation)} and the call which ends the
+ * operation always come from the same thread.  A listener can keep its own state for the operation, such as a span, with {@link
+ * DatastoreOperation#setAttachment(Object)}.  Listeners are called for every operation and should be quick; an exception thrown by a
+ * listener fails the operation.
+ *
+ * @see AdvancedDatastore#setDatastoreListener(DatastoreListener)
+ * @since 1.4
+ */
+public interface DatastoreListener {
+    /**
+     * Called before an operation is sent to the server
+     *
+     * @param operation the operation
+     */
+    void started(DatastoreOperation operation);
+
+    /**
+     * Called once an operation has completed
+     *
+     * @param operation the operation, with its document count and times
+     */
+    void completed(DatastoreOperation operation);
+
+    /**
+     * Called when an operation fails.  The exception is rethrown once the listener returns.
+     *
+     * @param operation the operation, with its time
+     * @param exception the exception the operation failed with
+     */
+    void failed(DatastoreOperation operation, RuntimeException exception);
+}
@@ -0,0 +1,153 @@
+package org.mongodb.morphia;
+
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * An operation seen by a {@link DatastoreListener}.  The operation is created when it starts and handed to the listener again when it
+ * completes or fails, at which point its document count and times are known.
+ * <p>
+ * Finds which return an iterator, such as {@code fetch}, complete once the cursor is created since the documents are read later by the
+ * caller.  Their document count is {@link SlowOperation#UNKNOWN}, as is the count of unacknowledged writes and aggregations.
+ *
+ * @see DatastoreListener
+ * @since 1.4
+ */
+public final class DatastoreOperation {
+    private static final DatastoreOperation NOT_LISTENED = new DatastoreOperation(null, null, null, null);
+
+    private final DatastoreListener listener;
+    private final String operation;
+    private final Class<?> type;
+    private final String collection;
+    private final long start;
+    private long documents = SlowOperation.UNKNOWN;
+    private long nanos;
+    private long mapperNanos;
+    private Object attachment;
+
+    private DatastoreOperation(final DatastoreListener listener, final String operation, final Class<?> type, final String collection) {
+        this.listener = listener;
+        this.operation = operation;
+        this.type = type;
+        this.collection = collection;
+        this.start = listener != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Called by queries, pipelines and the Datastore before an operation.  Without a listener nothing is created or timed.
+     *
+     * @param listener   the listener of the Datastore or null
+     * @param operation  the operation, such as "find", "count" or "update"
+     * @param type       the entity type or null if it isn't known
+     * @param collection the name of the collection
+     * @return the operation to complete or fail once it ends
+     */
+    public static DatastoreOperation start(final DatastoreListener listener, final String operation, final Class<?> type,
+                                           final String collection) {
+        if (listener == null) {
+            return NOT_LISTENED;
+        }
+        final DatastoreOperation started = new DatastoreOperation(listener, operation, type, collection);
+        listener.started(started);
+        return started;
+    }
+
+    /**
+     * Called by queries, pipelines and the Datastore once the operation has completed.
+     *
+     * @param count      the number of documents returned, written or deleted or {@link SlowOperation#UNKNOWN}
+     * @param mapperTime how much of the operation was spent mapping documents to entities, in nanoseconds
+     */
+    public void completed(final long count, final long mapperTime) {
+        if (listener != null) {
+            nanos = System.nanoTime() - start;
+            documents = count;
+            mapperNanos = mapperTime;
+            listener.completed(this);
+        }
+    }
+
+    /**
+     * Called by queries, pipelines and the Datastore when the operation fails.
+     *
+     * @param exception the exception the operation failed with
+     * @return the exception, to be rethrown
+     */
+    public RuntimeException failed(final RuntimeException exception) {
+        if (listener != null) {
+            nanos = System.nanoTime() - start;
+            listener.failed(this, exception);
+        }
+        return exception;
+    }
+
+    /**
+     * @return the operation, such as "find", "count", "save", "insert", "update", "delete", "findAndModify", "bulkWrite", "aggregate" or
+     * "mapReduce"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the entity type of the operation or null if it isn't known
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the name of the collection
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * @return the number of documents returned, written or deleted, or {@link SlowOperation#UNKNOWN} if it isn't known or the operation
+     * hasn't completed
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return how long the operation took, or 0 until it has ended
+     */
+    public long getTime(final TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return how much of the operation was spent mapping documents to entities
+     */
+    public long getMapperTime(final TimeUnit unit) {
+        return unit.convert(mapperNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the object attached by the listener or null
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Attaches an object, such as a tracing span, to the operation so the listener can find it when the operation ends
+     *
+     * @param attachment the object
+     */
+    public void setAttachment(final Object attachment) {
+        this.attachment = attachment;
+    }
+
+    @Override
+    public String toString() {
+        return format("%s on %s%s", operation, collection, type != null ? " (" + type.getSimpleName() + ")" : "");
+    }
+}
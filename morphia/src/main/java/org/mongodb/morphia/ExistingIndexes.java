@@ -0,0 +1,278 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNumber;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * The indexes of a collection as reported by {@code listIndexes}, compared with the indexes Morphia would create.  An index matches when
+ * it has the same name or keys as the one to be created and is identical when its keys and the options that change its behavior are the
+ * same as well.  Options which only affect how an index is built, such as {@code background}, are ignored.
+ */
+final class ExistingIndexes {
+    private static final String ID_INDEX = "_id_";
+    private static final List<String> OPTIONAL = asList("expireAfterSeconds", "partialFilterExpression", "collation", "weights");
+
+    enum Match {
+        MISSING,
+        IDENTICAL,
+        CONFLICT
+    }
+
+    private final List<BsonDocument> indexes;
+    private final CodecRegistry registry;
+
+    ExistingIndexes(final List<BsonDocument> indexes, final CodecRegistry registry) {
+        this.indexes = new ArrayList<BsonDocument>(indexes);
+        this.registry = registry;
+    }
+
+    /**
+     * @param model the index to be created
+     * @return how the index compares with the existing ones
+     */
+    Match match(final IndexModel model) {
+        final BsonDocument expected = describe(model);
+        for (final BsonDocument existing : indexes) {
+            final boolean sameName = expected.get("name").equals(existing.get("name"));
+            final boolean sameKeys = sameKeys(existing.get("key"), expected.getDocument("key"));
+            if (sameKeys && ID_INDEX.equals(existing.getString("name", new BsonString("")).getValue())) {
+                // the _id index can't be changed and is unique regardless of what the mapping says
+                return Match.IDENTICAL;
+            }
+            if (sameName || sameKeys) {
+                return sameName && sameKeys && sameOptions(existing, expected) ? Match.IDENTICAL : Match.CONFLICT;
+            }
+        }
+        return Match.MISSING;
+    }
+
+    /**
+     * Records an index as existing once it has been created.
+     *
+     * @param model the index created
+     */
+    void add(final IndexModel model) {
+        indexes.add(describe(model));
+    }
+
+    /**
+     * @param model the index
+     * @return the name the server gives the index
+     */
+    String name(final IndexModel model) {
+        final String name = model.getOptions().getName();
+        return name != null ? name : defaultName(keys(model));
+    }
+
+    /**
+     * @param model the index
+     * @return the keys of the index
+     */
+    BsonDocument keys(final IndexModel model) {
+        return toDocument(model.getKeys());
+    }
+
+    /**
+     * Describes an index the way {@code listIndexes} reports it.
+     */
+    private BsonDocument describe(final IndexModel model) {
+        final IndexOptions options = model.getOptions();
+        final BsonDocument keys = keys(model);
+        final BsonDocument expected = new BsonDocument("name", new BsonString(name(model)))
+            .append("key", storedKeys(keys))
+            .append("unique", BsonBoolean.valueOf(options.isUnique()))
+            .append("sparse", BsonBoolean.valueOf(options.isSparse()));
+
+        final Long expireAfter = options.getExpireAfter(TimeUnit.SECONDS);
+        if (expireAfter != null) {
+            expected.append("expireAfterSeconds", new BsonInt64(expireAfter));
+        }
+        if (options.getPartialFilterExpression() != null) {
+            expected.append("partialFilterExpression", toDocument(options.getPartialFilterExpression()));
+        }
+        if (options.getCollation() != null) {
+            expected.append("collation", options.getCollation().asDocument());
+        }
+        if (isText(keys)) {
+            // text fields without an explicit weight get a weight of 1 from the server
+            final BsonDocument weights = new BsonDocument();
+            for (final Map.Entry<String, BsonValue> entry : keys.entrySet()) {
+                if (isText(entry.getValue())) {
+                    weights.append(entry.getKey(), new BsonInt32(1));
+                }
+            }
+            if (options.getWeights() != null) {
+                weights.putAll(toDocument(options.getWeights()));
+            }
+            expected.append("weights", weights)
+                    .append("default_language", new BsonString(options.getDefaultLanguage() != null
+                                                               ? options.getDefaultLanguage() : "english"))
+                    .append("language_override", new BsonString(options.getLanguageOverride() != null
+                                                                ? options.getLanguageOverride() : "language"));
+        }
+        return expected;
+    }
+
+    private boolean sameOptions(final BsonDocument existing, final BsonDocument expected) {
+        for (final Map.Entry<String, BsonValue> entry : expected.entrySet()) {
+            final String option = entry.getKey();
+            final BsonValue actual = existing.get(option);
+            if (option.equals("key") || option.equals("name")) {
+                continue;
+            } else if (option.equals("unique") || option.equals("sparse")) {
+                if (isTrue(actual) != entry.getValue().asBoolean().getValue()) {
+                    return false;
+                }
+            } else if (option.equals("collation")) {
+                // the server fills in every collation setting and adds its version
+                if (actual == null || !actual.isDocument() || !contains(actual.asDocument(), entry.getValue().asDocument())) {
+                    return false;
+                }
+            } else if (!same(actual, entry.getValue())) {
+                return false;
+            }
+        }
+        for (final String option : OPTIONAL) {
+            if (!expected.containsKey(option) && existing.containsKey(option)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BsonDocument toDocument(final Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, registry);
+    }
+
+    /**
+     * Text indexes are reported with their text fields replaced by {@code _fts} and {@code _ftsx} and the fields moved to the weights.
+     */
+    private static BsonDocument storedKeys(final BsonDocument keys) {
+        if (!isText(keys)) {
+            return keys;
+        }
+        final BsonDocument stored = new BsonDocument();
+        boolean text = false;
+        for (final Map.Entry<String, BsonValue> entry : keys.entrySet()) {
+            if (!isText(entry.getValue())) {
+                stored.append(entry.getKey(), entry.getValue());
+            } else if (!text) {
+                stored.append("_fts", new BsonString("text"))
+                      .append("_ftsx", new BsonInt32(1));
+                text = true;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Follows the driver's naming of indexes created without a name.
+     */
+    static String defaultName(final BsonDocument keys) {
+        final StringBuilder name = new StringBuilder();
+        for (final Map.Entry<String, BsonValue> entry : keys.entrySet()) {
+            if (name.length() != 0) {
+                name.append('_');
+            }
+            name.append(entry.getKey()).append('_');
+            if (entry.getValue().isNumber()) {
+                name.append(entry.getValue().asNumber().intValue());
+            } else if (entry.getValue().isString()) {
+                name.append(entry.getValue().asString().getValue().replace(' ', '_'));
+            }
+        }
+        return name.toString();
+    }
+
+    private static boolean isText(final BsonDocument keys) {
+        for (final BsonValue value : keys.values()) {
+            if (isText(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isText(final BsonValue value) {
+        return value.isString() && value.asString().getValue().equals("text");
+    }
+
+    private static boolean isTrue(final BsonValue value) {
+        if (value == null) {
+            return false;
+        }
+        return value.isBoolean() ? value.asBoolean().getValue() : value.isNumber() && value.asNumber().doubleValue() != 0;
+    }
+
+    private static boolean sameKeys(final BsonValue actual, final BsonDocument expected) {
+        if (actual == null || !actual.isDocument() || actual.asDocument().size() != expected.size()) {
+            return false;
+        }
+        final Iterator<Map.Entry<String, BsonValue>> actualKeys = actual.asDocument().entrySet().iterator();
+        for (final Map.Entry<String, BsonValue> entry : expected.entrySet()) {
+            final Map.Entry<String, BsonValue> next = actualKeys.next();
+            if (!next.getKey().equals(entry.getKey()) || !same(next.getValue(), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(final BsonDocument actual, final BsonDocument expected) {
+        for (final Map.Entry<String, BsonValue> entry : expected.entrySet()) {
+            if (!same(actual.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares values ignoring the order of document fields and the width of numbers since the server may report 1 as an int, a long or a
+     * double.
+     */
+    private static boolean same(final BsonValue actual, final BsonValue expected) {
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+        if (actual.isNumber() && expected.isNumber()) {
+            return ((BsonNumber) actual).doubleValue() == ((BsonNumber) expected).doubleValue();
+        }
+        if (actual.isDocument() && expected.isDocument()) {
+            return actual.asDocument().size() == expected.asDocument().size() && contains(actual.asDocument(), expected.asDocument());
+        }
+        if (actual.isArray() && expected.isArray()) {
+            final BsonArray actualValues = actual.asArray();
+            final BsonArray expectedValues = expected.asArray();
+            if (actualValues.size() != expectedValues.size()) {
+                return false;
+            }
+            for (int i = 0; i < actualValues.size(); i++) {
+                if (!same(actualValues.get(i), expectedValues.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return actual.equals(expected);
+    }
+}
@@ -0,0 +1,345 @@
+package org.mongodb.morphia;
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.DBObject;
+import com.mongodb.MapReduceCommand.OutputType;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.Collation;
+import org.mongodb.morphia.aggregation.Accumulator;
+import org.mongodb.morphia.aggregation.AggregationPipeline;
+import org.mongodb.morphia.aggregation.Group;
+import org.mongodb.morphia.aggregation.Projection;
+import org.mongodb.morphia.query.MorphiaIterator;
+import org.mongodb.morphia.query.Query;
+import org.mongodb.morphia.query.QueryException;
+import org.mongodb.morphia.query.Sort;
+import org.mongodb.morphia.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.mongodb.morphia.aggregation.Group.grouping;
+import static org.mongodb.morphia.aggregation.Projection.projection;
+
+/**
+ * Defines a group-by job which runs on the aggregation framework instead of as JavaScript map and reduce functions.  The job writes its
+ * output in the shape a map reduce job would, with the grouping key as the {@code _id} and the reduced value under {@code value}, and the
+ * results are returned as {@link MapreduceResults} so the types and code reading the output of a map reduce job can be kept as they are:
+ * <pre>
+ * // emit(this.author, 1) and return Array.sum(values)
+ * MapreduceResults&lt;CountResult&gt; results = datastore.mapReduce(new GroupReduceOptions&lt;CountResult&gt;()
+ *     .query(datastore.find(Book.class))
+ *     .groupBy("author")
+ *     .value(accumulator("$sum", 1))
+ *     .outputType(OutputType.INLINE)
+ *     .resultType(CountResult.class));
+ * </pre>
+ * Only the {@link OutputType#INLINE INLINE} and {@link OutputType#REPLACE REPLACE} output types can be expressed with an aggregation.
+ *
+ * @param <T> the type of the output
+ * @see Datastore#mapReduce(GroupReduceOptions)
+ * @since 1.4
+ */
+@SuppressWarnings("deprecation")
+public class GroupReduceOptions<T> {
+    private Query query;
+    private String inputCollection;
+    private String groupByField;
+    private List<Group> groupBy;
+    private Accumulator value;
+    private List<Group> values;
+    private OutputType outputType;
+    private String outputCollection;
+    private Class<T> resultType;
+    private int limit;
+    private ReadPreference readPreference;
+    private long maxTimeMS;
+    private Boolean bypassDocumentValidation;
+    private Boolean allowDiskUse;
+    private Collation collation;
+
+    /**
+     * Sets whether the aggregation may write temporary data to disk while grouping
+     *
+     * @param allowDiskUse whether to allow disk use, or null if unspecified
+     * @return this
+     */
+    public GroupReduceOptions<T> allowDiskUse(final Boolean allowDiskUse) {
+        this.allowDiskUse = allowDiskUse;
+        return this;
+    }
+
+    /**
+     * Sets whether to bypass document validation.
+     *
+     * @param bypassDocumentValidation whether to bypass document validation, or null if unspecified
+     * @return this
+     * @mongodb.server.release 3.2
+     */
+    public GroupReduceOptions<T> bypassDocumentValidation(final Boolean bypassDocumentValidation) {
+        this.bypassDocumentValidation = bypassDocumentValidation;
+        return this;
+    }
+
+    /**
+     * Sets the collation options
+     *
+     * @param collation the collation options
+     * @return this
+     * @mongodb.server.release 3.4
+     */
+    public GroupReduceOptions<T> collation(final Collation collation) {
+        this.collation = collation;
+        return this;
+    }
+
+    /**
+     * Groups the input by the value of a field.  This is the equivalent of {@code emit(this.field, ...)}.
+     *
+     * @param field the field to group by
+     * @return this
+     */
+    public GroupReduceOptions<T> groupBy(final String field) {
+        Assert.parametersNotNull("field", field);
+        Assert.parameterNotEmpty("field", field);
+        this.groupByField = field;
+        this.groupBy = null;
+        return this;
+    }
+
+    /**
+     * Groups the input by a compound key.  This is the equivalent of emitting a document as the key.
+     *
+     * @param id the fields of the key
+     * @return this
+     * @see Group#id(Group...)
+     */
+    public GroupReduceOptions<T> groupBy(final List<Group> id) {
+        Assert.parametersNotNull("id", id);
+        Assert.parameterNotEmpty("id", id);
+        this.groupBy = id;
+        this.groupByField = null;
+        return this;
+    }
+
+    /**
+     * Sets the input collection for the job should that collection differ from the mapped collection used in the query
+     *
+     * @param name the collection name
+     * @return this
+     */
+    public GroupReduceOptions<T> inputCollection(final String name) {
+        this.inputCollection = name;
+        return this;
+    }
+
+    /**
+     * Sets the (optional) limit on input
+     *
+     * @param limit the maximum number of documents to group
+     * @return this
+     */
+    public GroupReduceOptions<T> limit(final int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the max execution time for this command, in the given time unit.
+     *
+     * @param maxTimeMS the maximum execution time in milliseconds
+     * @return this
+     */
+    public GroupReduceOptions<T> maxTimeMS(final long maxTimeMS) {
+        this.maxTimeMS = maxTimeMS;
+        return this;
+    }
+
+    /**
+     * Sets the output collection for the job
+     *
+     * @param name the collection name
+     * @return this
+     */
+    public GroupReduceOptions<T> outputCollection(final String name) {
+        this.outputCollection = name;
+        return this;
+    }
+
+    /**
+     * Sets the output type of the job
+     *
+     * @param outputType the output type
+     * @return this
+     * @throws IllegalArgumentException if the output type is neither {@link OutputType#INLINE INLINE} nor {@link OutputType#REPLACE
+     *                                  REPLACE} since merging into an existing collection can not be expressed with {@code $out}
+     */
+    public GroupReduceOptions<T> outputType(final OutputType outputType) {
+        if (outputType != OutputType.INLINE && outputType != OutputType.REPLACE) {
+            throw new IllegalArgumentException(format("The output type %s is not supported by an aggregation", outputType));
+        }
+        this.outputType = outputType;
+        return this;
+    }
+
+    /**
+     * Sets the query defining the input for the job.  Must not be null.
+     *
+     * @param query the query to use
+     * @return this
+     */
+    public GroupReduceOptions<T> query(final Query query) {
+        Assert.parametersNotNull("query", query);
+        this.query = query;
+        return this;
+    }
+
+    /**
+     * Sets the read preference for this command. See the documentation for {@link ReadPreference} for more information.
+     *
+     * @param preference Read Preference to use
+     * @return this
+     */
+    public GroupReduceOptions<T> readPreference(final ReadPreference preference) {
+        this.readPreference = preference;
+        return this;
+    }
+
+    /**
+     * Sets the result type of the job
+     *
+     * @param resultType the type
+     * @return this
+     */
+    public GroupReduceOptions<T> resultType(final Class<T> resultType) {
+        this.resultType = resultType;
+        return this;
+    }
+
+    /**
+     * Reduces each group to a single value stored as {@code value}.  This is the equivalent of emitting a number and reducing the
+     * values with a sum, a minimum or a maximum.
+     *
+     * @param accumulator the accumulator computing the value
+     * @return this
+     * @see Group#sum(String)
+     */
+    public GroupReduceOptions<T> value(final Accumulator accumulator) {
+        Assert.parametersNotNull("accumulator", accumulator);
+        this.value = accumulator;
+        this.values = null;
+        return this;
+    }
+
+    /**
+     * Reduces each group to a document stored as {@code value}.  This is the equivalent of emitting a document and reducing the values
+     * field by field.
+     *
+     * @param fields the fields of the value
+     * @return this
+     */
+    public GroupReduceOptions<T> values(final Group... fields) {
+        Assert.parametersNotNull("fields", (Object) fields);
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("At least one field is needed to reduce to a document");
+        }
+        this.values = Arrays.asList(fields);
+        this.value = null;
+        return this;
+    }
+
+    /**
+     * Translates the job into a pipeline ending with the grouping and, for document values, the projection moving the fields under
+     * {@code value}.
+     */
+    AggregationPipeline toPipeline(final DatastoreImpl datastore) {
+        if (query == null || resultType == null || outputType == null || value == null && values == null) {
+            throw new IllegalStateException("The query, result type, output type and value of the job are required");
+        }
+        if (query.getOffset() != 0 || query.getFieldsObject() != null) {
+            throw new QueryException("mapReduce does not allow the offset/retrievedFields query ");
+        }
+
+        final String source = inputCollection != null ? inputCollection : query.getCollection().getName();
+        final AggregationPipeline pipeline = datastore.createAggregation(source, query.getEntityClass());
+        if (!query.getQueryObject().keySet().isEmpty()) {
+            pipeline.match(query);
+        }
+        final DBObject sort = query.getSortObject();
+        if (sort != null && !sort.keySet().isEmpty()) {
+            pipeline.sort(toSorts(sort));
+        }
+        if (limit > 0) {
+            pipeline.limit(limit);
+        }
+
+        final Group[] groupings = values != null ? values.toArray(new Group[values.size()]) : new Group[]{grouping("value", value)};
+        if (groupBy != null) {
+            pipeline.group(groupBy, groupings);
+        } else {
+            pipeline.group(groupByField, groupings);
+        }
+        if (values != null) {
+            final Projection[] fields = new Projection[values.size() - 1];
+            for (int i = 1; i < values.size(); i++) {
+                fields[i - 1] = projection(values.get(i).getName(), values.get(i).getName());
+            }
+            pipeline.project(projection("value", projection(values.get(0).getName(), values.get(0).getName()), fields));
+        }
+        return pipeline;
+    }
+
+    AggregationOptions toAggregationOptions() {
+        return AggregationOptions.builder()
+                                 .outputMode(AggregationOptions.OutputMode.CURSOR)
+                                 .allowDiskUse(allowDiskUse)
+                                 .maxTime(maxTimeMS, TimeUnit.MILLISECONDS)
+                                 .bypassDocumentValidation(bypassDocumentValidation)
+                                 .collation(collation)
+                                 .build();
+    }
+
+    /**
+     * Runs the job and wraps its output.  Inline output is read into memory as the output of an inline map reduce job is.
+     */
+    MapreduceResults<T> execute(final DatastoreImpl datastore) {
+        final AggregationPipeline pipeline = toPipeline(datastore);
+        final AggregationOptions options = toAggregationOptions();
+        final long start = System.currentTimeMillis();
+        if (outputType == OutputType.INLINE) {
+            final List<T> results = new ArrayList<T>();
+            final ReadPreference preference = readPreference != null ? readPreference : query.getCollection().getReadPreference();
+            final Iterator<T> iterator = pipeline.aggregate(resultType, options, preference);
+            while (iterator.hasNext()) {
+                results.add(iterator.next());
+            }
+            return new MapreduceResults<T>(results, System.currentTimeMillis() - start);
+        }
+
+        final String collection = outputCollection != null ? outputCollection
+                                                           : datastore.getMapper().getMappedClass(resultType).getCollectionName();
+        final Iterator<T> output = pipeline.out(collection, resultType, options);
+        if (output instanceof MorphiaIterator) {
+            ((MorphiaIterator) output).close();
+        }
+        final MapreduceResults<T> results = new MapreduceResults<T>(collection, System.currentTimeMillis() - start);
+        results.setQuery(datastore.createQuery(collection, resultType));
+        return results;
+    }
+
+    private static Sort[] toSorts(final DBObject sort) {
+        final List<Sort> sorts = new ArrayList<Sort>();
+        for (final String field : sort.keySet()) {
+            final Object order = sort.get(field);
+            if (!(order instanceof Number)) {
+                throw new QueryException(format("The sort on '%s' can not be used in an aggregation: %s", field, order));
+            }
+            sorts.add(((Number) order).intValue() < 0 ? Sort.descending(field) : Sort.ascending(field));
+        }
+        return sorts.toArray(new Sort[sorts.size()]);
+    }
+}
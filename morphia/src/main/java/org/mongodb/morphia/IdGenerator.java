@@ -0,0 +1,250 @@
+package org.mongodb.morphia;
+
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.mapping.MappedClass;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.mapping.MappingException;
+import org.mongodb.morphia.query.Query;
+import org.mongodb.morphia.query.UpdateOperations;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.String.format;
+
+/**
+ * Hands out increasing numeric ids from named sequences stored in a counters collection.  Rather than one round trip per id, each process
+ * reserves a block of ids with a single {@link Datastore#findAndModify(Query, UpdateOperations, FindAndModifyOptions) findAndModify} and
+ * hands them out from memory without locking.  Once half a block has been used the next one is reserved in the background so callers
+ * rarely wait on the database.  Ids are unique across processes sharing the collection but may have gaps.
+ *
+ * @see org.mongodb.morphia.annotations.Sequence
+ * @since 1.4
+ */
+public class IdGenerator {
+    /**
+     * The collection sequences are stored in unless another is given
+     */
+    public static final String DEFAULT_COLLECTION = "morphia_sequences";
+
+    /**
+     * The number of ids reserved per round trip unless another is given
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final AdvancedDatastore datastore;
+    private final String collection;
+    private final ConcurrentMap<String, Sequence> sequences = new ConcurrentHashMap<String, Sequence>();
+    private final ExecutorService prefetcher = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                                      new PrefetchThreadFactory());
+
+    /**
+     * Creates a generator storing its sequences in {@value #DEFAULT_COLLECTION}.
+     *
+     * @param datastore the Datastore to reserve ids with
+     */
+    public IdGenerator(final AdvancedDatastore datastore) {
+        this(datastore, DEFAULT_COLLECTION);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param datastore  the Datastore to reserve ids with
+     * @param collection the collection storing the sequences
+     */
+    public IdGenerator(final AdvancedDatastore datastore, final String collection) {
+        this.datastore = datastore;
+        this.collection = collection;
+    }
+
+    /**
+     * @return the collection storing the sequences
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * Gets the next id of a sequence reserving {@value #DEFAULT_BLOCK_SIZE} ids at a time.
+     *
+     * @param sequence the name of the sequence
+     * @return the id
+     */
+    public long next(final String sequence) {
+        return next(sequence, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Gets the next id of a sequence.  The block size is fixed by the first call for a sequence.
+     *
+     * @param sequence  the name of the sequence
+     * @param blockSize the number of ids to reserve per round trip
+     * @return the id
+     */
+    public long next(final String sequence, final int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be greater than 0");
+        }
+        Sequence current = sequences.get(sequence);
+        if (current == null) {
+            final Sequence created = new Sequence(sequence, blockSize);
+            current = sequences.putIfAbsent(sequence, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        return current.next();
+    }
+
+    /**
+     * Fills an empty {@link org.mongodb.morphia.annotations.Sequence} annotated id from the datastore's generator.  Zero counts as empty
+     * since primitive ids can't be null.
+     */
+    static void assignId(final AdvancedDatastore datastore, final MappedClass mc, final Object entity, final String collection) {
+        final MappedField idField = mc.getMappedIdField();
+        if (idField == null || !idField.hasAnnotation(org.mongodb.morphia.annotations.Sequence.class)) {
+            return;
+        }
+        final Object current = idField.getFieldValue(entity);
+        if (current != null && !(current instanceof Number && ((Number) current).longValue() == 0)) {
+            return;
+        }
+
+        final org.mongodb.morphia.annotations.Sequence sequence = idField.getAnnotation(org.mongodb.morphia.annotations.Sequence.class);
+        final String name = sequence.value().equals(Mapper.IGNORED_FIELDNAME) ? collection : sequence.value();
+        final long id = datastore.getIdGenerator().next(name, sequence.blockSize());
+        final Class<?> type = idField.getType();
+        if (type == long.class || type == Long.class) {
+            idField.setFieldValue(entity, id);
+        } else if ((type == int.class || type == Integer.class) && id <= Integer.MAX_VALUE) {
+            idField.setFieldValue(entity, (int) id);
+        } else {
+            throw new MappingException(format("Can not assign id %d from sequence %s to %s which is not a long or int field",
+                                              id, name, idField.getFullName()));
+        }
+    }
+
+    private Block reserve(final String sequence, final int blockSize) {
+        final Query<SequenceDocument> query = datastore.createQuery(collection, SequenceDocument.class)
+                                                       .filter(Mapper.ID_KEY, sequence);
+        final UpdateOperations<SequenceDocument> operations = datastore.createUpdateOperations(SequenceDocument.class)
+                                                                       .inc("last", blockSize);
+        final SequenceDocument document = datastore.findAndModify(query, operations, new FindAndModifyOptions()
+            .upsert(true)
+            .returnNew(true));
+        return new Block(document.last - blockSize + 1, document.last);
+    }
+
+    private final class Sequence {
+        private final String name;
+        private final int blockSize;
+        private final AtomicReference<Block> current = new AtomicReference<Block>(new Block(1, 0));
+        private final AtomicReference<FutureTask<Block>> prefetched = new AtomicReference<FutureTask<Block>>();
+
+        Sequence(final String name, final int blockSize) {
+            this.name = name;
+            this.blockSize = blockSize;
+        }
+
+        long next() {
+            while (true) {
+                final Block block = current.get();
+                final long id = block.next.getAndIncrement();
+                if (id <= block.last) {
+                    if (id == block.prefetchAt) {
+                        prefetch();
+                    }
+                    return id;
+                }
+                advance(block);
+            }
+        }
+
+        private void prefetch() {
+            final FutureTask<Block> task = new FutureTask<Block>(new Reservation(name, blockSize));
+            if (prefetched.compareAndSet(null, task)) {
+                prefetcher.execute(task);
+            }
+        }
+
+        private synchronized void advance(final Block exhausted) {
+            if (current.get() != exhausted) {
+                // another thread has already moved on to the next block
+                return;
+            }
+            FutureTask<Block> task = prefetched.getAndSet(null);
+            if (task == null) {
+                task = new FutureTask<Block>(new Reservation(name, blockSize));
+                task.run();
+            }
+            try {
+                current.set(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reserving ids for sequence " + name, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Could not reserve ids for sequence " + name, e.getCause());
+            }
+        }
+    }
+
+    private final class Reservation implements Callable<Block> {
+        private final String sequence;
+        private final int blockSize;
+
+        Reservation(final String sequence, final int blockSize) {
+            this.sequence = sequence;
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public Block call() {
+            return reserve(sequence, blockSize);
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;
+        private final long prefetchAt;
+
+        Block(final long first, final long last) {
+            next = new AtomicLong(first);
+            this.last = last;
+            prefetchAt = first + (last - first) / 2;
+        }
+    }
+
+    private static class PrefetchThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "morphia-id-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    @Entity(noClassnameStored = true)
+    private static class SequenceDocument {
+        @Id
+        private String id;
+        private long last;
+    }
+}
@@ -16,13 +16,17 @@
 
 package org.mongodb.morphia;
 
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexModel;
 import org.bson.BsonDocument;
 import org.bson.BsonDocumentWriter;
 import org.bson.Document;
 import org.bson.codecs.Encoder;
 import org.bson.codecs.EncoderContext;
+import org.mongodb.morphia.IndexReport.IndexResult;
+import org.mongodb.morphia.IndexReport.Outcome;
 import org.mongodb.morphia.annotations.Collation;
 import org.mongodb.morphia.annotations.Field;
 import org.mongodb.morphia.annotations.Index;
@@ -43,9 +47,15 @@ import org.mongodb.morphia.utils.IndexType;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
@@ -361,20 +371,173 @@ final class IndexHelper {
     }
 
     void createIndex(final MongoCollection collection, final MappedClass mc, final boolean background) {
+        final List<IndexModel> models = indexModels(mc, background);
+        if (models.isEmpty()) {
+            return;
+        }
+        // indexes which already exist as mapped are skipped, anything else is sent so the server still reports conflicts
+        final ExistingIndexes existing = listIndexes(collection);
+        for (final IndexModel model : models) {
+            if (existing.match(model) != ExistingIndexes.Match.IDENTICAL) {
+                collection.createIndex(model.getKeys(), model.getOptions());
+                existing.add(model);
+            }
+        }
+    }
+
+    void createIndex(final MongoCollection collection, final MappedClass mc, final Index index, final boolean background) {
+        final IndexModel model = indexModel(mc, index, background);
+        collection.createIndex(model.getKeys(), model.getOptions());
+    }
+
+    /**
+     * Synchronizes the indexes of the classes' collections on a pool of {@link IndexSyncOptions#getParallelism()} threads.  Classes
+     * sharing a collection are handled together so that its indexes are listed only once.
+     */
+    IndexReport syncIndexes(final Collection<MappedClass> classes, final IndexSyncOptions options) {
+        final Map<String, List<MappedClass>> byCollection = new LinkedHashMap<String, List<MappedClass>>();
+        for (final MappedClass mc : classes) {
+            final String name = mapper.getCollectionName(mc.getClazz());
+            List<MappedClass> list = byCollection.get(name);
+            if (list == null) {
+                list = new ArrayList<MappedClass>();
+                byCollection.put(name, list);
+            }
+            list.add(mc);
+        }
+
+        final IndexReport report = new IndexReport();
+        if (byCollection.isEmpty()) {
+            return report;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.getParallelism(), byCollection.size()));
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final Map.Entry<String, List<MappedClass>> entry : byCollection.entrySet()) {
+                final MongoCollection<?> collection = database.getCollection(entry.getKey(), entry.getValue().get(0).getClazz());
+                futures.add(executor.submit(new SyncIndexes(collection, entry.getValue(), options.isBackground(), report)));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while synchronizing indexes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MappingException("Could not synchronize indexes", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Creates the missing indexes of classes sharing a collection and reports what was created, skipped or conflicts with an existing
+     * index.  The existing indexes are listed once and conflicting indexes are reported rather than sent to the server.
+     */
+    void syncIndexes(final MongoCollection collection, final List<MappedClass> classes, final boolean background,
+                     final IndexReport report) {
+        final List<IndexModel> models = new ArrayList<IndexModel>();
+        for (final MappedClass mc : classes) {
+            models.addAll(indexModels(mc, background));
+        }
+        if (models.isEmpty()) {
+            return;
+        }
+
+        final String name = collection.getNamespace().getCollectionName();
+        final ExistingIndexes existing;
+        try {
+            existing = listIndexes(collection);
+        } catch (MongoException e) {
+            final ExistingIndexes none = new ExistingIndexes(Collections.<BsonDocument>emptyList(), database.getCodecRegistry());
+            for (final IndexModel model : models) {
+                report.add(new IndexResult(name, none.name(model), none.keys(model), Outcome.FAILED, e.getMessage()));
+            }
+            return;
+        }
+
+        for (final IndexModel model : models) {
+            final String indexName = existing.name(model);
+            final BsonDocument keys = existing.keys(model);
+            switch (existing.match(model)) {
+                case IDENTICAL:
+                    report.add(new IndexResult(name, indexName, keys, Outcome.SKIPPED, null));
+                    break;
+                case CONFLICT:
+                    report.add(new IndexResult(name, indexName, keys, Outcome.CONFLICT,
+                                               "An index with the same name or keys but different options exists"));
+                    break;
+                default:
+                    try {
+                        collection.createIndex(model.getKeys(), model.getOptions());
+                        existing.add(model);
+                        report.add(new IndexResult(name, indexName, keys, Outcome.CREATED, null));
+                    } catch (MongoException e) {
+                        report.add(new IndexResult(name, indexName, keys, Outcome.FAILED, e.getMessage()));
+                    }
+            }
+        }
+    }
+
+    /**
+     * @param type the entity type
+     * @return the keys of the indexes mapped on the type in mapping order
+     */
+    List<BsonDocument> indexKeys(final Class<?> type) {
+        final List<BsonDocument> keys = new ArrayList<BsonDocument>();
+        for (final IndexModel model : indexModels(mapper.getMappedClass(type), false)) {
+            keys.add(model.getKeys().toBsonDocument(BsonDocument.class, database.getCodecRegistry()));
+        }
+        return keys;
+    }
+
+    private List<IndexModel> indexModels(final MappedClass mc, final boolean background) {
+        final List<IndexModel> models = new ArrayList<IndexModel>();
         if (!mc.isInterface() && !mc.isAbstract()) {
             for (Index index : collectIndexes(mc, Collections.<MappedClass>emptyList())) {
-                createIndex(collection, mc, index, background);
+                models.add(indexModel(mc, index, background));
             }
         }
+        return models;
     }
 
-    void createIndex(final MongoCollection collection, final MappedClass mc, final Index index, final boolean background) {
+    private IndexModel indexModel(final MappedClass mc, final Index index, final boolean background) {
         Index normalized = IndexBuilder.normalize(index);
 
         BsonDocument keys = calculateKeys(mc, normalized);
         com.mongodb.client.model.IndexOptions indexOptions = convert(normalized.options(), background);
         calculateWeights(normalized, indexOptions);
 
-        collection.createIndex(keys, indexOptions);
+        return new IndexModel(keys, indexOptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExistingIndexes listIndexes(final MongoCollection collection) {
+        return new ExistingIndexes((List<BsonDocument>) collection.listIndexes(BsonDocument.class).into(new ArrayList<BsonDocument>()),
+                                   database.getCodecRegistry());
+    }
+
+    private class SyncIndexes implements Runnable {
+        private final MongoCollection<?> collection;
+        private final List<MappedClass> classes;
+        private final boolean background;
+        private final IndexReport report;
+
+        SyncIndexes(final MongoCollection<?> collection, final List<MappedClass> classes, final boolean background,
+                    final IndexReport report) {
+            this.collection = collection;
+            this.classes = classes;
+            this.background = background;
+            this.report = report;
+        }
+
+        @Override
+        public void run() {
+            syncIndexes(collection, classes, background, report);
+        }
     }
 }
@@ -0,0 +1,170 @@
+package org.mongodb.morphia;
+
+
+import org.bson.BsonDocument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The outcome of {@link Datastore#syncIndexes(IndexSyncOptions)}.  Each mapped index is listed once per collection with what happened to
+ * it.  Results of the same collection are in mapping order but collections are listed in the order they finished.
+ *
+ * @since 1.4
+ */
+public class IndexReport {
+    private final List<IndexResult> results = new ArrayList<IndexResult>();
+
+    IndexReport() {
+    }
+
+    synchronized void add(final IndexResult result) {
+        results.add(result);
+    }
+
+    /**
+     * @return every result
+     */
+    public synchronized List<IndexResult> getResults() {
+        return Collections.unmodifiableList(new ArrayList<IndexResult>(results));
+    }
+
+    /**
+     * @param outcome the outcome to look for
+     * @return the results with the given outcome
+     */
+    public synchronized List<IndexResult> getResults(final Outcome outcome) {
+        final List<IndexResult> list = new ArrayList<IndexResult>();
+        for (final IndexResult result : results) {
+            if (result.getOutcome() == outcome) {
+                list.add(result);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the indexes which were created
+     */
+    public List<IndexResult> getCreated() {
+        return getResults(Outcome.CREATED);
+    }
+
+    /**
+     * @return the indexes which already existed as mapped
+     */
+    public List<IndexResult> getSkipped() {
+        return getResults(Outcome.SKIPPED);
+    }
+
+    /**
+     * @return the indexes which clash with an existing index of the same name or keys
+     */
+    public List<IndexResult> getConflicts() {
+        return getResults(Outcome.CONFLICT);
+    }
+
+    /**
+     * @return the indexes which could not be read or created
+     */
+    public List<IndexResult> getFailures() {
+        return getResults(Outcome.FAILED);
+    }
+
+    /**
+     * @return true if any index conflicts with an existing one or could not be created
+     */
+    public boolean hasProblems() {
+        return !getConflicts().isEmpty() || !getFailures().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return format("IndexReport{created=%d, skipped=%d, conflicts=%s, failures=%s}", getCreated().size(), getSkipped().size(),
+                      getConflicts(), getFailures());
+    }
+
+    /**
+     * What happened to an index
+     */
+    public enum Outcome {
+        /**
+         * The index was missing and has been created
+         */
+        CREATED,
+        /**
+         * An identical index already existed
+         */
+        SKIPPED,
+        /**
+         * An index with the same name or keys but different options exists.  It has to be dropped before the mapped one can be created.
+         */
+        CONFLICT,
+        /**
+         * The existing indexes could not be listed or the index could not be created
+         */
+        FAILED
+    }
+
+    /**
+     * The outcome for one mapped index
+     */
+    public static class IndexResult {
+        private final String collection;
+        private final String name;
+        private final BsonDocument keys;
+        private final Outcome outcome;
+        private final String message;
+
+        IndexResult(final String collection, final String name, final BsonDocument keys, final Outcome outcome, final String message) {
+            this.collection = collection;
+            this.name = name;
+            this.keys = keys;
+            this.outcome = outcome;
+            this.message = message;
+        }
+
+        /**
+         * @return the name of the collection
+         */
+        public String getCollection() {
+            return collection;
+        }
+
+        /**
+         * @return the name of the index
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the keys of the index
+         */
+        public BsonDocument getKeys() {
+            return keys;
+        }
+
+        /**
+         * @return what happened to the index
+         */
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return the reason for a conflict or failure, otherwise null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s.%s %s %s%s", collection, name, keys, outcome, message != null ? ": " + message : "");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.mongodb.morphia;
+
+
+/**
+ * Options controlling {@link Datastore#syncIndexes(IndexSyncOptions)}.  The setter methods return {@code this} so that a chaining style
+ * can be used.
+ *
+ * @since 1.4
+ */
+public class IndexSyncOptions {
+    private boolean background;
+    private int parallelism = 4;
+
+    /**
+     * Create a copy of the options instance.
+     *
+     * @return the copy
+     */
+    public IndexSyncOptions copy() {
+        return new IndexSyncOptions()
+            .background(isBackground())
+            .parallelism(getParallelism());
+    }
+
+    /**
+     * @return true if missing indexes are built in the background
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * Sets whether missing indexes are built in the background.  The default is false.
+     *
+     * @param background true if missing indexes should be built in the background
+     * @return this
+     */
+    public IndexSyncOptions background(final boolean background) {
+        this.background = background;
+        return this;
+    }
+
+    /**
+     * @return the number of collections synchronized at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of collections synchronized at the same time.  The default is 4.
+     *
+     * @param parallelism the number of collections
+     * @return this
+     */
+    public IndexSyncOptions parallelism(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+}
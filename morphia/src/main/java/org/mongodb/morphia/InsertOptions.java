@@ -18,6 +18,8 @@ package org.mongodb.morphia;
 
 import com.mongodb.WriteConcern;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Options related to insertion of documents into MongoDB.  The setter methods return {@code this} so that a chaining style can be used.
  *
@@ -25,6 +27,8 @@ import com.mongodb.WriteConcern;
  */
 public class InsertOptions {
     private com.mongodb.InsertOptions options = new com.mongodb.InsertOptions();
+    private ExecutorService encodingExecutor;
+    private int encodingChunkSize = 1000;
 
     /**
      * Create a copy of the options instance.
@@ -35,7 +39,9 @@ public class InsertOptions {
         return new InsertOptions()
             .bypassDocumentValidation(getBypassDocumentValidation())
             .continueOnError(isContinueOnError())
-            .writeConcern(getWriteConcern());
+            .writeConcern(getWriteConcern())
+            .encodingExecutor(getEncodingExecutor())
+            .encodingChunkSize(getEncodingChunkSize());
     }
 
     com.mongodb.InsertOptions getOptions() {
@@ -104,4 +110,49 @@ public class InsertOptions {
         options.bypassDocumentValidation(bypassDocumentValidation);
         return this;
     }
+
+    /**
+     * @return the executor used to convert entities to documents in parallel, or null if entities are converted on the calling thread
+     * @since 1.4
+     */
+    public ExecutorService getEncodingExecutor() {
+        return encodingExecutor;
+    }
+
+    /**
+     * Sets an executor on which to convert entities to documents when inserting more than {@link #getEncodingChunkSize()} entities.
+     * The entities are converted in chunks and each chunk is sent as soon as it, and the ones before it, are ready.  The entities'
+     * lifecycle callbacks still run in order on the calling thread.
+     *
+     * @param encodingExecutor the executor, or null to convert entities on the calling thread
+     * @return this
+     * @since 1.4
+     */
+    public InsertOptions encodingExecutor(final ExecutorService encodingExecutor) {
+        this.encodingExecutor = encodingExecutor;
+        return this;
+    }
+
+    /**
+     * @return the number of entities converted per task when an encoding executor is set
+     * @since 1.4
+     */
+    public int getEncodingChunkSize() {
+        return encodingChunkSize;
+    }
+
+    /**
+     * Sets the number of entities converted per task when an encoding executor is set.  The default is 1000.
+     *
+     * @param encodingChunkSize the chunk size
+     * @return this
+     * @since 1.4
+     */
+    public InsertOptions encodingChunkSize(final int encodingChunkSize) {
+        if (encodingChunkSize <= 0) {
+            throw new IllegalArgumentException("encodingChunkSize must be greater than 0");
+        }
+        this.encodingChunkSize = encodingChunkSize;
+        return this;
+    }
 }
@@ -14,6 +14,7 @@ import org.mongodb.morphia.query.MorphiaIterator;
 import org.mongodb.morphia.query.Query;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Stores the results of a map reduce operation
@@ -29,6 +30,9 @@ public class MapreduceResults<T> implements Iterable<T> {
     private String outputCollectionName;
     private OutputType outputType;
     private Query<T> query;
+    @Transient
+    private List<T> aggregated;
+    private long elapsedMillis;
 
     @Transient
     private Class<T> clazz;
@@ -48,6 +52,32 @@ public class MapreduceResults<T> implements Iterable<T> {
         outputCollectionName = output.getCollectionName();
     }
 
+    /**
+     * Creates a results instance for the inline output of an aggregation
+     *
+     * @param results       the results
+     * @param elapsedMillis the duration of the aggregation
+     * @see GroupReduceOptions
+     */
+    MapreduceResults(final List<T> results, final long elapsedMillis) {
+        this.aggregated = results;
+        this.elapsedMillis = elapsedMillis;
+        outputType = OutputType.INLINE;
+    }
+
+    /**
+     * Creates a results instance for an aggregation which wrote its output to a collection
+     *
+     * @param outputCollectionName the name of the collection
+     * @param elapsedMillis        the duration of the aggregation
+     * @see GroupReduceOptions
+     */
+    MapreduceResults(final String outputCollectionName, final long elapsedMillis) {
+        this.outputCollectionName = outputCollectionName;
+        this.elapsedMillis = elapsedMillis;
+        outputType = OutputType.REPLACE;
+    }
+
     /**
      * @return the query to use against these results
      */
@@ -69,7 +99,7 @@ public class MapreduceResults<T> implements Iterable<T> {
      * @return the duration of the operation
      */
     public long getElapsedMillis() {
-        return output.getDuration();
+        return output != null ? output.getDuration() : elapsedMillis;
     }
 
     /**
@@ -90,6 +120,9 @@ public class MapreduceResults<T> implements Iterable<T> {
      * @see MapreduceType
      */
     public Iterator<T> getInlineResults() {
+        if (aggregated != null) {
+            return aggregated.iterator();
+        }
         return new MorphiaIterator<T, T>(datastore, output.results().iterator(), mapper, clazz, null, cache);
     }
 
@@ -170,28 +203,29 @@ public class MapreduceResults<T> implements Iterable<T> {
     }
 
     /**
-     * This class represents various statistics about a map reduce operation
+     * This class represents various statistics about a map reduce operation.  An aggregation doesn't report these counts so each of them
+     * is -1 for the results of a {@link GroupReduceOptions} job.
      */
     public class Stats {
         /**
          * @return the emit count of the operation
          */
         public int getEmitCount() {
-            return output.getEmitCount();
+            return output != null ? output.getEmitCount() : -1;
         }
 
         /**
          * @return the input count of the operation
          */
         public int getInputCount() {
-            return output.getInputCount();
+            return output != null ? output.getInputCount() : -1;
         }
 
         /**
          * @return the output count of the operation
          */
         public int getOutputCount() {
-            return output.getOutputCount();
+            return output != null ? output.getOutputCount() : -1;
         }
     }
 
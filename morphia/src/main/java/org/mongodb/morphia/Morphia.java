@@ -39,6 +39,7 @@ import java.util.Set;
 public class Morphia {
     private static final Logger LOG = MorphiaLoggerFactory.get(Morphia.class);
     private final Mapper mapper;
+    private volatile boolean useBulkWriteOperations;
 
     /**
      * Creates a Morphia instance with a default Mapper and an empty class set.
@@ -147,13 +148,11 @@ public class Morphia {
     }
 
     /**
-     * @return false.  Setting this value has no value functionally or performance-wise.
-     * @deprecated
-     * @see <a href="https://github.com/mongodb/morphia/issues/1052">Issue #1052</a>
+     * @return true if saving multiple entities should be done using bulk writes
+     * @see #setUseBulkWriteOperations(boolean)
      */
-    @Deprecated
     public boolean getUseBulkWriteOperations() {
-        return false;
+        return useBulkWriteOperations;
     }
 
     /**
@@ -167,24 +166,23 @@ public class Morphia {
     }
 
     /**
-     * @return false.  Setting this value has no value functionally or performance-wise.
-     * @deprecated
-     * @see <a href="https://github.com/mongodb/morphia/issues/1052">Issue #1052</a>
+     * @return true if saving multiple entities should be done using bulk writes
+     * @see #setUseBulkWriteOperations(boolean)
      */
-    @Deprecated
     public boolean isUseBulkWriteOperations() {
-        return false;
+        return useBulkWriteOperations;
     }
 
     /**
-     * Configures Morphia to use bulk writes.  Only useful with MongoDB 2.6+.
+     * Configures Morphia to use bulk writes when saving multiple entities.  Instead of one round trip per entity,
+     * {@link Datastore#save(Iterable, InsertOptions)} will then send a single bulk write per collection holding the inserts, upserts and
+     * version checked replacements for the entities.  Only useful with MongoDB 2.6+.
      *
      * @param useBulkWriteOperations true if Morphia should use bulk writes
      * @see <a href="https://github.com/mongodb/morphia/issues/1052">Issue #1052</a>
-     * @deprecated Setting this value has no value functionally or performance-wise.
      */
-    @Deprecated
     public void setUseBulkWriteOperations(final boolean useBulkWriteOperations) {
+        this.useBulkWriteOperations = useBulkWriteOperations;
     }
 
     /**
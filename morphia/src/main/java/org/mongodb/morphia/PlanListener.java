@@ -0,0 +1,17 @@
+package org.mongodb.morphia;
+
+
+/**
+ * Receives the plans explained by a {@link PlanProfiler}.  Listeners are called on the thread which ran the operation so they should hand
+ * slow work such as writing to a remote system to another thread.
+ *
+ * @since 1.4
+ */
+public interface PlanListener {
+    /**
+     * Called for each explained operation
+     *
+     * @param summary the summary of the winning plan
+     */
+    void planExplained(PlanSummary summary);
+}
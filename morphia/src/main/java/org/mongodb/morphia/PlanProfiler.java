@@ -0,0 +1,176 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import org.mongodb.morphia.PlanSummary.Trigger;
+import org.mongodb.morphia.aggregation.AggregationPipeline;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.query.Query;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Explains queries and aggregations and publishes a {@link PlanSummary} of their winning plans to a {@link PlanListener}.  Plans can be
+ * asked for directly or, once the profiler is {@link AdvancedDatastore#setPlanProfiler(PlanProfiler) set on a Datastore}, explained for
+ * a sample of the operations it runs and for those slower than a threshold:
+ * <pre>
+ * datastore.setPlanProfiler(new PlanProfiler(new PlanListener() {
+ *     public void planExplained(PlanSummary summary) {
+ *         if (summary.isCollectionScan() || summary.isSortInMemory()) {
+ *             LOG.warning(summary.toString());
+ *         }
+ *     }
+ * }).sampleEvery(1000).slowerThan(100, TimeUnit.MILLISECONDS));
+ * </pre>
+ * Explaining runs the query again on the calling thread.  The threshold applies to the operations the {@link QueryShapeRecorder} times;
+ * the iterators returned by {@code fetch} are only sampled.  A failure to explain a sampled or slow operation is logged and doesn't affect
+ * the operation.
+ *
+ * @since 1.4
+ */
+public class PlanProfiler {
+    private static final Logger LOG = MorphiaLoggerFactory.get(PlanProfiler.class);
+
+    private final PlanListener listener;
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int sampleEvery;
+    private volatile long thresholdNanos = Long.MAX_VALUE;
+
+    /**
+     * Creates a profiler which only explains the operations it is asked to until a sampling rate or threshold is set.
+     *
+     * @param listener the listener to publish plans to
+     */
+    public PlanProfiler(final PlanListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("A profiler needs a listener");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Explains one in every {@code count} operations.
+     *
+     * @param count the sampling rate or 0 to stop sampling
+     * @return this
+     */
+    public PlanProfiler sampleEvery(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The sampling rate can not be negative");
+        }
+        sampleEvery = count;
+        return this;
+    }
+
+    /**
+     * Explains the operations which take longer than the given time.
+     *
+     * @param time the threshold
+     * @param unit the unit of the threshold
+     * @return this
+     */
+    public PlanProfiler slowerThan(final long time, final TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The threshold can not be negative");
+        }
+        thresholdNanos = unit.toNanos(time);
+        return this;
+    }
+
+    /**
+     * @return the number of sampled or slow operations which couldn't be explained
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Explains a query and publishes its plan.
+     *
+     * @param query the query
+     * @return the summary of the plan
+     */
+    public PlanSummary explain(final Query<?> query) {
+        return publish(query.explain(), "find", Trigger.REQUESTED, QueryShapeRecorder.UNTIMED);
+    }
+
+    /**
+     * Explains an aggregation and publishes its plan.
+     *
+     * @param pipeline the pipeline
+     * @return the summary of the plan
+     */
+    public PlanSummary explain(final AggregationPipeline pipeline) {
+        return publish(pipeline.explain(), "aggregate", Trigger.REQUESTED, QueryShapeRecorder.UNTIMED);
+    }
+
+    /**
+     * Called by queries after they run.  Explains the query if it is sampled or slow.  A count is explained as the count command rather
+     * than as a find.
+     *
+     * @param query     the query
+     * @param operation the operation the query ran, such as "find" or "count"
+     * @param nanos     how long the operation took or {@link QueryShapeRecorder#UNTIMED}
+     */
+    public void profile(final Query<?> query, final String operation, final long nanos) {
+        final Trigger trigger = trigger(nanos);
+        if (trigger != null) {
+            try {
+                publish("count".equals(operation) ? explainCount(query) : query.explain(), operation, trigger, nanos);
+            } catch (RuntimeException e) {
+                failed(operation, e);
+            }
+        }
+    }
+
+    /**
+     * Called by pipelines after they run.  Explains the pipeline if it is sampled or slow.
+     *
+     * @param pipeline the pipeline
+     * @param nanos    how long the operation took or {@link QueryShapeRecorder#UNTIMED}
+     */
+    public void profile(final AggregationPipeline pipeline, final long nanos) {
+        final Trigger trigger = trigger(nanos);
+        if (trigger != null) {
+            try {
+                publish(pipeline.explain(), "aggregate", trigger, nanos);
+            } catch (RuntimeException e) {
+                failed("aggregate", e);
+            }
+        }
+    }
+
+    private Trigger trigger(final long nanos) {
+        if (nanos != QueryShapeRecorder.UNTIMED && nanos > thresholdNanos) {
+            return Trigger.SLOW;
+        }
+        final int rate = sampleEvery;
+        return rate > 0 && operations.incrementAndGet() % rate == 0 ? Trigger.SAMPLED : null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Map<?, ?> explainCount(final Query<?> query) {
+        final DBCollection collection = query.getCollection();
+        final BasicDBObject count = new BasicDBObject("count", collection.getName()).append("query", query.getQueryObject());
+        return collection.getDB().command(new BasicDBObject("explain", count).append("verbosity", "executionStats"),
+                                          collection.getReadPreference()).toMap();
+    }
+
+    private PlanSummary publish(final Map<?, ?> explain, final String operation, final Trigger trigger, final long nanos) {
+        final PlanSummary summary = PlanSummary.parse(explain, operation, trigger, nanos);
+        listener.planExplained(summary);
+        return summary;
+    }
+
+    private void failed(final String operation, final RuntimeException e) {
+        failures.incrementAndGet();
+        LOG.warning(format("Could not explain a %s: %s", operation, e.getMessage()), e);
+    }
+}
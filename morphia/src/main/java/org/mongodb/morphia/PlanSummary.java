@@ -0,0 +1,324 @@
+package org.mongodb.morphia;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * The winning plan of a find or an aggregation as reported by explain, reduced to the stages it runs and the work it did.  Counts the
+ * server didn't report are -1; an aggregation is explained without executing it so only its stages are known.
+ *
+ * @see PlanProfiler
+ * @since 1.4
+ */
+public class PlanSummary {
+    /**
+     * The name of the stage scanning a whole collection
+     */
+    public static final String COLLSCAN = "COLLSCAN";
+    /**
+     * The name of the stage sorting documents in memory
+     */
+    public static final String SORT = "SORT";
+
+    private final String namespace;
+    private final String operation;
+    private final Trigger trigger;
+    private final long nanos;
+    private final Stage root;
+    private final long keysExamined;
+    private final long docsExamined;
+    private final long returned;
+    private final long executionMillis;
+    private final boolean sortInMemory;
+
+    PlanSummary(final String namespace, final String operation, final Trigger trigger, final long nanos, final Stage root,
+                final long keysExamined, final long docsExamined, final long returned, final long executionMillis,
+                final boolean sortInMemory) {
+        this.namespace = namespace;
+        this.operation = operation;
+        this.trigger = trigger;
+        this.nanos = nanos;
+        this.root = root;
+        this.keysExamined = keysExamined;
+        this.docsExamined = docsExamined;
+        this.returned = returned;
+        this.executionMillis = executionMillis;
+        this.sortInMemory = sortInMemory || root.contains(SORT);
+    }
+
+    /**
+     * Reads the output of an explain.  Besides the output of the current servers this understands the cursor based output of servers
+     * before 3.0 and the per shard output of sharded clusters.
+     *
+     * @param explain   the output of explain
+     * @param operation the operation which was explained
+     * @param trigger   what caused the operation to be explained
+     * @param nanos     how long the operation took or {@link QueryShapeRecorder#UNTIMED}
+     * @return the summary
+     */
+    static PlanSummary parse(final Map<?, ?> explain, final String operation, final Trigger trigger, final long nanos) {
+        final Map<?, ?> stats = map(explain.get("executionStats"));
+        if (stats != null) {
+            final Map<?, ?> planner = map(explain.get("queryPlanner"));
+            return new PlanSummary(string(planner.get("namespace")), operation, trigger, nanos, stage(map(planner.get("winningPlan"))),
+                                   number(stats.get("totalKeysExamined")), number(stats.get("totalDocsExamined")),
+                                   number(stats.get("nReturned")), number(stats.get("executionTimeMillis")), false);
+        } else if (explain.containsKey("queryPlanner")) {
+            final Map<?, ?> planner = map(explain.get("queryPlanner"));
+            return new PlanSummary(string(planner.get("namespace")), operation, trigger, nanos, stage(map(planner.get("winningPlan"))),
+                                   -1, -1, -1, -1, false);
+        } else if (explain.containsKey("stages")) {
+            return pipeline(explain, operation, trigger, nanos);
+        } else if (explain.get("shards") instanceof Map) {
+            // a sharded aggregation explains the pipeline of each shard
+            final List<Stage> shards = new ArrayList<Stage>();
+            String namespace = null;
+            boolean sortInMemory = false;
+            for (final Object shard : ((Map<?, ?>) explain.get("shards")).values()) {
+                final PlanSummary summary = parse(map(shard), operation, trigger, nanos);
+                namespace = summary.namespace;
+                sortInMemory |= summary.sortInMemory;
+                shards.add(summary.root);
+            }
+            return new PlanSummary(namespace, operation, trigger, nanos, new Stage("SHARD_MERGE", null, shards), -1, -1, -1, -1,
+                                   sortInMemory);
+        } else if (explain.containsKey("cursor")) {
+            final String cursor = string(explain.get("cursor"));
+            final Stage scan = cursor.startsWith("BasicCursor")
+                               ? new Stage(COLLSCAN, null, Collections.<Stage>emptyList())
+                               : new Stage("IXSCAN", cursor.substring(cursor.indexOf(' ') + 1), Collections.<Stage>emptyList());
+            return new PlanSummary(string(explain.get("ns")), operation, trigger, nanos, scan, number(explain.get("nscanned")),
+                                   number(explain.get("nscannedObjects")), number(explain.get("n")), number(explain.get("millis")),
+                                   Boolean.TRUE.equals(explain.get("scanAndOrder")));
+        }
+        throw new IllegalArgumentException("Could not find a plan in " + explain);
+    }
+
+    /**
+     * Reads the explained stages of an aggregation.  The query of the pipeline is planned in its leading {@code $cursor} stage and a
+     * {@code $sort} which the query couldn't absorb is listed as a stage of its own.
+     */
+    private static PlanSummary pipeline(final Map<?, ?> explain, final String operation, final Trigger trigger, final long nanos) {
+        Stage root = null;
+        String namespace = null;
+        boolean sortInMemory = false;
+        for (final Object element : (List<?>) explain.get("stages")) {
+            final Map<?, ?> stage = map(element);
+            if (stage.containsKey("$cursor")) {
+                final Map<?, ?> planner = map(map(stage.get("$cursor")).get("queryPlanner"));
+                if (planner != null) {
+                    namespace = string(planner.get("namespace"));
+                    root = stage(map(planner.get("winningPlan")));
+                }
+            } else if (stage.containsKey("$sort")) {
+                sortInMemory = true;
+            }
+        }
+        return new PlanSummary(namespace, operation, trigger, nanos,
+                               root != null ? root : new Stage(COLLSCAN, null, Collections.<Stage>emptyList()), -1, -1, -1, -1,
+                               sortInMemory);
+    }
+
+    private static Stage stage(final Map<?, ?> plan) {
+        final List<Stage> children = new ArrayList<Stage>();
+        if (plan.get("inputStage") != null) {
+            children.add(stage(map(plan.get("inputStage"))));
+        }
+        if (plan.get("inputStages") instanceof List) {
+            for (final Object input : (List<?>) plan.get("inputStages")) {
+                children.add(stage(map(input)));
+            }
+        }
+        if (plan.get("shards") instanceof List) {
+            for (final Object shard : (List<?>) plan.get("shards")) {
+                children.add(stage(map(map(shard).get("winningPlan"))));
+            }
+        }
+        return new Stage(string(plan.get("stage")), string(plan.get("indexName")), children);
+    }
+
+    private static Map<?, ?> map(final Object value) {
+        return value instanceof Map ? (Map<?, ?>) value : null;
+    }
+
+    private static String string(final Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static long number(final Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+
+    /**
+     * @return the database and collection of the operation
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return the operation which was explained, such as "find", "count" or "aggregate"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return what caused the operation to be explained
+     */
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * @return how long the operation took in nanoseconds or {@link QueryShapeRecorder#UNTIMED} if it wasn't timed
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the first stage of the winning plan, which reads from the stages below it
+     */
+    public Stage getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of index keys examined
+     */
+    public long getKeysExamined() {
+        return keysExamined;
+    }
+
+    /**
+     * @return the number of documents examined
+     */
+    public long getDocsExamined() {
+        return docsExamined;
+    }
+
+    /**
+     * @return the number of documents returned
+     */
+    public long getReturned() {
+        return returned;
+    }
+
+    /**
+     * @return the time the server spent executing the plan in milliseconds
+     */
+    public long getExecutionMillis() {
+        return executionMillis;
+    }
+
+    /**
+     * @return true if the results are sorted in memory rather than read in order from an index
+     */
+    public boolean isSortInMemory() {
+        return sortInMemory;
+    }
+
+    /**
+     * @return true if any part of the plan scans a whole collection
+     */
+    public boolean isCollectionScan() {
+        return root.contains(COLLSCAN);
+    }
+
+    @Override
+    public String toString() {
+        return format("PlanSummary{namespace=%s, operation=%s, trigger=%s, plan=%s, keysExamined=%d, docsExamined=%d, returned=%d, "
+                      + "executionMillis=%d, sortInMemory=%s}", namespace, operation, trigger, root, keysExamined, docsExamined, returned,
+                      executionMillis, sortInMemory);
+    }
+
+    /**
+     * What caused an operation to be explained
+     */
+    public enum Trigger {
+        /**
+         * The plan was asked for through {@link PlanProfiler#explain(org.mongodb.morphia.query.Query)} or {@link
+         * PlanProfiler#explain(org.mongodb.morphia.aggregation.AggregationPipeline)}
+         */
+        REQUESTED,
+        /**
+         * The operation was picked by the sampling rate of the profiler
+         */
+        SAMPLED,
+        /**
+         * The operation took longer than the threshold of the profiler
+         */
+        SLOW
+    }
+
+    /**
+     * A stage of a plan
+     */
+    public static class Stage {
+        private final String name;
+        private final String indexName;
+        private final List<Stage> children;
+
+        Stage(final String name, final String indexName, final List<Stage> children) {
+            this.name = name;
+            this.indexName = indexName;
+            this.children = Collections.unmodifiableList(children);
+        }
+
+        /**
+         * @return the name of the stage, such as "IXSCAN", "FETCH" or "SORT"
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the index the stage reads or null if it doesn't read an index
+         */
+        public String getIndexName() {
+            return indexName;
+        }
+
+        /**
+         * @return the stages this stage reads from
+         */
+        public List<Stage> getChildren() {
+            return children;
+        }
+
+        /**
+         * @param stage the name of a stage
+         * @return true if this stage or any stage below it has the given name
+         */
+        public boolean contains(final String stage) {
+            if (stage.equals(name)) {
+                return true;
+            }
+            for (final Stage child : children) {
+                if (child.contains(stage)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(name);
+            if (indexName != null) {
+                builder.append('(').append(indexName).append(')');
+            }
+            if (!children.isEmpty()) {
+                builder.append(" <- ");
+                builder.append(children.size() == 1 ? children.get(0).toString() : children.toString());
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.DBObject;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.mongodb.morphia.QueryShapeReport.IndexUse;
+import org.mongodb.morphia.QueryShapeReport.QueryShape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Records the shapes of the queries a Datastore runs so they can be checked against the mapped indexes.  A shape is a query document with
+ * its values stripped, so {@code {age: {$gt: 21}, name: "Bob"}} and {@code {name: "Alice", age: {$gt: 65}}} share the shape {@code {age:
+ * {$gt: ?}, name: ?}}.  Executions and latency are counted per entity type, collection, operation, shape and sort.
+ * <p>
+ * Recording is off unless a recorder is {@link AdvancedDatastore#setQueryShapeRecorder(QueryShapeRecorder) set on a Datastore}.  Finds
+ * are counted when their cursor is created.  Their latency is only known for {@code asList}, {@code asKeyList}, {@code get} and {@code
+ * getKey} which read the results themselves, and covers reading every result.  Counts, updates and deletes are always timed.
+ *
+ * @see #report()
+ * @since 1.4
+ */
+public class QueryShapeRecorder {
+    /**
+     * The latency passed to {@link #record(Class, String, String, DBObject, DBObject, long)} for executions which aren't timed
+     */
+    public static final long UNTIMED = -1;
+
+    /**
+     * The number of distinct shapes held unless another is given
+     */
+    public static final int DEFAULT_MAX_SHAPES = 1000;
+
+    private static final List<String> IGNORED = asList("$isolated", "$comment");
+    private static final List<String> BRANCHES = asList("$or", "$nor");
+    private static final String TEXT = "$text";
+
+    private final int maxShapes;
+    private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<String, Shape>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile IndexHelper indexHelper;
+
+    /**
+     * Creates a recorder holding up to {@value #DEFAULT_MAX_SHAPES} shapes.
+     */
+    public QueryShapeRecorder() {
+        this(DEFAULT_MAX_SHAPES);
+    }
+
+    /**
+     * Creates a recorder.
+     *
+     * @param maxShapes the number of distinct shapes held.  Executions of further shapes are only counted as dropped.
+     */
+    public QueryShapeRecorder(final int maxShapes) {
+        if (maxShapes <= 0) {
+            throw new IllegalArgumentException("maxShapes must be greater than 0");
+        }
+        this.maxShapes = maxShapes;
+    }
+
+    void attach(final IndexHelper helper) {
+        indexHelper = helper;
+    }
+
+    /**
+     * Records one execution of a query.
+     *
+     * @param type       the entity type queried
+     * @param collection the name of the collection queried
+     * @param operation  the operation, such as "find", "count", "update" or "delete"
+     * @param query      the query document
+     * @param sort       the sort document or null
+     * @param nanos      the latency in nanoseconds or {@link #UNTIMED}
+     */
+    public void record(final Class<?> type, final String collection, final String operation, final DBObject query, final DBObject sort,
+                       final long nanos) {
+        final String filter = shape(query);
+        final String order = sortShape(sort);
+        final String key = type.getName() + '|' + collection + '|' + operation + '|' + filter + '|' + order;
+        Shape shape = shapes.get(key);
+        if (shape == null) {
+            if (shapes.size() >= maxShapes) {
+                dropped.incrementAndGet();
+                return;
+            }
+            final Shape created = new Shape(type, collection, operation, filter, order, branches(query), sortFields(sort));
+            shape = shapes.putIfAbsent(key, created);
+            if (shape == null) {
+                shape = created;
+            }
+        }
+        shape.add(nanos);
+    }
+
+    /**
+     * @return the number of executions which weren't recorded because {@link #QueryShapeRecorder(int) too many shapes} were held
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Forgets every recorded shape.
+     */
+    public void reset() {
+        shapes.clear();
+        dropped.set(0);
+    }
+
+    /**
+     * Checks every recorded shape against the indexes mapped on its entity type.  The indexes are taken from the mapping rather than the
+     * server so the report shows what {@link Datastore#ensureIndexes()} would give the queries.
+     *
+     * @return the report
+     * @throws IllegalStateException if the recorder has never been set on a Datastore
+     */
+    public QueryShapeReport report() {
+        final IndexHelper helper = indexHelper;
+        if (helper == null) {
+            throw new IllegalStateException("The recorder has to be set on a Datastore before it can check indexes");
+        }
+        final Map<Class<?>, List<List<String>>> indexes = new HashMap<Class<?>, List<List<String>>>();
+        final List<QueryShape> report = new ArrayList<QueryShape>();
+        for (final Shape shape : shapes.values()) {
+            List<List<String>> keys = indexes.get(shape.type);
+            if (keys == null) {
+                keys = indexFields(helper.indexKeys(shape.type));
+                indexes.put(shape.type, keys);
+            }
+            report.add(new QueryShape(shape.type, shape.collection, shape.operation, shape.filter, shape.sort,
+                                      shape.executions.get(), shape.timedExecutions.get(), shape.totalNanos.get(),
+                                      shape.maxNanos.get(), indexUse(shape, keys)));
+        }
+        return new QueryShapeReport(report, dropped.get());
+    }
+
+    /**
+     * @param query the query document
+     * @return the query with its values replaced by {@code ?} and its fields in alphabetical order
+     */
+    static String shape(final DBObject query) {
+        final StringBuilder builder = new StringBuilder();
+        appendDocument(builder, document(query));
+        return builder.toString();
+    }
+
+    /**
+     * Keeps the order and directions of the sort since both decide which indexes can provide it.
+     */
+    static String sortShape(final DBObject sort) {
+        return sort == null || sort.keySet().isEmpty() ? "" : sort.toString();
+    }
+
+    /**
+     * Works out which fields an index has to lead with to serve the query.  Every {@code $or} and {@code $nor} branch needs its own index
+     * so each is listed separately along with the fields of the rest of the query.
+     */
+    static List<Set<String>> branches(final DBObject query) {
+        final List<Set<String>> branches = new ArrayList<Set<String>>();
+        branches.add(new LinkedHashSet<String>());
+        if (query != null) {
+            addFields(branches, document(query));
+        }
+        return branches;
+    }
+
+    static IndexUse indexUse(final List<Set<String>> branches, final List<String> sort, final List<List<String>> indexes) {
+        IndexUse worst = IndexUse.INDEXED;
+        for (final Set<String> fields : branches) {
+            final Collection<String> used = fields.isEmpty() && !sort.isEmpty() ? Collections.singleton(sort.get(0)) : fields;
+            if (used.isEmpty()) {
+                return IndexUse.UNFILTERED;
+            }
+            final IndexUse use = indexUse(used, indexes);
+            if (use.compareTo(worst) > 0) {
+                worst = use;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Lists the fields of each index with the text fields of text indexes replaced by {@value #TEXT}, the way {@code $text} queries
+     * use them, and adds the {@code _id} index every collection has.
+     */
+    static List<List<String>> indexFields(final List<BsonDocument> indexes) {
+        final List<List<String>> fields = new ArrayList<List<String>>();
+        fields.add(Collections.singletonList("_id"));
+        for (final BsonDocument keys : indexes) {
+            final List<String> names = new ArrayList<String>();
+            for (final Map.Entry<String, BsonValue> entry : keys.entrySet()) {
+                final boolean text = entry.getValue().isString() && entry.getValue().asString().getValue().equals("text");
+                final String name = text ? TEXT : entry.getKey();
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
+            }
+            fields.add(names);
+        }
+        return fields;
+    }
+
+    private static IndexUse indexUse(final Collection<String> fields, final List<List<String>> indexes) {
+        boolean partial = false;
+        for (final List<String> index : indexes) {
+            if (fields.contains(index.get(0))) {
+                return IndexUse.INDEXED;
+            }
+            for (final String field : fields) {
+                partial |= index.contains(field);
+            }
+        }
+        return partial ? IndexUse.POORLY_PREFIXED : IndexUse.UNINDEXED;
+    }
+
+    private static IndexUse indexUse(final Shape shape, final List<List<String>> indexes) {
+        return indexUse(shape.branches, shape.sortFields, indexes);
+    }
+
+    private static void addFields(final List<Set<String>> branches, final Map<String, ?> query) {
+        for (final Map.Entry<String, ?> entry : query.entrySet()) {
+            final String key = entry.getKey();
+            final Object value = entry.getValue();
+            if (IGNORED.contains(key)) {
+                continue;
+            } else if (key.equals(TEXT)) {
+                addField(branches, TEXT);
+            } else if (key.equals("$and") && value instanceof List) {
+                for (final Object clause : (List<?>) value) {
+                    if (document(clause) != null) {
+                        addFields(branches, document(clause));
+                    }
+                }
+            } else if (BRANCHES.contains(key) && value instanceof List) {
+                final List<Set<String>> split = new ArrayList<Set<String>>();
+                for (final Set<String> fields : branches) {
+                    for (final Object clause : (List<?>) value) {
+                        final List<Set<String>> branch = new ArrayList<Set<String>>();
+                        branch.add(new LinkedHashSet<String>(fields));
+                        if (document(clause) != null) {
+                            addFields(branch, document(clause));
+                        }
+                        split.addAll(branch);
+                    }
+                }
+                branches.clear();
+                branches.addAll(split);
+            } else if (!key.startsWith("$")) {
+                addField(branches, key);
+                addElementFields(branches, key, value);
+            }
+        }
+    }
+
+    /**
+     * {@code $elemMatch} conditions can be served by indexes on the fields of the array's elements.
+     */
+    private static void addElementFields(final List<Set<String>> branches, final String field, final Object value) {
+        final Map<String, ?> conditions = document(value);
+        final Map<String, ?> element = conditions != null ? document(conditions.get("$elemMatch")) : null;
+        if (element != null) {
+            for (final String key : element.keySet()) {
+                if (!key.startsWith("$")) {
+                    addField(branches, field + "." + key);
+                }
+            }
+        }
+    }
+
+    private static void addField(final List<Set<String>> branches, final String field) {
+        for (final Set<String> fields : branches) {
+            fields.add(field);
+        }
+    }
+
+    private static List<String> sortFields(final DBObject sort) {
+        return sort == null ? Collections.<String>emptyList() : new ArrayList<String>(sort.keySet());
+    }
+
+    private static void appendDocument(final StringBuilder builder, final Map<String, ?> document) {
+        builder.append('{');
+        if (document != null) {
+            final Map<String, Object> sorted = new TreeMap<String, Object>();
+            for (final Map.Entry<String, ?> entry : document.entrySet()) {
+                if (!IGNORED.contains(entry.getKey())) {
+                    sorted.put(entry.getKey(), entry.getValue());
+                }
+            }
+            boolean first = true;
+            for (final Map.Entry<String, Object> entry : sorted.entrySet()) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                first = false;
+                builder.append(entry.getKey()).append(": ");
+                appendValue(builder, entry.getKey(), entry.getValue());
+            }
+        }
+        builder.append('}');
+    }
+
+    private static void appendValue(final StringBuilder builder, final String key, final Object value) {
+        if (value instanceof List && (key.equals("$and") || BRANCHES.contains(key))) {
+            builder.append('[');
+            boolean first = true;
+            for (final Object clause : (List<?>) value) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                first = false;
+                appendDocument(builder, document(clause));
+            }
+            builder.append(']');
+        } else if (document(value) != null && isStructure(key, document(value))) {
+            appendDocument(builder, document(value));
+        } else {
+            builder.append('?');
+        }
+    }
+
+    /**
+     * Operator documents such as {@code {$gt: 1}} and the conditions of {@code $elemMatch} and {@code $not} are part of the shape.  Any
+     * other document is a value compared as a whole.
+     */
+    private static boolean isStructure(final String key, final Map<String, ?> value) {
+        if (key.equals("$elemMatch") || key.equals("$not")) {
+            return true;
+        }
+        final Set<String> keys = value.keySet();
+        if (keys.isEmpty()) {
+            return false;
+        }
+        for (final String field : keys) {
+            if (!field.startsWith("$")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Criteria build operator documents as plain maps so both maps and DBObjects are read as documents.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> document(final Object value) {
+        if (value instanceof Map) {
+            return (Map<String, ?>) value;
+        }
+        return value instanceof DBObject && !(value instanceof List) ? (Map<String, ?>) ((DBObject) value).toMap() : null;
+    }
+
+    private static final class Shape {
+        private final Class<?> type;
+        private final String collection;
+        private final String operation;
+        private final String filter;
+        private final String sort;
+        private final List<Set<String>> branches;
+        private final List<String> sortFields;
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong timedExecutions = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Shape(final Class<?> type, final String collection, final String operation, final String filter, final String sort,
+              final List<Set<String>> branches, final List<String> sortFields) {
+            this.type = type;
+            this.collection = collection;
+            this.operation = operation;
+            this.filter = filter;
+            this.sort = sort;
+            this.branches = branches;
+            this.sortFields = sortFields;
+        }
+
+        void add(final long nanos) {
+            executions.incrementAndGet();
+            if (nanos < 0) {
+                return;
+            }
+            timedExecutions.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+    }
+}
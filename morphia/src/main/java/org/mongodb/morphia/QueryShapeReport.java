@@ -0,0 +1,231 @@
+package org.mongodb.morphia;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The outcome of {@link QueryShapeRecorder#report()}.  Shapes are listed with those which took the most time first.
+ *
+ * @since 1.4
+ */
+public class QueryShapeReport {
+    private final List<QueryShape> shapes;
+    private final long dropped;
+
+    QueryShapeReport(final List<QueryShape> shapes, final long dropped) {
+        this.shapes = new ArrayList<QueryShape>(shapes);
+        Collections.sort(this.shapes, new ByTime());
+        this.dropped = dropped;
+    }
+
+    /**
+     * @return every recorded shape
+     */
+    public List<QueryShape> getShapes() {
+        return Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * @param indexUse the index use to look for
+     * @return the shapes with the given index use
+     */
+    public List<QueryShape> getShapes(final IndexUse indexUse) {
+        final List<QueryShape> list = new ArrayList<QueryShape>();
+        for (final QueryShape shape : shapes) {
+            if (shape.getIndexUse() == indexUse) {
+                list.add(shape);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the shapes no mapped index can serve
+     */
+    public List<QueryShape> getUnindexed() {
+        return getShapes(IndexUse.UNINDEXED);
+    }
+
+    /**
+     * @return the shapes whose fields are only indexed behind fields the query doesn't use
+     */
+    public List<QueryShape> getPoorlyPrefixed() {
+        return getShapes(IndexUse.POORLY_PREFIXED);
+    }
+
+    /**
+     * @return true if any shape is unindexed or poorly prefixed
+     */
+    public boolean hasProblems() {
+        return !getUnindexed().isEmpty() || !getPoorlyPrefixed().isEmpty();
+    }
+
+    /**
+     * @return the number of executions which weren't recorded because the recorder held too many shapes
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return format("QueryShapeReport{shapes=%d, dropped=%d, unindexed=%s, poorlyPrefixed=%s}", shapes.size(), dropped, getUnindexed(),
+                      getPoorlyPrefixed());
+    }
+
+    /**
+     * How a shape can use the mapped indexes
+     */
+    public enum IndexUse {
+        /**
+         * An index leads with a field of the query, or with the first sort field of a query without conditions
+         */
+        INDEXED,
+        /**
+         * The query has no conditions or sort and reads the whole collection by design
+         */
+        UNFILTERED,
+        /**
+         * Indexes contain fields of the query but none lead with one so the server can't seek on them
+         */
+        POORLY_PREFIXED,
+        /**
+         * No index contains a field of the query so it scans the collection
+         */
+        UNINDEXED
+    }
+
+    /**
+     * The executions of one shape
+     */
+    public static class QueryShape {
+        private final Class<?> type;
+        private final String collection;
+        private final String operation;
+        private final String filter;
+        private final String sort;
+        private final long executions;
+        private final long timedExecutions;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final IndexUse indexUse;
+
+        QueryShape(final Class<?> type, final String collection, final String operation, final String filter, final String sort,
+                   final long executions, final long timedExecutions, final long totalNanos, final long maxNanos,
+                   final IndexUse indexUse) {
+            this.type = type;
+            this.collection = collection;
+            this.operation = operation;
+            this.filter = filter;
+            this.sort = sort;
+            this.executions = executions;
+            this.timedExecutions = timedExecutions;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.indexUse = indexUse;
+        }
+
+        /**
+         * @return the entity type queried
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return the name of the collection queried
+         */
+        public String getCollection() {
+            return collection;
+        }
+
+        /**
+         * @return the operation such as "find", "count", "update" or "delete"
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return the query document with its values replaced by {@code ?}
+         */
+        public String getFilter() {
+            return filter;
+        }
+
+        /**
+         * @return the sort document or an empty string if the query isn't sorted
+         */
+        public String getSort() {
+            return sort;
+        }
+
+        /**
+         * @return the number of executions
+         */
+        public long getExecutions() {
+            return executions;
+        }
+
+        /**
+         * @return the number of executions whose latency is known
+         */
+        public long getTimedExecutions() {
+            return timedExecutions;
+        }
+
+        /**
+         * @param unit the time unit of the result
+         * @return the total latency of the timed executions
+         */
+        public long getTotalTime(final TimeUnit unit) {
+            return unit.convert(totalNanos, NANOSECONDS);
+        }
+
+        /**
+         * @param unit the time unit of the result
+         * @return the mean latency of the timed executions
+         */
+        public long getMeanTime(final TimeUnit unit) {
+            return timedExecutions == 0 ? 0 : unit.convert(totalNanos / timedExecutions, NANOSECONDS);
+        }
+
+        /**
+         * @param unit the time unit of the result
+         * @return the highest latency of the timed executions
+         */
+        public long getMaxTime(final TimeUnit unit) {
+            return unit.convert(maxNanos, NANOSECONDS);
+        }
+
+        /**
+         * @return how the shape can use the mapped indexes
+         */
+        public IndexUse getIndexUse() {
+            return indexUse;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s %s.%s %s%s x%d mean %dus %s", type.getSimpleName(), collection, operation, filter,
+                          sort.isEmpty() ? "" : " sort " + sort, executions, getMeanTime(TimeUnit.MICROSECONDS), indexUse);
+        }
+    }
+
+    private static class ByTime implements Comparator<QueryShape> {
+        @Override
+        public int compare(final QueryShape o1, final QueryShape o2) {
+            if (o1.totalNanos != o2.totalNanos) {
+                return o1.totalNanos > o2.totalNanos ? -1 : 1;
+            }
+            return o1.executions > o2.executions ? -1 : o1.executions == o2.executions ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.mongodb.morphia;
+
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * An operation which took longer than the threshold of a {@link SlowOperationLog}.  The time of an operation is split into the time spent
+ * mapping documents to entities and the rest, which is mostly spent waiting for the driver and the server.
+ *
+ * @see SlowOperationLog
+ * @since 1.4
+ */
+public class SlowOperation {
+    /**
+     * The value of the counts which weren't known for the operation
+     */
+    public static final long UNKNOWN = -1;
+
+    private final Class<?> type;
+    private final String collection;
+    private final String operation;
+    private final String shape;
+    private final String options;
+    private final long documents;
+    private final long nanos;
+    private final long mapperNanos;
+
+    SlowOperation(final Class<?> type, final String collection, final String operation, final String shape, final String options,
+                  final long documents, final long nanos, final long mapperNanos) {
+        this.type = type;
+        this.collection = collection;
+        this.operation = operation;
+        this.shape = shape;
+        this.options = options;
+        this.documents = documents;
+        this.nanos = nanos;
+        this.mapperNanos = mapperNanos;
+    }
+
+    /**
+     * @return the entity type of the operation or null if it isn't known
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the name of the collection
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * @return the operation, such as "find", "count", "update", "delete", "findAndModify", "aggregate" or "mapReduce"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the query, or the stages of an aggregation, with the values replaced by {@code ?}
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * @return the options of the operation which change how much work it does, or an empty string
+     */
+    public String getOptions() {
+        return options;
+    }
+
+    /**
+     * @return the number of documents returned, or those updated or deleted, or {@link #UNKNOWN}
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return how long the operation took
+     */
+    public long getTime(final TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return how long was spent mapping documents to entities
+     */
+    public long getMapperTime(final TimeUnit unit) {
+        return unit.convert(mapperNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return how long was spent in the driver, which is the time of the operation less the time spent mapping
+     */
+    public long getDriverTime(final TimeUnit unit) {
+        return unit.convert(nanos - mapperNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return format("Slow %s on %s%s took %d ms (driver %d ms, mapper %d ms)%s: %s%s", operation, collection,
+                      type != null ? " (" + type.getSimpleName() + ")" : "", getTime(TimeUnit.MILLISECONDS),
+                      getDriverTime(TimeUnit.MILLISECONDS), getMapperTime(TimeUnit.MILLISECONDS),
+                      documents != UNKNOWN ? format(", %d documents", documents) : "", shape, options.isEmpty() ? "" : " " + options);
+    }
+}
@@ -0,0 +1,180 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.DBObject;
+import com.mongodb.MapReduceCommand.OutputType;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.query.CountOptions;
+import org.mongodb.morphia.query.FindOptions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Logs the operations of a Datastore which take longer than a threshold.  Each line names the operation, its collection and entity type,
+ * the shape of its query with the values stripped as in {@link QueryShapeRecorder}, the options which change how much work it does, the
+ * number of documents it returned or changed and how its time was split between the driver and the mapper:
+ * <pre>
+ * datastore.setSlowOperationLog(new SlowOperationLog(100, TimeUnit.MILLISECONDS));
+ *
+ * Slow find on people (Person) took 153 ms (driver 140 ms, mapper 13 ms), 20 documents: {age: {$gt: ?}} sort { "score" : -1} limit 20
+ * </pre>
+ * Lines are logged as warnings through {@link MorphiaLoggerFactory}.  Override {@link #log(SlowOperation)} to send them elsewhere.
+ * <p>
+ * Finds are timed by {@code asList}, {@code asKeyList}, {@code get} and {@code getKey}, which read every result, and count the time spent
+ * reading them.  Aggregations are timed up to their first batch of results.  Counts, updates, deletes, findAndModify and mapReduce are
+ * always timed.  Operations faster than the threshold cost a comparison.
+ *
+ * @see AdvancedDatastore#setSlowOperationLog(SlowOperationLog)
+ * @since 1.4
+ */
+public class SlowOperationLog {
+    private static final Logger LOG = MorphiaLoggerFactory.get(SlowOperationLog.class);
+
+    private final long thresholdNanos;
+    private final AtomicLong logged = new AtomicLong();
+
+    /**
+     * Creates a log of the operations slower than the given time.
+     *
+     * @param threshold the threshold
+     * @param unit      the unit of the threshold
+     */
+    public SlowOperationLog(final long threshold, final TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The threshold can not be negative");
+        }
+        thresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * @param unit the unit of the result
+     * @return the threshold
+     */
+    public long getThreshold(final TimeUnit unit) {
+        return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of operations logged
+     */
+    public long getLogged() {
+        return logged.get();
+    }
+
+    /**
+     * Called by queries, pipelines and the Datastore after an operation.  Logs the operation if it took longer than the threshold.
+     *
+     * @param type        the entity type or null if it isn't known
+     * @param collection  the name of the collection
+     * @param operation   the operation, such as "find", "count" or "update"
+     * @param query       the query document the operation ran with or, for an aggregation, the list of stages
+     * @param sort        the sort document or null
+     * @param options     the options of the operation or null
+     * @param documents   the number of documents returned, updated or deleted or {@link SlowOperation#UNKNOWN}
+     * @param nanos       how long the operation took or {@link QueryShapeRecorder#UNTIMED}
+     * @param mapperNanos how much of that was spent mapping documents to entities
+     */
+    public void completed(final Class<?> type, final String collection, final String operation, final Object query, final DBObject sort,
+                          final Object options, final long documents, final long nanos, final long mapperNanos) {
+        if (nanos == QueryShapeRecorder.UNTIMED || nanos <= thresholdNanos) {
+            return;
+        }
+        final StringBuilder description = new StringBuilder();
+        if (sort != null && !sort.keySet().isEmpty()) {
+            description.append("sort ").append(QueryShapeRecorder.sortShape(sort));
+        }
+        describe(description, options);
+        logged.incrementAndGet();
+        log(new SlowOperation(type, collection, operation, shape(query), description.toString().trim(), documents, nanos, mapperNanos));
+    }
+
+    /**
+     * Writes a slow operation to the log.
+     *
+     * @param operation the operation
+     */
+    protected void log(final SlowOperation operation) {
+        LOG.warning(operation.toString());
+    }
+
+    private static String shape(final Object query) {
+        if (query instanceof List) {
+            final StringBuilder stages = new StringBuilder("[");
+            for (final Object stage : (List<?>) query) {
+                if (stages.length() > 1) {
+                    stages.append(", ");
+                }
+                stage(stages, stage);
+            }
+            return stages.append(']').toString();
+        }
+        return QueryShapeRecorder.shape(query instanceof DBObject ? (DBObject) query : null);
+    }
+
+    /**
+     * The stage documents of a pipeline hold fields rather than operators, so the shape of each stage's document is taken on its own.
+     */
+    private static void stage(final StringBuilder builder, final Object stage) {
+        if (!(stage instanceof DBObject) || stage instanceof List) {
+            builder.append('?');
+            return;
+        }
+        final DBObject document = (DBObject) stage;
+        builder.append('{');
+        boolean first = true;
+        for (final String operator : document.keySet()) {
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            final Object value = document.get(operator);
+            builder.append(operator).append(": ")
+                   .append(value instanceof DBObject && !(value instanceof List) ? QueryShapeRecorder.shape((DBObject) value) : "?");
+        }
+        builder.append('}');
+    }
+
+    /**
+     * Describes the options which change how many documents an operation reads or writes and how long it may run.
+     */
+    private static void describe(final StringBuilder builder, final Object options) {
+        if (options instanceof FindOptions) {
+            final FindOptions find = (FindOptions) options;
+            append(builder, "limit", find.getLimit(), 0);
+            append(builder, "skip", find.getSkip(), 0);
+            append(builder, "batchSize", find.getBatchSize(), 0);
+            append(builder, "maxTimeMS", find.getMaxTime(TimeUnit.MILLISECONDS), 0);
+        } else if (options instanceof CountOptions) {
+            append(builder, "limit", ((CountOptions) options).getLimit(), 0);
+            append(builder, "skip", ((CountOptions) options).getSkip(), 0);
+        } else if (options instanceof UpdateOptions) {
+            builder.append(format(" multi %s upsert %s", ((UpdateOptions) options).isMulti(), ((UpdateOptions) options).isUpsert()));
+        } else if (options instanceof FindAndModifyOptions) {
+            final FindAndModifyOptions modify = (FindAndModifyOptions) options;
+            builder.append(format(" remove %s upsert %s returnNew %s", modify.isRemove(), modify.isUpsert(), modify.isReturnNew()));
+        } else if (options instanceof AggregationOptions) {
+            final AggregationOptions aggregation = (AggregationOptions) options;
+            if (Boolean.TRUE.equals(aggregation.getAllowDiskUse())) {
+                builder.append(" allowDiskUse");
+            }
+            append(builder, "batchSize", aggregation.getBatchSize() != null ? aggregation.getBatchSize() : 0, 0);
+            append(builder, "maxTimeMS", aggregation.getMaxTime(TimeUnit.MILLISECONDS), 0);
+        } else if (options instanceof OutputType) {
+            builder.append(" output ").append(options);
+        } else if (options != null) {
+            builder.append(' ').append(options);
+        }
+    }
+
+    private static void append(final StringBuilder builder, final String name, final long value, final long unset) {
+        if (value != unset) {
+            builder.append(' ').append(name).append(' ').append(value);
+        }
+    }
+}
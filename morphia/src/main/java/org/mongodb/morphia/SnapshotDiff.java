@@ -0,0 +1,73 @@
+package org.mongodb.morphia;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out the update operators which turn the document an entity was loaded or last saved as into its current document.
+ */
+final class SnapshotDiff {
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Fields which differ are set and, if {@code unsetRemoved} is true, fields missing from the new document are unset.  Lists which
+     * only grew at the end are pushed to rather than rewritten.  The id and version fields are never part of the changes.
+     *
+     * @return the update operators, which are empty if nothing changed
+     */
+    static DBObject changes(final DBObject snapshot, final DBObject document, final String versionKeyName, final boolean unsetRemoved) {
+        final BasicDBObject set = new BasicDBObject();
+        final BasicDBObject push = new BasicDBObject();
+        for (final String field : document.keySet()) {
+            if (field.equals(Mapper.ID_KEY) || field.equals(versionKeyName)) {
+                continue;
+            }
+            final Object value = document.get(field);
+            final Object previous = snapshot.get(field);
+            if (previous == null ? value == null && snapshot.containsField(field) : previous.equals(value)) {
+                continue;
+            }
+            if (isAppended(previous, value)) {
+                final List<?> list = (List<?>) value;
+                push.put(field, new BasicDBObject("$each", new ArrayList<Object>(list.subList(((List<?>) previous).size(), list.size()))));
+            } else {
+                set.put(field, value);
+            }
+        }
+
+        final BasicDBObject unset = new BasicDBObject();
+        if (unsetRemoved) {
+            for (final String field : snapshot.keySet()) {
+                if (!document.containsField(field) && !field.equals(Mapper.ID_KEY) && !field.equals(versionKeyName)) {
+                    unset.put(field, 1);
+                }
+            }
+        }
+
+        final BasicDBObject changes = new BasicDBObject();
+        if (!set.isEmpty()) {
+            changes.put("$set", set);
+        }
+        if (!unset.isEmpty()) {
+            changes.put("$unset", unset);
+        }
+        if (!push.isEmpty()) {
+            changes.put("$push", push);
+        }
+        return changes;
+    }
+
+    private static boolean isAppended(final Object previous, final Object value) {
+        if (!(previous instanceof List) || !(value instanceof List)) {
+            return false;
+        }
+        final List<?> before = (List<?>) previous;
+        final List<?> after = (List<?>) value;
+        return !before.isEmpty() && after.size() > before.size() && before.equals(after.subList(0, before.size()));
+    }
+}
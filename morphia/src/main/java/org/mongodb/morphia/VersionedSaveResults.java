@@ -0,0 +1,49 @@
+package org.mongodb.morphia;
+
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of {@link Datastore#saveVersioned(Iterable, InsertOptions)}.  Entities which were saved have their keys and versions
+ * updated while entities whose stored version no longer matched are listed as conflicts and left untouched.
+ *
+ * @param <T> the type of the entities
+ * @since 1.4
+ */
+public class VersionedSaveResults<T> {
+    private final List<Key<T>> savedKeys;
+    private final List<T> conflicts;
+
+    /**
+     * Creates the results of a save
+     *
+     * @param savedKeys the keys of the saved entities
+     * @param conflicts the entities which were not saved because they were concurrently updated
+     */
+    public VersionedSaveResults(final List<Key<T>> savedKeys, final List<T> conflicts) {
+        this.savedKeys = Collections.unmodifiableList(savedKeys);
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * @return the entities which were not saved because they were concurrently updated
+     */
+    public List<T> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return the keys of the saved entities in the order they were given
+     */
+    public List<Key<T>> getSavedKeys() {
+        return savedKeys;
+    }
+
+    /**
+     * @return true if any of the entities were concurrently updated
+     */
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+}
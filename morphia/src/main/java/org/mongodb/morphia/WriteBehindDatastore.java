@@ -0,0 +1,350 @@
+package org.mongodb.morphia;
+
+
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxyHelper;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Buffers saves and inserts and writes them in the background so that callers don't wait on a round trip per entity.  Buffered entities
+ * are written as one bulk write per collection once {@link WriteBehindOptions#getBatchSize()} entities are waiting or the
+ * {@link WriteBehindOptions#getFlushInterval(java.util.concurrent.TimeUnit) flush interval} has passed, whichever comes first.  Once
+ * {@link WriteBehindOptions#getQueueSize()} entities are waiting callers block until the buffer drains.
+ * <p>
+ * Each write returns a Future which completes with the entity's Key once it has been written or fails with the error which stopped it.
+ * A versioned entity which was concurrently updated fails with a {@link ConcurrentModificationException}.  Entities must not be modified
+ * while they are waiting to be written.  Writes are sent in the order they were queued, with each run of consecutive saves or inserts
+ * sent together.  Should the background writer stop, for example because it was interrupted, every write it hasn't completed fails with
+ * an IllegalStateException and later writes are rejected.
+ *
+ * @since 1.4
+ */
+public class WriteBehindDatastore implements Closeable {
+    private static final Logger LOG = MorphiaLoggerFactory.get(WriteBehindDatastore.class);
+
+    private static final int SAVE = 0;
+    private static final int INSERT = 1;
+    private static final int FLUSH = 2;
+    private static final int CLOSE = 3;
+
+    private final AdvancedDatastore datastore;
+    private final WriteBehindOptions options;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a buffer in front of a Datastore and starts its background writer.
+     *
+     * @param datastore the Datastore to write to
+     * @param options   the options controlling the buffering
+     */
+    public WriteBehindDatastore(final AdvancedDatastore datastore, final WriteBehindOptions options) {
+        this.datastore = datastore;
+        this.options = options.copy();
+        queue = new ArrayBlockingQueue<PendingWrite<?>>(this.options.getQueueSize());
+        writer = new Thread(new Writer(), "morphia-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an entity to be saved.
+     *
+     * @param entity the entity to save
+     * @param <T>    the type of the entity
+     * @return a Future completing with the entity's Key once it has been saved
+     * @see Datastore#saveVersioned(Iterable, InsertOptions)
+     */
+    public <T> Future<Key<T>> save(final T entity) {
+        return enqueue(SAVE, entity);
+    }
+
+    /**
+     * Queues an entity to be inserted.
+     *
+     * @param entity the entity to insert
+     * @param <T>    the type of the entity
+     * @return a Future completing with the entity's Key once it has been inserted
+     * @see AdvancedDatastore#insert(Iterable, InsertOptions)
+     */
+    public <T> Future<Key<T>> insert(final T entity) {
+        return enqueue(INSERT, entity);
+    }
+
+    /**
+     * Writes every entity queued before this call and waits until they have been written.
+     */
+    public void flush() {
+        await(enqueue(FLUSH, null));
+    }
+
+    /**
+     * Writes every queued entity and stops the background writer.  Writes queued after closing fail with an IllegalStateException.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!stopped) {
+            await(put(new PendingWrite<Object>(CLOSE, null)));
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of entities waiting to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private <T> PendingWrite<T> enqueue(final int kind, final T entity) {
+        if (closed || stopped) {
+            throw new IllegalStateException(closed ? "The write-behind buffer has been closed" : "The write-behind writer has stopped");
+        }
+        if (kind != FLUSH && entity == null) {
+            throw new IllegalArgumentException("Can not persist a null entity");
+        }
+        return put(new PendingWrite<T>(kind, ProxyHelper.unwrap(entity)));
+    }
+
+    private <T> PendingWrite<T> put(final PendingWrite<T> pending) {
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the write-behind buffer", e);
+        }
+        if (stopped) {
+            // the writer may have drained the queue for the last time before this write was queued
+            failQueued(null);
+        }
+        return pending;
+    }
+
+    private void await(final PendingWrite<?> pending) {
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind buffer to flush", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not flush the write-behind buffer", e.getCause());
+        }
+    }
+
+    /**
+     * Writes the batch in queue order.  Each run of consecutive saves is one call to saveVersioned and each run of inserts one call to
+     * insert per entity class, so that an insert followed by a save of the same entity isn't sent the other way around.  Flush and close
+     * markers complete once everything queued before them has been written.  The batch is only cleared once it has been written so that
+     * the writer can fail what is left of it if it stops.
+     */
+    private void write(final List<PendingWrite<?>> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            final int kind = batch.get(start).kind;
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).kind == kind) {
+                end++;
+            }
+            final List<PendingWrite<?>> run = batch.subList(start, end);
+            if (kind == SAVE) {
+                writeSaves(run);
+            } else if (kind == FLUSH || kind == CLOSE) {
+                for (final PendingWrite<?> marker : run) {
+                    marker.complete(null);
+                }
+            } else {
+                final Map<Class<?>, List<PendingWrite<?>>> inserts = new LinkedHashMap<Class<?>, List<PendingWrite<?>>>();
+                for (final PendingWrite<?> pending : run) {
+                    List<PendingWrite<?>> list = inserts.get(pending.entity.getClass());
+                    if (list == null) {
+                        list = new ArrayList<PendingWrite<?>>();
+                        inserts.put(pending.entity.getClass(), list);
+                    }
+                    list.add(pending);
+                }
+                for (final List<PendingWrite<?>> list : inserts.values()) {
+                    writeInserts(list);
+                }
+            }
+            start = end;
+        }
+        batch.clear();
+    }
+
+    private void writeSaves(final List<PendingWrite<?>> saves) {
+        // the same instance may have been queued more than once but can only be saved once per bulk write
+        final Map<Object, List<PendingWrite<?>>> byEntity = new IdentityHashMap<Object, List<PendingWrite<?>>>();
+        final List<Object> entities = new ArrayList<Object>(saves.size());
+        for (final PendingWrite<?> pending : saves) {
+            List<PendingWrite<?>> list = byEntity.get(pending.entity);
+            if (list == null) {
+                list = new ArrayList<PendingWrite<?>>(1);
+                byEntity.put(pending.entity, list);
+                entities.add(pending.entity);
+            }
+            list.add(pending);
+        }
+
+        try {
+            final VersionedSaveResults<Object> results = datastore.saveVersioned(entities, options.getInsertOptions());
+            final Set<Object> conflicts = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            conflicts.addAll(results.getConflicts());
+            final Iterator<Key<Object>> keys = results.getSavedKeys().iterator();
+            for (final Object entity : entities) {
+                if (conflicts.contains(entity)) {
+                    fail(byEntity.get(entity), new ConcurrentModificationException(
+                        format("Entity of class %s was concurrently updated.", entity.getClass().getName())));
+                } else {
+                    final Key<Object> key = keys.next();
+                    for (final PendingWrite<?> pending : byEntity.get(entity)) {
+                        pending.complete(key);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error(format("Could not save %d buffered entities", entities.size()), e);
+            fail(saves, e);
+        }
+    }
+
+    private void writeInserts(final List<PendingWrite<?>> inserts) {
+        final List<Object> entities = new ArrayList<Object>(inserts.size());
+        for (final PendingWrite<?> pending : inserts) {
+            entities.add(pending.entity);
+        }
+
+        try {
+            final Iterator<Key<Object>> keys = datastore.insert(entities, options.getInsertOptions()).iterator();
+            for (final PendingWrite<?> pending : inserts) {
+                pending.complete(keys.next());
+            }
+        } catch (RuntimeException e) {
+            LOG.error(format("Could not insert %d buffered entities", entities.size()), e);
+            fail(inserts, e);
+        }
+    }
+
+    private static void fail(final List<PendingWrite<?>> writes, final Throwable t) {
+        for (final PendingWrite<?> pending : writes) {
+            pending.fail(t);
+        }
+    }
+
+    private void failQueued(final Throwable cause) {
+        final List<PendingWrite<?>> remaining = new ArrayList<PendingWrite<?>>();
+        queue.drainTo(remaining);
+        fail(remaining, closed ? new IllegalStateException("The write-behind buffer has been closed", cause)
+                               : new IllegalStateException("The write-behind writer has stopped", cause));
+    }
+
+    private class Writer implements Runnable {
+        @Override
+        public void run() {
+            final List<PendingWrite<?>> batch = new ArrayList<PendingWrite<?>>();
+            Throwable cause = null;
+            try {
+                writeUntilClosed(batch);
+            } catch (RuntimeException e) {
+                cause = e;
+                throw e;
+            } catch (Error e) {
+                cause = e;
+                throw e;
+            } finally {
+                // whatever the writer leaves behind fails so that flush, close and the futures of the writes don't wait forever
+                stopped = true;
+                fail(batch, new IllegalStateException("The write-behind writer has stopped", cause));
+                failQueued(cause);
+            }
+        }
+
+        private void writeUntilClosed(final List<PendingWrite<?>> batch) {
+            final long interval = options.getFlushInterval(NANOSECONDS);
+            long deadline = System.nanoTime() + interval;
+            while (true) {
+                final PendingWrite<?> next;
+                try {
+                    next = queue.poll(deadline - System.nanoTime(), NANOSECONDS);
+                } catch (InterruptedException e) {
+                    write(batch);
+                    return;
+                }
+
+                if (next == null) {
+                    write(batch);
+                    deadline = System.nanoTime() + interval;
+                } else if (next.kind == FLUSH || next.kind == CLOSE) {
+                    batch.add(next);
+                    write(batch);
+                    deadline = System.nanoTime() + interval;
+                    if (next.kind == CLOSE) {
+                        return;
+                    }
+                } else {
+                    batch.add(next);
+                    if (batch.size() >= options.getBatchSize() || System.nanoTime() - deadline >= 0) {
+                        write(batch);
+                        deadline = System.nanoTime() + interval;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class PendingWrite<T> extends FutureTask<Key<T>> {
+        private static final Callable NOTHING = new Callable<Object>() {
+            @Override
+            public Object call() {
+                return null;
+            }
+        };
+
+        private final int kind;
+        private final T entity;
+
+        PendingWrite(final int kind, final T entity) {
+            super(NOTHING);
+            this.kind = kind;
+            this.entity = entity;
+        }
+
+        void complete(final Key key) {
+            set(key);
+        }
+
+        void fail(final Throwable t) {
+            setException(t);
+        }
+    }
+}
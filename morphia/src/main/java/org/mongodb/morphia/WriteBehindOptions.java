@@ -0,0 +1,114 @@
+package org.mongodb.morphia;
+
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options controlling how a {@link WriteBehindDatastore} buffers writes.  The setter methods return {@code this} so that a chaining style
+ * can be used.
+ *
+ * @since 1.4
+ */
+public class WriteBehindOptions {
+    private int batchSize = 1000;
+    private int queueSize = 10000;
+    private long flushInterval = TimeUnit.SECONDS.toNanos(1);
+    private InsertOptions insertOptions = new InsertOptions();
+
+    /**
+     * Create a copy of the options instance.
+     *
+     * @return the copy
+     */
+    public WriteBehindOptions copy() {
+        return new WriteBehindOptions()
+            .batchSize(getBatchSize())
+            .queueSize(getQueueSize())
+            .flushInterval(getFlushInterval(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+            .insertOptions(getInsertOptions().copy());
+    }
+
+    /**
+     * @return the number of buffered entities which triggers a write
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of buffered entities which triggers a write.  The default is 1000.
+     *
+     * @param batchSize the batch size
+     * @return this
+     */
+    public WriteBehindOptions batchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param unit the time unit of the result
+     * @return the longest time an entity is buffered before it is written
+     */
+    public long getFlushInterval(final TimeUnit unit) {
+        return unit.convert(flushInterval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the longest time an entity is buffered before it is written.  The default is one second.
+     *
+     * @param flushInterval the interval
+     * @param unit          the time unit of the interval
+     * @return this
+     */
+    public WriteBehindOptions flushInterval(final long flushInterval, final TimeUnit unit) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("flushInterval must be greater than 0");
+        }
+        this.flushInterval = unit.toNanos(flushInterval);
+        return this;
+    }
+
+    /**
+     * @return the options applied to each write
+     */
+    public InsertOptions getInsertOptions() {
+        return insertOptions;
+    }
+
+    /**
+     * Sets the options applied to each write.
+     *
+     * @param insertOptions the options
+     * @return this
+     */
+    public WriteBehindOptions insertOptions(final InsertOptions insertOptions) {
+        this.insertOptions = insertOptions;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of entities waiting to be written
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Sets the maximum number of entities waiting to be written.  Once the queue is full callers block until there is room again.  The
+     * default is 10000.
+     *
+     * @param queueSize the queue size
+     * @return this
+     */
+    public WriteBehindOptions queueSize(final int queueSize) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must be greater than 0");
+        }
+        this.queueSize = queueSize;
+        return this;
+    }
+}
@@ -8,6 +8,7 @@ import org.mongodb.morphia.query.Sort;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This defines the pipeline used in aggregation operations
@@ -58,6 +59,51 @@ public interface AggregationPipeline {
      */
     <U> Iterator<U> aggregate(String collectionName, Class<U> target, AggregationOptions options, ReadPreference readPreference);
 
+    /**
+     * Executes the pipeline and decodes the output into the target type as it is read.  The target is treated as a plain result type:
+     * lifecycle methods and interceptors aren't called, results aren't cached by id and only the fields the pipeline outputs are looked
+     * up.  The results are always read from a cursor so large outputs can use the {@code allowDiskUse} and batch size of the options.
+     *
+     * @param target  the class to decode the results into
+     * @param options the options to apply to this aggregation
+     * @param <U>     type of the results
+     * @return the results, which have to be closed unless they are read to the end
+     * @since 1.4
+     */
+    <U> AggregationStream<U> stream(Class<U> target, AggregationOptions options);
+
+    /**
+     * Executes the pipeline and decodes the output into the target type as it is read.
+     *
+     * @param target         the class to decode the results into
+     * @param options        the options to apply to this aggregation
+     * @param readPreference the read preference to apply to this aggregation
+     * @param <U>            type of the results
+     * @return the results, which have to be closed unless they are read to the end
+     * @see #stream(Class, AggregationOptions)
+     * @since 1.4
+     */
+    <U> AggregationStream<U> stream(Class<U> target, AggregationOptions options, ReadPreference readPreference);
+
+    /**
+     * Compiles the stages added so far into a template which can be run many times with different values for its {@link Parameter
+     * parameters}.  Later changes to this pipeline do not affect the template.
+     *
+     * @return the template
+     * @since 1.4
+     */
+    AggregationTemplate compile();
+
+    /**
+     * Asks the server how it would run the pipeline without running it.
+     *
+     * @return the explain plan
+     * @mongodb.driver.manual reference/method/db.collection.aggregate/ explain
+     * @see org.mongodb.morphia.PlanProfiler#explain(AggregationPipeline)
+     * @since 1.4
+     */
+    Map<String, Object> explain();
+
     /**
      * Returns an ordered stream of documents based on the proximity to a geospatial point. Incorporates the functionality of $match,
      * $sort,
@@ -113,6 +159,16 @@ public interface AggregationPipeline {
      */
     AggregationPipeline limit(int count);
 
+    /**
+     * Passes the first n documents unmodified to the pipeline where n is bound when the {@link #compile() compiled} pipeline runs.
+     *
+     * @param count the parameter holding the maximum number of documents to return
+     * @return this
+     * @mongodb.driver.manual reference/operator/aggregation/limit $limit
+     * @since 1.4
+     */
+    AggregationPipeline limit(Parameter count);
+
     /**
      * Performs a left outer join to an unsharded collection in the same database to filter in documents from the "joined" collection for
      * processing. The $lookup stage does an equality match between a field from the input documents with a field from the documents of the
@@ -205,6 +261,16 @@ public interface AggregationPipeline {
      */
     AggregationPipeline skip(int count);
 
+    /**
+     * Skips over the number of documents bound when the {@link #compile() compiled} pipeline runs.
+     *
+     * @param count the parameter holding the number of documents to skip
+     * @return this
+     * @mongodb.driver.manual reference/operator/aggregation/skip $skip
+     * @since 1.4
+     */
+    AggregationPipeline skip(Parameter count);
+
     /**
      * Reorders the document stream by a specified sort key. Only the order changes; the documents remain unmodified. For each input
      * document, outputs one document.
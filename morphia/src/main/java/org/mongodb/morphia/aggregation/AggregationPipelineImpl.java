@@ -7,6 +7,10 @@ import com.mongodb.Cursor;
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.ReadPreference;
+import org.mongodb.morphia.DatastoreOperation;
+import org.mongodb.morphia.PlanProfiler;
+import org.mongodb.morphia.SlowOperation;
+import org.mongodb.morphia.SlowOperationLog;
 import org.mongodb.morphia.geo.GeometryShapeConverter;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
@@ -19,6 +23,7 @@ import org.mongodb.morphia.query.Sort;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of an AggregationPipeline.
@@ -78,10 +83,53 @@ public class AggregationPipelineImpl implements AggregationPipeline {
                                      final ReadPreference readPreference) {
         LOG.debug("stages = " + stages);
 
-        Cursor cursor = collection.aggregate(stages, options, readPreference);
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = DatastoreOperation.start(datastore.getDatastoreListener(), "aggregate", source,
+                                                                   collection.getName());
+        final Cursor cursor;
+        try {
+            cursor = collection.aggregate(stages, options, readPreference);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        profile(options, start, traced);
         return new MorphiaIterator<U, U>(datastore, cursor, mapper, target, collectionName, mapper.createEntityCache());
     }
 
+    @Override
+    public <U> AggregationStream<U> stream(final Class<U> target, final AggregationOptions options) {
+        return stream(target, options, collection.getReadPreference());
+    }
+
+    @Override
+    public <U> AggregationStream<U> stream(final Class<U> target, final AggregationOptions options, final ReadPreference readPreference) {
+        LOG.debug("stages = " + stages);
+
+        final ResultDecoder<U> decoder = new ResultDecoder<U>(datastore, mapper, target, ResultDecoder.outputFields(stages));
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = DatastoreOperation.start(datastore.getDatastoreListener(), "aggregate", source,
+                                                                   collection.getName());
+        final AggregationStream<U> stream;
+        try {
+            stream = AggregationStream.open(collection, stages, options, readPreference, decoder, mapper);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        profile(options, start, traced);
+        return stream;
+    }
+
+    @Override
+    public AggregationTemplate compile() {
+        return new AggregationTemplate(datastore, collection, stages);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> explain() {
+        return collection.explainAggregate(stages, AggregationOptions.builder().build()).toMap();
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     public AggregationPipeline geoNear(final GeoNear geoNear) {
@@ -147,6 +195,12 @@ public class AggregationPipelineImpl implements AggregationPipeline {
         return this;
     }
 
+    @Override
+    public AggregationPipeline limit(final Parameter count) {
+        stages.add(new BasicDBObject("$limit", count));
+        return this;
+    }
+
     @Override
     public AggregationPipeline lookup(final String from, final String localField, final String foreignField, final String as) {
         stages.add(new BasicDBObject("$lookup", new BasicDBObject("from", from)
@@ -200,6 +254,12 @@ public class AggregationPipelineImpl implements AggregationPipeline {
         return this;
     }
 
+    @Override
+    public AggregationPipeline skip(final Parameter count) {
+        stages.add(new BasicDBObject("$skip", count));
+        return this;
+    }
+
     @Override
     public AggregationPipeline sort(final Sort... sorts) {
         DBObject sortList = new BasicDBObject();
@@ -296,6 +356,32 @@ public class AggregationPipelineImpl implements AggregationPipeline {
         return result.size() == 1 ? (DBObject) result.get(0) : result;
     }
 
+    private void profile(final AggregationOptions options, final long start, final DatastoreOperation traced) {
+        completed(datastore, this, source, collection.getName(), stages, options, start, traced);
+    }
+
+    /**
+     * Hands a pipeline or template run to the listener of the datastore, the plan profiler and the slow operation log once the server has
+     * answered.  The time covers running the stages up to their first batch of results.  The listener is told first so that the operation
+     * it sees doesn't include the explain the profiler may run.
+     *
+     * @param pipeline the pipeline to explain if the profiler asks for it or null for a template, whose stages are only known once bound
+     */
+    static void completed(final org.mongodb.morphia.DatastoreImpl datastore, final AggregationPipeline pipeline, final Class<?> source,
+                          final String collection, final List<DBObject> stages, final AggregationOptions options, final long start,
+                          final DatastoreOperation traced) {
+        final long nanos = System.nanoTime() - start;
+        traced.completed(SlowOperation.UNKNOWN, 0);
+        final PlanProfiler profiler = datastore.getPlanProfiler();
+        if (profiler != null && pipeline != null) {
+            profiler.profile(pipeline, nanos);
+        }
+        final SlowOperationLog log = datastore.getSlowOperationLog();
+        if (log != null) {
+            log.completed(source, collection, "aggregate", stages, null, options, SlowOperation.UNKNOWN, nanos, 0);
+        }
+    }
+
     @Override
     public String toString() {
         return stages.toString();
@@ -0,0 +1,119 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.Cursor;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.mapping.cache.EntityCache;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The output of an aggregation decoded into plain objects as it is read.  The results are decoded without lifecycle methods, interceptors
+ * or an entity cache, which suits the flat objects aggregations usually produce.  The cursor is closed once the last result has been read
+ * but a stream which isn't read to the end has to be closed:
+ * <pre>
+ * AggregationStream&lt;Total&gt; totals = pipeline.stream(Total.class, options);
+ * try {
+ *     for (Total total : totals) {
+ *         ...
+ *     }
+ * } finally {
+ *     totals.close();
+ * }
+ * </pre>
+ *
+ * @param <U> the type of the results
+ * @see AggregationPipeline#stream(Class, AggregationOptions)
+ * @since 1.4
+ */
+public final class AggregationStream<U> implements Iterator<U>, Iterable<U>, Closeable {
+    private final Cursor cursor;
+    private final ResultDecoder<U> decoder;
+    private final EntityCache cache;
+    private boolean closed;
+
+    AggregationStream(final Cursor cursor, final ResultDecoder<U> decoder, final EntityCache cache) {
+        this.cursor = cursor;
+        this.decoder = decoder;
+        this.cache = cache;
+    }
+
+    static <U> AggregationStream<U> open(final DBCollection collection, final List<DBObject> stages, final AggregationOptions options,
+                                         final ReadPreference readPreference, final ResultDecoder<U> decoder, final Mapper mapper) {
+        final Cursor cursor = collection.aggregate(stages, cursorOptions(options), readPreference);
+        return new AggregationStream<U>(cursor, decoder, decoder.needsCache() ? mapper.createEntityCache() : null);
+    }
+
+    /**
+     * Converts the options to return a cursor, keeping {@code allowDiskUse}, the batch size and the other settings.  Streams always read
+     * from a cursor since the inline output of an aggregation is limited to one document.
+     *
+     * @param options the options
+     * @return the options to stream with
+     */
+    @SuppressWarnings("deprecation")
+    static AggregationOptions cursorOptions(final AggregationOptions options) {
+        if (options.getOutputMode() == AggregationOptions.OutputMode.CURSOR) {
+            return options;
+        }
+        return AggregationOptions.builder()
+                                 .outputMode(AggregationOptions.OutputMode.CURSOR)
+                                 .allowDiskUse(options.getAllowDiskUse())
+                                 .batchSize(options.getBatchSize())
+                                 .maxTime(options.getMaxTime(MILLISECONDS), MILLISECONDS)
+                                 .bypassDocumentValidation(options.getBypassDocumentValidation())
+                                 .collation(options.getCollation())
+                                 .build();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!cursor.hasNext()) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public U next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final DBObject document = cursor.next();
+        return decoder.decode(document, cache);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Aggregation results can not be removed");
+    }
+
+    @Override
+    public Iterator<U> iterator() {
+        return this;
+    }
+
+    /**
+     * Closes the cursor.  Closing a stream more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import org.mongodb.morphia.DatastoreOperation;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.query.MorphiaIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.String.format;
+
+/**
+ * An aggregation pipeline compiled once and run many times with different {@link Parameter} values.  Compiling translates the queries,
+ * projections and groupings of the pipeline into stage documents so each run only substitutes the bound values into the stages which
+ * hold parameters and reuses the others as they are.  Templates are immutable and can be shared between threads.
+ * <pre>
+ * AggregationTemplate template = datastore.createAggregation(Order.class)
+ *     .match(datastore.find(Order.class).field("placed").greaterThanOrEq(Parameter.named("since")))
+ *     .group("customer", grouping("total", sum("amount")))
+ *     .limit(Parameter.named("top"))
+ *     .compile();
+ *
+ * Map&lt;String, Object&gt; values = new HashMap&lt;String, Object&gt;();
+ * values.put("since", lastWeek);
+ * values.put("top", 10);
+ * Iterator&lt;CustomerTotal&gt; totals = template.aggregate(CustomerTotal.class, values);
+ * </pre>
+ *
+ * @see AggregationPipeline#compile()
+ * @since 1.4
+ */
+@SuppressWarnings("deprecation")
+public final class AggregationTemplate {
+    private static final Logger LOG = MorphiaLoggerFactory.get(AggregationTemplate.class);
+
+    private final org.mongodb.morphia.DatastoreImpl datastore;
+    private final DBCollection collection;
+    private final Mapper mapper;
+    private final List<DBObject> stages;
+    private final boolean[] parameterized;
+    private final Set<String> parameters;
+    private final Set<String> output;
+    private final ConcurrentMap<Class<?>, ResultDecoder<?>> decoders = new ConcurrentHashMap<Class<?>, ResultDecoder<?>>();
+
+    AggregationTemplate(final org.mongodb.morphia.DatastoreImpl datastore, final DBCollection collection, final List<DBObject> stages) {
+        this.datastore = datastore;
+        this.collection = collection;
+        mapper = datastore.getMapper();
+
+        final Set<String> names = new LinkedHashSet<String>();
+        final List<DBObject> frozen = new ArrayList<DBObject>(stages.size());
+        parameterized = new boolean[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            final Set<String> found = new LinkedHashSet<String>();
+            frozen.add((DBObject) freeze(stages.get(i), found));
+            names.addAll(found);
+            parameterized[i] = !found.isEmpty();
+        }
+        this.stages = Collections.unmodifiableList(frozen);
+        parameters = Collections.unmodifiableSet(names);
+        output = ResultDecoder.outputFields(frozen);
+    }
+
+    /**
+     * @return the names of the parameters which have to be bound to run the template
+     */
+    public Set<String> getParameterNames() {
+        return parameters;
+    }
+
+    /**
+     * Substitutes values for the parameters.  Stages without parameters are shared between runs and must not be modified.
+     *
+     * @param values the value of each parameter by name
+     * @return the stages to send to the server
+     * @throws IllegalArgumentException if a parameter has no value or a value is given for an unknown parameter
+     */
+    public List<DBObject> bind(final Map<String, ?> values) {
+        if (!values.keySet().containsAll(parameters) || !parameters.containsAll(values.keySet())) {
+            final Set<String> missing = new LinkedHashSet<String>(parameters);
+            missing.removeAll(values.keySet());
+            final Set<String> unknown = new LinkedHashSet<String>(values.keySet());
+            unknown.removeAll(parameters);
+            throw new IllegalArgumentException(format("The values do not match the parameters of the template. Missing: %s, unknown: %s",
+                                                      missing, unknown));
+        }
+        final Map<String, Object> encoded = new LinkedHashMap<String, Object>();
+        for (final Map.Entry<String, ?> entry : values.entrySet()) {
+            encoded.put(entry.getKey(), mapper.toMongoObject(null, null, entry.getValue()));
+        }
+
+        final List<DBObject> bound = new ArrayList<DBObject>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            bound.add(parameterized[i] ? (DBObject) substitute(stages.get(i), encoded) : stages.get(i));
+        }
+        return bound;
+    }
+
+    /**
+     * Runs the template and maps the output to the target type using the default options as defined in {@link AggregationOptions}.
+     *
+     * @param target the class to use when iterating over the results
+     * @param values the value of each parameter by name
+     * @param <U>    type of the results
+     * @return an iterator of the computed results
+     * @see #bind(Map)
+     */
+    public <U> Iterator<U> aggregate(final Class<U> target, final Map<String, ?> values) {
+        return aggregate(target, values, AggregationOptions.builder().build(), collection.getReadPreference());
+    }
+
+    /**
+     * Runs the template and maps the output to the target type.
+     *
+     * @param target         the class to use when iterating over the results
+     * @param values         the value of each parameter by name
+     * @param options        the options to apply to this aggregation
+     * @param readPreference the read preference to apply to this aggregation
+     * @param <U>            type of the results
+     * @return an iterator of the computed results
+     * @see #bind(Map)
+     */
+    public <U> Iterator<U> aggregate(final Class<U> target, final Map<String, ?> values, final AggregationOptions options,
+                                     final ReadPreference readPreference) {
+        final List<DBObject> bound = bind(values);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("stages = " + bound);
+        }
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started();
+        final Cursor cursor;
+        try {
+            cursor = collection.aggregate(bound, options, readPreference);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        AggregationPipelineImpl.completed(datastore, null, null, collection.getName(), bound, options, start, traced);
+        return new MorphiaIterator<U, U>(datastore, cursor, mapper, target, datastore.getCollection(target).getName(),
+                                         mapper.createEntityCache());
+    }
+
+    /**
+     * Runs the template and decodes the output into the target type as it is read.  The plan for decoding the target is worked out by the
+     * first run and reused by later ones.
+     *
+     * @param target         the class to decode the results into
+     * @param values         the value of each parameter by name
+     * @param options        the options to apply to this aggregation
+     * @param readPreference the read preference to apply to this aggregation
+     * @param <U>            type of the results
+     * @return the results, which have to be closed unless they are read to the end
+     * @see AggregationPipeline#stream(Class, AggregationOptions)
+     * @see #bind(Map)
+     */
+    @SuppressWarnings("unchecked")
+    public <U> AggregationStream<U> stream(final Class<U> target, final Map<String, ?> values, final AggregationOptions options,
+                                           final ReadPreference readPreference) {
+        ResultDecoder<U> decoder = (ResultDecoder<U>) decoders.get(target);
+        if (decoder == null) {
+            decoder = new ResultDecoder<U>(datastore, mapper, target, output);
+            decoders.putIfAbsent(target, decoder);
+        }
+        final List<DBObject> bound = bind(values);
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started();
+        final AggregationStream<U> stream;
+        try {
+            stream = AggregationStream.open(collection, bound, options, readPreference, decoder, mapper);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        AggregationPipelineImpl.completed(datastore, null, null, collection.getName(), bound, options, start, traced);
+        return stream;
+    }
+
+    /**
+     * The template doesn't know the entity type of its collection, so runs are reported without one.
+     */
+    private DatastoreOperation started() {
+        return DatastoreOperation.start(datastore.getDatastoreListener(), "aggregate", null, collection.getName());
+    }
+
+    @Override
+    public String toString() {
+        return stages.toString();
+    }
+
+    /**
+     * Copies a stage so later changes to the pipeline or its queries don't leak into the template, collecting the parameters on the way.
+     * Query criteria hold their operators in plain maps which are copied as documents.
+     */
+    private static Object freeze(final Object value, final Set<String> found) {
+        if (value instanceof Parameter) {
+            found.add(((Parameter) value).getName());
+            return value;
+        } else if (value instanceof List) {
+            final BasicDBList list = new BasicDBList();
+            for (final Object element : (List<?>) value) {
+                list.add(freeze(element, found));
+            }
+            return list;
+        } else if (value instanceof DBObject) {
+            final DBObject document = (DBObject) value;
+            final BasicDBObject copy = new BasicDBObject();
+            for (final String key : document.keySet()) {
+                copy.put(key, freeze(document.get(key), found));
+            }
+            return copy;
+        } else if (value instanceof Map) {
+            final BasicDBObject copy = new BasicDBObject();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), freeze(entry.getValue(), found));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static Object substitute(final Object value, final Map<String, Object> values) {
+        if (value instanceof Parameter) {
+            return values.get(((Parameter) value).getName());
+        } else if (value instanceof List) {
+            final BasicDBList list = new BasicDBList();
+            for (final Object element : (List<?>) value) {
+                list.add(substitute(element, values));
+            }
+            return list;
+        } else if (value instanceof DBObject) {
+            final DBObject document = (DBObject) value;
+            final BasicDBObject copy = new BasicDBObject();
+            for (final String key : document.keySet()) {
+                copy.put(key, substitute(document.get(key), values));
+            }
+            return copy;
+        } else if (value instanceof Map) {
+            final BasicDBObject copy = new BasicDBObject();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), substitute(entry.getValue(), values));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,55 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * A placeholder for a value which is bound each time an {@link AggregationTemplate} runs.  Parameters can be used as the values of query
+ * criteria passed to {@link AggregationPipeline#match(org.mongodb.morphia.query.Query)}, as the arguments of expressions and accumulators
+ * and as the counts of {@link AggregationPipeline#limit(Parameter)} and {@link AggregationPipeline#skip(Parameter)}.
+ * <p>
+ * A parameter is a document so that the mapper passes it through queries unchanged.  A pipeline holding parameters has to be {@link
+ * AggregationPipeline#compile() compiled} before it can run since the server rejects an unbound parameter.
+ *
+ * @since 1.4
+ */
+public final class Parameter extends BasicDBObject {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private Parameter(final String name) {
+        super("$parameter", name);
+        this.name = name;
+    }
+
+    /**
+     * Creates a parameter.
+     *
+     * @param name the name the value is bound to
+     * @return the parameter
+     */
+    public static Parameter named(final String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("A parameter needs a name");
+        }
+        return new Parameter(name);
+    }
+
+    /**
+     * @return the name the value is bound to
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Parameters are found by their type when a pipeline is compiled so a copy of a query keeps the same instance.
+     *
+     * @return this parameter
+     */
+    @Override
+    public Object copy() {
+        return this;
+    }
+}
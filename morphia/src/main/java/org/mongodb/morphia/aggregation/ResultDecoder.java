@@ -0,0 +1,168 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.DBObject;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.ObjectFactory;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.NotSaved;
+import org.mongodb.morphia.annotations.Property;
+import org.mongodb.morphia.annotations.Reference;
+import org.mongodb.morphia.annotations.Serialized;
+import org.mongodb.morphia.converters.Converters;
+import org.mongodb.morphia.mapping.CustomMapper;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.mapping.MappingException;
+import org.mongodb.morphia.mapping.cache.EntityCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Decodes aggregation output into plain objects.  Unlike {@link Mapper#fromDBObject(Datastore, Class, DBObject, EntityCache)} it doesn't
+ * call lifecycle methods or interceptors, doesn't look up a className and doesn't cache the results by id.  The fields to read are worked
+ * out once from the output of the pipeline's last {@code $project} or {@code $group} stage so decoding a document only visits its keys.
+ * A decoder holds no state between documents and can be shared by threads.
+ */
+final class ResultDecoder<U> {
+    private final Datastore datastore;
+    private final Mapper mapper;
+    private final Class<U> target;
+    private final ObjectFactory factory;
+    private final Converters converters;
+    private final Map<String, MappedField> values = new HashMap<String, MappedField>();
+    private final List<MappedField> documents = new ArrayList<MappedField>();
+
+    ResultDecoder(final Datastore datastore, final Mapper mapper, final Class<U> target, final Set<String> output) {
+        this.datastore = datastore;
+        this.mapper = mapper;
+        this.target = target;
+        factory = mapper.getOptions().getObjectFactory();
+        converters = mapper.getConverters();
+
+        for (final MappedField mf : mapper.getMappedClass(target).getPersistenceFields()) {
+            if (mf.hasAnnotation(NotSaved.class) || output != null && !containsAny(output, mf.getLoadNames())) {
+                continue;
+            }
+            if (isValue(mf)) {
+                for (final String name : mf.getLoadNames()) {
+                    values.put(name, mf);
+                }
+            } else {
+                documents.add(mf);
+            }
+        }
+    }
+
+    /**
+     * Works out the top level fields of the documents a pipeline outputs.
+     *
+     * @param stages the stages of the pipeline
+     * @return the fields or null if they can't be known from the stages
+     */
+    static Set<String> outputFields(final List<DBObject> stages) {
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            final DBObject stage = stages.get(i);
+            if (stage.containsField("$group")) {
+                return topLevel(((DBObject) stage.get("$group")).keySet());
+            } else if (stage.containsField("$project")) {
+                final DBObject projection = (DBObject) stage.get("$project");
+                final Set<String> fields = new LinkedHashSet<String>();
+                fields.add(Mapper.ID_KEY);
+                for (final String key : projection.keySet()) {
+                    if (!isExcluded(projection.get(key))) {
+                        fields.add(key);
+                    } else if (key.equals(Mapper.ID_KEY)) {
+                        fields.remove(key);
+                    } else {
+                        // excluding a field keeps every other one
+                        return null;
+                    }
+                }
+                return topLevel(fields);
+            } else if (!stage.containsField("$match") && !stage.containsField("$sort") && !stage.containsField("$limit")
+                       && !stage.containsField("$skip")) {
+                // any other stage may add or reshape fields
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if fields holding documents are read through the mapper which needs an entity cache
+     */
+    boolean needsCache() {
+        return !documents.isEmpty();
+    }
+
+    /**
+     * @param document the output document
+     * @param cache    the cache for fields holding documents, which may be null if {@link #needsCache()} is false
+     * @return the decoded object
+     */
+    U decode(final DBObject document, final EntityCache cache) {
+        final U result = factory.createInstance(target);
+        for (final String key : document.keySet()) {
+            final MappedField mf = values.get(key);
+            final Object value = mf != null ? document.get(key) : null;
+            if (value != null) {
+                try {
+                    mf.setFieldValue(result, converters.decode(mf.getType(), value, mf));
+                } catch (IllegalArgumentException e) {
+                    throw new MappingException(format("Could not set %s to %s", mf.getFullName(), value), e);
+                }
+            }
+        }
+        for (final MappedField mf : documents) {
+            if (containsAny(document.keySet(), mf.getLoadNames())) {
+                fieldMapper(mf).fromDBObject(datastore, document, mf, result, cache, mapper);
+            }
+        }
+        return result;
+    }
+
+    private boolean isValue(final MappedField mf) {
+        return mf.hasAnnotation(Property.class) || mf.hasAnnotation(Serialized.class) || mf.isTypeMongoCompatible()
+               || converters.hasSimpleValueConverter(mf);
+    }
+
+    private CustomMapper fieldMapper(final MappedField mf) {
+        if (mf.hasAnnotation(Embedded.class)) {
+            return mapper.getOptions().getEmbeddedMapper();
+        } else if (mf.hasAnnotation(Reference.class)) {
+            return mapper.getOptions().getReferenceMapper();
+        }
+        return mapper.getOptions().getDefaultMapper();
+    }
+
+    private static boolean isExcluded(final Object value) {
+        return Boolean.FALSE.equals(value) || value instanceof Number && ((Number) value).intValue() == 0;
+    }
+
+    private static Set<String> topLevel(final Collection<String> fields) {
+        final Set<String> names = new LinkedHashSet<String>();
+        for (final String field : fields) {
+            final int dot = field.indexOf('.');
+            names.add(dot < 0 ? field : field.substring(0, dot));
+        }
+        return names;
+    }
+
+    private static boolean containsAny(final Collection<String> names, final Collection<String> candidates) {
+        for (final String candidate : candidates) {
+            if (names.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
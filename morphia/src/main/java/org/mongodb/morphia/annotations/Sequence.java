@@ -0,0 +1,32 @@
+package org.mongodb.morphia.annotations;
+
+
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marks a numeric {@link Id} field to be filled from a sequence when an entity without an id is saved or inserted.  Ids are reserved in
+ * blocks so that most entities don't cost an extra round trip.  Ids are unique and increasing per process but may have gaps, for example
+ * when a process exits before using up its block.
+ *
+ * @see org.mongodb.morphia.IdGenerator
+ * @since 1.4
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Sequence {
+    /**
+     * @return the name of the sequence.  Defaults to the entity's collection name.
+     */
+    String value() default Mapper.IGNORED_FIELDNAME;
+
+    /**
+     * @return the number of ids reserved per round trip
+     */
+    int blockSize() default 100;
+}
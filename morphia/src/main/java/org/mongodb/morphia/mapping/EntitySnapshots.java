@@ -0,0 +1,72 @@
+package org.mongodb.morphia.mapping;
+
+
+import com.mongodb.DBObject;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the last known document of each tracked entity.  Entities are compared by identity and only weakly referenced so a snapshot
+ * lives no longer than its entity.
+ */
+final class EntitySnapshots {
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    private final ConcurrentMap<IdentityReference, DBObject> snapshots = new ConcurrentHashMap<IdentityReference, DBObject>();
+
+    DBObject get(final Object entity) {
+        expunge();
+        return snapshots.get(new IdentityReference(entity, null));
+    }
+
+    void put(final Object entity, final DBObject snapshot) {
+        expunge();
+        snapshots.put(new IdentityReference(entity, collected), snapshot);
+    }
+
+    void remove(final Object entity) {
+        expunge();
+        snapshots.remove(new IdentityReference(entity, null));
+    }
+
+    int size() {
+        expunge();
+        return snapshots.size();
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            snapshots.remove(reference);
+        }
+    }
+
+    private static final class IdentityReference extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityReference(final Object referent, final ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof IdentityReference)) {
+                return false;
+            }
+            final Object referent = get();
+            return referent != null && referent == ((IdentityReference) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.mongodb.morphia.mapping;
+
+
+import com.mongodb.DBObject;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Tracks the objects converted during a write and their documents.  Objects are compared by identity, so entities with expensive or
+ * inconsistent {@code equals}/{@code hashCode} implementations are neither called nor collapsed, and iteration follows the order in which
+ * the objects were converted so that lifecycle methods run in the same order as they always have.  Removed objects leave a hole in the
+ * iteration order rather than shifting the remaining entries.
+ *
+ * @since 1.4
+ */
+public class InvolvedObjects extends AbstractMap<Object, DBObject> {
+    private final IdentityHashMap<Object, Integer> positions = new IdentityHashMap<Object, Integer>();
+    private final List<Object> keys = new ArrayList<Object>();
+    private final List<DBObject> values = new ArrayList<DBObject>();
+
+    @Override
+    public DBObject put(final Object key, final DBObject value) {
+        final Integer position = positions.get(key);
+        if (position != null) {
+            return values.set(position, value);
+        }
+        positions.put(key, keys.size());
+        keys.add(key);
+        values.add(value);
+        return null;
+    }
+
+    @Override
+    public DBObject get(final Object key) {
+        final Integer position = positions.get(key);
+        return position == null ? null : values.get(position);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return positions.containsKey(key);
+    }
+
+    @Override
+    public DBObject remove(final Object key) {
+        final Integer position = positions.remove(key);
+        if (position == null) {
+            return null;
+        }
+        keys.set(position, null);
+        return values.set(position, null);
+    }
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public void clear() {
+        positions.clear();
+        keys.clear();
+        values.clear();
+    }
+
+    @Override
+    public Set<Entry<Object, DBObject>> entrySet() {
+        return new AbstractSet<Entry<Object, DBObject>>() {
+            @Override
+            public Iterator<Entry<Object, DBObject>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return positions.size();
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<Object, DBObject>> {
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.size();
+        }
+
+        @Override
+        public Entry<Object, DBObject> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Entry<Object, DBObject> entry = new SimpleImmutableEntry<Object, DBObject>(keys.get(next), values.get(next));
+            next = advance(next + 1);
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private int advance(final int from) {
+            int position = from;
+            while (position < keys.size() && keys.get(position) == null) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
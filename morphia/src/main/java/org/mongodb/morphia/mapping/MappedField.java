@@ -28,6 +28,7 @@ import org.mongodb.morphia.annotations.Indexed;
 import org.mongodb.morphia.annotations.NotSaved;
 import org.mongodb.morphia.annotations.Property;
 import org.mongodb.morphia.annotations.Reference;
+import org.mongodb.morphia.annotations.Sequence;
 import org.mongodb.morphia.annotations.Serialized;
 import org.mongodb.morphia.annotations.Text;
 import org.mongodb.morphia.annotations.Transient;
@@ -81,6 +82,7 @@ public class MappedField {
         INTERESTING.add(AlsoLoad.class);
         INTERESTING.add(NotSaved.class);
         INTERESTING.add(Text.class);
+        INTERESTING.add(Sequence.class);
     }
 
     // Annotations that have been found relevant to mapping
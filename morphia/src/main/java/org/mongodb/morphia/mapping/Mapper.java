@@ -35,6 +35,7 @@ import org.mongodb.morphia.converters.TypeConverter;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
 import org.mongodb.morphia.mapping.cache.EntityCache;
+import org.mongodb.morphia.mapping.cache.EntityCacheMetrics;
 import org.mongodb.morphia.mapping.lazy.LazyFeatureDependencies;
 import org.mongodb.morphia.mapping.lazy.LazyProxyFactory;
 import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReference;
@@ -98,6 +99,7 @@ public class Mapper {
 
     //A general cache of instances of classes; used by MappedClass for EntityListener(s)
     private final Map<Class, Object> instanceCache = new ConcurrentHashMap();
+    private final EntitySnapshots snapshots = new EntitySnapshots();
     // TODO: make these configurable
     private final LazyProxyFactory proxyFactory = LazyFeatureDependencies.createDefaultProxyFactory();
     private final org.mongodb.morphia.converters.Converters converters;
@@ -167,7 +169,9 @@ public class Mapper {
      * @return the cache
      */
     public EntityCache createEntityCache() {
-        return getOptions().getCacheFactory().createCache();
+        final EntityCache cache = getOptions().getCacheFactory().createCache();
+        final EntityCacheMetrics metrics = getOptions().getEntityCacheMetrics();
+        return metrics == null ? cache : metrics.track(cache);
     }
 
     /**
@@ -293,6 +297,10 @@ public class Mapper {
                 cache.putEntity(key, entity);
             }
             mc.callLifecycleMethods(PostLoad.class, entity, updated, this);
+            if (opts.isTrackDirtyFields() && dbObject.containsField(ID_KEY) && mc.getIdField() != null
+                && mc.getEmbeddedAnnotation() == null) {
+                snapshots.put(entity, dbObject);
+            }
         }
         return entity;
     }
@@ -338,6 +346,45 @@ public class Mapper {
         return converters;
     }
 
+    /**
+     * Gets the document an entity was last loaded from or saved as.  Snapshots are only kept when
+     * {@link MapperOptions#isTrackDirtyFields()} is enabled.
+     *
+     * @param entity the entity
+     * @return the snapshot or null if the entity isn't tracked
+     * @since 1.4
+     */
+    public DBObject getSnapshot(final Object entity) {
+        return entity == null ? null : snapshots.get(ProxyHelper.unwrap(entity));
+    }
+
+    /**
+     * Records the document an entity was saved as so that later saves can be limited to the fields which changed.  Does nothing unless
+     * {@link MapperOptions#isTrackDirtyFields()} is enabled.
+     *
+     * @param entity   the entity
+     * @param snapshot the document as it is stored in the database
+     * @since 1.4
+     */
+    public void updateSnapshot(final Object entity, final DBObject snapshot) {
+        if (opts.isTrackDirtyFields() && entity != null && snapshot != null) {
+            snapshots.put(ProxyHelper.unwrap(entity), snapshot);
+        }
+    }
+
+    /**
+     * Forgets the document an entity was last loaded from or saved as, for instance because it is no longer known what is stored.  The
+     * next save of the entity replaces its document.
+     *
+     * @param entity the entity
+     * @since 1.4
+     */
+    public void removeSnapshot(final Object entity) {
+        if (entity != null) {
+            snapshots.remove(ProxyHelper.unwrap(entity));
+        }
+    }
+
     /**
      * Gets the ID value for an entity
      *
@@ -711,7 +758,7 @@ public class Mapper {
      *
      * @param datastore the Datastore to use when fetching this reference
      * @param dbObj     Value to update with; null means skip
-     * @param cache     the EntityCache
+     * @param cache     the EntityCache or null to only create one if the fields are not simple values
      * @param entity    The object to update
      */
     public void updateKeyAndVersionInfo(final Datastore datastore, final DBObject dbObj, final EntityCache cache, final Object entity) {
@@ -841,16 +888,22 @@ public class Mapper {
                                  final DBObject dbObject) {
         if (mf.hasAnnotation(Property.class) || mf.hasAnnotation(Serialized.class)
             || mf.isTypeMongoCompatible() || getConverters().hasSimpleValueConverter(mf)) {
-            opts.getValueMapper().fromDBObject(datastore, dbObject, mf, entity, cache, this);
+            // the built in value mapper never touches the cache so don't create one just for it
+            final CustomMapper valueMapper = opts.getValueMapper();
+            valueMapper.fromDBObject(datastore, dbObject, mf, entity, valueMapper instanceof ValueMapper ? cache : orNewCache(cache), this);
         } else if (mf.hasAnnotation(Embedded.class)) {
-            opts.getEmbeddedMapper().fromDBObject(datastore, dbObject, mf, entity, cache, this);
+            opts.getEmbeddedMapper().fromDBObject(datastore, dbObject, mf, entity, orNewCache(cache), this);
         } else if (mf.hasAnnotation(Reference.class)) {
-            opts.getReferenceMapper().fromDBObject(datastore, dbObject, mf, entity, cache, this);
+            opts.getReferenceMapper().fromDBObject(datastore, dbObject, mf, entity, orNewCache(cache), this);
         } else {
-            opts.getDefaultMapper().fromDBObject(datastore, dbObject, mf, entity, cache, this);
+            opts.getDefaultMapper().fromDBObject(datastore, dbObject, mf, entity, orNewCache(cache), this);
         }
     }
 
+    private EntityCache orNewCache(final EntityCache cache) {
+        return cache != null ? cache : createEntityCache();
+    }
+
     private void writeMappedField(final DBObject dbObject, final MappedField mf, final Object entity,
                                   final Map<Object, DBObject> involvedObjects) {
 
@@ -965,7 +1018,19 @@ public class Mapper {
     }
 
     DBObject toDBObject(final Object entity, final Map<Object, DBObject> involvedObjects, final boolean lifecycle) {
+        final DBObject dbObject = startDBObject(entity, lifecycle);
+        writeFields(entity, dbObject, involvedObjects);
+        if (lifecycle) {
+            getMappedClass(entity).callLifecycleMethods(PreSave.class, entity, dbObject, this);
+        }
 
+        return dbObject;
+    }
+
+    /**
+     * Creates the document for an entity and runs its {@link PrePersist} callbacks.
+     */
+    DBObject startDBObject(final Object entity, final boolean lifecycle) {
         DBObject dbObject = new BasicDBObject();
         final MappedClass mc = getMappedClass(entity);
 
@@ -976,8 +1041,15 @@ public class Mapper {
         if (lifecycle) {
             dbObject = mc.callLifecycleMethods(PrePersist.class, entity, dbObject, this);
         }
+        return dbObject;
+    }
 
-        for (final MappedField mf : mc.getPersistenceFields()) {
+    /**
+     * Writes the persistent fields of an entity to its document.  This doesn't run any of the entity's own lifecycle callbacks so may be
+     * done off the calling thread.
+     */
+    void writeFields(final Object entity, final DBObject dbObject, final Map<Object, DBObject> involvedObjects) {
+        for (final MappedField mf : getMappedClass(entity).getPersistenceFields()) {
             try {
                 writeMappedField(dbObject, mf, entity, involvedObjects);
             } catch (Exception e) {
@@ -987,12 +1059,6 @@ public class Mapper {
         if (involvedObjects != null) {
             involvedObjects.put(entity, dbObject);
         }
-
-        if (lifecycle) {
-            mc.callLifecycleMethods(PreSave.class, entity, dbObject, this);
-        }
-
-        return dbObject;
     }
 
     <T> Key<T> createKey(final Class<T> clazz, final Serializable id) {
@@ -7,6 +7,8 @@ import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
 import org.mongodb.morphia.mapping.cache.DefaultEntityCacheFactory;
 import org.mongodb.morphia.mapping.cache.EntityCacheFactory;
+import org.mongodb.morphia.mapping.cache.EntityCacheMetrics;
+import org.mongodb.morphia.mapping.cache.MissingReferenceCache;
 
 /**
  * Options to control mapping behavior.
@@ -27,8 +29,11 @@ public class MapperOptions {
     private boolean useLowerCaseCollectionNames;
     private boolean cacheClassLookups = false;
     private boolean mapSubPackages = false;
+    private boolean trackDirtyFields = false;
     private ObjectFactory objectFactory = new DefaultCreator(this);
     private EntityCacheFactory cacheFactory = new DefaultEntityCacheFactory();
+    private MissingReferenceCache missingReferenceCache;
+    private EntityCacheMetrics entityCacheMetrics;
     private CustomMapper embeddedMapper = new EmbeddedMapper();
     private CustomMapper defaultMapper = embeddedMapper;
     private CustomMapper referenceMapper = new ReferenceMapper();
@@ -53,8 +58,11 @@ public class MapperOptions {
         setStoreEmpties(options.isStoreEmpties());
         setUseLowerCaseCollectionNames(options.isUseLowerCaseCollectionNames());
         setCacheClassLookups(options.isCacheClassLookups());
+        setTrackDirtyFields(options.isTrackDirtyFields());
         setObjectFactory(options.getObjectFactory());
         setCacheFactory(options.getCacheFactory());
+        setMissingReferenceCache(options.getMissingReferenceCache());
+        setEntityCacheMetrics(options.getEntityCacheMetrics());
         setEmbeddedMapper(options.getEmbeddedMapper());
         setDefaultMapper(options.getDefaultMapper());
         setReferenceMapper(options.getReferenceMapper());
@@ -77,6 +85,44 @@ public class MapperOptions {
         this.cacheFactory = cacheFactory;
     }
 
+    /**
+     * @return the cache of references known to be missing, or null if missing references are not cached
+     * @since 1.4
+     */
+    public MissingReferenceCache getMissingReferenceCache() {
+        return missingReferenceCache;
+    }
+
+    /**
+     * Sets the cache used to remember missing references across queries.  Only references marked with {@code ignoreMissing = true} are
+     * cached.  By default no cache is used and missing references are queried for every time they are loaded.
+     *
+     * @param missingReferenceCache the cache to use or null to disable caching
+     * @see Reference#ignoreMissing()
+     * @since 1.4
+     */
+    public void setMissingReferenceCache(final MissingReferenceCache missingReferenceCache) {
+        this.missingReferenceCache = missingReferenceCache;
+    }
+
+    /**
+     * @return the metrics counting how entity caches are used, or null if they are not counted
+     * @since 1.4
+     */
+    public EntityCacheMetrics getEntityCacheMetrics() {
+        return entityCacheMetrics;
+    }
+
+    /**
+     * Sets the metrics counting the lookups of every entity cache by entity type and collection.  By default they are not counted.
+     *
+     * @param entityCacheMetrics the metrics to use or null to stop counting
+     * @since 1.4
+     */
+    public void setEntityCacheMetrics(final EntityCacheMetrics entityCacheMetrics) {
+        this.entityCacheMetrics = entityCacheMetrics;
+    }
+
     /**
      * @return the DatastoreProvider Morphia should use
      * @deprecated unused
@@ -217,6 +263,26 @@ public class MapperOptions {
         this.cacheClassLookups = cacheClassLookups;
     }
 
+    /**
+     * @return true if Morphia should remember what was loaded so that saves only write the fields which changed
+     * @since 1.4
+     */
+    public boolean isTrackDirtyFields() {
+        return trackDirtyFields;
+    }
+
+    /**
+     * Sets whether Morphia should remember the document each entity was loaded from.  When enabled, saving or merging a loaded entity
+     * sends a partial update holding only the changed fields rather than the whole document.  This trades memory for the loaded
+     * documents, which are only held while the entities are reachable, for smaller writes.
+     *
+     * @param trackDirtyFields true if partial updates should be used for loaded entities
+     * @since 1.4
+     */
+    public void setTrackDirtyFields(final boolean trackDirtyFields) {
+        this.trackDirtyFields = trackDirtyFields;
+    }
+
     /**
      * @return true if Morphia should ignore final fields
      */
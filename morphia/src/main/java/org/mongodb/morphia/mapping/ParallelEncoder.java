@@ -0,0 +1,154 @@
+package org.mongodb.morphia.mapping;
+
+
+import com.mongodb.DBObject;
+import org.mongodb.morphia.annotations.PreSave;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Converts a large list of entities to DBObjects by mapping their fields in chunks on an executor.  The entities'
+ * {@link org.mongodb.morphia.annotations.PrePersist} callbacks all run in order on the calling thread before any fields are mapped, and
+ * their {@link PreSave} callbacks run in order on the calling thread as each chunk is handed out, so the entities' own callbacks are seen
+ * in the same order as a sequential conversion.  Callbacks of embedded objects run on the executor.
+ *
+ * @since 1.4
+ */
+public class ParallelEncoder {
+    private final Mapper mapper;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    /**
+     * Creates an encoder
+     *
+     * @param mapper    the Mapper to convert with
+     * @param executor  the executor to map fields on
+     * @param chunkSize the number of entities to map per task
+     */
+    public ParallelEncoder(final Mapper mapper, final ExecutorService executor, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+        this.mapper = mapper;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Starts converting the entities.  Each chunk is returned in the order of the entities once it has been mapped so that callers can
+     * write finished chunks while later ones are still being mapped.  The converted entities are added to {@code involvedObjects} in the
+     * same order a sequential conversion would have added them as each chunk is returned.
+     *
+     * @param entities        the entities to convert
+     * @param involvedObjects the map collecting the converted entities
+     * @return the chunks of converted entities
+     */
+    public Iterator<List<DBObject>> encode(final List<?> entities, final Map<Object, DBObject> involvedObjects) {
+        final List<DBObject> documents = new ArrayList<DBObject>(entities.size());
+        for (final Object entity : entities) {
+            documents.add(mapper.startDBObject(entity, true));
+        }
+
+        final List<Future<Map<Object, DBObject>>> chunks = new ArrayList<Future<Map<Object, DBObject>>>();
+        for (int start = 0; start < entities.size(); start += chunkSize) {
+            final int end = Math.min(start + chunkSize, entities.size());
+            chunks.add(executor.submit(new Chunk(entities.subList(start, end), documents.subList(start, end))));
+        }
+        return new ChunkIterator(entities, documents, chunks, involvedObjects);
+    }
+
+    private class Chunk implements Callable<Map<Object, DBObject>> {
+        private final List<?> entities;
+        private final List<DBObject> documents;
+
+        Chunk(final List<?> entities, final List<DBObject> documents) {
+            this.entities = entities;
+            this.documents = documents;
+        }
+
+        @Override
+        public Map<Object, DBObject> call() {
+            final Map<Object, DBObject> involved = new InvolvedObjects();
+            for (int i = 0; i < entities.size(); i++) {
+                mapper.writeFields(entities.get(i), documents.get(i), involved);
+            }
+            return involved;
+        }
+    }
+
+    private class ChunkIterator implements Iterator<List<DBObject>> {
+        private final List<?> entities;
+        private final List<DBObject> documents;
+        private final List<Future<Map<Object, DBObject>>> chunks;
+        private final Map<Object, DBObject> involvedObjects;
+        private int next;
+
+        ChunkIterator(final List<?> entities, final List<DBObject> documents, final List<Future<Map<Object, DBObject>>> chunks,
+                      final Map<Object, DBObject> involvedObjects) {
+            this.entities = entities;
+            this.documents = documents;
+            this.chunks = chunks;
+            this.involvedObjects = involvedObjects;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < chunks.size();
+        }
+
+        @Override
+        public List<DBObject> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Map<Object, DBObject> involved = await(chunks.get(next));
+            final int start = next * chunkSize;
+            final int end = Math.min(start + chunkSize, entities.size());
+            next++;
+
+            for (int i = start; i < end; i++) {
+                mapper.getMappedClass(entities.get(i)).callLifecycleMethods(PreSave.class, entities.get(i), documents.get(i), mapper);
+            }
+            if (involvedObjects != null) {
+                involvedObjects.putAll(involved);
+            }
+            return documents.subList(start, end);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private Map<Object, DBObject> await(final Future<Map<Object, DBObject>> chunk) {
+            try {
+                return chunk.get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new MappingException("Interrupted while waiting for entities to be mapped", e);
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new MappingException("Could not map entities", e.getCause());
+            }
+        }
+
+        private void cancel() {
+            for (int i = next; i < chunks.size(); i++) {
+                chunks.get(i).cancel(true);
+            }
+        }
+    }
+}
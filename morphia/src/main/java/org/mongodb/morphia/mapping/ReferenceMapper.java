@@ -10,6 +10,7 @@ import org.mongodb.morphia.annotations.Reference;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
 import org.mongodb.morphia.mapping.cache.EntityCache;
+import org.mongodb.morphia.mapping.cache.MissingReferenceCache;
 import org.mongodb.morphia.mapping.lazy.LazyFeatureDependencies;
 import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReference;
 import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReferenceList;
@@ -309,6 +310,13 @@ class ReferenceMapper implements CustomMapper {
             return cached;
         }
 
+        final boolean ignoreMissing = mf.getAnnotation(Reference.class) != null && mf.getAnnotation(Reference.class).ignoreMissing();
+        final MissingReferenceCache missingReferences = ignoreMissing ? mapper.getOptions().getMissingReferenceCache() : null;
+        final Key missingKey = missingReferences == null || idOnly ? key : new Key(key.getType(), dbRef.getCollectionName(), dbRef.getId());
+        if (missingReferences != null && missingReferences.isMissing(missingKey)) {
+            return null;
+        }
+
         final DBObject refDbObject;
         DBCollection collection;
         Object id;
@@ -332,10 +340,12 @@ class ReferenceMapper implements CustomMapper {
             return refObj;
         }
 
-        final boolean ignoreMissing = mf.getAnnotation(Reference.class) != null && mf.getAnnotation(Reference.class).ignoreMissing();
         if (!ignoreMissing) {
             throw new MappingException("The reference(" + ref.toString() + ") could not be fetched for " + mf.getFullName());
         } else {
+            if (missingReferences != null) {
+                missingReferences.markMissing(missingKey);
+            }
             return null;
         }
     }
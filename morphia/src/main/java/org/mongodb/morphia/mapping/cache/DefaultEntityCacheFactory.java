@@ -1,16 +1,16 @@
 package org.mongodb.morphia.mapping.cache;
 
 /**
- * Default implementation of cache factory, returning the default entity cache.
+ * Default implementation of cache factory, returning a {@link LightweightEntityCache}.
  */
 public class DefaultEntityCacheFactory implements EntityCacheFactory {
 
     /**
-     * Creates a new DefaultEntityCache
+     * Creates a new LightweightEntityCache
      *
      * @return the cache
      */
     public EntityCache createCache() {
-        return new DefaultEntityCache();
+        return new LightweightEntityCache();
     }
 }
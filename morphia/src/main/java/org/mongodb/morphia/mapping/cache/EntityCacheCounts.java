@@ -0,0 +1,117 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import java.beans.ConstructorProperties;
+
+import static java.lang.String.format;
+
+/**
+ * A snapshot of how the entity caches were used for an entity type, a collection or in total.  Entity lookups are made when references
+ * are resolved and when loaded documents are checked for an instance already created by the query, proxy lookups when lazy references
+ * are loaded and existence checks when the keys of references are validated.
+ *
+ * @see EntityCacheMetrics
+ * @since 1.4
+ */
+public class EntityCacheCounts {
+    private final long entityHits;
+    private final long entityMisses;
+    private final long proxyHits;
+    private final long proxyMisses;
+    private final long existenceHits;
+    private final long existenceMisses;
+    private final long entities;
+
+    /**
+     * Creates a snapshot of the counts
+     *
+     * @param entityHits      the entity lookups which found an entity or proxy
+     * @param entityMisses    the entity lookups which found nothing
+     * @param proxyHits       the proxy lookups which reused a proxy
+     * @param proxyMisses     the proxy lookups which found nothing so a new proxy was created
+     * @param existenceHits   the existence checks which were answered by the cache
+     * @param existenceMisses the existence checks which were not
+     * @param entities        the entities and proxies put in the caches
+     */
+    @ConstructorProperties({"entityHits", "entityMisses", "proxyHits", "proxyMisses", "existenceHits", "existenceMisses", "entities"})
+    public EntityCacheCounts(final long entityHits, final long entityMisses, final long proxyHits, final long proxyMisses,
+                             final long existenceHits, final long existenceMisses, final long entities) {
+        this.entityHits = entityHits;
+        this.entityMisses = entityMisses;
+        this.proxyHits = proxyHits;
+        this.proxyMisses = proxyMisses;
+        this.existenceHits = existenceHits;
+        this.existenceMisses = existenceMisses;
+        this.entities = entities;
+    }
+
+    /**
+     * @return the entity lookups which found an entity or proxy
+     */
+    public long getEntityHits() {
+        return entityHits;
+    }
+
+    /**
+     * @return the entity lookups which found nothing, which for references means a query to load the referenced document
+     */
+    public long getEntityMisses() {
+        return entityMisses;
+    }
+
+    /**
+     * @return the proxy lookups which reused a proxy created earlier in the same query
+     */
+    public long getProxyHits() {
+        return proxyHits;
+    }
+
+    /**
+     * @return the proxy lookups which found nothing so a new proxy was created
+     */
+    public long getProxyMisses() {
+        return proxyMisses;
+    }
+
+    /**
+     * @return the existence checks which were answered by the cache
+     */
+    public long getExistenceHits() {
+        return existenceHits;
+    }
+
+    /**
+     * @return the existence checks which were not answered by the cache
+     */
+    public long getExistenceMisses() {
+        return existenceMisses;
+    }
+
+    /**
+     * @return the entities and proxies put in the caches
+     */
+    public long getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return the share of entity lookups which found an entity or proxy, or 0 if there were none
+     */
+    public double getEntityHitRatio() {
+        final long lookups = entityHits + entityMisses;
+        return lookups == 0 ? 0 : (double) entityHits / lookups;
+    }
+
+    EntityCacheCounts add(final EntityCacheCounts counts) {
+        return new EntityCacheCounts(entityHits + counts.entityHits, entityMisses + counts.entityMisses, proxyHits + counts.proxyHits,
+                                     proxyMisses + counts.proxyMisses, existenceHits + counts.existenceHits,
+                                     existenceMisses + counts.existenceMisses, entities + counts.entities);
+    }
+
+    @Override
+    public String toString() {
+        return format("entities %d/%d hits, proxies %d/%d reused, existence %d/%d answered, %d cached", entityHits,
+                      entityHits + entityMisses, proxyHits, proxyHits + proxyMisses, existenceHits, existenceHits + existenceMisses,
+                      entities);
+    }
+}
@@ -0,0 +1,165 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import org.mongodb.morphia.Key;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates how the entity caches of every query are used, by entity type and by collection, so it can be seen which references are
+ * resolved from the cache and which cost a query each time they are loaded.  Once set on the {@link
+ * org.mongodb.morphia.mapping.MapperOptions}, every cache created by the {@link EntityCacheFactory} is wrapped to count its lookups.  The
+ * counts can be read directly or through JMX:
+ * <pre>
+ * EntityCacheMetrics metrics = new EntityCacheMetrics();
+ * morphia.getMapper().getOptions().setEntityCacheMetrics(metrics);
+ * ManagementFactory.getPlatformMBeanServer()
+ *                  .registerMBean(metrics, new ObjectName("org.mongodb.morphia:type=EntityCacheMetrics"));
+ * </pre>
+ * Each lookup costs an atomic increment.  Caches created while no metrics are set are not wrapped and cost nothing.
+ *
+ * @see org.mongodb.morphia.mapping.MapperOptions#setEntityCacheMetrics(EntityCacheMetrics)
+ * @since 1.4
+ */
+public class EntityCacheMetrics implements EntityCacheMetricsMXBean {
+    private final ConcurrentMap<Source, Counters> counters = new ConcurrentHashMap<Source, Counters>();
+
+    /**
+     * Wraps a cache so its lookups are counted
+     *
+     * @param cache the cache to wrap
+     * @return the wrapped cache
+     */
+    public EntityCache track(final EntityCache cache) {
+        return new TrackedEntityCache(cache, this);
+    }
+
+    /**
+     * @param type the entity type
+     * @return the counts of the type
+     */
+    public EntityCacheCounts getCounts(final Class<?> type) {
+        EntityCacheCounts total = new EntityCacheCounts(0, 0, 0, 0, 0, 0, 0);
+        for (final Map.Entry<Source, Counters> entry : counters.entrySet()) {
+            if (type.equals(entry.getKey().type)) {
+                total = total.add(entry.getValue().snapshot());
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, EntityCacheCounts> getTypes() {
+        final Map<String, EntityCacheCounts> types = new TreeMap<String, EntityCacheCounts>();
+        for (final Map.Entry<Source, Counters> entry : counters.entrySet()) {
+            if (entry.getKey().type != null) {
+                add(types, entry.getKey().type.getName(), entry.getValue().snapshot());
+            }
+        }
+        return types;
+    }
+
+    @Override
+    public Map<String, EntityCacheCounts> getCollections() {
+        final Map<String, EntityCacheCounts> collections = new TreeMap<String, EntityCacheCounts>();
+        for (final Map.Entry<Source, Counters> entry : counters.entrySet()) {
+            add(collections, String.valueOf(entry.getKey().collection), entry.getValue().snapshot());
+        }
+        return collections;
+    }
+
+    @Override
+    public EntityCacheCounts getTotal() {
+        EntityCacheCounts total = new EntityCacheCounts(0, 0, 0, 0, 0, 0, 0);
+        for (final Counters value : counters.values()) {
+            total = total.add(value.snapshot());
+        }
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        counters.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCacheMetrics " + getTypes();
+    }
+
+    Counters counters(final Key<?> key) {
+        final Source source = new Source(key.getType(), key.getCollection());
+        final Counters existing = counters.get(source);
+        if (existing != null) {
+            return existing;
+        }
+        final Counters created = new Counters();
+        final Counters raced = counters.putIfAbsent(source, created);
+        return raced != null ? raced : created;
+    }
+
+    private static void add(final Map<String, EntityCacheCounts> map, final String name, final EntityCacheCounts counts) {
+        final EntityCacheCounts existing = map.get(name);
+        map.put(name, existing == null ? counts : existing.add(counts));
+    }
+
+    static final class Counters {
+        private final AtomicLong entityHits = new AtomicLong();
+        private final AtomicLong entityMisses = new AtomicLong();
+        private final AtomicLong proxyHits = new AtomicLong();
+        private final AtomicLong proxyMisses = new AtomicLong();
+        private final AtomicLong existenceHits = new AtomicLong();
+        private final AtomicLong existenceMisses = new AtomicLong();
+        private final AtomicLong entities = new AtomicLong();
+
+        void entity(final boolean hit) {
+            (hit ? entityHits : entityMisses).incrementAndGet();
+        }
+
+        void proxy(final boolean hit) {
+            (hit ? proxyHits : proxyMisses).incrementAndGet();
+        }
+
+        void existence(final boolean hit) {
+            (hit ? existenceHits : existenceMisses).incrementAndGet();
+        }
+
+        void cached() {
+            entities.incrementAndGet();
+        }
+
+        EntityCacheCounts snapshot() {
+            return new EntityCacheCounts(entityHits.get(), entityMisses.get(), proxyHits.get(), proxyMisses.get(), existenceHits.get(),
+                                         existenceMisses.get(), entities.get());
+        }
+    }
+
+    private static final class Source {
+        private final Class<?> type;
+        private final String collection;
+
+        private Source(final Class<?> type, final String collection) {
+            this.type = type;
+            this.collection = collection;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Source)) {
+                return false;
+            }
+            final Source source = (Source) o;
+            return (type == null ? source.type == null : type.equals(source.type))
+                   && (collection == null ? source.collection == null : collection.equals(source.collection));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (type == null ? 0 : type.hashCode()) + (collection == null ? 0 : collection.hashCode());
+        }
+    }
+}
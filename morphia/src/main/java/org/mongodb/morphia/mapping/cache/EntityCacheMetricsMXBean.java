@@ -0,0 +1,32 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link EntityCacheMetrics}.
+ *
+ * @since 1.4
+ */
+public interface EntityCacheMetricsMXBean {
+    /**
+     * @return the counts of every entity type by class name.  References to collections which aren't mapped are only counted under their
+     * collection.
+     */
+    Map<String, EntityCacheCounts> getTypes();
+
+    /**
+     * @return the counts of every collection by name
+     */
+    Map<String, EntityCacheCounts> getCollections();
+
+    /**
+     * @return the counts of all entity types and collections
+     */
+    EntityCacheCounts getTotal();
+
+    /**
+     * Sets every count back to 0
+     */
+    void reset();
+}
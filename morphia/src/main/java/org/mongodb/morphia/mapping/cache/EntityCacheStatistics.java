@@ -9,6 +9,18 @@ public class EntityCacheStatistics {
     private int hits;
     private int misses;
 
+    /**
+     * Creates an empty set of statistics
+     */
+    public EntityCacheStatistics() {
+    }
+
+    EntityCacheStatistics(final int entities, final int hits, final int misses) {
+        this.entities = entities;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
     /**
      * Copies the statistics
      *
@@ -22,6 +34,30 @@ public class EntityCacheStatistics {
         return copy;
     }
 
+    /**
+     * @return the number of entities and proxies put in the cache
+     * @since 1.4
+     */
+    public int getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return the number of lookups which found an entry
+     * @since 1.4
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which found nothing
+     * @since 1.4
+     */
+    public int getMisses() {
+        return misses;
+    }
+
     /**
      * Increments the entity count
      */
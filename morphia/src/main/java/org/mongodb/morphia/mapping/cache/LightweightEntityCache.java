@@ -0,0 +1,222 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.mapping.lazy.LazyFeatureDependencies;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxyHelper;
+
+import java.util.Arrays;
+
+
+/**
+ * A low allocation EntityCache backed by a single open-addressing table keyed by the type, collection and id of a {@link Key}.  As with
+ * {@link Key#equals(Object)}, the type names are only compared when both keys have a type.  The table is only allocated once the first
+ * entry is written so queries which never register an entity pay nothing beyond this instance.  This cache is intended to live for the
+ * duration of a single query and is not thread safe.
+ */
+@SuppressWarnings("unchecked")
+public class LightweightEntityCache implements EntityCache {
+    private static final int COLLECTION = 0;
+    private static final int ID = 1;
+    private static final int ENTITY = 2;
+    private static final int PROXY = 3;
+    private static final int EXISTS = 4;
+    private static final int TYPE = 5;
+    private static final int STRIDE = 6;
+    private static final int INITIAL_SLOTS = 8;
+
+    private Object[] table;
+    private int size;
+    private int entities;
+    private int hits;
+    private int misses;
+
+    @Override
+    public Boolean exists(final Key<?> k) {
+        final int index = find(k);
+        if (index < 0) {
+            misses++;
+            return null;
+        }
+        if (table[index + ENTITY] != null) {
+            hits++;
+            return true;
+        }
+
+        final Boolean b = (Boolean) table[index + EXISTS];
+        if (b == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return b;
+    }
+
+    @Override
+    public void flush() {
+        if (table != null) {
+            Arrays.fill(table, null);
+        }
+        size = 0;
+        entities = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public <T> T getEntity(final Key<T> k) {
+        final int index = find(k);
+        final Object o = index < 0 ? null : table[index + ENTITY];
+        if (o == null) {
+            if (index >= 0 && LazyFeatureDependencies.testDependencyFullFilled()) {
+                final Object proxy = table[index + PROXY];
+                if (proxy != null) {
+                    hits++;
+                    return (T) ProxyHelper.unwrap(proxy);
+                }
+            }
+            misses++;
+        } else {
+            hits++;
+        }
+        return (T) o;
+    }
+
+    @Override
+    public <T> T getProxy(final Key<T> k) {
+        final int index = find(k);
+        final Object o = index < 0 ? null : table[index + PROXY];
+        if (o == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return (T) o;
+    }
+
+    @Override
+    public void notifyExists(final Key<?> k, final boolean exists) {
+        final int index = findOrInsert(k);
+        if (index < 0) {
+            return;
+        }
+        final Boolean put = (Boolean) table[index + EXISTS];
+        table[index + EXISTS] = exists ? Boolean.TRUE : Boolean.FALSE;
+        if (put == null || !put) {
+            entities++;
+        }
+    }
+
+    @Override
+    public <T> void putEntity(final Key<T> k, final T t) {
+        notifyExists(k, true); // already registers a write
+        final int index = find(k);
+        if (index >= 0) {
+            table[index + ENTITY] = t;
+        }
+    }
+
+    @Override
+    public <T> void putProxy(final Key<T> k, final T t) {
+        final int index = findOrInsert(k);
+        if (index >= 0) {
+            table[index + PROXY] = t;
+        }
+        entities++;
+    }
+
+    @Override
+    public EntityCacheStatistics stats() {
+        return new EntityCacheStatistics(entities, hits, misses);
+    }
+
+    /**
+     * @return the number of distinct keys currently tracked by this cache
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int hash(final String collection, final Object id) {
+        int h = 31 * (collection == null ? 0 : collection.hashCode()) + id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(final Object[] table, final int index, final String type, final String collection, final Object id) {
+        final Object storedCollection = table[index + COLLECTION];
+        final Object storedType = table[index + TYPE];
+        return id.equals(table[index + ID])
+               && (storedCollection == null ? collection == null : storedCollection.equals(collection))
+               && (type == null || storedType == null || storedType.equals(type));
+    }
+
+    private static String typeName(final Key<?> k) {
+        return k.getType() == null ? null : k.getType().getName();
+    }
+
+    private int find(final Key<?> k) {
+        final Object id = k.getId();
+        if (table == null || id == null) {
+            return -1;
+        }
+        final String type = typeName(k);
+        final String collection = k.getCollection();
+        final int slots = table.length / STRIDE;
+        int slot = hash(collection, id) & (slots - 1);
+        while (table[slot * STRIDE + ID] != null) {
+            final int index = slot * STRIDE;
+            if (matches(table, index, type, collection, id)) {
+                return index;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        return -1;
+    }
+
+    private int findOrInsert(final Key<?> k) {
+        final Object id = k.getId();
+        if (id == null) {
+            return -1;
+        }
+        if (table == null) {
+            table = new Object[INITIAL_SLOTS * STRIDE];
+        } else if ((size + 1) * 2 > table.length / STRIDE) {
+            resize();
+        }
+
+        final String type = typeName(k);
+        final String collection = k.getCollection();
+        final int slots = table.length / STRIDE;
+        int slot = hash(collection, id) & (slots - 1);
+        while (table[slot * STRIDE + ID] != null) {
+            final int index = slot * STRIDE;
+            if (matches(table, index, type, collection, id)) {
+                return index;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+
+        final int index = slot * STRIDE;
+        table[index + COLLECTION] = collection;
+        table[index + ID] = id;
+        table[index + TYPE] = type;
+        size++;
+        return index;
+    }
+
+    private void resize() {
+        final Object[] old = table;
+        final int slots = old.length / STRIDE * 2;
+        table = new Object[slots * STRIDE];
+        for (int index = 0; index < old.length; index += STRIDE) {
+            final Object id = old[index + ID];
+            if (id != null) {
+                int slot = hash((String) old[index + COLLECTION], id) & (slots - 1);
+                while (table[slot * STRIDE + ID] != null) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                System.arraycopy(old, index, table, slot * STRIDE, STRIDE);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A bounded, thread safe cache of references known to be missing from the database.  Unlike an {@link EntityCache} this cache is shared
+ * across queries so that loading entities with {@code @Reference(ignoreMissing = true)} fields pointing at deleted documents doesn't
+ * query for the same dangling ids over and over.  Entries expire after a fixed time to live and are invalidated when the Datastore saves
+ * or inserts an entity with the same collection and id.  Once the cache is full the oldest entry makes room for the next one.
+ *
+ * @see org.mongodb.morphia.mapping.MapperOptions#setMissingReferenceCache(MissingReferenceCache)
+ * @since 1.4
+ */
+public class MissingReferenceCache {
+    // every entry lives equally long so the insertion order is also the order in which entries expire
+    private final Map<Key<?>, Long> missing;
+    private final long timeToLive;
+
+    /**
+     * Creates a new cache
+     *
+     * @param maxSize    the maximum number of missing references to remember
+     * @param timeToLive how long to remember a missing reference
+     * @param unit       the unit of the time to live
+     */
+    public MissingReferenceCache(final int maxSize, final long timeToLive, final TimeUnit unit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.missing = new BoundedMap(maxSize);
+        this.timeToLive = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Checks if a reference is known to be missing
+     *
+     * @param key the Key of the reference
+     * @return true if the reference was recently found to be missing
+     */
+    public boolean isMissing(final Key<?> key) {
+        final Key<?> normalized = normalize(key);
+        if (normalized == null) {
+            return false;
+        }
+        synchronized (missing) {
+            final Long expiry = missing.get(normalized);
+            if (expiry == null) {
+                return false;
+            }
+            if (expiry - System.nanoTime() <= 0) {
+                missing.remove(normalized);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Records a reference as missing
+     *
+     * @param key the Key of the reference
+     */
+    public void markMissing(final Key<?> key) {
+        final Key<?> normalized = normalize(key);
+        if (normalized == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        synchronized (missing) {
+            expire(now);
+            // removed first so that marking a reference again moves it to the end of the line
+            missing.remove(normalized);
+            missing.put(normalized, now + timeToLive);
+        }
+    }
+
+    /**
+     * Forgets a reference, typically because it has just been written
+     *
+     * @param key the Key of the reference
+     */
+    public void invalidate(final Key<?> key) {
+        final Key<?> normalized = normalize(key);
+        if (normalized != null) {
+            synchronized (missing) {
+                missing.remove(normalized);
+            }
+        }
+    }
+
+    /**
+     * Forgets every missing reference
+     */
+    public void clear() {
+        synchronized (missing) {
+            missing.clear();
+        }
+    }
+
+    /**
+     * @return the number of references currently remembered as missing
+     */
+    public int size() {
+        synchronized (missing) {
+            return missing.size();
+        }
+    }
+
+    private void expire(final long now) {
+        final Iterator<Long> expiries = missing.values().iterator();
+        while (expiries.hasNext() && expiries.next() - now <= 0) {
+            expiries.remove();
+        }
+    }
+
+    /**
+     * References are typed by the declared field type while saves are typed by the entity's class so only the collection and id are
+     * used to identify a document.  The class name an encoded complex id may carry is dropped since references are loaded without it.
+     */
+    private Key<?> normalize(final Key<?> key) {
+        if (key == null || key.getCollection() == null || key.getId() == null) {
+            return null;
+        }
+        Object id = key.getId();
+        if (id instanceof DBObject && ((DBObject) id).containsField(Mapper.CLASS_NAME_FIELDNAME)) {
+            final BasicDBObject copy = new BasicDBObject(((DBObject) id).toMap());
+            copy.removeField(Mapper.CLASS_NAME_FIELDNAME);
+            id = copy;
+        }
+        return new Key<Object>((Class<?>) null, key.getCollection(), id);
+    }
+
+    private static final class BoundedMap extends LinkedHashMap<Key<?>, Long> {
+        private final int maxSize;
+
+        BoundedMap(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key<?>, Long> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
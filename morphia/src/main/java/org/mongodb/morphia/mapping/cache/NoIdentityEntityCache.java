@@ -0,0 +1,54 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import org.mongodb.morphia.Key;
+
+
+/**
+ * An EntityCache which never retains anything.  This is intended for plain scans over types without references where tracking the
+ * identity of every loaded document is pure overhead.  Since nothing is remembered, references are fetched each time they are seen and
+ * cyclic references can not be resolved so this cache should not be used with types which refer back to themselves.
+ */
+public class NoIdentityEntityCache implements EntityCache {
+    private int misses;
+
+    @Override
+    public Boolean exists(final Key<?> k) {
+        misses++;
+        return null;
+    }
+
+    @Override
+    public void flush() {
+        misses = 0;
+    }
+
+    @Override
+    public <T> T getEntity(final Key<T> k) {
+        misses++;
+        return null;
+    }
+
+    @Override
+    public <T> T getProxy(final Key<T> k) {
+        misses++;
+        return null;
+    }
+
+    @Override
+    public void notifyExists(final Key<?> k, final boolean exists) {
+    }
+
+    @Override
+    public <T> void putEntity(final Key<T> k, final T t) {
+    }
+
+    @Override
+    public <T> void putProxy(final Key<T> k, final T t) {
+    }
+
+    @Override
+    public EntityCacheStatistics stats() {
+        return new EntityCacheStatistics(0, 0, misses);
+    }
+}
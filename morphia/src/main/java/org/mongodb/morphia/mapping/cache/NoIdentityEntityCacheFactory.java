@@ -0,0 +1,18 @@
+package org.mongodb.morphia.mapping.cache;
+
+/**
+ * Cache factory returning caches which do not track entity identity.  Useful for plain scans over types without references.
+ *
+ * @see NoIdentityEntityCache
+ */
+public class NoIdentityEntityCacheFactory implements EntityCacheFactory {
+
+    /**
+     * Creates a new NoIdentityEntityCache
+     *
+     * @return the cache
+     */
+    public EntityCache createCache() {
+        return new NoIdentityEntityCache();
+    }
+}
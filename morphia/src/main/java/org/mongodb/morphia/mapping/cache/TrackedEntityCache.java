@@ -0,0 +1,81 @@
+package org.mongodb.morphia.mapping.cache;
+
+
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.mapping.cache.EntityCacheMetrics.Counters;
+
+/**
+ * Counts the lookups of a cache in an {@link EntityCacheMetrics}.  A query mostly looks up keys of one type at a time so the counters of
+ * the last type and collection are kept to save looking them up again.  Like the caches it wraps, this is not thread safe.
+ */
+class TrackedEntityCache implements EntityCache {
+    private final EntityCache cache;
+    private final EntityCacheMetrics metrics;
+    private Class<?> lastType;
+    private String lastCollection;
+    private Counters lastCounters;
+
+    TrackedEntityCache(final EntityCache cache, final EntityCacheMetrics metrics) {
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Boolean exists(final Key<?> k) {
+        final Boolean exists = cache.exists(k);
+        counters(k).existence(exists != null);
+        return exists;
+    }
+
+    @Override
+    public void flush() {
+        cache.flush();
+    }
+
+    @Override
+    public <T> T getEntity(final Key<T> k) {
+        final T entity = cache.getEntity(k);
+        counters(k).entity(entity != null);
+        return entity;
+    }
+
+    @Override
+    public <T> T getProxy(final Key<T> k) {
+        final T proxy = cache.getProxy(k);
+        counters(k).proxy(proxy != null);
+        return proxy;
+    }
+
+    @Override
+    public void notifyExists(final Key<?> k, final boolean exists) {
+        cache.notifyExists(k, exists);
+    }
+
+    @Override
+    public <T> void putEntity(final Key<T> k, final T t) {
+        cache.putEntity(k, t);
+        counters(k).cached();
+    }
+
+    @Override
+    public <T> void putProxy(final Key<T> k, final T t) {
+        cache.putProxy(k, t);
+        counters(k).cached();
+    }
+
+    @Override
+    public EntityCacheStatistics stats() {
+        return cache.stats();
+    }
+
+    private Counters counters(final Key<?> k) {
+        final String collection = k.getCollection();
+        if (lastCounters == null || k.getType() != lastType
+            || (collection != lastCollection && (collection == null || !collection.equals(lastCollection)))) {
+            lastType = k.getType();
+            lastCollection = collection;
+            lastCounters = metrics.counters(k);
+        }
+        return lastCounters;
+    }
+}
@@ -0,0 +1,198 @@
+package org.mongodb.morphia.mapping.lazy;
+
+
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
+import net.sf.cglib.proxy.Dispatcher;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.annotations.IdGetter;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.mapping.lazy.proxy.AbstractReference;
+import org.mongodb.morphia.mapping.lazy.proxy.CollectionObjectReference;
+import org.mongodb.morphia.mapping.lazy.proxy.EntityObjectReference;
+import org.mongodb.morphia.mapping.lazy.proxy.MapObjectReference;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReference;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReferenceList;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReferenceMap;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxiedReference;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * A LazyProxyFactory which generates one proxy subclass per referenced type and caches it.  Creating a proxy is then a single
+ * {@link Factory#newInstance(Callback[])} call and invocations on the proxy are dispatched directly to the loaded referent rather than
+ * through reflection.  Types which can not be subclassed fall back to {@link CGLibLazyProxyFactory}.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class CachingLazyProxyFactory implements LazyProxyFactory {
+    private static final Logger LOG = MorphiaLoggerFactory.get(CachingLazyProxyFactory.class);
+
+    private static final int TARGET = 0;
+    private static final int REFERENCE = 1;
+    private static final int INTERCEPTED = 2;
+    private static final Class[] CALLBACK_TYPES = new Class[]{Dispatcher.class, Dispatcher.class, MethodInterceptor.class};
+    private static final CallbackFilter FILTER = new ReferenceCallbackFilter();
+
+    private final ConcurrentMap<Class, Factory> entityProxies = new ConcurrentHashMap<Class, Factory>();
+    private final ConcurrentMap<Class, Factory> listProxies = new ConcurrentHashMap<Class, Factory>();
+    private final ConcurrentMap<Class, Factory> mapProxies = new ConcurrentHashMap<Class, Factory>();
+    private final ConcurrentMap<Class, Boolean> unproxyable = new ConcurrentHashMap<Class, Boolean>();
+    private final LazyProxyFactory fallback = new CGLibLazyProxyFactory();
+
+    @Override
+    public <T extends Collection> T createListProxy(final Datastore datastore, final T listToProxy, final Class referenceObjClass,
+                                                    final boolean ignoreMissing) {
+        final Class<? extends Collection> targetClass = listToProxy.getClass();
+        if (unproxyable.containsKey(targetClass)) {
+            return fallback.createListProxy(datastore, listToProxy, referenceObjClass, ignoreMissing);
+        }
+        final CollectionObjectReference reference = new CollectionObjectReference(listToProxy, referenceObjClass, ignoreMissing,
+                                                                                  datastore);
+        final T proxy = (T) create(listProxies, targetClass, ProxiedEntityReferenceList.class, reference);
+        return proxy != null ? proxy : fallback.createListProxy(datastore, listToProxy, referenceObjClass, ignoreMissing);
+    }
+
+    @Override
+    public <T extends Map> T createMapProxy(final Datastore datastore, final T mapToProxy, final Class referenceObjClass,
+                                            final boolean ignoreMissing) {
+        final Class<? extends Map> targetClass = mapToProxy.getClass();
+        if (unproxyable.containsKey(targetClass)) {
+            return fallback.createMapProxy(datastore, mapToProxy, referenceObjClass, ignoreMissing);
+        }
+        final MapObjectReference reference = new MapObjectReference(datastore, mapToProxy, referenceObjClass, ignoreMissing);
+        final T proxy = (T) create(mapProxies, targetClass, ProxiedEntityReferenceMap.class, reference);
+        return proxy != null ? proxy : fallback.createMapProxy(datastore, mapToProxy, referenceObjClass, ignoreMissing);
+    }
+
+    @Override
+    public <T> T createProxy(final Datastore datastore, final Class<T> targetClass, final Key<T> key, final boolean ignoreMissing) {
+        if (unproxyable.containsKey(targetClass)) {
+            return fallback.createProxy(datastore, targetClass, key, ignoreMissing);
+        }
+        final EntityObjectReference reference = new EntityObjectReference(datastore, targetClass, key, ignoreMissing);
+        final T proxy = (T) create(entityProxies, targetClass, ProxiedEntityReference.class, reference);
+        return proxy != null ? proxy : fallback.createProxy(datastore, targetClass, key, ignoreMissing);
+    }
+
+    private Object create(final ConcurrentMap<Class, Factory> proxies, final Class<?> targetClass, final Class<?> referenceType,
+                          final AbstractReference reference) {
+        final Callback[] callbacks = new Callback[]{new TargetDispatcher(reference), new ReferenceDispatcher(reference),
+                                                    new ReferenceInterceptor(reference)};
+        Factory factory = proxies.get(targetClass);
+        if (factory == null) {
+            try {
+                final Enhancer enhancer = new Enhancer();
+                enhancer.setSuperclass(targetClass);
+                enhancer.setInterfaces(new Class[]{referenceType, Serializable.class});
+                enhancer.setCallbackFilter(FILTER);
+                enhancer.setCallbackTypes(CALLBACK_TYPES);
+                // the cached prototype is created without callbacks so that it doesn't keep a reference, and its datastore, reachable
+                final Factory prototype = (Factory) ReflectUtils.newInstance(enhancer.createClass());
+                factory = proxies.putIfAbsent(targetClass, prototype);
+                if (factory == null) {
+                    factory = prototype;
+                }
+            } catch (RuntimeException e) {
+                LOG.warning("Could not generate a proxy class for " + targetClass.getName() + ".  Falling back to dynamic proxies.", e);
+                unproxyable.put(targetClass, Boolean.TRUE);
+                return null;
+            }
+        }
+        return factory.newInstance(callbacks);
+    }
+
+    private static class ReferenceCallbackFilter implements CallbackFilter {
+        @Override
+        public int accept(final Method method) {
+            if (ProxiedReference.class.isAssignableFrom(method.getDeclaringClass())) {
+                return REFERENCE;
+            }
+            if ("finalize".equals(method.getName()) && method.getParameterTypes().length == 0
+                || method.getAnnotation(IdGetter.class) != null) {
+                return INTERCEPTED;
+            }
+            return TARGET;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof ReferenceCallbackFilter;
+        }
+
+        @Override
+        public int hashCode() {
+            return ReferenceCallbackFilter.class.hashCode();
+        }
+    }
+
+    /**
+     * Routes calls on the proxied type straight to the loaded referent.
+     */
+    private static class TargetDispatcher implements Dispatcher, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final AbstractReference reference;
+
+        TargetDispatcher(final AbstractReference reference) {
+            this.reference = reference;
+        }
+
+        @Override
+        public Object loadObject() {
+            return reference.get();
+        }
+    }
+
+    /**
+     * Routes calls to the proxy's reference methods to the reference itself without loading the referent.
+     */
+    private static class ReferenceDispatcher implements Dispatcher, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final AbstractReference reference;
+
+        ReferenceDispatcher(final AbstractReference reference) {
+            this.reference = reference;
+        }
+
+        @Override
+        public Object loadObject() {
+            return reference;
+        }
+    }
+
+    /**
+     * Suppresses finalization of the proxy and answers {@link IdGetter} methods from the Key without loading the referent.
+     */
+    private static class ReferenceInterceptor implements MethodInterceptor, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final AbstractReference reference;
+
+        ReferenceInterceptor(final AbstractReference reference) {
+            this.reference = reference;
+        }
+
+        @Override
+        public Object intercept(final Object proxy, final Method method, final Object[] args, final MethodProxy methodProxy)
+            throws Throwable {
+            if (method.getAnnotation(IdGetter.class) != null && reference instanceof EntityObjectReference) {
+                return ((EntityObjectReference) reference).__getKey().getId();
+            }
+            if ("finalize".equals(method.getName())) {
+                return null;
+            }
+            return methodProxy.invoke(reference.get(), args);
+        }
+    }
+}
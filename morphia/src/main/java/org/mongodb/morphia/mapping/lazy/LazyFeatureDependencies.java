@@ -55,7 +55,7 @@ public final class LazyFeatureDependencies {
      */
     public static LazyProxyFactory createDefaultProxyFactory() {
         if (testDependencyFullFilled()) {
-            final String factoryClassName = "org.mongodb.morphia.mapping.lazy.CGLibLazyProxyFactory";
+            final String factoryClassName = "org.mongodb.morphia.mapping.lazy.CachingLazyProxyFactory";
             try {
                 return (LazyProxyFactory) Class.forName(factoryClassName).newInstance();
             } catch (Exception e) {
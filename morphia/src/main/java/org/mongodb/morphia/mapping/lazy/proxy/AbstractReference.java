@@ -23,7 +23,7 @@ public abstract class AbstractReference implements Serializable, ObjectReference
     protected final Class referenceObjClass;
     protected Object object;
     //CHECKSTYLE:ON
-    private boolean isFetched;
+    private volatile boolean isFetched;
 
     protected AbstractReference(final Datastore datastore, final Class referenceObjClass, final boolean ignoreMissing) {
         this.datastore = datastore;
@@ -53,14 +53,18 @@ public abstract class AbstractReference implements Serializable, ObjectReference
     }
 
     @Override
-    public final synchronized Object get() {
+    public final Object get() {
         if (isFetched) {
             return object;
         }
 
-        object = fetch();
-        isFetched = true;
-        return object;
+        synchronized (this) {
+            if (!isFetched) {
+                object = fetch();
+                isFetched = true;
+            }
+            return object;
+        }
     }
 
     @Override
@@ -34,6 +34,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class FindOptions {
     private DBCollectionFindOptions options = new DBCollectionFindOptions();
+    private int entityCacheWindow;
 
     /**
      * Creates an empty options instance.
@@ -50,7 +51,8 @@ public class FindOptions {
      * @return the new copy
      */
     public FindOptions copy() {
-        return new FindOptions(options.copy());
+        return new FindOptions(options.copy())
+            .entityCacheWindow(entityCacheWindow);
     }
 
     /**
@@ -391,6 +393,35 @@ public class FindOptions {
         return this;
     }
 
+    /**
+     * Gets the number of documents after which the entity cache of an iteration is flushed.  The default is 0, which keeps every entity
+     * seen for the lifetime of the query.
+     *
+     * @return the entity cache window
+     * @since 1.4
+     */
+    public int getEntityCacheWindow() {
+        return entityCacheWindow;
+    }
+
+    /**
+     * Enables streaming iteration by scoping the entity cache to a window of documents rather than the whole iteration.  Once the given
+     * number of documents has been read the cache is flushed so that entity memory stays flat no matter how many documents a long running
+     * or tailable cursor returns.  Setting this to the batch size scopes the cache to a single cursor batch.  Entities (and references)
+     * shared across windows will be loaded again rather than reused.
+     *
+     * @param entityCacheWindow the number of documents per window or 0 to disable streaming
+     * @return this
+     * @since 1.4
+     */
+    public FindOptions entityCacheWindow(final int entityCacheWindow) {
+        if (entityCacheWindow < 0) {
+            throw new IllegalArgumentException("The entity cache window can not be negative");
+        }
+        this.entityCacheWindow = entityCacheWindow;
+        return this;
+    }
+
     DBCollectionFindOptions getOptions() {
         return options;
     }
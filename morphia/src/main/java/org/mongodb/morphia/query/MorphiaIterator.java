@@ -23,6 +23,8 @@ public class MorphiaIterator<T, V> implements Iterable<V>, Iterator<V> {
     private final Class<T> clazz;
     private final String collection;
     private final EntityCache cache;
+    private final int cacheWindow;
+    private int windowCount;
     private long driverTime;
     private long mapperTime;
     private Datastore datastore;
@@ -38,11 +40,29 @@ public class MorphiaIterator<T, V> implements Iterable<V>, Iterator<V> {
      */
     public MorphiaIterator(final Datastore datastore, final Iterator<DBObject> it, final Mapper mapper, final Class<T> clazz,
                            final String collection, final EntityCache cache) {
+        this(datastore, it, mapper, clazz, collection, cache, 0);
+    }
+
+    /**
+     * Creates a MorphiaIterator whose cache is flushed every {@code cacheWindow} documents
+     * @param datastore   the Datastore to use when fetching this reference
+     * @param it          the Iterator to use
+     * @param mapper      the Mapper to use
+     * @param clazz       the original type being iterated
+     * @param collection  the mongodb collection
+     * @param cache       the EntityCache
+     * @param cacheWindow the number of documents after which the cache is flushed or 0 to never flush it
+     * @see FindOptions#entityCacheWindow(int)
+     * @since 1.4
+     */
+    public MorphiaIterator(final Datastore datastore, final Iterator<DBObject> it, final Mapper mapper, final Class<T> clazz,
+                           final String collection, final EntityCache cache, final int cacheWindow) {
         wrapped = it;
         this.mapper = mapper;
         this.clazz = clazz;
         this.collection = collection;
         this.cache = cache;
+        this.cacheWindow = cacheWindow;
         this.datastore = datastore;
     }
 
@@ -144,6 +164,10 @@ public class MorphiaIterator<T, V> implements Iterable<V>, Iterator<V> {
     private V processItem(final DBObject dbObj) {
         final long start = System.currentTimeMillis();
         final V item = convertItem(dbObj);
+        if (cacheWindow > 0 && ++windowCount >= cacheWindow) {
+            cache.flush();
+            windowCount = 0;
+        }
         mapperTime += System.currentTimeMillis() - start;
         return item;
     }
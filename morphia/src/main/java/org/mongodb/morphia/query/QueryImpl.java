@@ -11,7 +11,12 @@ import org.bson.BSONObject;
 import org.bson.Document;
 import org.bson.types.CodeWScope;
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.DatastoreOperation;
 import org.mongodb.morphia.Key;
+import org.mongodb.morphia.PlanProfiler;
+import org.mongodb.morphia.QueryShapeRecorder;
+import org.mongodb.morphia.SlowOperation;
+import org.mongodb.morphia.SlowOperationLog;
 import org.mongodb.morphia.annotations.Entity;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
@@ -73,7 +78,6 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
         this.clazz = clazz;
         this.ds = ((org.mongodb.morphia.DatastoreImpl) ds);
         dbColl = coll;
-        cache = this.ds.getMapper().createEntityCache();
 
         final MappedClass mc = this.ds.getMapper().getMappedClass(clazz);
         final Entity entAn = mc == null ? null : mc.getEntityAnnotation();
@@ -122,15 +126,24 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public List<Key<T>> asKeyList(final FindOptions options) {
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("find");
         final List<Key<T>> results = new ArrayList<Key<T>>();
-        MorphiaKeyIterator<T> keys = fetchKeys(options);
+        final MorphiaKeyIterator<T> keys;
         try {
-            for (final Key<T> key : keys) {
-                results.add(key);
+            keys = iterateKeys(options);
+            try {
+                for (final Key<T> key : keys) {
+                    results.add(key);
+                }
+            } finally {
+                keys.close();
             }
-        } finally {
-            keys.close();
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
+        completed(traced, "find", keys.getCursor().getQuery(), getSortObject(), options, results.size(), System.nanoTime() - start,
+                  keys.getMapperTime());
         return results;
     }
 
@@ -141,19 +154,28 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public List<T> asList(final FindOptions options) {
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("find");
         final List<T> results = new ArrayList<T>();
-        final MorphiaIterator<T, T> iter = fetch(options);
+        final MorphiaIterator<T, T> iter;
         try {
-            for (final T ent : iter) {
-                results.add(ent);
+            iter = iterate(options);
+            try {
+                for (final T ent : iter) {
+                    results.add(ent);
+                }
+            } finally {
+                iter.close();
             }
-        } finally {
-            iter.close();
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
+        completed(traced, "find", iter.getCursor().getQuery(), getSortObject(), options, results.size(), System.nanoTime() - start,
+                  iter.getMapperTime());
 
         if (LOG.isTraceEnabled()) {
             LOG.trace(format("asList: %s \t %d entities, iterator time: driver %d ms, mapper %d ms %n\t cache: %s %n\t for %s",
-                             dbColl.getName(), results.size(), iter.getDriverTime(), iter.getMapperTime(), cache.stats(),
+                             dbColl.getName(), results.size(), iter.getDriverTime(), iter.getMapperTime(), getCache().stats(),
                              getQueryObject()));
         }
 
@@ -167,17 +189,30 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
         if (LOG.isTraceEnabled()) {
             LOG.trace("Executing count(" + dbColl.getName() + ") for query: " + query);
         }
-        return dbColl.getCount(query);
+        return count(query, null);
     }
 
     @Override
     public long count() {
-        return dbColl.getCount(getQueryObject());
+        return count(getQueryObject(), null);
     }
 
     @Override
     public long count(final CountOptions options) {
-        return dbColl.getCount(getQueryObject(), options.getOptions());
+        return count(getQueryObject(), options);
+    }
+
+    private long count(final DBObject query, final CountOptions options) {
+        final long start = System.nanoTime();
+        final DatastoreOperation traced = started("count");
+        final long count;
+        try {
+            count = options == null ? dbColl.getCount(query) : dbColl.getCount(query, options.getOptions());
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        completed(traced, "count", query, null, options, count, System.nanoTime() - start, 0);
+        return count;
     }
 
     @Override
@@ -187,12 +222,30 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public MorphiaIterator<T, T> fetch(final FindOptions options) {
+        final DatastoreOperation traced = started("find");
+        final MorphiaIterator<T, T> iterator;
+        try {
+            iterator = iterate(options);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        completed(traced, "find", iterator.getCursor().getQuery(), getSortObject(), options, SlowOperation.UNKNOWN,
+                  QueryShapeRecorder.UNTIMED, 0);
+        return iterator;
+    }
+
+    private MorphiaIterator<T, T> iterate(final FindOptions options) {
         final DBCursor cursor = prepareCursor(options);
         if (LOG.isTraceEnabled()) {
             LOG.trace("Getting cursor(" + dbColl.getName() + ")  for query:" + cursor.getQuery());
         }
 
-        return new MorphiaIterator<T, T>(ds, cursor, ds.getMapper(), clazz, dbColl.getName(), cache);
+        if (options.getEntityCacheWindow() > 0) {
+            // streaming iterations get their own cache so the query's cache doesn't grow with them
+            return new MorphiaIterator<T, T>(ds, cursor, ds.getMapper(), clazz, dbColl.getName(), ds.getMapper().createEntityCache(),
+                                             options.getEntityCacheWindow());
+        }
+        return new MorphiaIterator<T, T>(ds, cursor, ds.getMapper(), clazz, dbColl.getName(), getCache());
     }
 
     @Override
@@ -215,6 +268,19 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public MorphiaKeyIterator<T> fetchKeys(final FindOptions options) {
+        final DatastoreOperation traced = started("find");
+        final MorphiaKeyIterator<T> iterator;
+        try {
+            iterator = iterateKeys(options);
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        completed(traced, "find", iterator.getCursor().getQuery(), getSortObject(), options, SlowOperation.UNKNOWN,
+                  QueryShapeRecorder.UNTIMED, 0);
+        return iterator;
+    }
+
+    private MorphiaKeyIterator<T> iterateKeys(final FindOptions options) {
         QueryImpl<T> cloned = cloneQuery();
         cloned.getOptions().projection(new BasicDBObject(Mapper.ID_KEY, 1));
         cloned.includeFields = true;
@@ -229,14 +295,26 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public T get(final FindOptions options) {
-        final MorphiaIterator<T, T> it = fetch(options
-                                                   .copy()
-                                                   .limit(1));
+        final long start = System.nanoTime();
+        final FindOptions limited = options
+            .copy()
+            .limit(1);
+        final DatastoreOperation traced = started("find");
+        final MorphiaIterator<T, T> it;
+        final T entity;
         try {
-            return (it.hasNext()) ? it.next() : null;
-        } finally {
-            it.close();
+            it = iterate(limited);
+            try {
+                entity = (it.hasNext()) ? it.next() : null;
+            } finally {
+                it.close();
+            }
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
         }
+        completed(traced, "find", it.getCursor().getQuery(), getSortObject(), limited, entity != null ? 1 : 0, System.nanoTime() - start,
+                  it.getMapperTime());
+        return entity;
     }
 
     @Override
@@ -246,11 +324,22 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
 
     @Override
     public Key<T> getKey(final FindOptions options) {
-        final MorphiaIterator<T, Key<T>> it = fetchKeys(options
-                                                            .copy()
-                                                            .limit(1));
-        Key<T> key = (it.hasNext()) ? it.next() : null;
-        it.close();
+        final long start = System.nanoTime();
+        final FindOptions limited = options
+            .copy()
+            .limit(1);
+        final DatastoreOperation traced = started("find");
+        final MorphiaIterator<T, Key<T>> it;
+        final Key<T> key;
+        try {
+            it = iterateKeys(limited);
+            key = (it.hasNext()) ? it.next() : null;
+            it.close();
+        } catch (RuntimeException e) {
+            throw traced.failed(e);
+        }
+        completed(traced, "find", it.getCursor().getQuery(), getSortObject(), limited, key != null ? 1 : 0, System.nanoTime() - start,
+                  it.getMapperTime());
         return key;
     }
 
@@ -278,7 +367,6 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
     @Override
     public QueryImpl<T> cloneQuery() {
         final QueryImpl<T> n = new QueryImpl<T>(clazz, dbColl, ds);
-        n.cache = ds.getMapper().createEntityCache(); // fresh cache
         n.includeFields = includeFields;
         n.setQuery(n); // feels weird, correct?
         n.validateName = validateName;
@@ -292,6 +380,17 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
         return n;
     }
 
+    /**
+     * The cache is only created once results are actually fetched so queries used purely for counts, updates, or deletes never allocate
+     * one.
+     */
+    private EntityCache getCache() {
+        if (cache == null) {
+            cache = ds.getMapper().createEntityCache();
+        }
+        return cache;
+    }
+
     protected BasicDBObject copy(final DBObject dbObject) {
         return dbObject == null ? null : new BasicDBObject(dbObject.toMap());
     }
@@ -746,6 +845,31 @@ public class QueryImpl<T> extends CriteriaContainerImpl implements Query<T> {
         return prepareCursor(getOptions());
     }
 
+    private DatastoreOperation started(final String operation) {
+        return DatastoreOperation.start(ds.getDatastoreListener(), operation, clazz, dbColl.getName());
+    }
+
+    /**
+     * Hands a find or count to the listener of the datastore, the query shape recorder, the plan profiler and the slow operation log.  The
+     * listener is told first so that the operation it sees doesn't include the explain the profiler may run.
+     */
+    private void completed(final DatastoreOperation traced, final String operation, final DBObject query, final DBObject sort,
+                           final Object options, final long documents, final long nanos, final long mapperMillis) {
+        traced.completed(documents, MILLISECONDS.toNanos(mapperMillis));
+        final QueryShapeRecorder recorder = ds.getQueryShapeRecorder();
+        if (recorder != null) {
+            recorder.record(clazz, dbColl.getName(), operation, query, sort, nanos);
+        }
+        final PlanProfiler profiler = ds.getPlanProfiler();
+        if (profiler != null) {
+            profiler.profile(this, operation, nanos);
+        }
+        final SlowOperationLog log = ds.getSlowOperationLog();
+        if (log != null) {
+            log.completed(clazz, dbColl.getName(), operation, query, sort, options, documents, nanos, MILLISECONDS.toNanos(mapperMillis));
+        }
+    }
+
     private DBCursor prepareCursor(final FindOptions findOptions) {
         final DBObject query = getQueryObject();
 
@@ -1,5 +1,6 @@
 package org.mongodb.morphia.query;
 
+import org.mongodb.morphia.aggregation.Parameter;
 import org.mongodb.morphia.annotations.Serialized;
 import org.mongodb.morphia.logging.Logger;
 import org.mongodb.morphia.logging.MorphiaLoggerFactory;
@@ -147,6 +148,10 @@ final class QueryValidator {
         if (value == null || type == null) {
             return true;
         }
+        // a placeholder of an aggregation template stands for a value which is only known once the template is bound
+        if (value instanceof Parameter) {
+            return true;
+        }
 
         boolean validationApplied = ExistsOperationValidator.getInstance().apply(mappedField, op, value, validationFailures)
                                     || SizeOperationValidator.getInstance().apply(mappedField, op, value, validationFailures)
@@ -0,0 +1,222 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.DuplicateKeyException;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Version;
+import org.mongodb.morphia.dao.BasicDAO;
+import org.mongodb.morphia.query.MorphiaIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.mongodb.morphia.aggregation.Accumulator.accumulator;
+import static org.mongodb.morphia.aggregation.Group.grouping;
+
+public class DatastoreListenerTest extends TestBase {
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    @Override
+    public void setUp() {
+        super.setUp();
+        getAds().setDatastoreListener(listener);
+    }
+
+    @After
+    @Override
+    public void tearDown() {
+        getAds().setDatastoreListener(null);
+        super.tearDown();
+    }
+
+    @Test
+    public void testWrites() {
+        getDs().save(new Book("Iliad", "Homer"));
+        getAds().insert(asList(new Book("The Odyssey", "Homer"), new Book("Inferno", "Dante")));
+        getDs().update(getDs().find(Book.class).field("author").equal("Homer"),
+                       getDs().createUpdateOperations(Book.class).set("author", "Homer of Chios"));
+        getDs().findAndModify(getDs().find(Book.class).field("title").equal("Inferno"),
+                              getDs().createUpdateOperations(Book.class).set("title", "Divine Comedy"));
+        getDs().delete(getDs().find(Book.class));
+
+        Assert.assertEquals(asList("started save", "completed save 1", "started insert", "completed insert 2", "started update",
+                                   "completed update 2", "started findAndModify", "completed findAndModify 1", "started delete",
+                                   "completed delete 3"), listener.events);
+        for (final DatastoreOperation operation : listener.operations) {
+            Assert.assertEquals(Book.class, operation.getType());
+            Assert.assertEquals("books", operation.getCollection());
+            Assert.assertEquals(operation, operation.getAttachment());
+        }
+    }
+
+    @Test
+    public void testTrackedSavesAndVersionedMergesAreReportedOnce() {
+        getMorphia().getMapper().getOptions().setTrackDirtyFields(true);
+        final VersionedBook tracked = new VersionedBook("Iliad", "Homer");
+        getDs().save(tracked);
+        getMorphia().getMapper().getOptions().setTrackDirtyFields(false);
+        final VersionedBook untracked = new VersionedBook("The Odyssey", "Homer");
+        getDs().save(untracked);
+        listener.events.clear();
+
+        tracked.title = "The Iliad";
+        getDs().save(tracked);
+        untracked.title = "Odyssey";
+        getDs().merge(untracked);
+
+        Assert.assertEquals(asList("started save", "completed save 1", "started update", "completed update 1"), listener.events);
+    }
+
+    @Test
+    public void testBulkWrites() {
+        getDs().save(asList(new Book("Iliad", "Homer"), new Book("The Odyssey", "Homer"), new Book("Inferno", "Dante")));
+        listener.events.clear();
+
+        getDs().bulk()
+               .update(getDs().find(Book.class).field("author").equal("Homer"),
+                       getDs().createUpdateOperations(Book.class).set("author", "Homer of Chios"))
+               .delete(getDs().find(Book.class).field("author").equal("Dante"))
+               .execute();
+
+        Assert.assertEquals(asList("started bulkWrite", "completed bulkWrite 3"), listener.events);
+        Assert.assertEquals(Book.class, listener.operations.get(listener.operations.size() - 1).getType());
+    }
+
+    @Test
+    public void testReads() {
+        getDs().save(asList(new Book("Iliad", "Homer"), new Book("The Odyssey", "Homer"), new Book("Inferno", "Dante")));
+        listener.events.clear();
+
+        Assert.assertEquals(2, getDs().find(Book.class).field("author").equal("Homer").asList().size());
+        Assert.assertEquals(3, getDs().getCount(Book.class));
+        Assert.assertNotNull(getDs().find(Book.class).field("author").equal("Dante").get());
+        final MorphiaIterator<Book, Book> iterator = getDs().find(Book.class).fetch();
+        try {
+            Assert.assertTrue(iterator.hasNext());
+        } finally {
+            iterator.close();
+        }
+        getDs().createAggregation(Book.class)
+               .group("author", grouping("count", accumulator("$sum", 1)))
+               .aggregate(AuthorCount.class);
+
+        Assert.assertEquals(asList("started find", "completed find 2", "started count", "completed count 3", "started find",
+                                   "completed find 1", "started find", "completed find -1", "started aggregate",
+                                   "completed aggregate -1"), listener.events);
+    }
+
+    @Test
+    public void testDao() {
+        final BasicDAO<Book, ObjectId> dao = new BasicDAO<Book, ObjectId>(Book.class, getDs());
+        dao.save(new Book("Iliad", "Homer"));
+        Assert.assertEquals(1, dao.count());
+
+        Assert.assertEquals(asList("started save", "completed save 1", "started count", "completed count 1"), listener.events);
+    }
+
+    @Test
+    public void testCompletedBeforeProfiling() {
+        getDs().save(new Book("Iliad", "Homer"));
+        getAds().setPlanProfiler(new PlanProfiler(new PlanListener() {
+            @Override
+            public void planExplained(final PlanSummary summary) {
+                listener.events.add("explained");
+            }
+        }).sampleEvery(1));
+        try {
+            listener.events.clear();
+            getDs().find(Book.class).field("author").equal("Homer").asList();
+            getDs().createAggregation(Book.class)
+                   .group("author", grouping("count", accumulator("$sum", 1)))
+                   .aggregate(AuthorCount.class);
+        } finally {
+            getAds().setPlanProfiler(null);
+        }
+
+        Assert.assertEquals(asList("started find", "completed find 1", "explained", "started aggregate", "completed aggregate -1",
+                                   "explained"), listener.events);
+    }
+
+    @Test
+    public void testFailure() {
+        final Book book = new Book("Iliad", "Homer");
+        getAds().insert(book);
+        try {
+            getAds().insert(book);
+            Assert.fail("The book should have been inserted twice");
+        } catch (DuplicateKeyException e) {
+            Assert.assertEquals(asList("started insert", "completed insert 1", "started insert", "failed insert"), listener.events);
+        }
+    }
+
+    @Entity(value = "books", noClassnameStored = true)
+    private static class Book {
+        @Id
+        private ObjectId id;
+        private String title;
+        private String author;
+
+        Book() {
+        }
+
+        Book(final String title, final String author) {
+            this.title = title;
+            this.author = author;
+        }
+    }
+
+    @Entity(value = "versionedBooks", noClassnameStored = true)
+    private static class VersionedBook {
+        @Id
+        private ObjectId id;
+        @Version
+        private Long version;
+        private String title;
+        private String author;
+
+        VersionedBook() {
+        }
+
+        VersionedBook(final String title, final String author) {
+            this.title = title;
+            this.author = author;
+        }
+    }
+
+    @Entity(noClassnameStored = true)
+    private static class AuthorCount {
+        @Id
+        private String author;
+        private int count;
+    }
+
+    private static class RecordingListener implements DatastoreListener {
+        private final List<String> events = new ArrayList<String>();
+        private final List<DatastoreOperation> operations = new ArrayList<DatastoreOperation>();
+
+        @Override
+        public void started(final DatastoreOperation operation) {
+            operation.setAttachment(operation);
+            operations.add(operation);
+            events.add("started " + operation.getOperation());
+        }
+
+        @Override
+        public void completed(final DatastoreOperation operation) {
+            events.add("completed " + operation.getOperation() + " " + operation.getDocuments());
+        }
+
+        @Override
+        public void failed(final DatastoreOperation operation, final RuntimeException exception) {
+            events.add("failed " + operation.getOperation());
+        }
+    }
+}
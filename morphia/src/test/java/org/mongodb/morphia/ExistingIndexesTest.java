@@ -0,0 +1,74 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Test;
+import org.mongodb.morphia.ExistingIndexes.Match;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class ExistingIndexesTest {
+    private static final BsonDocument ID_INDEX = BsonDocument.parse("{v: 2, key: {_id: 1}, name: '_id_', ns: 'db.coll'}");
+
+    @Test
+    public void testMissing() {
+        assertEquals(Match.MISSING, existing().match(new IndexModel(new Document("a", 1))));
+    }
+
+    @Test
+    public void testIdenticalIgnoresNumberWidthAndBuildOptions() {
+        final ExistingIndexes existing = existing(BsonDocument.parse("{v: 2, key: {a: 1.0, b: -1}, name: 'a_1_b_-1', "
+                                                                         + "expireAfterSeconds: 60}"));
+        final IndexModel model = new IndexModel(new Document("a", 1).append("b", -1), new IndexOptions()
+            .background(true)
+            .expireAfter(1L, TimeUnit.MINUTES));
+        assertEquals(Match.IDENTICAL, existing.match(model));
+    }
+
+    @Test
+    public void testChangedOptionsConflict() {
+        final ExistingIndexes existing = existing(BsonDocument.parse("{v: 2, key: {a: 1}, name: 'a_1'}"));
+        assertEquals(Match.CONFLICT, existing.match(new IndexModel(new Document("a", 1), new IndexOptions().unique(true))));
+        assertEquals(Match.CONFLICT, existing.match(new IndexModel(new Document("a", 1), new IndexOptions().name("renamed"))));
+        assertEquals(Match.CONFLICT, existing.match(new IndexModel(new Document("b", 1), new IndexOptions().name("a_1"))));
+    }
+
+    @Test
+    public void testTextIndexes() {
+        final ExistingIndexes existing = existing(BsonDocument.parse("{v: 2, key: {_fts: 'text', _ftsx: 1}, name: 'title_text', "
+                                                                         + "weights: {title: 1}, default_language: 'english', "
+                                                                         + "language_override: 'language', textIndexVersion: 3}"));
+        assertEquals(Match.IDENTICAL, existing.match(new IndexModel(new Document("title", "text"))));
+        assertEquals(Match.CONFLICT, existing.match(new IndexModel(new Document("title", "text"), new IndexOptions()
+            .weights(new Document("title", 10)))));
+    }
+
+    @Test
+    public void testCreatedIndexesAreRemembered() {
+        final ExistingIndexes existing = existing();
+        final IndexModel model = new IndexModel(new Document("a", 1), new IndexOptions().sparse(true));
+        existing.add(model);
+        assertEquals(Match.IDENTICAL, existing.match(model));
+        assertEquals(Match.IDENTICAL, existing.match(new IndexModel(new Document("_id", 1))));
+    }
+
+    @Test
+    public void testDefaultName() {
+        assertEquals("a_1_b_-1_c_text", ExistingIndexes.defaultName(BsonDocument.parse("{a: 1, b: -1, c: 'text'}")));
+    }
+
+    private ExistingIndexes existing(final BsonDocument... indexes) {
+        final List<BsonDocument> list = new ArrayList<BsonDocument>(asList(indexes));
+        list.add(0, ID_INDEX);
+        return new ExistingIndexes(list, MongoClient.getDefaultCodecRegistry());
+    }
+}
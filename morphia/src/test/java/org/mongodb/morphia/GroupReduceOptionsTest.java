@@ -0,0 +1,108 @@
+package org.mongodb.morphia;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MapReduceCommand.OutputType;
+import com.mongodb.MongoClient;
+import com.mongodb.client.model.Collation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mongodb.morphia.aggregation.AggregationPipelineImpl;
+import org.mongodb.morphia.aggregation.AggregationTest.Book;
+import org.mongodb.morphia.query.QueryException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mongodb.morphia.aggregation.Accumulator.accumulator;
+import static org.mongodb.morphia.aggregation.Group.grouping;
+import static org.mongodb.morphia.aggregation.Group.id;
+import static org.mongodb.morphia.aggregation.Group.sum;
+
+public class GroupReduceOptionsTest {
+    private MongoClient client;
+    private DatastoreImpl datastore;
+
+    @Before
+    public void setUp() {
+        client = new MongoClient();
+        datastore = (DatastoreImpl) new Morphia().createDatastore(client, "morphia_test");
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void testScalarValue() {
+        final List<DBObject> stages = stages(new GroupReduceOptions<Book>()
+                                                 .query(datastore.find(Book.class).field("copies").greaterThan(1).order("-title"))
+                                                 .groupBy("author")
+                                                 .value(accumulator("$sum", 1))
+                                                 .limit(10)
+                                                 .outputType(OutputType.INLINE)
+                                                 .resultType(Book.class));
+
+        assertEquals(asList((DBObject) new BasicDBObject("$match", new BasicDBObject("copies", new BasicDBObject("$gt", 1))),
+                            new BasicDBObject("$sort", new BasicDBObject("title", -1)),
+                            new BasicDBObject("$limit", 10),
+                            new BasicDBObject("$group", new BasicDBObject("_id", "$author")
+                                .append("value", new BasicDBObject("$sum", 1)))),
+                     stages);
+    }
+
+    @Test
+    public void testDocumentValue() {
+        final List<DBObject> stages = stages(new GroupReduceOptions<Book>()
+                                                 .query(datastore.find(Book.class))
+                                                 .groupBy(id(grouping("author"), grouping("title")))
+                                                 .values(grouping("count", accumulator("$sum", 1)), grouping("copies", sum("copies")))
+                                                 .outputType(OutputType.REPLACE)
+                                                 .resultType(Book.class));
+
+        assertEquals(2, stages.size());
+        assertEquals(new BasicDBObject("count", "$count").append("copies", "$copies"),
+                     ((DBObject) stages.get(1).get("$project")).get("value"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testAggregationOptions() {
+        final com.mongodb.AggregationOptions options = new GroupReduceOptions<Book>()
+            .allowDiskUse(true)
+            .bypassDocumentValidation(true)
+            .collation(Collation.builder().locale("en").build())
+            .maxTimeMS(42000)
+            .toAggregationOptions();
+
+        assertEquals(com.mongodb.AggregationOptions.OutputMode.CURSOR, options.getOutputMode());
+        assertTrue(options.getAllowDiskUse());
+        assertTrue(options.getBypassDocumentValidation());
+        assertEquals(Collation.builder().locale("en").build(), options.getCollation());
+        assertEquals(42, options.getMaxTime(TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeIsUnsupported() {
+        new GroupReduceOptions<Book>().outputType(OutputType.MERGE);
+    }
+
+    @Test(expected = QueryException.class)
+    public void testOffsetIsRejected() {
+        stages(new GroupReduceOptions<Book>()
+                   .query(datastore.find(Book.class).offset(1))
+                   .groupBy("author")
+                   .value(accumulator("$sum", 1))
+                   .outputType(OutputType.INLINE)
+                   .resultType(Book.class));
+    }
+
+    private List<DBObject> stages(final GroupReduceOptions<Book> options) {
+        return ((AggregationPipelineImpl) options.toPipeline(datastore)).getStages();
+    }
+}
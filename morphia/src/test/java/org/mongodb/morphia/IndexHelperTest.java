@@ -106,6 +106,27 @@ public class IndexHelperTest extends TestBase {
                      keys);
     }
 
+    @Test
+    public void syncIndexes() {
+        checkMinServerVersion(3.4);
+        List<MappedClass> classes = singletonList(getMorphia().getMapper().getMappedClass(IndexedClass.class));
+
+        IndexReport first = indexHelper.syncIndexes(classes, new IndexSyncOptions());
+        assertFalse(first.toString(), first.hasProblems());
+        assertFalse(first.getCreated().isEmpty());
+
+        IndexReport second = indexHelper.syncIndexes(classes, new IndexSyncOptions());
+        assertTrue(second.getCreated().isEmpty());
+        assertEquals(first.getResults().size(), second.getSkipped().size());
+
+        MongoCollection<Document> collection = getDatabase().getCollection(getDs().getCollection(IndexedClass.class).getName());
+        collection.dropIndex("latitude_1");
+        collection.createIndex(new Document("latitude", 1), new com.mongodb.client.model.IndexOptions().unique(true));
+        IndexReport third = indexHelper.syncIndexes(classes, new IndexSyncOptions());
+        assertEquals(1, third.getConflicts().size());
+        assertEquals("latitude_1", third.getConflicts().get(0).getName());
+    }
+
     @Test
     public void createIndex() {
         checkMinServerVersion(3.4);
@@ -0,0 +1,140 @@
+package org.mongodb.morphia;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.util.JSON;
+import org.junit.Test;
+import org.mongodb.morphia.PlanSummary.Trigger;
+import org.mongodb.morphia.aggregation.AggregationPipeline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlanSummaryTest {
+    @Test
+    public void testIndexedFind() {
+        final PlanSummary summary = parse("{queryPlanner: {namespace: 'morphia_test.books', winningPlan: {stage: 'FETCH', inputStage: "
+                                          + "{stage: 'IXSCAN', indexName: 'author_1', keyPattern: {author: 1}}}}, "
+                                          + "executionStats: {nReturned: 3, executionTimeMillis: 2, totalKeysExamined: 3, "
+                                          + "totalDocsExamined: 3}}");
+
+        assertEquals("morphia_test.books", summary.getNamespace());
+        assertEquals("FETCH <- IXSCAN(author_1)", summary.getRoot().toString());
+        assertEquals("author_1", summary.getRoot().getChildren().get(0).getIndexName());
+        assertEquals(3, summary.getKeysExamined());
+        assertEquals(3, summary.getDocsExamined());
+        assertEquals(3, summary.getReturned());
+        assertEquals(2, summary.getExecutionMillis());
+        assertFalse(summary.isCollectionScan());
+        assertFalse(summary.isSortInMemory());
+    }
+
+    @Test
+    public void testSortedCollectionScan() {
+        final PlanSummary summary = parse("{queryPlanner: {namespace: 'morphia_test.books', winningPlan: {stage: 'SORT', inputStage: "
+                                          + "{stage: 'SORT_KEY_GENERATOR', inputStage: {stage: 'COLLSCAN'}}}}}");
+
+        assertTrue(summary.isCollectionScan());
+        assertTrue(summary.isSortInMemory());
+        assertEquals(-1, summary.getDocsExamined());
+    }
+
+    @Test
+    public void testShardedFind() {
+        final PlanSummary summary = parse("{queryPlanner: {winningPlan: {stage: 'SHARD_MERGE', shards: ["
+                                          + "{shardName: 'a', winningPlan: {stage: 'IXSCAN', indexName: 'author_1'}}, "
+                                          + "{shardName: 'b', winningPlan: {stage: 'COLLSCAN'}}]}}}");
+
+        assertEquals("SHARD_MERGE <- [IXSCAN(author_1), COLLSCAN]", summary.getRoot().toString());
+        assertTrue(summary.isCollectionScan());
+    }
+
+    @Test
+    public void testAggregation() {
+        final PlanSummary summary = parse("{stages: [{$cursor: {query: {}, queryPlanner: {namespace: 'morphia_test.books', "
+                                          + "winningPlan: {stage: 'COLLSCAN'}}}}, {$group: {_id: '$author'}}, {$sort: {sortKey: "
+                                          + "{_id: 1}}}], ok: 1}");
+
+        assertEquals("morphia_test.books", summary.getNamespace());
+        assertTrue(summary.isCollectionScan());
+        assertTrue(summary.isSortInMemory());
+        assertEquals(-1, summary.getReturned());
+    }
+
+    @Test
+    public void testLegacyCursor() {
+        final PlanSummary summary = parse("{cursor: 'BtreeCursor author_1', n: 2, nscanned: 4, nscannedObjects: 4, millis: 7, "
+                                          + "scanAndOrder: true, ns: 'morphia_test.books'}");
+
+        assertEquals("IXSCAN(author_1)", summary.getRoot().toString());
+        assertEquals(4, summary.getKeysExamined());
+        assertEquals(2, summary.getReturned());
+        assertTrue(summary.isSortInMemory());
+        assertFalse(summary.isCollectionScan());
+    }
+
+    @Test
+    public void testProfilerTriggers() {
+        final List<PlanSummary> plans = new ArrayList<PlanSummary>();
+        final PlanProfiler profiler = new PlanProfiler(new PlanListener() {
+            @Override
+            public void planExplained(final PlanSummary summary) {
+                plans.add(summary);
+            }
+        });
+        final AggregationPipeline pipeline = pipeline("{stages: [{$cursor: {queryPlanner: {winningPlan: {stage: 'COLLSCAN'}}}}]}");
+
+        profiler.profile(pipeline, TimeUnit.SECONDS.toNanos(10));
+        assertTrue(plans.isEmpty());
+
+        profiler.slowerThan(1, TimeUnit.SECONDS).sampleEvery(2);
+        profiler.profile(pipeline, TimeUnit.SECONDS.toNanos(10));
+        profiler.profile(pipeline, 10);
+        profiler.profile(pipeline, QueryShapeRecorder.UNTIMED);
+        assertEquals(2, plans.size());
+        assertEquals(Trigger.SLOW, plans.get(0).getTrigger());
+        assertEquals(Trigger.SAMPLED, plans.get(1).getTrigger());
+        assertEquals(QueryShapeRecorder.UNTIMED, plans.get(1).getNanos());
+
+        assertEquals(Trigger.REQUESTED, profiler.explain(pipeline).getTrigger());
+        assertEquals(3, plans.size());
+    }
+
+    @Test
+    public void testProfilerFailures() {
+        final PlanProfiler profiler = new PlanProfiler(new PlanListener() {
+            @Override
+            public void planExplained(final PlanSummary summary) {
+            }
+        }).sampleEvery(1);
+
+        profiler.profile(pipeline("{ok: 1}"), 10);
+        assertEquals(1, profiler.getFailures());
+    }
+
+    private static PlanSummary parse(final String explain) {
+        return PlanSummary.parse((Map<?, ?>) JSON.parse(explain), "find", Trigger.REQUESTED, QueryShapeRecorder.UNTIMED);
+    }
+
+    private static AggregationPipeline pipeline(final String explain) {
+        final InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                if (method.getName().equals("explain")) {
+                    return ((BasicDBObject) JSON.parse(explain)).toMap();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        };
+        return (AggregationPipeline) Proxy.newProxyInstance(AggregationPipeline.class.getClassLoader(),
+                                                            new Class<?>[]{AggregationPipeline.class}, handler);
+    }
+}
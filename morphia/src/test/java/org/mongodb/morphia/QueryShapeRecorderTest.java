@@ -0,0 +1,149 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.junit.Test;
+import org.mongodb.morphia.QueryShapeReport.IndexUse;
+import org.mongodb.morphia.QueryShapeReport.QueryShape;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Field;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Index;
+import org.mongodb.morphia.annotations.Indexes;
+import org.mongodb.morphia.annotations.Text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueryShapeRecorderTest {
+    private static final List<List<String>> INDEXES = QueryShapeRecorder.indexFields(asList(BsonDocument.parse("{a: 1, b: -1}"),
+                                                                                            BsonDocument.parse("{title: 'text'}")));
+
+    @Test
+    public void testShapeStripsValuesAndOrdersFields() {
+        final DBObject first = new BasicDBObject("name", "Bob").append("age", new BasicDBObject("$gt", 21));
+        final DBObject second = new BasicDBObject("age", new BasicDBObject("$gt", 65)).append("name", "Alice");
+
+        assertEquals("{age: {$gt: ?}, name: ?}", QueryShapeRecorder.shape(first));
+        assertEquals(QueryShapeRecorder.shape(first), QueryShapeRecorder.shape(second));
+    }
+
+    @Test
+    public void testShapeOfOperatorMaps() {
+        final Map<String, Object> range = new HashMap<String, Object>();
+        range.put("$gte", 1);
+        range.put("$lt", 10);
+
+        assertEquals("{age: {$gte: ?, $lt: ?}}", QueryShapeRecorder.shape(new BasicDBObject("age", range)));
+        assertEquals(IndexUse.UNINDEXED, indexUse(new BasicDBObject("c", range)));
+    }
+
+    @Test
+    public void testShapeKeepsLogicalOperators() {
+        final BasicDBList clauses = new BasicDBList();
+        clauses.add(new BasicDBObject("a", 1));
+        clauses.add(new BasicDBObject("b", new BasicDBObject("$in", asList(1, 2))));
+        final DBObject query = new BasicDBObject("$or", clauses)
+            .append("embedded", new BasicDBObject("x", 1))
+            .append("$isolated", true);
+
+        assertEquals("{$or: [{a: ?}, {b: {$in: ?}}], embedded: ?}", QueryShapeRecorder.shape(query));
+    }
+
+    @Test
+    public void testIndexUse() {
+        assertEquals(IndexUse.INDEXED, indexUse(new BasicDBObject("a", 1).append("c", 2)));
+        assertEquals(IndexUse.INDEXED, indexUse(new BasicDBObject("_id", 1)));
+        assertEquals(IndexUse.INDEXED, indexUse(new BasicDBObject("$text", new BasicDBObject("$search", "mongo"))));
+        assertEquals(IndexUse.POORLY_PREFIXED, indexUse(new BasicDBObject("b", 1)));
+        assertEquals(IndexUse.UNINDEXED, indexUse(new BasicDBObject("c", 1)));
+        assertEquals(IndexUse.UNFILTERED, indexUse(new BasicDBObject()));
+    }
+
+    @Test
+    public void testEveryOrBranchNeedsAnIndex() {
+        final BasicDBList clauses = new BasicDBList();
+        clauses.add(new BasicDBObject("a", 1));
+        clauses.add(new BasicDBObject("c", 1));
+
+        assertEquals(IndexUse.UNINDEXED, indexUse(new BasicDBObject("$or", clauses)));
+        assertEquals(IndexUse.INDEXED, indexUse(new BasicDBObject("$or", clauses).append("a", 1)));
+    }
+
+    @Test
+    public void testSortOnlyQueries() {
+        final List<Set<String>> all = QueryShapeRecorder.branches(new BasicDBObject());
+
+        assertEquals(IndexUse.INDEXED, QueryShapeRecorder.indexUse(all, asList("a"), INDEXES));
+        assertEquals(IndexUse.UNINDEXED, QueryShapeRecorder.indexUse(all, asList("c"), INDEXES));
+    }
+
+    @Test
+    public void testReport() {
+        final MongoClient client = new MongoClient();
+        try {
+            final AdvancedDatastore datastore = (AdvancedDatastore) new Morphia().createDatastore(client, "morphia_test");
+            final QueryShapeRecorder recorder = new QueryShapeRecorder();
+            datastore.setQueryShapeRecorder(recorder);
+
+            recorder.record(Book.class, "books", "find", new BasicDBObject("author", "Tolkien"), null, 100);
+            recorder.record(Book.class, "books", "find", new BasicDBObject("author", "Pratchett"), null, 300);
+            recorder.record(Book.class, "books", "find", new BasicDBObject("year", 1954), null, QueryShapeRecorder.UNTIMED);
+            recorder.record(Book.class, "books", "count", new BasicDBObject("pages", 300), null, 50);
+
+            final QueryShapeReport report = datastore.getQueryShapeRecorder().report();
+            assertEquals(3, report.getShapes().size());
+            assertTrue(report.hasProblems());
+
+            final QueryShape author = report.getShapes().get(0);
+            assertEquals("{author: ?}", author.getFilter());
+            assertEquals(IndexUse.INDEXED, author.getIndexUse());
+            assertEquals(2, author.getExecutions());
+            assertEquals(200, author.getMeanTime(NANOSECONDS));
+            assertEquals(300, author.getMaxTime(NANOSECONDS));
+
+            assertEquals(Collections.singletonList("{pages: ?}"), filters(report.getUnindexed()));
+            assertEquals(Collections.singletonList("{year: ?}"), filters(report.getPoorlyPrefixed()));
+            assertEquals(0, report.getPoorlyPrefixed().get(0).getTimedExecutions());
+        } finally {
+            client.close();
+        }
+    }
+
+    private static IndexUse indexUse(final DBObject query) {
+        return QueryShapeRecorder.indexUse(QueryShapeRecorder.branches(query), Collections.<String>emptyList(), INDEXES);
+    }
+
+    private static List<String> filters(final List<QueryShape> shapes) {
+        final List<String> filters = new ArrayList<String>();
+        for (final QueryShape shape : shapes) {
+            filters.add(shape.getFilter());
+        }
+        return filters;
+    }
+
+    @Entity("books")
+    @Indexes(@Index(fields = {@Field("author"), @Field("year")}))
+    public static class Book {
+        @Id
+        private String id;
+        private String author;
+        private int year;
+        private int pages;
+        @Text
+        private String title;
+    }
+}
@@ -0,0 +1,117 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MapReduceCommand.OutputType;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.query.FindOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SlowOperationLogTest {
+    private static final long SLOW = MILLISECONDS.toNanos(150);
+
+    @Test
+    public void testOnlySlowOperationsAreLogged() {
+        final RecordingLog log = new RecordingLog();
+
+        log.completed(Book.class, "books", "find", new BasicDBObject("author", "Tolkien"), null, null, 1, MILLISECONDS.toNanos(50), 0);
+        log.completed(Book.class, "books", "find", new BasicDBObject("author", "Tolkien"), null, null, 1, QueryShapeRecorder.UNTIMED, 0);
+        assertEquals(0, log.getLogged());
+
+        log.completed(Book.class, "books", "count", new BasicDBObject("author", "Tolkien"), null, null, 12, SLOW, 0);
+        assertEquals(1, log.getLogged());
+        assertEquals(100, log.getThreshold(MILLISECONDS));
+    }
+
+    @Test
+    public void testFind() {
+        final RecordingLog log = new RecordingLog();
+        final DBObject query = new BasicDBObject("author", "Tolkien").append("pages", new BasicDBObject("$gt", 300));
+        log.completed(Book.class, "books", "find", query, new BasicDBObject("year", -1), new FindOptions().limit(20).batchSize(5), 20,
+                      SLOW, MILLISECONDS.toNanos(40));
+
+        final SlowOperation operation = log.operations.get(0);
+        assertEquals(Book.class, operation.getType());
+        assertEquals("books", operation.getCollection());
+        assertEquals("find", operation.getOperation());
+        assertEquals("{author: ?, pages: {$gt: ?}}", operation.getShape());
+        assertEquals("sort { \"year\" : -1} limit 20 batchSize 5", operation.getOptions());
+        assertEquals(20, operation.getDocuments());
+        assertEquals(150, operation.getTime(MILLISECONDS));
+        assertEquals(110, operation.getDriverTime(MILLISECONDS));
+        assertEquals(40, operation.getMapperTime(MILLISECONDS));
+        assertEquals("Slow find on books (Book) took 150 ms (driver 110 ms, mapper 40 ms), 20 documents: {author: ?, pages: {$gt: ?}} "
+                     + "sort { \"year\" : -1} limit 20 batchSize 5", operation.toString());
+    }
+
+    @Test
+    public void testUpdateAndMapReduceOptions() {
+        final RecordingLog log = new RecordingLog();
+        log.completed(Book.class, "books", "update", new BasicDBObject("author", "Tolkien"), null, new UpdateOptions().multi(true),
+                      SlowOperation.UNKNOWN, SLOW, 0);
+        log.completed(Book.class, "books", "findAndModify", new BasicDBObject("_id", 1), null, new FindAndModifyOptions().returnNew(true),
+                      1, SLOW, 0);
+        log.completed(Book.class, "books", "mapReduce", null, null, OutputType.INLINE, 3, SLOW, 0);
+
+        assertEquals("multi true upsert false", log.operations.get(0).getOptions());
+        assertTrue(log.operations.get(0).toString().endsWith("mapper 0 ms): {author: ?} multi true upsert false"));
+        assertEquals("remove false upsert false returnNew true", log.operations.get(1).getOptions());
+        assertEquals("{}", log.operations.get(2).getShape());
+        assertEquals("output INLINE", log.operations.get(2).getOptions());
+    }
+
+    @Test
+    public void testAggregationStages() {
+        final RecordingLog log = new RecordingLog();
+        final List<DBObject> stages = asList((DBObject) new BasicDBObject("$match", new BasicDBObject("author", "Tolkien")),
+                                             new BasicDBObject("$group", new BasicDBObject("_id", "$year")
+                                                 .append("count", new BasicDBObject("$sum", 1))));
+        log.completed(null, "books", "aggregate", stages, null, AggregationOptions.builder().allowDiskUse(true).build(),
+                      SlowOperation.UNKNOWN, SLOW, 0);
+
+        final SlowOperation operation = log.operations.get(0);
+        assertNull(operation.getType());
+        assertEquals("[{$match: {author: ?}}, {$group: {_id: ?, count: {$sum: ?}}}]", operation.getShape());
+        assertEquals("allowDiskUse", operation.getOptions());
+        assertEquals("Slow aggregate on books took 150 ms (driver 150 ms, mapper 0 ms): [{$match: {author: ?}}, {$group: {_id: ?, "
+                     + "count: {$sum: ?}}}] allowDiskUse", operation.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        new SlowOperationLog(-1, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingLog extends SlowOperationLog {
+        private final List<SlowOperation> operations = new ArrayList<SlowOperation>();
+
+        RecordingLog() {
+            super(100, MILLISECONDS);
+        }
+
+        @Override
+        protected void log(final SlowOperation operation) {
+            operations.add(operation);
+        }
+    }
+
+    @Entity("books")
+    private static class Book {
+        @Id
+        private int id;
+        private String author;
+    }
+}
@@ -0,0 +1,89 @@
+package org.mongodb.morphia;
+
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.entities.version.Versioned;
+import org.mongodb.morphia.query.QueryException;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestBulkOperations extends TestBase {
+
+    @Test
+    public void testUpdatesAndDeletes() {
+        final Counter first = new Counter("first");
+        final Counter second = new Counter("second");
+        final Counter third = new Counter("third");
+        getDs().save(asList(first, second, third));
+
+        final BulkResults results = getDs().bulk()
+                                           .update(getDs().find(Counter.class).filter("name", "first"),
+                                                   getDs().createUpdateOperations(Counter.class).inc("count", 5))
+                                           .update(getDs().find(Counter.class).filter("name in", asList("first", "second")),
+                                                   getDs().createUpdateOperations(Counter.class).inc("count"))
+                                           .update(getDs().find(Counter.class).filter("name", "fourth"),
+                                                   getDs().createUpdateOperations(Counter.class).set("count", 1),
+                                                   new UpdateOptions().upsert(true))
+                                           .delete(getDs().find(Counter.class).filter("name", "third"))
+                                           .execute();
+
+        assertEquals(3, results.getMatchedCount());
+        assertEquals(1, results.getDeletedCount());
+        assertEquals(1, results.getUpsertedCount());
+        assertNull(results.getUpsertedId(0));
+        assertNotNull(results.getUpsertedId(2));
+
+        assertEquals(6, getDs().get(Counter.class, first.id).count);
+        assertEquals(1, getDs().get(Counter.class, second.id).count);
+        assertNull(getDs().get(Counter.class, third.id));
+        assertEquals(1, getDs().find(Counter.class).filter("name", "fourth").get().count);
+    }
+
+    @Test
+    public void testVersionsAreIncremented() {
+        final Versioned versioned = new Versioned();
+        getDs().save(versioned);
+
+        getDs().bulk()
+               .update(getDs().find(Versioned.class).filter("_id", versioned.getId()),
+                       getDs().createUpdateOperations(Versioned.class).set("name", "updated"))
+               .execute();
+
+        final Versioned updated = getDs().get(Versioned.class, versioned.getId());
+        assertEquals("updated", updated.getName());
+        assertEquals(new Long(2), updated.getVersion());
+    }
+
+    @Test
+    public void testEmptyBulk() {
+        final BulkResults results = getDs().bulk().execute();
+        assertEquals(0, results.getMatchedCount());
+        assertEquals(0, results.getDeletedCount());
+    }
+
+    @Test(expected = QueryException.class)
+    public void testLimitsAreRejected() {
+        getDs().bulk().delete(getDs().find(Counter.class).limit(1));
+    }
+
+    @Entity("counters")
+    public static class Counter {
+        @Id
+        private ObjectId id;
+        private String name;
+        private int count;
+
+        public Counter() {
+        }
+
+        Counter(final String name) {
+            this.name = name;
+        }
+    }
+}
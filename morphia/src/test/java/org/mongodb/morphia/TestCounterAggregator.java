@@ -0,0 +1,152 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteException;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestCounterAggregator extends TestBase {
+
+    @Test
+    public void testIncrementsAreCoalesced() throws InterruptedException {
+        final Page page = new Page();
+        getDs().save(page);
+
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions()
+            .flushInterval(1, TimeUnit.HOURS));
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(new Incrementer(counters, page.id));
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, getDs().get(Page.class, page.id).views);
+
+        counters.flush();
+        final Page flushed = getDs().get(Page.class, page.id);
+        assertEquals(4000, flushed.views);
+        assertEquals(-4000, flushed.likes);
+
+        counters.close();
+    }
+
+    @Test
+    public void testCloseFlushes() {
+        final Page page = new Page();
+        getDs().save(page);
+
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions()
+            .flushInterval(1, TimeUnit.HOURS));
+        counters.inc(Page.class, page.id, "views", 5);
+        counters.close();
+
+        assertEquals(5, getDs().get(Page.class, page.id).views);
+    }
+
+    @Test
+    public void testThresholdTriggersFlush() throws InterruptedException {
+        final List<Page> pages = new ArrayList<Page>();
+        for (int i = 0; i < 10; i++) {
+            pages.add(new Page());
+        }
+        getDs().save(pages);
+
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions()
+            .flushInterval(1, TimeUnit.HOURS)
+            .maxPendingCounters(10));
+        for (final Page page : pages) {
+            counters.inc(Page.class, page.id, "views");
+        }
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (getDs().get(Page.class, pages.get(9).id).views == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        for (final Page page : pages) {
+            assertEquals(1, getDs().get(Page.class, page.id).views);
+        }
+        counters.close();
+    }
+
+    @Test
+    public void testUpsert() {
+        final ObjectId id = new ObjectId();
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions()
+            .upsert(true));
+        counters.inc(Page.class, id, "views");
+        counters.close();
+
+        assertEquals(1, getDs().get(Page.class, id).views);
+    }
+
+    @Test
+    public void testFailedFlushDoesNotRepeatAppliedIncrements() {
+        final Page page = new Page();
+        getDs().save(page);
+        final ObjectId broken = new ObjectId();
+        getDs().getCollection(Page.class).insert(new BasicDBObject("_id", broken).append("views", "many"));
+
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions()
+            .flushInterval(1, TimeUnit.HOURS));
+        counters.inc(Page.class, page.id, "views");
+        counters.inc(Page.class, broken, "views");
+        try {
+            counters.flush();
+            fail("Incrementing a string should have failed the flush");
+        } catch (BulkWriteException e) {
+            assertEquals(1, e.getWriteErrors().size());
+        }
+        counters.close();
+
+        assertEquals(1, getDs().get(Page.class, page.id).views);
+        assertEquals("many", getDs().getCollection(Page.class).findOne(broken).get("views"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        final CounterAggregator counters = new CounterAggregator(getDs(), new CounterOptions());
+        counters.close();
+        assertTrue(counters.getPendingCount() == 0);
+        counters.inc(Page.class, new ObjectId(), "views");
+    }
+
+    private static class Incrementer implements Runnable {
+        private final CounterAggregator counters;
+        private final ObjectId id;
+
+        Incrementer(final CounterAggregator counters, final ObjectId id) {
+            this.counters = counters;
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < 1000; i++) {
+                counters.inc(Page.class, id, "views");
+                counters.inc(Page.class, id, "likes", -1);
+            }
+        }
+    }
+
+    @Entity("pages")
+    public static class Page {
+        @Id
+        private ObjectId id;
+        private int views;
+        private int likes;
+    }
+}
@@ -87,6 +87,28 @@ public class TestDatastore extends TestBase {
 
     }
 
+    @Test
+    public void saveIterableWithBulkWrites() {
+        getMorphia().setUseBulkWriteOperations(true);
+        getDs().save(new FacebookUser(2, "user 2"));
+
+        final List<Object> entities = new ArrayList<Object>();
+        entities.add(new FacebookUser(1, "user 1"));
+        entities.add(new Rectangle(1, 2));
+        entities.add(new FacebookUser(2, "user 2 updated"));
+        entities.add(new Rectangle(3, 4));
+        Iterable<Key<Object>> keys = getDs().save(entities, new InsertOptions());
+
+        int index = 0;
+        for (final Key<Object> key : keys) {
+            assertEquals(getMorphia().getMapper().getId(entities.get(index++)), key.getId());
+        }
+        assertEquals(4, index);
+        assertEquals(2, getDs().getCount(FacebookUser.class));
+        assertEquals(2, getDs().getCount(Rectangle.class));
+        assertEquals("user 2 updated", getDs().get(FacebookUser.class, 2L).username);
+    }
+
     @Test
     public void shouldSaveGenericTypeVariables() throws Exception {
         // given
@@ -0,0 +1,151 @@
+package org.mongodb.morphia;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.entities.version.Versioned;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestDirtyTracking extends TestBase {
+
+    @Before
+    @Override
+    public void setUp() {
+        super.setUp();
+        getMorphia().getMapper().getOptions().setTrackDirtyFields(true);
+    }
+
+    @Test
+    public void testSaveOnlyWritesChangedFields() {
+        final Article article = new Article();
+        article.title = "first";
+        article.summary = "summary";
+        article.tags.addAll(asList("a", "b"));
+        getDs().save(article);
+
+        final Article loaded = getDs().get(Article.class, article.id);
+        assertNotNull(getMorphia().getMapper().getSnapshot(loaded));
+
+        // a field changed behind the entity's back survives because the save doesn't replace the document
+        getDs().getCollection(Article.class).update(new BasicDBObject("_id", article.id),
+                                                    new BasicDBObject("$set", new BasicDBObject("views", 10)));
+
+        loaded.title = "second";
+        loaded.summary = null;
+        loaded.tags.add("c");
+        getDs().save(loaded);
+
+        final DBObject stored = getDs().getCollection(Article.class).findOne(new BasicDBObject("_id", article.id));
+        assertEquals("second", stored.get("title"));
+        assertFalse(stored.containsField("summary"));
+        assertEquals(asList("a", "b", "c"), stored.get("tags"));
+        assertEquals(10, stored.get("views"));
+    }
+
+    @Test
+    public void testMergeOnlyWritesChangedFields() {
+        final Article article = new Article();
+        article.title = "first";
+        article.summary = "summary";
+        getDs().save(article);
+
+        final Article loaded = getDs().get(Article.class, article.id);
+        loaded.summary = null;
+        loaded.title = "merged";
+        getDs().merge(loaded);
+
+        final Article stored = getDs().get(Article.class, article.id);
+        assertEquals("merged", stored.title);
+        assertEquals("summary", stored.summary);
+    }
+
+    @Test
+    public void testSaveAfterMergeUnsetsRemovedFields() {
+        final Article article = new Article();
+        article.title = "first";
+        article.summary = "summary";
+        getDs().save(article);
+
+        final Article loaded = getDs().get(Article.class, article.id);
+        loaded.summary = null;
+        getDs().merge(loaded);
+        assertEquals("summary", getMorphia().getMapper().getSnapshot(loaded).get("summary"));
+
+        getDs().save(loaded);
+        final DBObject stored = getDs().getCollection(Article.class).findOne(new BasicDBObject("_id", article.id));
+        assertFalse(stored.containsField("summary"));
+    }
+
+    @Test
+    public void testUntrackedMergeForgetsTheSnapshot() {
+        final Article article = new Article();
+        article.title = "first";
+        article.summary = "summary";
+        getDs().save(article);
+
+        final Article detached = new Article();
+        detached.id = article.id;
+        detached.title = "merged";
+        getDs().merge(detached);
+        assertNull(getMorphia().getMapper().getSnapshot(detached));
+
+        getDs().save(detached);
+        assertNull(getDs().get(Article.class, article.id).summary);
+    }
+
+    @Test
+    public void testVersionsAreChecked() {
+        final Versioned versioned = new Versioned();
+        versioned.setName("first");
+        getDs().save(versioned);
+
+        final Versioned loaded = getDs().get(Versioned.class, versioned.getId());
+        final Versioned stale = getDs().get(Versioned.class, versioned.getId());
+        loaded.setName("second");
+        getDs().save(loaded);
+        assertEquals(new Long(2), loaded.getVersion());
+        assertEquals(new Long(2), getDs().get(Versioned.class, versioned.getId()).getVersion());
+
+        stale.setName("stale");
+        try {
+            getDs().save(stale);
+        } catch (ConcurrentModificationException e) {
+            assertEquals("second", getDs().get(Versioned.class, versioned.getId()).getName());
+            return;
+        }
+        throw new AssertionError("Saving a stale version should fail");
+    }
+
+    @Test
+    public void testUntrackedEntitiesAreReplaced() {
+        getMorphia().getMapper().getOptions().setTrackDirtyFields(false);
+        final Article article = new Article();
+        article.title = "first";
+        getDs().save(article);
+
+        assertNull(getMorphia().getMapper().getSnapshot(getDs().get(Article.class, article.id)));
+    }
+
+    @Entity("articles")
+    public static class Article {
+        @Id
+        private ObjectId id;
+        private String title;
+        private String summary;
+        private List<String> tags = new ArrayList<String>();
+    }
+}
@@ -0,0 +1,99 @@
+package org.mongodb.morphia;
+
+
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Sequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestIdGenerator extends TestBase {
+
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        final IdGenerator generator = new IdGenerator(getAds());
+        final Set<Long> ids = Collections.synchronizedSet(new HashSet<Long>());
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(new Generate(generator, ids));
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, ids.size());
+        assertTrue(Collections.min(ids) >= 1);
+    }
+
+    @Test
+    public void testGeneratorsShareSequences() {
+        final IdGenerator first = new IdGenerator(getAds());
+        final IdGenerator second = new IdGenerator(getAds());
+        assertEquals(1, first.next("shared", 10));
+        assertEquals(11, second.next("shared", 10));
+        assertEquals(2, first.next("shared", 10));
+    }
+
+    @Test
+    public void testIdsAreAssignedOnSaveAndInsert() {
+        final Ticket saved = new Ticket();
+        getDs().save(saved);
+        final Ticket inserted = new Ticket();
+        getAds().insert(inserted);
+        final Ticket preset = new Ticket();
+        preset.id = 1000L;
+        getDs().save(asList(new Ticket(), preset));
+
+        assertEquals(Long.valueOf(1), saved.id);
+        assertEquals(Long.valueOf(2), inserted.id);
+        assertEquals(Long.valueOf(1000), preset.id);
+        assertEquals(4, getDs().getCount(Ticket.class));
+
+        final Seat seat = new Seat();
+        getDs().save(seat);
+        assertEquals(1, seat.id);
+        assertNotNull(getDs().get(Seat.class, 1));
+    }
+
+    private static class Generate implements Runnable {
+        private final IdGenerator generator;
+        private final Set<Long> ids;
+
+        Generate(final IdGenerator generator, final Set<Long> ids) {
+            this.generator = generator;
+            this.ids = ids;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < 1000; i++) {
+                ids.add(generator.next("threads", 7));
+            }
+        }
+    }
+
+    @Entity("tickets")
+    public static class Ticket {
+        @Id
+        @Sequence
+        private Long id;
+    }
+
+    @Entity("seats")
+    public static class Seat {
+        @Id
+        @Sequence(value = "seat_numbers", blockSize = 5)
+        private int id;
+    }
+}
@@ -31,6 +31,9 @@ import java.util.Iterator;
 import java.util.Random;
 
 import static java.util.Arrays.asList;
+import static org.mongodb.morphia.aggregation.Accumulator.accumulator;
+import static org.mongodb.morphia.aggregation.Group.grouping;
+import static org.mongodb.morphia.aggregation.Group.sum;
 import static org.junit.Assert.fail;
 
 
@@ -111,6 +114,38 @@ public class TestMapreduce extends TestBase {
         Assert.assertEquals(100, inline.iterator().next().getValue().count, 0);
     }
 
+    @Test
+    public void testGroupReduce() {
+        getDs().save(asList(new Book("The Banquet", "Dante", 2),
+                            new Book("Divine Comedy", "Dante", 1),
+                            new Book("Eclogues", "Dante", 2),
+                            new Book("The Odyssey", "Homer", 10),
+                            new Book("Iliad", "Homer", 10)));
+
+        final GroupReduceOptions<CountResult> options = new GroupReduceOptions<CountResult>()
+            .query(getDs().find(Book.class).order("author"))
+            .groupBy("author")
+            .value(accumulator("$sum", 1))
+            .outputType(OutputType.INLINE)
+            .resultType(CountResult.class);
+        final MapreduceResults<CountResult> inline = getDs().mapReduce(options);
+        Assert.assertEquals(2, count(inline.iterator()));
+        Assert.assertEquals(2, count(inline.iterator()));
+
+        final MapreduceResults<CountResult> replaced = getDs().mapReduce(options.outputType(OutputType.REPLACE));
+        Assert.assertEquals(3, replaced.createQuery().field("_id").equal("Dante").get().getCount());
+        Assert.assertEquals(-1, replaced.getCounts().getInputCount());
+
+        final MapreduceResults<ResultEntity> documents =
+            getDs().mapReduce(new GroupReduceOptions<ResultEntity>()
+                                  .query(getDs().find(Book.class))
+                                  .groupBy("author")
+                                  .values(grouping("count", sum("copies")))
+                                  .outputType(OutputType.REPLACE)
+                                  .resultType(ResultEntity.class));
+        Assert.assertEquals(20, documents.createQuery().field("_id").equal("Homer").get().getValue().count, 0);
+    }
+
     @Test
     public void testCollation() {
         checkMinServerVersion(3.4);
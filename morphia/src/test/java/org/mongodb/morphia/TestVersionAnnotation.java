@@ -13,6 +13,7 @@
 
 package org.mongodb.morphia;
 
+import com.mongodb.DuplicateKeyException;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mongodb.morphia.entities.version.AbstractVersionedBase;
@@ -26,11 +27,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -211,6 +215,136 @@ public class TestVersionAnnotation extends TestBase {
         assertEquals(version1Updated.getName(), versionedEntityFromDs.getName());
     }
 
+    @Test
+    public void testBulkSave() {
+        getMorphia().setUseBulkWriteOperations(true);
+        final Versioned saved = new Versioned();
+        getDs().save(saved);
+
+        final List<Versioned> list = asList(getDs().get(Versioned.class, saved.getId()), new Versioned());
+        getDs().save(list);
+        assertEquals(new Long(2), list.get(0).getVersion());
+        assertEquals(new Long(1), list.get(1).getVersion());
+        assertEquals(2, getDs().getCount(Versioned.class));
+
+        try {
+            getDs().save(asList(saved));
+            fail("Saving an old version should fail");
+        } catch (ConcurrentModificationException ignored) {
+            assertEquals(new Long(1), saved.getVersion());
+        }
+    }
+
+    @Test
+    public void testBulkSaveConflictStillSavesTheOthers() {
+        getMorphia().setUseBulkWriteOperations(true);
+        final Versioned stale = new Versioned();
+        getDs().save(stale);
+        getDs().save(getDs().get(Versioned.class, stale.getId()));
+
+        final Versioned added = new Versioned();
+        try {
+            getDs().save(asList(stale, added));
+            fail("Saving an old version should fail");
+        } catch (ConcurrentModificationException e) {
+            assertTrue(e.getMessage().contains(stale.getId().toString()));
+            assertEquals(new Long(1), stale.getVersion());
+            assertNotNull(added.getId());
+            assertEquals(new Long(1), added.getVersion());
+            assertEquals(2, getDs().getCount(Versioned.class));
+        }
+    }
+
+    @Test
+    public void testBulkSaveOfTheSameInstanceTwice() {
+        getMorphia().setUseBulkWriteOperations(true);
+        final Versioned entity = new Versioned();
+        final List<Key<Versioned>> keys = new ArrayList<Key<Versioned>>();
+        for (final Key<Versioned> key : getDs().save(asList(entity, entity))) {
+            keys.add(key);
+        }
+
+        assertEquals(2, keys.size());
+        assertEquals(keys.get(0), keys.get(1));
+        assertEquals(new Long(1), entity.getVersion());
+        assertEquals(1, getDs().getCount(Versioned.class));
+    }
+
+    @Test
+    public void testSaveVersionedReportsConflicts() {
+        final Versioned stale = new Versioned();
+        final Versioned fresh = new Versioned();
+        getDs().save(asList(stale, fresh));
+        getDs().save(getDs().get(Versioned.class, stale.getId()));
+
+        final Versioned added = new Versioned();
+        final VersionedSaveResults<Versioned> results = getDs().saveVersioned(asList(stale, fresh, added), new InsertOptions());
+
+        assertTrue(results.hasConflicts());
+        assertEquals(asList(stale), results.getConflicts());
+        assertEquals(2, results.getSavedKeys().size());
+        assertEquals(fresh.getId(), results.getSavedKeys().get(0).getId());
+        assertEquals(added.getId(), results.getSavedKeys().get(1).getId());
+        assertEquals(new Long(1), stale.getVersion());
+        assertEquals(new Long(2), fresh.getVersion());
+        assertEquals(new Long(1), added.getVersion());
+        assertEquals(new Long(2), getDs().get(Versioned.class, stale.getId()).getVersion());
+    }
+
+    @Test
+    public void testSaveVersionedWritesPastEveryConflict() {
+        final List<Versioned> entities = asList(new Versioned(), new Versioned(), new Versioned(), new Versioned());
+        getDs().save(entities);
+        getDs().save(getDs().get(Versioned.class, entities.get(0).getId()));
+        getDs().save(getDs().get(Versioned.class, entities.get(2).getId()));
+
+        final VersionedSaveResults<Versioned> results = getDs().saveVersioned(entities, new InsertOptions());
+
+        assertEquals(asList(entities.get(0), entities.get(2)), results.getConflicts());
+        assertEquals(2, results.getSavedKeys().size());
+        assertEquals(entities.get(1).getId(), results.getSavedKeys().get(0).getId());
+        assertEquals(entities.get(3).getId(), results.getSavedKeys().get(1).getId());
+        assertEquals(new Long(2), getDs().get(Versioned.class, entities.get(3).getId()).getVersion());
+    }
+
+    @Test
+    public void testSaveVersionedDetectsWritesFromTheSameVersion() {
+        final Versioned original = new Versioned();
+        getDs().save(original);
+        final Versioned first = getDs().get(Versioned.class, original.getId());
+        final Versioned second = getDs().get(Versioned.class, original.getId());
+        first.setName("first");
+        second.setName("second");
+        getDs().save(first);
+
+        // both copies move from version 1 to 2 so only the outcome of the replacement itself tells them apart
+        final VersionedSaveResults<Versioned> results = getDs().saveVersioned(asList(second), new InsertOptions());
+        assertEquals(asList(second), results.getConflicts());
+        assertTrue(results.getSavedKeys().isEmpty());
+        assertEquals("first", getDs().get(Versioned.class, original.getId()).getName());
+    }
+
+    @Test
+    public void testFailedChunkedInsertStillUpdatesTheInsertedEntities() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Versioned first = new Versioned();
+            final Versioned second = new Versioned();
+            final Versioned third = new Versioned();
+            try {
+                // the second chunk inserts the first entity again
+                getAds().insert(asList(first, second, third, first), new InsertOptions().encodingExecutor(executor).encodingChunkSize(2));
+                fail("Inserting an entity twice should fail");
+            } catch (DuplicateKeyException e) {
+                assertEquals(new Long(1), first.getVersion());
+                assertEquals(new Long(1), second.getVersion());
+                assertNull(third.getVersion());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testVersionNumbersIncrementWithEachSave() throws Exception {
         final Versioned version1 = new Versioned();
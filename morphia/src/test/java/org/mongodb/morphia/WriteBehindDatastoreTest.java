@@ -0,0 +1,212 @@
+package org.mongodb.morphia;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindDatastoreTest {
+
+    @Test
+    public void testBatchesAreWrittenOnFlush() throws Exception {
+        final List<List<Object>> batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        final WriteBehindDatastore buffer = new WriteBehindDatastore(datastore(batches, null), new WriteBehindOptions()
+            .flushInterval(1, TimeUnit.HOURS));
+
+        final Future<Key<Event>> first = buffer.save(new Event(1));
+        final Future<Key<Event>> second = buffer.insert(new Event(2));
+        final Future<Key<Event>> third = buffer.save(new Event(3));
+        Assert.assertFalse(first.isDone());
+
+        buffer.flush();
+        Assert.assertEquals(1, first.get().getId());
+        Assert.assertEquals(2, second.get().getId());
+        Assert.assertEquals(3, third.get().getId());
+        Assert.assertEquals(3, batches.size());
+        Assert.assertEquals(1, ((Event) batches.get(0).get(0)).id);
+        Assert.assertEquals(2, ((Event) batches.get(1).get(0)).id);
+        Assert.assertEquals(3, ((Event) batches.get(2).get(0)).id);
+        buffer.close();
+    }
+
+    @Test
+    public void testConsecutiveWritesOfOneKindAreBatched() throws Exception {
+        final List<List<Object>> batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        final WriteBehindDatastore buffer = new WriteBehindDatastore(datastore(batches, null), new WriteBehindOptions()
+            .flushInterval(1, TimeUnit.HOURS));
+
+        final Event event = new Event(1);
+        buffer.insert(event);
+        buffer.insert(new Event(2));
+        buffer.save(event);
+        buffer.save(new Event(3));
+        buffer.flush();
+
+        Assert.assertEquals(2, batches.size());
+        Assert.assertEquals(2, batches.get(0).size());
+        Assert.assertEquals(2, batches.get(1).size());
+        buffer.close();
+    }
+
+    @Test
+    public void testSubMillisecondFlushIntervalIsKept() {
+        Assert.assertEquals(500, new WriteBehindOptions().flushInterval(500, TimeUnit.MICROSECONDS)
+                                                         .getFlushInterval(TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void testErrorInTheWriterFailsPendingWrites() throws Exception {
+        final Error failure = new WriterError();
+        final List<Throwable> thrown = Collections.synchronizedList(new ArrayList<Throwable>());
+        final AdvancedDatastore failing = (AdvancedDatastore) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[]{AdvancedDatastore.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                    thrown.add(failure);
+                    throw failure;
+                }
+            });
+
+        // the error ends the writer thread, so collect it here rather than have it printed by the default handler
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<Throwable>());
+        final UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread t, final Throwable e) {
+                uncaught.add(e);
+                stopped.countDown();
+            }
+        });
+        try {
+            final WriteBehindDatastore buffer = new WriteBehindDatastore(failing, new WriteBehindOptions()
+                .flushInterval(1, TimeUnit.HOURS));
+
+            final Future<Key<Event>> saved = buffer.save(new Event(1));
+            try {
+                buffer.flush();
+                Assert.fail("The flush should have failed");
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(saved.isDone());
+            }
+            try {
+                saved.get();
+                Assert.fail("The save should have failed");
+            } catch (ExecutionException e) {
+                Assert.assertSame(failure, e.getCause().getCause());
+            }
+            try {
+                buffer.save(new Event(2));
+                Assert.fail("Writes should be rejected once the writer has stopped");
+            } catch (IllegalStateException e) {
+                buffer.close();
+            }
+
+            Assert.assertTrue(stopped.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(Collections.singletonList(failure), thrown);
+            Assert.assertEquals(Collections.singletonList(failure), uncaught);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+    }
+
+    @Test
+    public void testBatchSizeTriggersWrite() throws Exception {
+        final List<List<Object>> batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        final WriteBehindDatastore buffer = new WriteBehindDatastore(datastore(batches, null), new WriteBehindOptions()
+            .batchSize(2)
+            .flushInterval(1, TimeUnit.HOURS));
+
+        buffer.save(new Event(1));
+        final Future<Key<Event>> second = buffer.save(new Event(2));
+        Assert.assertEquals(2, second.get(10, TimeUnit.SECONDS).getId());
+        Assert.assertEquals(1, batches.size());
+        buffer.close();
+    }
+
+    @Test
+    public void testConflictsFailTheirFutures() throws Exception {
+        final Event stale = new Event(1);
+        final WriteBehindDatastore buffer = new WriteBehindDatastore(datastore(new ArrayList<List<Object>>(), stale),
+                                                                     new WriteBehindOptions());
+        final Future<Key<Event>> conflict = buffer.save(stale);
+        final Future<Key<Event>> saved = buffer.save(new Event(2));
+        buffer.close();
+
+        Assert.assertEquals(2, saved.get().getId());
+        try {
+            conflict.get();
+            Assert.fail("The stale entity should not have been saved");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ConcurrentModificationException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWritesAfterCloseAreRejected() {
+        final WriteBehindDatastore buffer = new WriteBehindDatastore(datastore(new ArrayList<List<Object>>(), null),
+                                                                     new WriteBehindOptions());
+        buffer.close();
+        buffer.save(new Event(1));
+    }
+
+    private AdvancedDatastore datastore(final List<List<Object>> batches, final Object conflict) {
+        return (AdvancedDatastore) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{AdvancedDatastore.class},
+                                                          new RecordingHandler(batches, conflict));
+    }
+
+    private static class RecordingHandler implements InvocationHandler {
+        private final List<List<Object>> batches;
+        private final Object conflict;
+
+        RecordingHandler(final List<List<Object>> batches, final Object conflict) {
+            this.batches = batches;
+            this.conflict = conflict;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final List<Object> batch = new ArrayList<Object>((List<Object>) args[0]);
+            batches.add(batch);
+            final List<Key<Object>> keys = new ArrayList<Key<Object>>();
+            final List<Object> conflicts = new ArrayList<Object>();
+            for (final Object entity : batch) {
+                if (entity == conflict) {
+                    conflicts.add(entity);
+                } else {
+                    keys.add(new Key<Object>(Event.class, "events", ((Event) entity).id));
+                }
+            }
+            if (method.getName().equals("saveVersioned")) {
+                return new VersionedSaveResults<Object>(keys, conflicts);
+            } else if (method.getName().equals("insert")) {
+                return keys;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private static class WriterError extends Error {
+    }
+
+    private static class Event {
+        private final int id;
+
+        Event(final int id) {
+            this.id = id;
+        }
+    }
+}
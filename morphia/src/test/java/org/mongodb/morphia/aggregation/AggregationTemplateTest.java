@@ -0,0 +1,138 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mongodb.morphia.aggregation.Group.grouping;
+import static org.mongodb.morphia.aggregation.Group.sum;
+
+public class AggregationTemplateTest {
+    private MongoClient client;
+    private Datastore datastore;
+
+    @Before
+    public void setUp() {
+        client = new MongoClient();
+        datastore = new Morphia().createDatastore(client, "morphia_test");
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void testTypedParametersAreNotValidated() {
+        final List<LogRecord> warnings = new ArrayList<LogRecord>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                warnings.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger validator = Logger.getLogger("org.mongodb.morphia.query.QueryValidator");
+        validator.addHandler(handler);
+        try {
+            datastore.createAggregation(Sale.class)
+                     .match(datastore.find(Sale.class).field("placed").greaterThanOrEq(Parameter.named("since")))
+                     .compile();
+        } finally {
+            validator.removeHandler(handler);
+        }
+        assertEquals(Collections.<LogRecord>emptyList(), warnings);
+    }
+
+    @Test
+    public void testBind() {
+        final AggregationTemplate template = datastore.createAggregation(Sale.class)
+                                                      .match(datastore.find(Sale.class)
+                                                                      .field("placed").greaterThanOrEq(Parameter.named("since")))
+                                                      .group("region", grouping("total", sum("amount")))
+                                                      .limit(Parameter.named("top"))
+                                                      .compile();
+        assertEquals(asList("since", "top"), asList(template.getParameterNames().toArray()));
+
+        final Date since = new Date(1000);
+        final List<DBObject> first = template.bind(values(since, 10));
+        final List<DBObject> second = template.bind(values(new Date(2000), 5));
+
+        assertEquals(new BasicDBObject("$match", new BasicDBObject("placed", new BasicDBObject("$gte", since))), first.get(0));
+        assertEquals(new BasicDBObject("$limit", 10), first.get(2));
+        assertEquals(new BasicDBObject("$limit", 5), second.get(2));
+        assertSame(first.get(1), second.get(1));
+    }
+
+    @Test
+    public void testLaterStagesDoNotChangeTheTemplate() {
+        final AggregationPipeline pipeline = datastore.createAggregation(Sale.class)
+                                                      .limit(Parameter.named("top"));
+        final AggregationTemplate template = pipeline.compile();
+        pipeline.skip(5);
+
+        assertEquals(1, template.bind(Collections.singletonMap("top", 3)).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingValue() {
+        datastore.createAggregation(Sale.class)
+                 .skip(Parameter.named("skip"))
+                 .limit(Parameter.named("top"))
+                 .compile()
+                 .bind(Collections.singletonMap("top", 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownValue() {
+        datastore.createAggregation(Sale.class)
+                 .limit(1)
+                 .compile()
+                 .bind(Collections.singletonMap("top", 3));
+    }
+
+    private static Map<String, Object> values(final Date since, final int top) {
+        final Map<String, Object> values = new HashMap<String, Object>();
+        values.put("since", since);
+        values.put("top", top);
+        return values;
+    }
+
+    @Entity("sales")
+    public static class Sale {
+        @Id
+        private ObjectId id;
+        private String region;
+        private Date placed;
+        private double amount;
+    }
+}
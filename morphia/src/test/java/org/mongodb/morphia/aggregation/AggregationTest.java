@@ -30,6 +30,11 @@ import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mongodb.morphia.PlanListener;
+import org.mongodb.morphia.PlanProfiler;
+import org.mongodb.morphia.PlanSummary;
+import org.mongodb.morphia.SlowOperation;
+import org.mongodb.morphia.SlowOperationLog;
 import org.mongodb.morphia.TestBase;
 import org.mongodb.morphia.annotations.AlsoLoad;
 import org.mongodb.morphia.annotations.Embedded;
@@ -43,10 +48,15 @@ import org.mongodb.morphia.query.Query;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.mongodb.AggregationOptions.builder;
 import static java.lang.String.format;
@@ -416,6 +426,111 @@ public class AggregationTest extends TestBase {
         Assert.assertEquals(2, book.copies.intValue());
     }
 
+    @Test
+    public void testExplain() {
+        getDs().save(asList(new Book("The Banquet", "Dante", 2),
+                            new Book("Iliad", "Homer", 10)));
+
+        final List<PlanSummary> plans = new ArrayList<PlanSummary>();
+        final PlanProfiler profiler = new PlanProfiler(new PlanListener() {
+            @Override
+            public void planExplained(final PlanSummary summary) {
+                plans.add(summary);
+            }
+        }).sampleEvery(1);
+        getAds().setPlanProfiler(profiler);
+        try {
+            getDs().createAggregation(Book.class)
+                   .group("author", grouping("count", accumulator("$sum", 1)))
+                   .sort(ascending("_id"))
+                   .aggregate(CountResult.class);
+        } finally {
+            getAds().setPlanProfiler(null);
+        }
+
+        Assert.assertEquals(1, plans.size());
+        Assert.assertTrue(plans.get(0).isCollectionScan());
+        Assert.assertTrue(plans.get(0).isSortInMemory());
+        Assert.assertEquals(0, profiler.getFailures());
+    }
+
+    @Test
+    public void testStream() {
+        getDs().save(asList(new Book("The Banquet", "Dante", 2),
+                            new Book("Divine Comedy", "Dante", 1),
+                            new Book("Eclogues", "Dante", 2),
+                            new Book("The Odyssey", "Homer", 10),
+                            new Book("Iliad", "Homer", 10)));
+
+        final AggregationStream<CountResult> stream = getDs().createAggregation(Book.class)
+                                                             .group("author", grouping("count", accumulator("$sum", 1)))
+                                                             .sort(ascending("_id"))
+                                                             .stream(CountResult.class, builder()
+                                                                 .outputMode(AggregationOptions.OutputMode.INLINE)
+                                                                 .allowDiskUse(true)
+                                                                 .batchSize(1)
+                                                                 .build());
+        try {
+            final List<String> authors = new ArrayList<String>();
+            for (final CountResult result : stream) {
+                authors.add(result.getAuthor() + ":" + result.getCount());
+            }
+            Assert.assertEquals(asList("Dante:3", "Homer:2"), authors);
+            Assert.assertFalse(stream.hasNext());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testTemplate() {
+        getDs().save(asList(new Book("The Banquet", "Dante", 2),
+                            new Book("Divine Comedy", "Dante", 1),
+                            new Book("Eclogues", "Dante", 2),
+                            new Book("The Odyssey", "Homer", 10),
+                            new Book("Iliad", "Homer", 10)));
+
+        final AggregationTemplate template = getDs().createAggregation(Book.class)
+                                                    .match(getDs().find(Book.class).field("author").equal(Parameter.named("author")))
+                                                    .sort(ascending("title"))
+                                                    .skip(Parameter.named("skip"))
+                                                    .compile();
+
+        final Map<String, Object> values = new HashMap<String, Object>();
+        values.put("author", "Dante");
+        values.put("skip", 1);
+        Assert.assertEquals("Eclogues", template.aggregate(Book.class, values).next().title);
+
+        values.put("author", "Homer");
+        values.put("skip", 0);
+        Assert.assertEquals("Iliad", template.aggregate(Book.class, values).next().title);
+    }
+
+    @Test
+    public void testTemplateRunsAreLogged() {
+        getDs().save(new Book("The Banquet", "Dante", 2));
+        final List<SlowOperation> logged = new ArrayList<SlowOperation>();
+        getAds().setSlowOperationLog(new SlowOperationLog(0, TimeUnit.MILLISECONDS) {
+            @Override
+            protected void log(final SlowOperation operation) {
+                logged.add(operation);
+            }
+        });
+        try {
+            final AggregationTemplate template = getDs().createAggregation(Book.class)
+                                                        .match(getDs().find(Book.class).field("author").equal(Parameter.named("author")))
+                                                        .compile();
+
+            template.aggregate(Book.class, Collections.<String, Object>singletonMap("author", "Dante")).next();
+
+            Assert.assertEquals(1, logged.size());
+            Assert.assertEquals("aggregate", logged.get(0).getOperation());
+            Assert.assertEquals(getDs().getCollection(Book.class).getName(), logged.get(0).getCollection());
+        } finally {
+            getAds().setSlowOperationLog(null);
+        }
+    }
+
     @Test
     public void testUnwind() throws ParseException {
         SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
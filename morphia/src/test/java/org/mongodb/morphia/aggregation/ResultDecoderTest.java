@@ -0,0 +1,99 @@
+package org.mongodb.morphia.aggregation;
+
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.AlsoLoad;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.PostLoad;
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ResultDecoderTest {
+    @Test
+    public void testOutputOfGroup() {
+        final List<DBObject> stages = asList((DBObject) new BasicDBObject("$group", new BasicDBObject("_id", "$author")
+                                                 .append("count", new BasicDBObject("$sum", 1))),
+                                             new BasicDBObject("$sort", new BasicDBObject("count", -1)),
+                                             new BasicDBObject("$limit", 5));
+
+        assertEquals(new LinkedHashSet<String>(asList("_id", "count")), ResultDecoder.outputFields(stages));
+    }
+
+    @Test
+    public void testOutputOfProjection() {
+        final List<DBObject> included = Collections.<DBObject>singletonList(
+            new BasicDBObject("$project", new BasicDBObject("_id", 0).append("total", 1).append("author.name", 1)));
+        final List<DBObject> excluded = Collections.<DBObject>singletonList(new BasicDBObject("$project", new BasicDBObject("tags", 0)));
+        final List<DBObject> unwound = asList((DBObject) new BasicDBObject("$project", new BasicDBObject("tags", 1)),
+                                              new BasicDBObject("$unwind", "$tags"),
+                                              new BasicDBObject("$lookup", new BasicDBObject("from", "tags")));
+
+        assertEquals(new LinkedHashSet<String>(asList("total", "author")), ResultDecoder.outputFields(included));
+        assertNull(ResultDecoder.outputFields(excluded));
+        assertNull(ResultDecoder.outputFields(unwound));
+    }
+
+    @Test
+    public void testDecode() {
+        final ResultDecoder<Total> decoder = new ResultDecoder<Total>(null, new Mapper(), Total.class, null);
+        final Total total = decoder.decode(new BasicDBObject("_id", "Dante").append("value", 3).append("ignored", true), null);
+
+        assertFalse(decoder.needsCache());
+        assertEquals("Dante", total.author);
+        assertEquals(3, total.count);
+        assertFalse(total.loaded);
+    }
+
+    @Test
+    public void testDecodeEmbedded() {
+        final BasicDBList titles = new BasicDBList();
+        titles.add("Inferno");
+        final Mapper mapper = new Mapper();
+        final ResultDecoder<Summary> decoder = new ResultDecoder<Summary>(null, mapper, Summary.class, null);
+        final Summary summary = decoder.decode(new BasicDBObject("_id", "Dante")
+                                                   .append("titles", titles)
+                                                   .append("stats", new BasicDBObject("copies", 4)),
+                                               mapper.createEntityCache());
+
+        assertEquals(asList("Inferno"), summary.titles);
+        assertEquals(4, summary.stats.copies);
+    }
+
+    private static class Total {
+        @Id
+        private String author;
+        @AlsoLoad("value")
+        private int count;
+        private transient boolean loaded;
+
+        @PostLoad
+        void loaded() {
+            loaded = true;
+        }
+    }
+
+    private static class Summary {
+        @Id
+        private String author;
+        private List<String> titles;
+        @Embedded
+        private Stats stats;
+    }
+
+    @Embedded
+    private static class Stats {
+        private int copies;
+    }
+}
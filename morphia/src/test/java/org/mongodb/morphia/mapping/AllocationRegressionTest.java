@@ -0,0 +1,354 @@
+package org.mongodb.morphia.mapping;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBDecoder;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.MongoClient;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Reference;
+import org.mongodb.morphia.logging.Logger;
+import org.mongodb.morphia.logging.MorphiaLoggerFactory;
+import org.mongodb.morphia.testutil.AllocationMeter;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.lang.String.format;
+
+/**
+ * Guards the bytes allocated per call of the mapping paths against the baselines in {@code allocation-baselines.properties}.  A path
+ * fails when it allocates more than its baseline by both the relative threshold and a few objects' worth of bytes, which absorbs the noise
+ * of the allocation counters.  Allocation depends on the JVM so the baselines are only checked on the Java version they were recorded with,
+ * and escape analysis removes a varying share of the allocations once a path is compiled so the test only runs with it disabled.  The
+ * {@code allocationTest} task runs it that way:
+ * <pre>
+ * ./gradlew :morphia:allocationTest
+ * </pre>
+ * The threshold can be changed with {@code -Dmorphia.allocation.threshold=0.25}.  After an intended change, record new baselines with
+ * {@code -Dmorphia.allocation.record=src/test/resources/allocation-baselines.properties} and check the file in.
+ */
+public class AllocationRegressionTest {
+    private static final Logger LOG = MorphiaLoggerFactory.get(AllocationRegressionTest.class);
+    private static final String BASELINES = "/allocation-baselines.properties";
+    private static final String VERSION = "java.specification.version";
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("morphia.allocation.threshold", "0.25"));
+    private static final long SLACK = 64;
+    private static final Map<String, Long> MEASURED = new TreeMap<String, Long>();
+
+    private final AllocationMeter meter = new AllocationMeter(10000, 2000);
+    private final Map<String, Object> corpus = new LinkedHashMap<String, Object>();
+    private MongoClient client;
+    private Datastore datastore;
+    private Mapper mapper;
+    private Properties baselines;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue("The JVM does not count allocated bytes", meter.isSupported());
+        Assume.assumeTrue("Escape analysis has to be disabled with -XX:-DoEscapeAnalysis",
+                          ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:-DoEscapeAnalysis"));
+        baselines = new Properties();
+        final InputStream stream = getClass().getResourceAsStream(BASELINES);
+        try {
+            baselines.load(stream);
+        } finally {
+            stream.close();
+        }
+
+        client = new MongoClient();
+        final Morphia morphia = new Morphia().map(Flat.class, Nested.class, Values.class, Drawing.class, Library.class);
+        datastore = morphia.createDatastore(client, "morphia_test");
+        mapper = morphia.getMapper();
+
+        corpus.put("flat", Flat.create(1));
+        corpus.put("embedded", Nested.create());
+        corpus.put("collections", Values.create());
+        corpus.put("polymorphic", Drawing.create());
+        corpus.put("references", Library.create());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        final String record = System.getProperty("morphia.allocation.record");
+        if (record != null && !MEASURED.isEmpty()) {
+            // written by hand rather than with Properties.store so the keys stay sorted and the file diffs cleanly
+            final PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(record), "ISO-8859-1"));
+            try {
+                out.println("# Bytes allocated per call, recorded by AllocationRegressionTest");
+                out.println(VERSION + "=" + System.getProperty(VERSION));
+                for (final Map.Entry<String, Long> entry : MEASURED.entrySet()) {
+                    out.println(entry.getKey() + "=" + entry.getValue());
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    @Test
+    public void toDBObject() {
+        final Map<String, Long> measured = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<String, Object> entry : corpus.entrySet()) {
+            final Object entity = entry.getValue();
+            measured.put("toDBObject." + entry.getKey(), meter.bytesPerCall(new Runnable() {
+                @Override
+                public void run() {
+                    mapper.toDBObject(entity);
+                }
+            }));
+        }
+        check(measured);
+    }
+
+    @Test
+    public void fromDBObject() {
+        final Map<String, Long> measured = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<String, Object> entry : corpus.entrySet()) {
+            // decode what the driver would return from a query rather than the lists and documents the mapper encoded
+            final DBObject document = new DefaultDBDecoder().decode(new DefaultDBEncoder().encode(mapper.toDBObject(entry.getValue())),
+                                                                    (DBCollection) null);
+            final Class<?> type = entry.getValue().getClass();
+            measured.put("fromDBObject." + entry.getKey(), meter.bytesPerCall(new Runnable() {
+                @Override
+                public void run() {
+                    mapper.fromDBObject(datastore, type, document, mapper.createEntityCache());
+                }
+            }));
+        }
+        check(measured);
+    }
+
+    /**
+     * Criteria are validated and their values converted when the query is built, so each call builds the query as well as rendering it.
+     */
+    @Test
+    public void getQueryObject() {
+        final Map<String, Long> measured = new LinkedHashMap<String, Long>();
+        final Date since = new Date();
+        measured.put("getQueryObject.flat", meter.bytesPerCall(new Runnable() {
+            @Override
+            public void run() {
+                datastore.find(Flat.class)
+                         .field("name").equal("flat")
+                         .field("count").greaterThan(5)
+                         .field("created").lessThan(since)
+                         .getQueryObject();
+            }
+        }));
+        measured.put("getQueryObject.embedded", meter.bytesPerCall(new Runnable() {
+            @Override
+            public void run() {
+                datastore.find(Nested.class).field("address.city").equal("Auckland").getQueryObject();
+            }
+        }));
+        final List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5);
+        measured.put("getQueryObject.in", meter.bytesPerCall(new Runnable() {
+            @Override
+            public void run() {
+                datastore.find(Values.class).field("numbers").in(numbers).getQueryObject();
+            }
+        }));
+        final Flat author = (Flat) corpus.get("flat");
+        measured.put("getQueryObject.references", meter.bytesPerCall(new Runnable() {
+            @Override
+            public void run() {
+                datastore.find(Library.class).field("owner").equal(author).getQueryObject();
+            }
+        }));
+        check(measured);
+    }
+
+    private void check(final Map<String, Long> measured) {
+        MEASURED.putAll(measured);
+        if (System.getProperty("morphia.allocation.record") != null) {
+            return;
+        }
+        Assume.assumeTrue(format("The baselines were recorded on Java %s", baselines.getProperty(VERSION)),
+                          System.getProperty(VERSION).equals(baselines.getProperty(VERSION)));
+
+        final List<String> regressions = new ArrayList<String>();
+        for (final Map.Entry<String, Long> entry : measured.entrySet()) {
+            final String baseline = baselines.getProperty(entry.getKey());
+            if (baseline == null) {
+                regressions.add(format("%s allocates %d bytes per call but has no baseline", entry.getKey(), entry.getValue()));
+                continue;
+            }
+            final long expected = Long.parseLong(baseline);
+            final long bytes = entry.getValue();
+            if (bytes > expected * (1 + THRESHOLD) && bytes > expected + SLACK) {
+                regressions.add(format("%s allocates %d bytes per call, up from %d", entry.getKey(), bytes, expected));
+            } else if (bytes < expected * (1 - THRESHOLD) && bytes < expected - SLACK) {
+                LOG.info(format("%s allocates %d bytes per call, down from %d. Consider recording new baselines.", entry.getKey(), bytes,
+                                expected));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            Assert.fail(format("Allocation regressed by more than %.0f%%:%n%s", THRESHOLD * 100, regressions));
+        }
+    }
+
+    @Entity(value = "allocation_flat", noClassnameStored = true)
+    static class Flat {
+        @Id
+        private ObjectId id;
+        private String name;
+        private int count;
+        private long total;
+        private double ratio;
+        private boolean active;
+        private Date created;
+
+        static Flat create(final int seed) {
+            final Flat flat = new Flat();
+            flat.id = new ObjectId();
+            flat.name = "flat " + seed;
+            flat.count = seed;
+            flat.total = seed * 1000L;
+            flat.ratio = seed / 3.0;
+            flat.active = seed % 2 == 0;
+            flat.created = new Date();
+            return flat;
+        }
+    }
+
+    @Embedded
+    static class Address {
+        private String street;
+        private String city;
+        private String country;
+
+        Address() {
+        }
+
+        Address(final String street, final String city, final String country) {
+            this.street = street;
+            this.city = city;
+            this.country = country;
+        }
+    }
+
+    @Entity(value = "allocation_nested", noClassnameStored = true)
+    static class Nested {
+        @Id
+        private ObjectId id;
+        private Address address;
+        private List<Address> previous = new ArrayList<Address>();
+        private Map<String, Address> named = new HashMap<String, Address>();
+
+        static Nested create() {
+            final Nested nested = new Nested();
+            nested.id = new ObjectId();
+            nested.address = new Address("1 Queen Street", "Auckland", "NZ");
+            for (int i = 0; i < 3; i++) {
+                nested.previous.add(new Address(i + " Main Street", "Berlin", "DE"));
+                nested.named.put("home" + i, new Address(i + " High Street", "London", "UK"));
+            }
+            return nested;
+        }
+    }
+
+    @Entity(value = "allocation_values", noClassnameStored = true)
+    static class Values {
+        @Id
+        private ObjectId id;
+        private List<String> tags = new ArrayList<String>();
+        private Set<Integer> numbers = new HashSet<Integer>();
+        private Map<String, Long> counters = new HashMap<String, Long>();
+        private int[] scores;
+
+        static Values create() {
+            final Values values = new Values();
+            values.id = new ObjectId();
+            for (int i = 0; i < 10; i++) {
+                values.tags.add("tag" + i);
+                values.numbers.add(i);
+                values.counters.put("counter" + i, (long) i);
+            }
+            values.scores = new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+            return values;
+        }
+    }
+
+    @Embedded
+    abstract static class Shape {
+        private String color = "red";
+    }
+
+    @Embedded
+    static class Circle extends Shape {
+        private double radius = 1.5;
+    }
+
+    @Embedded
+    static class Square extends Shape {
+        private double side = 2;
+    }
+
+    @Entity(value = "allocation_drawings", noClassnameStored = true)
+    static class Drawing {
+        @Id
+        private ObjectId id;
+        private List<Shape> shapes = new ArrayList<Shape>();
+
+        static Drawing create() {
+            final Drawing drawing = new Drawing();
+            drawing.id = new ObjectId();
+            for (int i = 0; i < 5; i++) {
+                drawing.shapes.add(i % 2 == 0 ? new Circle() : new Square());
+            }
+            return drawing;
+        }
+    }
+
+    /**
+     * The references are lazy so decoding creates proxies rather than asking the server for the referenced entities.
+     */
+    @Entity(value = "allocation_libraries", noClassnameStored = true)
+    static class Library {
+        @Id
+        private ObjectId id;
+        @Reference(lazy = true)
+        private Flat owner;
+        @Reference(lazy = true)
+        private List<Flat> members = new ArrayList<Flat>();
+
+        static Library create() {
+            final Library library = new Library();
+            library.id = new ObjectId();
+            library.owner = Flat.create(0);
+            for (int i = 1; i <= 5; i++) {
+                library.members.add(Flat.create(i));
+            }
+            return library;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.mongodb.morphia.mapping;
+
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+
+public class InvolvedObjectsTest {
+
+    @Test
+    public void testEqualObjectsAreKeptApart() {
+        final Map<Object, DBObject> involved = new InvolvedObjects();
+        final Same first = new Same();
+        final Same second = new Same();
+        final DBObject firstDocument = new BasicDBObject("n", 1);
+        final DBObject secondDocument = new BasicDBObject("n", 2);
+
+        involved.put(first, firstDocument);
+        involved.put(second, secondDocument);
+
+        Assert.assertEquals(2, involved.size());
+        Assert.assertSame(firstDocument, involved.get(first));
+        Assert.assertSame(secondDocument, involved.remove(second));
+        Assert.assertFalse(involved.containsKey(second));
+        Assert.assertEquals(1, involved.size());
+    }
+
+    @Test
+    public void testIterationFollowsInsertionOrder() {
+        final Map<Object, DBObject> involved = new InvolvedObjects();
+        final List<Object> objects = new ArrayList<Object>();
+        for (int i = 0; i < 5; i++) {
+            final Object object = new Object();
+            objects.add(object);
+            involved.put(object, new BasicDBObject("n", i));
+        }
+        involved.remove(objects.get(0));
+        involved.remove(objects.get(3));
+        involved.put(objects.get(1), new BasicDBObject("n", 10));
+
+        final List<Object> keys = new ArrayList<Object>();
+        final List<Object> values = new ArrayList<Object>();
+        for (final Map.Entry<Object, DBObject> entry : involved.entrySet()) {
+            keys.add(entry.getKey());
+            values.add(entry.getValue().get("n"));
+        }
+        Assert.assertEquals(asList(objects.get(1), objects.get(2), objects.get(4)), keys);
+        Assert.assertEquals(asList((Object) 10, 2, 4), values);
+    }
+
+    private static class Same {
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Same;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.mongodb.morphia.mapping;
+
+
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.PrePersist;
+import org.mongodb.morphia.annotations.PreSave;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelEncoderTest {
+    private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<String>());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+        EVENTS.clear();
+    }
+
+    @Test
+    public void testMatchesSequentialEncoding() {
+        final Mapper mapper = new Mapper();
+        final List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new Item(i));
+        }
+
+        final Map<Object, DBObject> sequential = new LinkedHashMap<Object, DBObject>();
+        final List<DBObject> expected = new ArrayList<DBObject>();
+        for (final Item item : items) {
+            expected.add(mapper.toDBObject(item, sequential));
+        }
+        EVENTS.clear();
+
+        final Map<Object, DBObject> involvedObjects = new LinkedHashMap<Object, DBObject>();
+        final List<DBObject> documents = new ArrayList<DBObject>();
+        final Iterator<List<DBObject>> chunks = new ParallelEncoder(mapper, executor, 3).encode(items, involvedObjects);
+        int chunkCount = 0;
+        while (chunks.hasNext()) {
+            documents.addAll(chunks.next());
+            chunkCount++;
+        }
+
+        Assert.assertEquals(4, chunkCount);
+        Assert.assertEquals(expected, documents);
+        Assert.assertEquals(new ArrayList<Object>(sequential.keySet()), new ArrayList<Object>(involvedObjects.keySet()));
+
+        final List<String> expectedEvents = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            expectedEvents.add("prePersist " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            expectedEvents.add("preSave " + i);
+        }
+        Assert.assertEquals(expectedEvents, EVENTS);
+    }
+
+    @Test
+    public void testEqualEntitiesAreKeptApart() {
+        final Mapper mapper = new Mapper();
+        final List<Same> entities = new ArrayList<Same>();
+        entities.add(new Same());
+        entities.add(new Same());
+
+        final Map<Object, DBObject> involvedObjects = new InvolvedObjects();
+        final Iterator<List<DBObject>> chunks = new ParallelEncoder(mapper, executor, 2).encode(entities, involvedObjects);
+        final List<DBObject> documents = chunks.next();
+
+        Assert.assertFalse(chunks.hasNext());
+        Assert.assertEquals(2, involvedObjects.size());
+        Assert.assertSame(documents.get(0), involvedObjects.get(entities.get(0)));
+        Assert.assertSame(documents.get(1), involvedObjects.get(entities.get(1)));
+    }
+
+    @Entity("items")
+    private static class Item {
+        @Id
+        private ObjectId id = new ObjectId();
+        private int number;
+        private Detail detail;
+
+        Item() {
+        }
+
+        Item(final int number) {
+            this.number = number;
+            detail = new Detail();
+            detail.label = "item " + number;
+        }
+
+        @PrePersist
+        void prePersist() {
+            EVENTS.add("prePersist " + number);
+        }
+
+        @PreSave
+        void preSave() {
+            EVENTS.add("preSave " + number);
+        }
+    }
+
+    @Embedded
+    private static class Detail {
+        private String label;
+    }
+
+    @Entity("same")
+    private static class Same {
+        @Id
+        private ObjectId id = new ObjectId();
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Same;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
@@ -5,11 +5,14 @@ import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mongodb.morphia.TestBase;
+import org.mongodb.morphia.annotations.Embedded;
 import org.mongodb.morphia.annotations.Entity;
 import org.mongodb.morphia.annotations.Id;
 import org.mongodb.morphia.annotations.Reference;
+import org.mongodb.morphia.mapping.cache.MissingReferenceCache;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -39,6 +42,50 @@ public class ReferencesWIgnoreMissingTest extends TestBase {
 
     }
 
+    @Test
+    public void testMissingReferenceCache() throws Exception {
+        final MissingReferenceCache missingReferences = new MissingReferenceCache(100, 1, TimeUnit.MINUTES);
+        getMorphia().getMapper().getOptions().setMissingReferenceCache(missingReferences);
+        try {
+            final Container c = new Container();
+            c.refs = new StringHolder[]{new StringHolder(), new StringHolder()};
+            getDs().save(c);
+            getDs().save(c.refs[0]);
+
+            Container reloadedContainer = getDs().get(c);
+            Assert.assertEquals(1, reloadedContainer.refs.length);
+            Assert.assertEquals(1, missingReferences.size());
+
+            getDs().save(c.refs[1]);
+            Assert.assertEquals(0, missingReferences.size());
+
+            reloadedContainer = getDs().get(c);
+            Assert.assertEquals(2, reloadedContainer.refs.length);
+        } finally {
+            getMorphia().getMapper().getOptions().setMissingReferenceCache(null);
+        }
+    }
+
+    @Test
+    public void testMissingReferenceCacheWithComplexIds() throws Exception {
+        final MissingReferenceCache missingReferences = new MissingReferenceCache(100, 1, TimeUnit.MINUTES);
+        getMorphia().getMapper().getOptions().setMissingReferenceCache(missingReferences);
+        try {
+            final ComplexContainer c = new ComplexContainer();
+            c.ref = new ComplexHolder(new ComplexId("a", 1));
+            getDs().save(c);
+
+            Assert.assertNull(getDs().get(c).ref);
+            Assert.assertEquals(1, missingReferences.size());
+
+            getDs().save(c.ref);
+            Assert.assertEquals(0, missingReferences.size());
+            Assert.assertNotNull(getDs().get(c).ref);
+        } finally {
+            getMorphia().getMapper().getOptions().setMissingReferenceCache(null);
+        }
+    }
+
     @Entity
     static class Container {
         @Id
@@ -52,4 +99,39 @@ public class ReferencesWIgnoreMissingTest extends TestBase {
         @Id
         private ObjectId id = new ObjectId();
     }
+
+    @Entity
+    static class ComplexContainer {
+        @Id
+        private ObjectId id;
+        @Reference(ignoreMissing = true)
+        private ComplexHolder ref;
+    }
+
+    @Entity
+    static class ComplexHolder {
+        @Id
+        private ComplexId id;
+
+        ComplexHolder() {
+        }
+
+        ComplexHolder(final ComplexId id) {
+            this.id = id;
+        }
+    }
+
+    @Embedded
+    static class ComplexId {
+        private String name;
+        private int number;
+
+        ComplexId() {
+        }
+
+        ComplexId(final String name, final int number) {
+            this.name = name;
+            this.number = number;
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package org.mongodb.morphia.mapping.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.mapping.Mapper;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+public class EntityCacheMetricsTest {
+
+    @Test
+    public void testCountsByTypeAndCollection() {
+        final EntityCacheMetrics metrics = new EntityCacheMetrics();
+        final EntityCache first = metrics.track(new LightweightEntityCache());
+        final EntityCache second = metrics.track(new LightweightEntityCache());
+        final Key<String> string = new Key<String>(String.class, "strings", 1);
+        final Key<Integer> integer = new Key<Integer>(Integer.class, "ints", 1);
+
+        Assert.assertNull(first.getEntity(string));
+        first.putEntity(string, "one");
+        Assert.assertEquals("one", first.getEntity(string));
+        Assert.assertTrue(first.exists(string));
+        Assert.assertNull(second.getEntity(string));
+        Assert.assertNull(second.exists(integer));
+        Assert.assertNull(second.getProxy(integer));
+        second.putProxy(integer, 1);
+        Assert.assertEquals(Integer.valueOf(1), second.getProxy(integer));
+        Assert.assertNull(second.getEntity(new Key<Object>(null, "unmapped", 1)));
+
+        final EntityCacheCounts strings = metrics.getCounts(String.class);
+        Assert.assertEquals(1, strings.getEntityHits());
+        Assert.assertEquals(2, strings.getEntityMisses());
+        Assert.assertEquals(1, strings.getExistenceHits());
+        Assert.assertEquals(1, strings.getEntities());
+        Assert.assertEquals(1 / 3.0, strings.getEntityHitRatio(), 0.001);
+
+        final EntityCacheCounts ints = metrics.getTypes().get(Integer.class.getName());
+        Assert.assertEquals(1, ints.getProxyHits());
+        Assert.assertEquals(1, ints.getProxyMisses());
+        Assert.assertEquals(1, ints.getExistenceMisses());
+        Assert.assertEquals(1, ints.getEntities());
+
+        Assert.assertEquals(2, metrics.getTypes().size());
+        Assert.assertEquals(3, metrics.getCollections().size());
+        Assert.assertEquals(1, metrics.getCollections().get("unmapped").getEntityMisses());
+        Assert.assertEquals(3, metrics.getTotal().getEntityMisses());
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getTotal().getEntityHits());
+        Assert.assertTrue(metrics.getTypes().isEmpty());
+    }
+
+    @Test
+    public void testMapperTracksCaches() {
+        final Mapper mapper = new Mapper();
+        Assert.assertFalse(mapper.createEntityCache() instanceof TrackedEntityCache);
+
+        final EntityCacheMetrics metrics = new EntityCacheMetrics();
+        mapper.getOptions().setEntityCacheMetrics(metrics);
+        final EntityCache cache = mapper.createEntityCache();
+        cache.getEntity(new Key<String>(String.class, "strings", 1));
+
+        Assert.assertEquals(1, metrics.getCounts(String.class).getEntityMisses());
+        Assert.assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        final EntityCacheMetrics metrics = new EntityCacheMetrics();
+        final EntityCache cache = metrics.track(new LightweightEntityCache());
+        cache.putEntity(new Key<String>(String.class, "strings", 1), "one");
+        cache.getEntity(new Key<String>(String.class, "strings", 1));
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("org.mongodb.morphia:type=EntityCacheMetrics,name=test");
+        server.registerMBean(metrics, name);
+        try {
+            Assert.assertEquals(1L, ((CompositeData) server.getAttribute(name, "Total")).get("entityHits"));
+            final TabularData types = (TabularData) server.getAttribute(name, "Types");
+            Assert.assertEquals(1, types.size());
+            server.invoke(name, "reset", null, null);
+            Assert.assertEquals(0L, ((CompositeData) server.getAttribute(name, "Total")).get("entityHits"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
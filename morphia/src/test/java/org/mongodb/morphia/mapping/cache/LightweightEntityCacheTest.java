@@ -0,0 +1,73 @@
+package org.mongodb.morphia.mapping.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mongodb.morphia.Key;
+
+public class LightweightEntityCacheTest {
+
+    @Test
+    public void testEntitiesByCollectionAndId() {
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        final Key<String> key = new Key<String>(String.class, "strings", 1);
+
+        Assert.assertNull(cache.getEntity(key));
+        Assert.assertNull(cache.exists(key));
+
+        cache.putEntity(key, "one");
+        Assert.assertEquals("one", cache.getEntity(new Key<String>(String.class, "strings", 1)));
+        Assert.assertTrue(cache.exists(key));
+        Assert.assertNull(cache.getEntity(new Key<String>(String.class, "others", 1)));
+        Assert.assertNull(cache.getEntity(new Key<String>(String.class, "strings", 2)));
+    }
+
+    @Test
+    public void testEntitiesByType() {
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        cache.putEntity(new Key<String>(String.class, "values", 1), "one");
+
+        Assert.assertNull(cache.getEntity(new Key<Integer>(Integer.class, "values", 1)));
+        Assert.assertNull(cache.exists(new Key<Integer>(Integer.class, "values", 1)));
+        Assert.assertEquals("one", cache.getEntity(new Key<Object>(null, "values", 1)));
+
+        cache.putEntity(new Key<Integer>(Integer.class, "values", 1), 1);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("one", cache.getEntity(new Key<String>(String.class, "values", 1)));
+        Assert.assertEquals(Integer.valueOf(1), cache.getEntity(new Key<Integer>(Integer.class, "values", 1)));
+    }
+
+    @Test
+    public void testGrowth() {
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        for (int i = 0; i < 1000; i++) {
+            cache.putEntity(new Key<Integer>(Integer.class, "ints", i), i);
+        }
+        Assert.assertEquals(1000, cache.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i), cache.getEntity(new Key<Integer>(Integer.class, "ints", i)));
+        }
+    }
+
+    @Test
+    public void testExistenceAndFlush() {
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        final Key<String> key = new Key<String>(String.class, "strings", "missing");
+
+        cache.notifyExists(key, false);
+        Assert.assertFalse(cache.exists(key));
+        Assert.assertNull(cache.getEntity(key));
+
+        cache.flush();
+        Assert.assertNull(cache.exists(key));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNoIdentity() {
+        final NoIdentityEntityCache cache = new NoIdentityEntityCache();
+        final Key<String> key = new Key<String>(String.class, "strings", 1);
+        cache.putEntity(key, "one");
+        Assert.assertNull(cache.getEntity(key));
+        Assert.assertNull(cache.exists(key));
+    }
+}
@@ -0,0 +1,75 @@
+package org.mongodb.morphia.mapping.cache;
+
+import com.mongodb.BasicDBObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.util.concurrent.TimeUnit;
+
+public class MissingReferenceCacheTest {
+
+    @Test
+    public void testMarkAndInvalidate() {
+        final MissingReferenceCache cache = new MissingReferenceCache(10, 1, TimeUnit.MINUTES);
+        final Key<Object> reference = new Key<Object>(Object.class, "targets", 1);
+
+        Assert.assertFalse(cache.isMissing(reference));
+        cache.markMissing(reference);
+        Assert.assertTrue(cache.isMissing(reference));
+        // the type doesn't matter, only the collection and id
+        Assert.assertTrue(cache.isMissing(new Key<String>(String.class, "targets", 1)));
+        Assert.assertFalse(cache.isMissing(new Key<Object>(Object.class, "others", 1)));
+
+        cache.invalidate(new Key<String>(String.class, "targets", 1));
+        Assert.assertFalse(cache.isMissing(reference));
+    }
+
+    @Test
+    public void testComplexIds() {
+        final MissingReferenceCache cache = new MissingReferenceCache(10, 1, TimeUnit.MINUTES);
+        cache.markMissing(new Key<Object>(Object.class, "targets", new BasicDBObject("a", 1).append("b", 2)));
+
+        final BasicDBObject encoded = new BasicDBObject(Mapper.CLASS_NAME_FIELDNAME, "Target").append("a", 1).append("b", 2);
+        Assert.assertTrue(cache.isMissing(new Key<Object>(Object.class, "targets", encoded)));
+        cache.invalidate(new Key<Object>(Object.class, "targets", encoded));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        final MissingReferenceCache cache = new MissingReferenceCache(10, 1, TimeUnit.MILLISECONDS);
+        final Key<Object> reference = new Key<Object>(Object.class, "targets", 1);
+        cache.markMissing(reference);
+        Thread.sleep(5);
+        Assert.assertFalse(cache.isMissing(reference));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        final MissingReferenceCache cache = new MissingReferenceCache(10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            cache.markMissing(new Key<Object>(Object.class, "targets", i));
+        }
+        Assert.assertTrue(cache.size() <= 10);
+        Assert.assertTrue(cache.isMissing(new Key<Object>(Object.class, "targets", 99)));
+    }
+
+    @Test
+    public void testEvictsTheOldestFirst() {
+        final MissingReferenceCache cache = new MissingReferenceCache(3, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 3; i++) {
+            cache.markMissing(new Key<Object>(Object.class, "targets", i));
+        }
+        cache.markMissing(new Key<Object>(Object.class, "targets", 0));
+        cache.markMissing(new Key<Object>(Object.class, "targets", 3));
+
+        Assert.assertEquals(3, cache.size());
+        Assert.assertTrue(cache.isMissing(new Key<Object>(Object.class, "targets", 0)));
+        Assert.assertFalse(cache.isMissing(new Key<Object>(Object.class, "targets", 1)));
+        Assert.assertTrue(cache.isMissing(new Key<Object>(Object.class, "targets", 2)));
+        Assert.assertTrue(cache.isMissing(new Key<Object>(Object.class, "targets", 3)));
+    }
+}
@@ -0,0 +1,96 @@
+package org.mongodb.morphia.mapping.lazy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Key;
+import org.mongodb.morphia.annotations.IdGetter;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxiedEntityReference;
+import org.mongodb.morphia.mapping.lazy.proxy.ProxyHelper;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingLazyProxyFactoryTest {
+
+    @Test
+    public void testProxyClassesAreReused() {
+        final CachingLazyProxyFactory factory = new CachingLazyProxyFactory();
+        final Datastore datastore = datastore(new AtomicInteger());
+
+        final Target first = factory.createProxy(datastore, Target.class, new Key<Target>(Target.class, "targets", 1), false);
+        final Target second = factory.createProxy(datastore, Target.class, new Key<Target>(Target.class, "targets", 2), false);
+
+        Assert.assertSame(first.getClass(), second.getClass());
+        Assert.assertTrue(ProxyHelper.isProxy(first));
+        Assert.assertEquals(2, ((ProxiedEntityReference) second).__getKey().getId());
+    }
+
+    @Test
+    public void testLoadsOnceOnFirstUse() {
+        final CachingLazyProxyFactory factory = new CachingLazyProxyFactory();
+        final AtomicInteger fetches = new AtomicInteger();
+        final Target proxy = factory.createProxy(datastore(fetches), Target.class, new Key<Target>(Target.class, "targets", 42), false);
+
+        Assert.assertEquals(42, proxy.getId());
+        Assert.assertTrue(ProxyHelper.isUnFetched(proxy));
+        Assert.assertEquals(0, fetches.get());
+
+        Assert.assertEquals("loaded 42", proxy.getName());
+        Assert.assertEquals("loaded 42", proxy.getName());
+        Assert.assertTrue(ProxyHelper.isFetched(proxy));
+        Assert.assertEquals(1, fetches.get());
+        Assert.assertFalse(ProxyHelper.isProxy(ProxyHelper.unwrap(proxy)));
+    }
+
+    @Test
+    public void testCachedProxyClassesDoNotKeepTheFirstProxy() throws InterruptedException {
+        final CachingLazyProxyFactory factory = new CachingLazyProxyFactory();
+        final Datastore datastore = datastore(new AtomicInteger());
+        Target first = factory.createProxy(datastore, Target.class, new Key<Target>(Target.class, "targets", 1), false);
+        final WeakReference<Target> reference = new WeakReference<Target>(first);
+        first = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assert.assertNull(reference.get());
+        final Target second = factory.createProxy(datastore, Target.class, new Key<Target>(Target.class, "targets", 2), false);
+        Assert.assertEquals(2, second.getId());
+    }
+
+    private Datastore datastore(final AtomicInteger fetches) {
+        return (Datastore) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Datastore.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                if ("getByKey".equals(method.getName())) {
+                    fetches.incrementAndGet();
+                    final Target target = new Target();
+                    target.id = (Integer) ((Key) args[1]).getId();
+                    target.name = "loaded " + target.id;
+                    return target;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    public static class Target {
+        private int id;
+        private String name;
+
+        @IdGetter
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -71,4 +71,14 @@ public class FindOptionsTest {
         assertEquals(ReadConcern.LOCAL, options.getReadConcern());
         assertEquals(collation, options.getCollation());
     }
+
+    @Test
+    public void entityCacheWindow() {
+        FindOptions options = new FindOptions()
+            .entityCacheWindow(100);
+
+        assertEquals(100, options.getEntityCacheWindow());
+        assertEquals(100, options.copy().getEntityCacheWindow());
+        assertEquals(0, new FindOptions().getEntityCacheWindow());
+    }
 }
@@ -0,0 +1,67 @@
+package org.mongodb.morphia.query;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.mapping.Mapper;
+import org.mongodb.morphia.mapping.cache.LightweightEntityCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MorphiaIteratorTest {
+    @Test
+    public void cacheWindow() {
+        final List<DBObject> documents = new ArrayList<DBObject>();
+        for (int i = 0; i < 10; i++) {
+            documents.add(new BasicDBObject("_id", new ObjectId()).append("value", i));
+        }
+
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        final MorphiaIterator<Streamed, Streamed> iterator = new MorphiaIterator<Streamed, Streamed>(null, documents.iterator(),
+                                                                                                     new Mapper(), Streamed.class,
+                                                                                                     "streamed", cache, 4);
+        int count = 0;
+        for (final Streamed streamed : iterator) {
+            assertEquals(count++, streamed.value);
+            assertEquals(count % 4, cache.size());
+        }
+        assertEquals(10, count);
+    }
+
+    @Test
+    public void unbounded() {
+        final List<DBObject> documents = new ArrayList<DBObject>();
+        for (int i = 0; i < 10; i++) {
+            documents.add(new BasicDBObject("_id", new ObjectId()).append("value", i));
+        }
+
+        final LightweightEntityCache cache = new LightweightEntityCache();
+        final MorphiaIterator<Streamed, Streamed> iterator = new MorphiaIterator<Streamed, Streamed>(null, documents.iterator(),
+                                                                                                     new Mapper(), Streamed.class,
+                                                                                                     "streamed", cache);
+        assertEquals(10, count(iterator));
+        assertEquals(10, cache.size());
+    }
+
+    private int count(final MorphiaIterator<?, ?> iterator) {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Entity("streamed")
+    private static class Streamed {
+        @Id
+        private ObjectId id;
+        private int value;
+    }
+}
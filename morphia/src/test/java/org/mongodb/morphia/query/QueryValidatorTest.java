@@ -6,6 +6,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mongodb.morphia.Key;
+import org.mongodb.morphia.aggregation.Parameter;
 import org.mongodb.morphia.annotations.Reference;
 import org.mongodb.morphia.annotations.Serialized;
 import org.mongodb.morphia.entities.EntityWithListsAndArrays;
@@ -19,6 +20,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -52,6 +54,17 @@ public class QueryValidatorTest {
                                                           new ArrayList<ValidationFailure>()), is(true));
     }
 
+    @Test
+    public void shouldAllowTemplateParametersForAnyType() {
+        // given
+        final List<ValidationFailure> validationFailures = new ArrayList<ValidationFailure>();
+
+        // expect
+        assertThat(QueryValidator.isCompatibleForOperator(null, null, Date.class, EQUAL, Parameter.named("since"), validationFailures),
+                   is(true));
+        assertThat(validationFailures.size(), is(0));
+    }
+
     // All of the following tests are whitebox, as I have retrofitted them afterwards.  I have no idea if this is the required
     // functionality or not
 
@@ -30,6 +30,9 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mongodb.morphia.Key;
+import org.mongodb.morphia.PlanListener;
+import org.mongodb.morphia.PlanProfiler;
+import org.mongodb.morphia.PlanSummary;
 import org.mongodb.morphia.TestBase;
 import org.mongodb.morphia.TestDatastore.FacebookUser;
 import org.mongodb.morphia.TestDatastore.KeysKeysKeys;
@@ -624,6 +627,28 @@ public class TestQuery extends TestBase {
                                                   : ((Map) explainResult.get("executionStats")).get("nReturned"));
     }
 
+    @Test
+    public void testCountIsProfiledAsACount() {
+        checkMinServerVersion(3.0);
+        getDs().save(asList(new Pic("pic1"), new Pic("pic2")));
+        final List<PlanSummary> plans = new ArrayList<PlanSummary>();
+        getAds().setPlanProfiler(new PlanProfiler(new PlanListener() {
+            @Override
+            public void planExplained(final PlanSummary summary) {
+                plans.add(summary);
+            }
+        }).sampleEvery(1));
+        try {
+            assertEquals(1, getDs().find(Pic.class).field("name").equal("pic1").count());
+        } finally {
+            getAds().setPlanProfiler(null);
+        }
+
+        assertEquals(1, plans.size());
+        assertEquals("count", plans.get(0).getOperation());
+        assertEquals("COUNT", plans.get(0).getRoot().getName());
+    }
+
     @Test
     public void testFetchEmptyEntities() {
         PhotoWithKeywords pwk1 = new PhotoWithKeywords("california", "nevada", "arizona");
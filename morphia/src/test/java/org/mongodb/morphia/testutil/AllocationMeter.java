@@ -0,0 +1,63 @@
+package org.mongodb.morphia.testutil;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes the current thread allocates per call of an action using the allocation counters of HotSpot's {@code ThreadMXBean}.
+ * The action is warmed up first so class loading and the first compilations aren't counted, then run for several rounds of which the
+ * cheapest is reported since the counters also pick up the occasional allocation made by the JVM on the thread's behalf.
+ */
+public final class AllocationMeter {
+    private static final int ROUNDS = 5;
+
+    private final com.sun.management.ThreadMXBean bean;
+    private final int warmup;
+    private final int iterations;
+
+    /**
+     * @param warmup     the number of calls made before measuring
+     * @param iterations the number of calls in each measured round
+     */
+    public AllocationMeter(final int warmup, final int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            bean = (com.sun.management.ThreadMXBean) threads;
+            bean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            bean = null;
+        }
+    }
+
+    /**
+     * @return true if the JVM counts the bytes allocated by each thread
+     */
+    public boolean isSupported() {
+        return bean != null;
+    }
+
+    /**
+     * @param action the action to measure
+     * @return the bytes allocated per call
+     */
+    public long bytesPerCall(final Runnable action) {
+        if (bean == null) {
+            throw new UnsupportedOperationException("This JVM does not count the bytes allocated by threads");
+        }
+        final long thread = Thread.currentThread().getId();
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+        long cheapest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = bean.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < iterations; i++) {
+                action.run();
+            }
+            cheapest = Math.min(cheapest, bean.getThreadAllocatedBytes(thread) - start);
+        }
+        return cheapest / iterations;
+    }
+}
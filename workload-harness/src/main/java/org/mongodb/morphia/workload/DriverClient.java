@@ -0,0 +1,121 @@
+package org.mongodb.morphia.workload;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import org.mongodb.morphia.workload.model.Order;
+import org.mongodb.morphia.workload.model.Person;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the operations through the driver, reading and writing the documents Morphia maps the entities to.  Each operation does what an
+ * application using the driver directly would; the references of an order are resolved with one query per referenced collection.
+ */
+public class DriverClient implements WorkloadClient {
+    private final DB database;
+    private final DBCollection people;
+    private final DBCollection orders;
+    private final WorkloadOptions options;
+    private final AtomicLong ids;
+
+    /**
+     * @param database the database loaded by the runner
+     * @param options  the options of the run
+     * @param ids      the source of the ids of new people, shared with the other clients
+     */
+    public DriverClient(final DB database, final WorkloadOptions options, final AtomicLong ids) {
+        this.database = database;
+        this.options = options;
+        this.ids = ids;
+        people = database.getCollection("people");
+        orders = database.getCollection("orders");
+    }
+
+    /**
+     * Builds the document {@link Person#create(long, Random)} maps to, drawing the same random values.
+     *
+     * @param id     the id
+     * @param random the source of the values
+     * @return the document
+     */
+    static DBObject person(final long id, final Random random) {
+        final BasicDBObject person = new BasicDBObject("_id", id)
+                                         .append("name", "Person " + id)
+                                         .append("email", "person" + id + "@example.com")
+                                         .append("age", random.nextInt(Person.AGES))
+                                         .append("score", random.nextDouble() * 1000)
+                                         .append("created", new Date());
+        final BasicDBList tags = new BasicDBList();
+        for (int i = 0; i < 5; i++) {
+            tags.add("tag" + random.nextInt(100));
+        }
+        return person.append("tags", tags);
+    }
+
+    @Override
+    public String getName() {
+        return "driver";
+    }
+
+    @Override
+    public void execute(final Operation operation, final Random random) {
+        switch (operation) {
+            case GET:
+                people.findOne(new BasicDBObject("_id", (long) random.nextInt(options.getRecords())));
+                break;
+            case QUERY:
+                people.find(new BasicDBObject("age", random.nextInt(Person.AGES)))
+                      .sort(new BasicDBObject("score", -1))
+                      .limit(options.getLimit())
+                      .toArray();
+                break;
+            case SAVE:
+                people.save(person(ids.getAndIncrement(), random));
+                break;
+            case UPDATE:
+                people.update(new BasicDBObject("_id", (long) random.nextInt(options.getRecords())),
+                              new BasicDBObject("$inc", new BasicDBObject("score", 1))
+                                  .append("$set", new BasicDBObject("updated", new Date())));
+                break;
+            case BULK_INSERT:
+                final List<DBObject> batch = new ArrayList<DBObject>(options.getBatch());
+                for (int i = 0; i < options.getBatch(); i++) {
+                    batch.add(person(ids.getAndIncrement(), random));
+                }
+                people.insert(batch);
+                break;
+            case REFERENCES:
+                references((long) random.nextInt(options.getRecords()));
+                break;
+            default:
+                throw new UnsupportedOperationException(operation.toString());
+        }
+    }
+
+    private void references(final long id) {
+        final DBObject order = orders.findOne(new BasicDBObject("_id", id));
+        final DBRef customer = (DBRef) order.get("customer");
+        database.getCollection(customer.getCollectionName()).findOne(new BasicDBObject("_id", customer.getId()));
+
+        final List<?> products = (List<?>) order.get("products");
+        final List<Object> productIds = new ArrayList<Object>(Order.PRODUCTS);
+        String collection = null;
+        for (final Object product : products) {
+            collection = ((DBRef) product).getCollectionName();
+            productIds.add(((DBRef) product).getId());
+        }
+        if (collection != null) {
+            database.getCollection(collection)
+                    .find(new BasicDBObject("_id", new BasicDBObject("$in", productIds)))
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.mongodb.morphia.workload;
+
+import java.util.Arrays;
+
+/**
+ * The latencies recorded for one operation.  Recording isn't thread safe so each thread records into its own instance and the instances
+ * are merged once the threads are done.
+ */
+public class Latencies {
+    private long[] nanos = new long[1024];
+    private int count;
+    private boolean sorted = true;
+
+    /**
+     * @param latency the latency of an operation in nanoseconds
+     */
+    public void record(final long latency) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latency;
+        sorted = false;
+    }
+
+    /**
+     * @param other the latencies to add to these
+     */
+    public void merge(final Latencies other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(count + other.count, count * 2));
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        sorted = false;
+    }
+
+    /**
+     * @return the number of recorded latencies
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean latency in nanoseconds or 0 if none were recorded
+     */
+    public double getMean() {
+        if (count == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += nanos[i];
+        }
+        return total / count;
+    }
+
+    /**
+     * Finds the latency below which the given share of the latencies fall, using the nearest rank.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in nanoseconds or 0 if none were recorded
+     */
+    public long getPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("A percentile must be between 0 and 100 but was " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(nanos, 0, count);
+            sorted = true;
+        }
+        final int rank = (int) Math.ceil(percentile / 100 * count);
+        return nanos[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * @return the longest latency in nanoseconds or 0 if none were recorded
+     */
+    public long getMax() {
+        return getPercentile(100);
+    }
+}
@@ -0,0 +1,74 @@
+package org.mongodb.morphia.workload;
+
+import org.mongodb.morphia.AdvancedDatastore;
+import org.mongodb.morphia.query.FindOptions;
+import org.mongodb.morphia.workload.model.Order;
+import org.mongodb.morphia.workload.model.Person;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the operations through a {@link AdvancedDatastore}.
+ */
+public class MorphiaClient implements WorkloadClient {
+    private final AdvancedDatastore datastore;
+    private final WorkloadOptions options;
+    private final AtomicLong ids;
+
+    /**
+     * @param datastore the datastore
+     * @param options   the options of the run
+     * @param ids       the source of the ids of new people, shared with the other clients
+     */
+    public MorphiaClient(final AdvancedDatastore datastore, final WorkloadOptions options, final AtomicLong ids) {
+        this.datastore = datastore;
+        this.options = options;
+        this.ids = ids;
+    }
+
+    @Override
+    public String getName() {
+        return "morphia";
+    }
+
+    @Override
+    public void execute(final Operation operation, final Random random) {
+        switch (operation) {
+            case GET:
+                datastore.get(Person.class, (long) random.nextInt(options.getRecords()));
+                break;
+            case QUERY:
+                datastore.find(Person.class)
+                         .field("age").equal(random.nextInt(Person.AGES))
+                         .order("-score")
+                         .asList(new FindOptions().limit(options.getLimit()));
+                break;
+            case SAVE:
+                datastore.save(Person.create(ids.getAndIncrement(), random));
+                break;
+            case UPDATE:
+                datastore.update(datastore.find(Person.class).field("_id").equal((long) random.nextInt(options.getRecords())),
+                                 datastore.createUpdateOperations(Person.class)
+                                          .inc("score", 1)
+                                          .set("updated", new Date()));
+                break;
+            case BULK_INSERT:
+                final List<Person> people = new ArrayList<Person>(options.getBatch());
+                for (int i = 0; i < options.getBatch(); i++) {
+                    people.add(Person.create(ids.getAndIncrement(), random));
+                }
+                datastore.insert(people);
+                break;
+            case REFERENCES:
+                // the references aren't lazy so they are resolved by the get
+                datastore.get(Order.class, (long) random.nextInt(options.getRecords()));
+                break;
+            default:
+                throw new UnsupportedOperationException(operation.toString());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.mongodb.morphia.workload;
+
+/**
+ * The operations a workload mixes, named by the keys used in the {@code --mix} option.
+ */
+public enum Operation {
+    /**
+     * Loads a person by id
+     */
+    GET("get"),
+    /**
+     * Loads the people of an age, sorted by score and limited
+     */
+    QUERY("query"),
+    /**
+     * Saves a new person
+     */
+    SAVE("save"),
+    /**
+     * Increments the score of a person and sets the time of the update
+     */
+    UPDATE("update"),
+    /**
+     * Inserts a batch of new people
+     */
+    BULK_INSERT("bulk"),
+    /**
+     * Loads an order and resolves its references to a customer and its products
+     */
+    REFERENCES("references");
+
+    private final String key;
+
+    Operation(final String key) {
+        this.key = key;
+    }
+
+    /**
+     * @param key the key of an operation
+     * @return the operation
+     * @throws IllegalArgumentException if there is no operation with the key
+     */
+    public static Operation fromKey(final String key) {
+        for (final Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+
+    /**
+     * @return the key naming the operation in a mix
+     */
+    public String getKey() {
+        return key;
+    }
+}
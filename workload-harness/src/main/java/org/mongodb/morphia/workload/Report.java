@@ -0,0 +1,86 @@
+package org.mongodb.morphia.workload;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Collects the latencies measured for each client and prints them per operation, followed by the overhead of Morphia relative to the
+ * driver.  Latencies are printed in microseconds.
+ */
+public class Report {
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private final Map<String, Map<Operation, Latencies>> clients = new LinkedHashMap<String, Map<Operation, Latencies>>();
+    private final Map<String, Long> elapsed = new LinkedHashMap<String, Long>();
+
+    /**
+     * @param client    the name of the client
+     * @param latencies the latencies of each operation
+     * @param nanos     how long the measured phase took
+     */
+    public void add(final String client, final Map<Operation, Latencies> latencies, final long nanos) {
+        clients.put(client, new EnumMap<Operation, Latencies>(latencies));
+        elapsed.put(client, nanos);
+    }
+
+    /**
+     * Computes how much slower the first client is than the second, comparing the medians or the means.
+     *
+     * @param client    the client to compare
+     * @param baseline  the client to compare with
+     * @param operation the operation
+     * @param median    true to compare the medians and false to compare the means
+     * @return the overhead in percent, or NaN if either client didn't run the operation
+     */
+    public double overhead(final String client, final String baseline, final Operation operation, final boolean median) {
+        final Latencies measured = clients.get(client).get(operation);
+        final Latencies base = clients.get(baseline).get(operation);
+        if (measured == null || base == null || measured.getCount() == 0 || base.getCount() == 0) {
+            return Double.NaN;
+        }
+        final double value = median ? measured.getPercentile(50) : measured.getMean();
+        final double reference = median ? base.getPercentile(50) : base.getMean();
+        return (value - reference) * 100 / reference;
+    }
+
+    /**
+     * @param out the stream to print to
+     */
+    public void print(final PrintStream out) {
+        out.println(format("%-8s %-10s %9s %10s %9s %9s %9s %9s %9s %11s", "client", "operation", "count", "mean", "p50", "p95", "p99",
+                           "p99.9", "max", "ops/s"));
+        for (final Map.Entry<String, Map<Operation, Latencies>> client : clients.entrySet()) {
+            int total = 0;
+            for (final Map.Entry<Operation, Latencies> entry : client.getValue().entrySet()) {
+                final Latencies latencies = entry.getValue();
+                total += latencies.getCount();
+                final StringBuilder row = new StringBuilder(format("%-8s %-10s %9d %10.1f", client.getKey(), entry.getKey().getKey(),
+                                                                   latencies.getCount(), latencies.getMean() / 1000));
+                for (final double percentile : PERCENTILES) {
+                    row.append(format(" %9.1f", latencies.getPercentile(percentile) / 1000.0));
+                }
+                row.append(format(" %9.1f", latencies.getMax() / 1000.0));
+                out.println(row);
+            }
+            out.println(format("%-8s %-10s %9d %71.0f", client.getKey(), "all", total,
+                               total * 1e9 / elapsed.get(client.getKey())));
+        }
+
+        if (clients.containsKey("morphia") && clients.containsKey("driver")) {
+            out.println();
+            out.println("Morphia overhead relative to the driver");
+            out.println(format("%-10s %10s %10s", "operation", "p50", "mean"));
+            for (final Operation operation : Operation.values()) {
+                final double median = overhead("morphia", "driver", operation, true);
+                if (!Double.isNaN(median)) {
+                    out.println(format("%-10s %9.1f%% %9.1f%%", operation.getKey(), median,
+                                       overhead("morphia", "driver", operation, false)));
+                }
+            }
+        }
+    }
+}
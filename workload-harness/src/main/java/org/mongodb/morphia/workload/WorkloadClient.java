@@ -0,0 +1,22 @@
+package org.mongodb.morphia.workload;
+
+import java.util.Random;
+
+/**
+ * Runs the operations of a workload through one way of talking to the server.  Clients are shared by the threads of a run.
+ */
+public interface WorkloadClient {
+    /**
+     * @return the name of the client in the report
+     */
+    String getName();
+
+    /**
+     * Runs an operation.  The random source picks the records the operation reads and the values it writes so a client given the same
+     * sequence of random values as another does the same work.
+     *
+     * @param operation the operation
+     * @param random    the random source of the calling thread
+     */
+    void execute(Operation operation, Random random);
+}
@@ -0,0 +1,223 @@
+package org.mongodb.morphia.workload;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static java.lang.String.format;
+
+/**
+ * The options of a run, parsed from {@code --name=value} arguments.
+ */
+public class WorkloadOptions {
+    /**
+     * The options and their defaults, as printed by {@code --help}
+     */
+    public static final String USAGE = "Options:\n"
+                                       + "  --uri=mongodb://localhost:27017  the server to run against\n"
+                                       + "  --database=morphia_workload      the database to load, which is dropped first\n"
+                                       + "  --records=10000                  the number of people and orders loaded\n"
+                                       + "  --operations=100000              the number of measured operations per client\n"
+                                       + "  --warmup=10000                   the number of operations run per client before measuring\n"
+                                       + "  --threads=4                      the number of threads running operations\n"
+                                       + "  --batch=100                      the number of people inserted by a bulk insert\n"
+                                       + "  --limit=20                       the number of people a query returns at most\n"
+                                       + "  --seed=42                        the seed of the random choices, shared by both clients\n"
+                                       + "  --mix=get:50,query:15,save:10,update:15,bulk:5,references:5\n"
+                                       + "                                   the relative weight of each operation\n";
+
+    private String uri = "mongodb://localhost:27017";
+    private String database = "morphia_workload";
+    private int records = 10000;
+    private int operations = 100000;
+    private int warmup = 10000;
+    private int threads = 4;
+    private int batch = 100;
+    private int limit = 20;
+    private long seed = 42;
+    private final Map<Operation, Integer> mix = new EnumMap<Operation, Integer>(Operation.class);
+    private int totalWeight;
+    private boolean help;
+
+    /**
+     * Creates the default options
+     */
+    public WorkloadOptions() {
+        mix("get:50,query:15,save:10,update:15,bulk:5,references:5");
+    }
+
+    /**
+     * @param args the arguments of the runner
+     * @return the options
+     * @throws IllegalArgumentException if an argument is unknown or its value is invalid
+     */
+    public static WorkloadOptions parse(final String... args) {
+        final WorkloadOptions options = new WorkloadOptions();
+        for (final String arg : args) {
+            if ("--help".equals(arg)) {
+                options.help = true;
+                continue;
+            }
+            final int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.set(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private void set(final String name, final String value) {
+        if ("uri".equals(name)) {
+            uri = value;
+        } else if ("database".equals(name)) {
+            database = value;
+        } else if ("records".equals(name)) {
+            records = positive(name, value);
+        } else if ("operations".equals(name)) {
+            operations = positive(name, value);
+        } else if ("warmup".equals(name)) {
+            warmup = Integer.parseInt(value);
+        } else if ("threads".equals(name)) {
+            threads = positive(name, value);
+        } else if ("batch".equals(name)) {
+            batch = positive(name, value);
+        } else if ("limit".equals(name)) {
+            limit = positive(name, value);
+        } else if ("seed".equals(name)) {
+            seed = Long.parseLong(value);
+        } else if ("mix".equals(name)) {
+            mix(value);
+        } else {
+            throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    private static int positive(final String name, final String value) {
+        final int number = Integer.parseInt(value);
+        if (number <= 0) {
+            throw new IllegalArgumentException(format("--%s must be positive but was %d", name, number));
+        }
+        return number;
+    }
+
+    private void mix(final String value) {
+        mix.clear();
+        totalWeight = 0;
+        for (final String entry : value.split(",")) {
+            final String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+            }
+            final int weight = Integer.parseInt(parts[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("The weight of an operation can not be negative: " + entry);
+            }
+            mix.put(Operation.fromKey(parts[0]), weight);
+            totalWeight += weight;
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a weight: " + value);
+        }
+    }
+
+    /**
+     * Picks the next operation in proportion to the weights of the mix.
+     *
+     * @param random the random source of the calling thread
+     * @return the operation
+     */
+    public Operation next(final Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (final Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("The weights of the mix do not add up");
+    }
+
+    /**
+     * @return the server to run against
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the database to load
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the number of people and orders loaded
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the number of measured operations per client
+     */
+    public int getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return the number of operations run per client before measuring
+     */
+    public int getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * @return the number of threads running operations
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of people inserted by a bulk insert
+     */
+    public int getBatch() {
+        return batch;
+    }
+
+    /**
+     * @return the number of people a query returns at most
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the seed of the random choices
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the weight of each operation in the mix
+     */
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    /**
+     * @return true if the usage was asked for
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    @Override
+    public String toString() {
+        return format("records=%d, operations=%d, warmup=%d, threads=%d, batch=%d, limit=%d, seed=%d, mix=%s", records, operations,
+                      warmup, threads, batch, limit, seed, mix);
+    }
+}
@@ -0,0 +1,201 @@
+package org.mongodb.morphia.workload;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import org.mongodb.morphia.AdvancedDatastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.workload.model.Customer;
+import org.mongodb.morphia.workload.model.Order;
+import org.mongodb.morphia.workload.model.Person;
+import org.mongodb.morphia.workload.model.Product;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Loads a database and runs the same mix of operations through the driver and through Morphia, one client after the other.  Each thread
+ * of a client draws its operations from a random source seeded the same way for both clients, so both run the same sequence of
+ * operations on the same records.  Writes made by the first client are visible to the second; they add records which neither client
+ * reads by id.
+ */
+public final class WorkloadRunner {
+    private static final int LOAD_BATCH = 1000;
+
+    private final WorkloadOptions options;
+    private final PrintStream out;
+
+    private WorkloadRunner(final WorkloadOptions options, final PrintStream out) {
+        this.options = options;
+        this.out = out;
+    }
+
+    /**
+     * Runs a workload.
+     *
+     * @param args the options, listed by {@code --help}
+     * @throws Exception if the workload fails
+     */
+    public static void main(final String[] args) throws Exception {
+        final PrintStream out = System.out;
+        final WorkloadOptions options;
+        try {
+            options = WorkloadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            final PrintStream err = System.err;
+            err.println(e.getMessage());
+            err.print(WorkloadOptions.USAGE);
+            System.exit(1);
+            return;
+        }
+        if (options.isHelp()) {
+            out.print(WorkloadOptions.USAGE);
+            return;
+        }
+        new WorkloadRunner(options, out).run();
+    }
+
+    private void run() throws InterruptedException, ExecutionException {
+        final MongoClient mongoClient = new MongoClient(new MongoClientURI(options.getUri()));
+        try {
+            final Morphia morphia = new Morphia().map(Person.class, Customer.class, Product.class, Order.class);
+            final AdvancedDatastore datastore = (AdvancedDatastore) morphia.createDatastore(mongoClient, options.getDatabase());
+            out.println(format("Loading %d records into %s", options.getRecords(), options.getDatabase()));
+            load(datastore);
+
+            final AtomicLong ids = new AtomicLong(options.getRecords());
+            final List<WorkloadClient> clients = new ArrayList<WorkloadClient>();
+            clients.add(new DriverClient(datastore.getDB(), options, ids));
+            clients.add(new MorphiaClient(datastore, options, ids));
+
+            out.println("Running " + options);
+            final Report report = new Report();
+            for (final WorkloadClient client : clients) {
+                measure(client, options.getWarmup(), options.getSeed() - 1);
+                final long start = System.nanoTime();
+                final Map<Operation, Latencies> latencies = measure(client, options.getOperations(), options.getSeed());
+                report.add(client.getName(), latencies, System.nanoTime() - start);
+            }
+            out.println();
+            report.print(out);
+        } finally {
+            mongoClient.close();
+        }
+    }
+
+    /**
+     * Drops the database and loads the people, products, customers and orders.  There is a customer for every ten orders and each order
+     * references products from a catalogue a tenth the size of the orders.
+     */
+    private void load(final AdvancedDatastore datastore) {
+        datastore.getDB().dropDatabase();
+        datastore.ensureIndexes();
+
+        final Random random = new Random(options.getSeed());
+        final int records = options.getRecords();
+        final int customers = Math.max(1, records / 10);
+        final int products = Math.max(Order.PRODUCTS, records / 10);
+
+        final List<Object> batch = new ArrayList<Object>(LOAD_BATCH);
+        for (int i = 0; i < records; i++) {
+            batch.add(Person.create(i, random));
+            flush(datastore, batch, i == records - 1);
+        }
+        final List<Customer> customerList = new ArrayList<Customer>(customers);
+        for (int i = 0; i < customers; i++) {
+            customerList.add(Customer.create(i));
+            batch.add(customerList.get(i));
+            flush(datastore, batch, i == customers - 1);
+        }
+        final List<Product> productList = new ArrayList<Product>(products);
+        for (int i = 0; i < products; i++) {
+            productList.add(Product.create(i));
+            batch.add(productList.get(i));
+            flush(datastore, batch, i == products - 1);
+        }
+        for (int i = 0; i < records; i++) {
+            final List<Product> ordered = new ArrayList<Product>(Order.PRODUCTS);
+            for (int j = 0; j < Order.PRODUCTS; j++) {
+                ordered.add(productList.get(random.nextInt(products)));
+            }
+            batch.add(Order.create(i, customerList.get(i % customers), ordered));
+            flush(datastore, batch, i == records - 1);
+        }
+    }
+
+    private static void flush(final AdvancedDatastore datastore, final List<Object> batch, final boolean last) {
+        if (batch.size() == LOAD_BATCH || last && !batch.isEmpty()) {
+            datastore.insert(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Runs operations on the configured number of threads and collects their latencies.
+     */
+    private Map<Operation, Latencies> measure(final WorkloadClient client, final int operations, final long seed)
+        throws InterruptedException, ExecutionException {
+        final int threads = options.getThreads();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Map<Operation, Latencies>>> futures = new ArrayList<Future<Map<Operation, Latencies>>>();
+            for (int i = 0; i < threads; i++) {
+                final int share = operations / threads + (i < operations % threads ? 1 : 0);
+                futures.add(executor.submit(new Worker(client, share, new Random(seed * 31 + i))));
+            }
+            final Map<Operation, Latencies> merged = new EnumMap<Operation, Latencies>(Operation.class);
+            for (final Future<Map<Operation, Latencies>> future : futures) {
+                for (final Map.Entry<Operation, Latencies> entry : future.get().entrySet()) {
+                    if (!merged.containsKey(entry.getKey())) {
+                        merged.put(entry.getKey(), new Latencies());
+                    }
+                    merged.get(entry.getKey()).merge(entry.getValue());
+                }
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Worker implements Callable<Map<Operation, Latencies>> {
+        private final WorkloadClient client;
+        private final int operations;
+        private final Random random;
+
+        private Worker(final WorkloadClient client, final int operations, final Random random) {
+            this.client = client;
+            this.operations = operations;
+            this.random = random;
+        }
+
+        @Override
+        public Map<Operation, Latencies> call() {
+            final Map<Operation, Latencies> latencies = new EnumMap<Operation, Latencies>(Operation.class);
+            for (int i = 0; i < operations; i++) {
+                final Operation operation = options.next(random);
+                final long start = System.nanoTime();
+                client.execute(operation, random);
+                final long nanos = System.nanoTime() - start;
+                Latencies recorded = latencies.get(operation);
+                if (recorded == null) {
+                    recorded = new Latencies();
+                    latencies.put(operation, recorded);
+                }
+                recorded.record(nanos);
+            }
+            return latencies;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.mongodb.morphia.workload.model;
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+/**
+ * The customer an {@link Order} references.
+ */
+@Entity(value = "customers", noClassnameStored = true)
+public class Customer {
+    @Id
+    private long id;
+    private String name;
+    private String country;
+
+    /**
+     * @param id the id
+     * @return a customer with every field set
+     */
+    public static Customer create(final long id) {
+        final Customer customer = new Customer();
+        customer.id = id;
+        customer.name = "Customer " + id;
+        customer.country = id % 2 == 0 ? "NZ" : "DE";
+        return customer;
+    }
+}
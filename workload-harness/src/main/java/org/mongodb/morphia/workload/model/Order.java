@@ -0,0 +1,50 @@
+package org.mongodb.morphia.workload.model;
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An entity whose reads resolve a reference to a customer and a list of references to products.
+ */
+@Entity(value = "orders", noClassnameStored = true)
+public class Order {
+    /**
+     * The number of products on each order
+     */
+    public static final int PRODUCTS = 5;
+
+    @Id
+    private long id;
+    @Reference
+    private Customer customer;
+    @Reference
+    private List<Product> products = new ArrayList<Product>();
+    private Date placed;
+
+    /**
+     * @param id       the id
+     * @param customer the customer
+     * @param products the products
+     * @return an order
+     */
+    public static Order create(final long id, final Customer customer, final List<Product> products) {
+        final Order order = new Order();
+        order.id = id;
+        order.customer = customer;
+        order.products.addAll(products);
+        order.placed = new Date();
+        return order;
+    }
+
+    /**
+     * @return the products
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,60 @@
+package org.mongodb.morphia.workload.model;
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Field;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Index;
+import org.mongodb.morphia.annotations.Indexes;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The record most operations read and write, about the size of a YCSB record.
+ */
+@Entity(value = "people", noClassnameStored = true)
+@Indexes(@Index(fields = {@Field("age"), @Field(value = "score", type = org.mongodb.morphia.utils.IndexType.DESC)}))
+public class Person {
+    /**
+     * The number of distinct ages, which sets how many people a query on an age matches
+     */
+    public static final int AGES = 80;
+
+    @Id
+    private long id;
+    private String name;
+    private String email;
+    private int age;
+    private double score;
+    private Date created;
+    private Date updated;
+    private List<String> tags = new ArrayList<String>();
+
+    /**
+     * @param id     the id
+     * @param random the source of the values
+     * @return a person with every field set
+     */
+    public static Person create(final long id, final Random random) {
+        final Person person = new Person();
+        person.id = id;
+        person.name = "Person " + id;
+        person.email = "person" + id + "@example.com";
+        person.age = random.nextInt(AGES);
+        person.score = random.nextDouble() * 1000;
+        person.created = new Date();
+        for (int i = 0; i < 5; i++) {
+            person.tags.add("tag" + random.nextInt(100));
+        }
+        return person;
+    }
+
+    /**
+     * @return the id
+     */
+    public long getId() {
+        return id;
+    }
+}
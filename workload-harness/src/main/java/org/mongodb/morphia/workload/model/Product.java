@@ -0,0 +1,27 @@
+package org.mongodb.morphia.workload.model;
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+
+/**
+ * A product an {@link Order} references.
+ */
+@Entity(value = "products", noClassnameStored = true)
+public class Product {
+    @Id
+    private long id;
+    private String name;
+    private double price;
+
+    /**
+     * @param id the id
+     * @return a product with every field set
+     */
+    public static Product create(final long id) {
+        final Product product = new Product();
+        product.id = id;
+        product.name = "Product " + id;
+        product.price = 1 + id % 100;
+        return product;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The entities the workloads read and write.
+ */
+package org.mongodb.morphia.workload.model;
@@ -0,0 +1,4 @@
+/**
+ * A load generator comparing the latency of operations run through Morphia with the same operations run through the driver.
+ */
+package org.mongodb.morphia.workload;
@@ -0,0 +1,30 @@
+package org.mongodb.morphia.workload;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatenciesTest {
+    @Test
+    public void mergeAndPercentiles() {
+        final Latencies first = new Latencies();
+        final Latencies second = new Latencies();
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? first : second).record(i);
+        }
+        first.merge(second);
+        assertEquals(1000, first.getCount());
+        assertEquals(500, first.getPercentile(50));
+        assertEquals(990, first.getPercentile(99));
+        assertEquals(1000, first.getMax());
+        assertEquals(500.5, first.getMean(), 0.001);
+    }
+
+    @Test
+    public void empty() {
+        final Latencies latencies = new Latencies();
+        assertEquals(0, latencies.getCount());
+        assertEquals(0, latencies.getPercentile(99));
+        assertEquals(0, latencies.getMean(), 0);
+    }
+}
@@ -0,0 +1,62 @@
+package org.mongodb.morphia.workload;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorkloadOptionsTest {
+    @Test
+    public void defaults() {
+        final WorkloadOptions options = WorkloadOptions.parse();
+        assertEquals("mongodb://localhost:27017", options.getUri());
+        assertEquals(10000, options.getRecords());
+        assertEquals(4, options.getThreads());
+        assertEquals(Operation.values().length, options.getMix().size());
+        assertFalse(options.isHelp());
+    }
+
+    @Test
+    public void parse() {
+        final WorkloadOptions options = WorkloadOptions.parse("--threads=8", "--records=500", "--mix=get:3,update:1", "--help");
+        assertEquals(8, options.getThreads());
+        assertEquals(500, options.getRecords());
+        assertEquals(2, options.getMix().size());
+        assertEquals(Integer.valueOf(3), options.getMix().get(Operation.GET));
+        assertTrue(options.isHelp());
+    }
+
+    @Test
+    public void mixWeights() {
+        final WorkloadOptions options = WorkloadOptions.parse("--mix=get:3,update:1,save:0");
+        final Map<Operation, Integer> counts = new EnumMap<Operation, Integer>(Operation.class);
+        final Random random = new Random(1);
+        for (int i = 0; i < 4000; i++) {
+            final Operation operation = options.next(random);
+            counts.put(operation, counts.containsKey(operation) ? counts.get(operation) + 1 : 1);
+        }
+        assertEquals(2, counts.size());
+        assertEquals(3000, counts.get(Operation.GET), 150);
+        assertEquals(1000, counts.get(Operation.UPDATE), 150);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOption() {
+        WorkloadOptions.parse("--thread=8");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOperation() {
+        WorkloadOptions.parse("--mix=get:1,delete:1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyMix() {
+        WorkloadOptions.parse("--mix=get:0");
+    }
+}